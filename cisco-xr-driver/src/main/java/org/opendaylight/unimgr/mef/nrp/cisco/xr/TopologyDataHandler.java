@@ -20,6 +20,7 @@ import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.MoreExecutors;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
@@ -195,7 +196,7 @@ public class TopologyDataHandler implements DataTreeChangeListener<Node> {
                 }).collect(Collectors.toList());
         try {
             onAddedNodes(addedNodes);
-        } catch (ReadFailedException e) {
+        } catch (ReadFailedException | IllegalArgumentException e) {
             // TODO improve error handling
             LOG.error("error while processing new Cisco nodes", e);
         }
@@ -209,20 +210,24 @@ public class TopologyDataHandler implements DataTreeChangeListener<Node> {
 
         final ReadWriteTransaction topoTx = dataBroker.newReadWriteTransaction();
         NrpDao dao = new NrpDao(topoTx);
-        toTp(added).forEach(nep -> {
+        List<ServiceInterfacePoint> sips = new ArrayList<>();
+        List<OwnedNodeEdgePoint> neps = toTp(added).stream().map(nep -> {
 
             ServiceInterfacePoint sip = new ServiceInterfacePointBuilder()
                     .setUuid(new Uuid("sip:" + nep.getUuid().getValue()))
                     // .setState(St)
                     .setLayerProtocolName(Collections.singletonList(LayerProtocolName.ETH)).build();
-            dao.addSip(sip);
+            sips.add(sip);
             MappedServiceInterfacePoint sipRef =
                     TapiUtils.toSipRef(sip.getUuid(), MappedServiceInterfacePoint.class);
-            nep = new OwnedNodeEdgePointBuilder(nep)
-                    .setMappedServiceInterfacePoint(Collections.singletonList(sipRef)).build();
             LOG.trace("Adding nep {} to {} node", nep.getUuid(), XrDriverBuilder.XR_NODE);
-            dao.updateNep(XrDriverBuilder.XR_NODE, nep);
-        });
+            return new OwnedNodeEdgePointBuilder(nep)
+                    .setMappedServiceInterfacePoint(Collections.singletonList(sipRef)).build();
+        }).collect(Collectors.toList());
+
+        //one modification for all SIPs and one for all NEPs of the node, NEPs keep their connection end points
+        dao.addSips(sips);
+        dao.upsertNeps(XrDriverBuilder.XR_NODE, neps);
 
         Futures.addCallback(topoTx.commit(), new FutureCallback<CommitInfo>() {
 
@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2018 Cisco Systems Inc and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.unimgr.mef.nrp.impl;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.opendaylight.mdsal.binding.api.DataBroker;
+import org.opendaylight.mdsal.binding.api.ReadWriteTransaction;
+import org.opendaylight.mdsal.binding.dom.adapter.test.AbstractConcurrentDataBrokerTest;
+import org.opendaylight.mdsal.common.api.LogicalDatastoreType;
+import org.opendaylight.unimgr.mef.nrp.api.TapiConstants;
+import org.opendaylight.unimgr.mef.nrp.common.NrpDao;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.LayerProtocolName;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.LifecycleState;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.OperationalState;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.PortRole;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.TerminationDirection;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.Uuid;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.OwnedNodeEdgePoint1;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.OwnedNodeEdgePoint1Builder;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.cep.list.ConnectionEndPoint;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.cep.list.ConnectionEndPointBuilder;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.connection.end.point.ParentNodeEdgePointBuilder;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.OwnedNodeEdgePointRef;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.link.NodeEdgePointBuilder;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.node.OwnedNodeEdgePoint;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.node.OwnedNodeEdgePointBuilder;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.node.OwnedNodeEdgePointKey;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.topology.Node;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.topology.NodeKey;
+import org.opendaylight.yangtools.yang.binding.InstanceIdentifier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures cost of adding a connection end point to a node edge point as a function of the number
+ * of end points the node edge point already has.
+ * {@link #keyed()} uses {@link NrpDao#addConnectionEndPoint(OwnedNodeEdgePointRef, ConnectionEndPoint)},
+ * whereas {@link #rewrite()} reads the node edge point and merges it back with the extended list
+ * as the DAO used to do. End points are overwritten in rotation, so their number stays constant.
+ * It is compiled only with the benchmark profile. Run {@link #main(String[])} from the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ConnectionEndPointBenchmark {
+    private static final String NODE = "n1";
+    private static final String NEP = "n1:1";
+
+    @Param({"100", "1000", "5000"})
+    public int ceps;
+
+    private DataBroker broker;
+    private OwnedNodeEdgePointRef ref;
+    private InstanceIdentifier<OwnedNodeEdgePoint> nepPath;
+    private int next;
+
+    @Setup
+    public void setUp() throws Exception {
+        Broker test = new Broker();
+        test.setup();
+        broker = test.getDataBroker();
+        new NrpInitializer(broker).init();
+
+        ref = new NodeEdgePointBuilder()
+                .setTopologyId(new Uuid(TapiConstants.PRESTO_SYSTEM_TOPO))
+                .setNodeId(new Uuid(NODE))
+                .setOwnedNodeEdgePointId(new Uuid(NEP))
+                .build();
+        nepPath = NrpDao.topo(TapiConstants.PRESTO_SYSTEM_TOPO)
+                .child(Node.class, new NodeKey(new Uuid(NODE)))
+                .child(OwnedNodeEdgePoint.class, new OwnedNodeEdgePointKey(new Uuid(NEP)));
+
+        ReadWriteTransaction tx = broker.newReadWriteTransaction();
+        NrpDao dao = new NrpDao(tx);
+        dao.createNode(TapiConstants.PRESTO_SYSTEM_TOPO, NODE, LayerProtocolName.ETH,
+                Collections.singletonList(new OwnedNodeEdgePointBuilder().setUuid(new Uuid(NEP)).build()));
+        for (int i = 0; i < ceps; ++i) {
+            dao.addConnectionEndPoint(ref, cep(i));
+        }
+        tx.commit().get();
+    }
+
+    @Benchmark
+    public Object keyed() throws Exception {
+        ReadWriteTransaction tx = broker.newReadWriteTransaction();
+        new NrpDao(tx).addConnectionEndPoint(ref, cep(next()));
+        return tx.commit().get();
+    }
+
+    @Benchmark
+    public Object rewrite() throws Exception {
+        ReadWriteTransaction tx = broker.newReadWriteTransaction();
+        ConnectionEndPoint cep = cep(next());
+        OwnedNodeEdgePoint nep = tx.read(LogicalDatastoreType.OPERATIONAL, nepPath).get().get();
+        List<ConnectionEndPoint> cepList = nep.augmentation(OwnedNodeEdgePoint1.class).getConnectionEndPoint()
+                .stream().filter(c -> !c.getUuid().equals(cep.getUuid()))
+                .collect(Collectors.toList());
+        cepList.add(cep);
+        nep = new OwnedNodeEdgePointBuilder(nep).addAugmentation(OwnedNodeEdgePoint1.class,
+                new OwnedNodeEdgePoint1Builder().setConnectionEndPoint(cepList).build()).build();
+        tx.merge(LogicalDatastoreType.OPERATIONAL, nepPath, nep);
+        return tx.commit().get();
+    }
+
+    private int next() {
+        next = (next + 1) % ceps;
+        return next;
+    }
+
+    private ConnectionEndPoint cep(int idx) {
+        return new ConnectionEndPointBuilder()
+                .setUuid(new Uuid("cep:" + NEP + ":" + idx))
+                .setConnectionPortRole(PortRole.SYMMETRIC)
+                .setTerminationDirection(TerminationDirection.BIDIRECTIONAL)
+                .setLifecycleState(LifecycleState.INSTALLED)
+                .setOperationalState(OperationalState.ENABLED)
+                .setParentNodeEdgePoint(Collections.singletonList(new ParentNodeEdgePointBuilder(ref).build()))
+                .setClientNodeEdgePoint(Collections.emptyList())
+                .build();
+    }
+
+    private static class Broker extends AbstractConcurrentDataBrokerTest {
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ConnectionEndPointBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2018 Cisco Systems Inc and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.unimgr.mef.nrp.impl;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.opendaylight.mdsal.binding.api.DataBroker;
+import org.opendaylight.mdsal.binding.api.ReadWriteTransaction;
+import org.opendaylight.mdsal.binding.dom.adapter.test.AbstractConcurrentDataBrokerTest;
+import org.opendaylight.unimgr.mef.nrp.api.TapiConstants;
+import org.opendaylight.unimgr.mef.nrp.common.NrpDao;
+import org.opendaylight.unimgr.mef.nrp.common.TapiUtils;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.LayerProtocolName;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.Uuid;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.tapi.context.ServiceInterfacePoint;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.tapi.context.ServiceInterfacePointBuilder;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.node.OwnedNodeEdgePoint;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.node.OwnedNodeEdgePointBuilder;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.node.edge.point.MappedServiceInterfacePoint;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures cost of onboarding the interfaces of a device as a function of the number of interfaces.
+ * {@link #perPoint()} writes every service interface point and node edge point separately,
+ * as drivers used to do, whereas {@link #bulk()} uses {@link NrpDao#addSips(java.util.Collection)}
+ * and {@link NrpDao#upsertNeps(String, java.util.Collection)}, which write the context and the node once.
+ * Points already exist after the first invocation, so it is the cost of rediscovering a device.
+ * It is compiled only with the benchmark profile. Run {@link #main(String[])} from the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TopologyOnboardingBenchmark {
+    private static final String NODE = "n1";
+
+    @Param({"100", "1000", "5000"})
+    public int neps;
+
+    private DataBroker broker;
+    private List<ServiceInterfacePoint> sipList;
+    private List<OwnedNodeEdgePoint> nepList;
+
+    @Setup
+    public void setUp() throws Exception {
+        Broker test = new Broker();
+        test.setup();
+        broker = test.getDataBroker();
+        new NrpInitializer(broker).init();
+
+        sipList = IntStream.range(0, neps).mapToObj(i -> new ServiceInterfacePointBuilder()
+                .setUuid(new Uuid("sip:" + NODE + ":" + i))
+                .setLayerProtocolName(Collections.singletonList(LayerProtocolName.ETH))
+                .build()).collect(Collectors.toList());
+        nepList = sipList.stream().map(sip -> new OwnedNodeEdgePointBuilder()
+                .setUuid(new Uuid(sip.getUuid().getValue().substring("sip:".length())))
+                .setLayerProtocolName(LayerProtocolName.ETH)
+                .setMappedServiceInterfacePoint(Collections.singletonList(
+                        TapiUtils.toSipRef(sip.getUuid(), MappedServiceInterfacePoint.class)))
+                .build()).collect(Collectors.toList());
+
+        ReadWriteTransaction tx = broker.newReadWriteTransaction();
+        new NrpDao(tx).createNode(TapiConstants.PRESTO_SYSTEM_TOPO, NODE, LayerProtocolName.ETH,
+                Collections.emptyList());
+        tx.commit().get();
+    }
+
+    @Benchmark
+    public Object perPoint() throws Exception {
+        ReadWriteTransaction tx = broker.newReadWriteTransaction();
+        NrpDao dao = new NrpDao(tx);
+        sipList.forEach(dao::addSip);
+        nepList.forEach(nep -> dao.updateNep(NODE, nep));
+        return tx.commit().get();
+    }
+
+    @Benchmark
+    public Object bulk() throws Exception {
+        ReadWriteTransaction tx = broker.newReadWriteTransaction();
+        NrpDao dao = new NrpDao(tx);
+        dao.addSips(sipList);
+        dao.upsertNeps(NODE, nepList);
+        return tx.commit().get();
+    }
+
+    private static class Broker extends AbstractConcurrentDataBrokerTest {
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(TopologyOnboardingBenchmark.class.getSimpleName()).build()).run();
+    }
+}
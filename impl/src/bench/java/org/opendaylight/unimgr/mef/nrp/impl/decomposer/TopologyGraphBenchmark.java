@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2018 Cisco Systems Inc and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.unimgr.mef.nrp.impl.decomposer;
+
+import java.util.concurrent.TimeUnit;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.topology.context.Topology;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Compares build time and size of the topology graph for both intra-node encodings on a dense-node topology.
+ * It is compiled only with the benchmark profile. Run {@link #main(String[])} from the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TopologyGraphBenchmark {
+    private static final Logger LOG = LoggerFactory.getLogger(TopologyGraphBenchmark.class);
+
+    @Param({"4"})
+    public int nodes;
+
+    @Param({"50", "500"})
+    public int ports;
+
+    @Param({"FULL_MESH", "HUB"})
+    public TopologyGraph.Encoding encoding;
+
+    private Topology topology;
+
+    @Setup
+    public void setUp() {
+        topology = TopologyGenerator.chain(nodes, ports);
+        TopologyGraph.Snapshot snapshot = TopologyGraph.of(topology, encoding);
+        LOG.info("{} encoding for {} nodes x {} ports: {} vertices, {} edges", encoding, nodes, ports,
+                snapshot.getGraph().vertexSet().size(), snapshot.getGraph().edgeSet().size());
+    }
+
+    @Benchmark
+    public TopologyGraph.Snapshot build() {
+        return TopologyGraph.of(topology, encoding);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(TopologyGraphBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2018 Cisco Systems Inc and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.unimgr.mef.nrp.impl.decomposer;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.jgrapht.DirectedGraph;
+import org.jgrapht.graph.DefaultDirectedGraph;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.OperationalState;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.topology.Link;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.topology.context.Topology;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures topology graph build time as a function of the number of links.
+ * {@link #indexed()} resolves link ends through the node edge point index of {@link TopologyGraph},
+ * whereas {@link #scan()} looks them up in the vertex set as the decomposer used to do,
+ * so its build time grows as O(links x vertices).
+ * It is compiled only with the benchmark profile. Run {@link #main(String[])} from the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TopologyLinkBenchmark {
+
+    @Param({"100", "1000", "5000"})
+    public int links;
+
+    private Topology topology;
+    private List<Vertex> vertices;
+
+    @Setup
+    public void setUp() {
+        topology = TopologyGenerator.chain(links + 1, 4);
+        vertices = TopologyGraph.of(topology, TopologyGraph.Encoding.HUB).getGraph().vertexSet().stream()
+                .filter(v -> !v.isHub())
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public TopologyGraph.Snapshot indexed() {
+        return TopologyGraph.of(topology, TopologyGraph.Encoding.HUB);
+    }
+
+    @Benchmark
+    public DirectedGraph<Vertex, TopologyEdge> scan() {
+        DirectedGraph<Vertex, TopologyEdge> graph = new DefaultDirectedGraph<>(TopologyEdge.class);
+        vertices.forEach(graph::addVertex);
+        for (Link link : topology.getLink()) {
+            if (OperationalState.ENABLED != link.getOperationalState()) {
+                continue;
+            }
+            List<Vertex> ends = link.getNodeEdgePoint().stream()
+                    .map(nep -> graph.vertexSet().stream()
+                            .filter(v -> v.getUuid().equals(nep.getOwnedNodeEdgePointId())).findFirst())
+                    .filter(Optional::isPresent).map(Optional::get)
+                    .collect(Collectors.toList());
+            ends.stream().filter(Vertex::isOutput).forEach(o -> ends.stream().filter(Vertex::isInput)
+                    .filter(i -> !Objects.equals(i, o)).forEach(i -> graph.addEdge(o, i, new TopologyEdge())));
+        }
+        return graph;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(TopologyLinkBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2018 Cisco Systems Inc and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.unimgr.mef.nrp.impl.decomposer;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import org.opendaylight.mdsal.binding.api.DataBroker;
+import org.opendaylight.mdsal.binding.api.ReadTransaction;
+import org.opendaylight.mdsal.binding.api.ReadWriteTransaction;
+import org.opendaylight.mdsal.binding.dom.adapter.test.AbstractConcurrentDataBrokerTest;
+import org.opendaylight.mdsal.common.api.LogicalDatastoreType;
+import org.opendaylight.unimgr.mef.nrp.api.TapiConstants;
+import org.opendaylight.unimgr.mef.nrp.common.NrpDao;
+import org.opendaylight.unimgr.mef.nrp.common.TopologyProjection;
+import org.opendaylight.unimgr.mef.nrp.common.TopologyProjectionReader;
+import org.opendaylight.unimgr.mef.nrp.impl.NrpInitializer;
+import org.opendaylight.yang.gen.v1.urn.odl.unimgr.yang.unimgr.ext.rev170531.NodeAdiAugmentation;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.LayerProtocolName;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.topology.Link;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.topology.LinkBuilder;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.topology.context.Topology;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares reading the system topology and building {@link CompactGraph} of it through the binding
+ * topology and through {@link TopologyProjectionReader}. Run with <code>-prof gc</code> to compare allocations.
+ * It is compiled only with the benchmark profile. Run {@link #main(String[])} from the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TopologyProjectionBenchmark {
+
+    @Param({"4"})
+    public int nodes;
+
+    @Param({"500", "2000"})
+    public int ports;
+
+    private DataBroker broker;
+    private TopologyProjectionReader reader;
+
+    @Setup
+    public void setUp() throws Exception {
+        Broker test = new Broker();
+        test.setup();
+        broker = test.getDataBroker();
+        new NrpInitializer(broker).init();
+        reader = new TopologyProjectionReader(test.getDomBroker(),
+                test.getDataBrokerTestCustomizer().getBindingToNormalized());
+
+        Topology topology = TopologyGenerator.chain(nodes, ports);
+        ReadWriteTransaction tx = broker.newReadWriteTransaction();
+        NrpDao dao = new NrpDao(tx);
+        topology.getNode().forEach(node -> dao.createNode(TapiConstants.PRESTO_SYSTEM_TOPO, node.getUuid().getValue(),
+                node.augmentation(NodeAdiAugmentation.class).getActivationDriverId(), LayerProtocolName.ETH,
+                node.getOwnedNodeEdgePoint()));
+        topology.getLink().forEach(link -> tx.put(LogicalDatastoreType.OPERATIONAL,
+                NrpDao.topo(TapiConstants.PRESTO_SYSTEM_TOPO).child(Link.class, link.key()), new LinkBuilder(link)
+                        .setLayerProtocolName(Collections.singletonList(LayerProtocolName.ETH))
+                        .setTransitionedLayerProtocolName(Collections.emptyList())
+                        .setCostCharacteristic(Collections.emptyList())
+                        .setLatencyCharacteristic(Collections.emptyList())
+                        .setRiskCharacteristic(Collections.emptyList())
+                        .setValidationMechanism(Collections.emptyList())
+                        .build()));
+        tx.commit().get();
+    }
+
+    @Benchmark
+    public CompactGraph binding() throws Exception {
+        try (ReadTransaction tx = broker.newReadOnlyTransaction()) {
+            return CompactGraph.of(new NrpDao(tx).getTopology(TapiConstants.PRESTO_SYSTEM_TOPO));
+        }
+    }
+
+    @Benchmark
+    public CompactGraph projection() throws Exception {
+        TopologyProjection topology = reader.read(TapiConstants.PRESTO_SYSTEM_TOPO);
+        return CompactGraph.of(topology);
+    }
+
+    private static class Broker extends AbstractConcurrentDataBrokerTest {
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(TopologyProjectionBenchmark.class.getSimpleName()).build()).run();
+    }
+}
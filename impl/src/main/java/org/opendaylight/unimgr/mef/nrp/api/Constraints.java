@@ -8,9 +8,311 @@
 
 package org.opendaylight.unimgr.mef.nrp.api;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import org.opendaylight.yang.gen.v1.urn.odl.unimgr.yang.unimgr.ext.rev170531.MultipointStrategyAugmentation;
+import org.opendaylight.yang.gen.v1.urn.odl.unimgr.yang.unimgr.ext.rev170531.MultipointStrategyAugmentation.MultipointStrategy;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.Uuid;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.ConnectivityConstraint;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.ServiceType;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.TopologyConstraint;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.create.connectivity.service.input.ConnConstraint;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.LatencyCharacteristic;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.NodeRef;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 /**
- * Placeholder for constraints.
+ * Routing constraints for request decomposition.
+ * Instances are immutable and can be used as a part of a cache key.
  * @author bartosz.michalik@amartus.com
  */
 public class Constraints {
+    private static final Logger LOG = LoggerFactory.getLogger(Constraints.class);
+
+    private final Metric metric;
+    private final List<Uuid> includeNodes;
+    private final Set<Uuid> excludeNodes;
+    private final Double maxLatency;
+    private final Long bandwidth;
+    private final TreeStrategy treeStrategy;
+    private final ServiceType serviceType;
+
+    /**
+     * Metric minimized by the path computation.
+     */
+    public enum Metric {
+        /**
+         * Minimal number of hops.
+         */
+        HOP,
+        /**
+         * Minimal sum of cost characteristics of nodes and links.
+         */
+        COST,
+        /**
+         * Minimal sum of fixed latency characteristics of nodes and links.
+         */
+        LATENCY
+    }
+
+    /**
+     * Strategy used to interconnect endpoints of multipoint services.
+     */
+    public enum TreeStrategy {
+        /**
+         * Union of shortest paths between each pair of endpoints.
+         */
+        SHORTEST_PATHS,
+        /**
+         * Approximation of a Steiner tree, that is a tree spanning all endpoints with minimal number of nodes.
+         */
+        STEINER_TREE
+    }
+
+    /**
+     * Constraints with no restrictions, i.e. minimal hop routing.
+     */
+    public Constraints() {
+        this(new Builder());
+    }
+
+    private Constraints(Builder builder) {
+        this.metric = builder.metric;
+        this.includeNodes = Collections.unmodifiableList(new ArrayList<>(builder.includeNodes));
+        this.excludeNodes = Collections.unmodifiableSet(new LinkedHashSet<>(builder.excludeNodes));
+        this.maxLatency = builder.maxLatency;
+        this.bandwidth = builder.bandwidth;
+        this.treeStrategy = builder.treeStrategy;
+        this.serviceType = builder.serviceType;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Create builder initialized with TAPI constraints of a connectivity service.
+     * @param topoConstraint topology constraint (might be null)
+     * @param connConstraint connectivity constraint (might be null)
+     * @return constraints builder
+     */
+    public static Builder builder(TopologyConstraint topoConstraint, ConnectivityConstraint connConstraint) {
+        Builder builder = new Builder();
+        if (topoConstraint != null) {
+            if (topoConstraint.getIncludeNode() != null) {
+                topoConstraint.getIncludeNode().forEach(n -> builder.includeNode(n.getNodeId()));
+            }
+            if (topoConstraint.getExcludeNode() != null) {
+                topoConstraint.getExcludeNode().stream().map(NodeRef::getNodeId).forEach(builder::excludeNode);
+            }
+        }
+        if (connConstraint != null) {
+            builder.serviceType(connConstraint.getServiceType());
+            if (connConstraint.getRouteObjectiveFunction() != null) {
+                switch (connConstraint.getRouteObjectiveFunction()) {
+                    case MINWORKROUTECOST:
+                    case MINSUMOFWORKANDPROTECTIONROUTECOST:
+                        builder.metric(Metric.COST);
+                        break;
+                    case MINWORKROUTELATENCY:
+                    case MINSUMOFWORKANDPROTECTIONROUTELATENCY:
+                        builder.metric(Metric.LATENCY);
+                        break;
+                    default:
+                        builder.metric(Metric.HOP);
+                }
+            }
+            builder.maxLatency(maxLatency(connConstraint.getLatencyCharacteristic()));
+            if (connConstraint instanceof ConnConstraint) {
+                MultipointStrategyAugmentation strategy = ((ConnConstraint) connConstraint)
+                        .augmentation(MultipointStrategyAugmentation.class);
+                if (strategy != null && strategy.getMultipointStrategy() == MultipointStrategy.SteinerTree) {
+                    builder.treeStrategy(TreeStrategy.STEINER_TREE);
+                }
+            }
+        }
+        return builder;
+    }
+
+    /**
+     * Convert TAPI constraints of a connectivity service.
+     * @param topoConstraint topology constraint (might be null)
+     * @param connConstraint connectivity constraint (might be null)
+     * @return decomposition constraints
+     */
+    public static Constraints of(TopologyConstraint topoConstraint, ConnectivityConstraint connConstraint) {
+        return builder(topoConstraint, connConstraint).build();
+    }
+
+    /**
+     * Get the tightest bound of fixed latency characteristics.
+     * @param latencies latency characteristics (might be null)
+     * @return maximal latency or null if no characteristic is a number
+     */
+    public static Double maxLatency(List<? extends LatencyCharacteristic> latencies) {
+        if (latencies == null) {
+            return null;
+        }
+        Double result = null;
+        for (LatencyCharacteristic lc : latencies) {
+            if (lc.getFixedLatencyCharacteristic() == null) {
+                continue;
+            }
+            try {
+                double value = Double.parseDouble(lc.getFixedLatencyCharacteristic());
+                result = result == null ? value : Math.min(result, value);
+            } catch (NumberFormatException e) {
+                LOG.warn("Latency characteristic {} is not a number - ignored", lc.getFixedLatencyCharacteristic());
+            }
+        }
+        return result;
+    }
+
+    public Metric getMetric() {
+        return metric;
+    }
+
+    /**
+     * Get nodes that path has to traverse.
+     * @return nodes in order of traversal
+     */
+    public List<Uuid> getIncludeNodes() {
+        return includeNodes;
+    }
+
+    public Set<Uuid> getExcludeNodes() {
+        return excludeNodes;
+    }
+
+    /**
+     * Get upper bound for latency of a path between any pair of endpoints.
+     * @return latency bound or null if latency is not bounded
+     */
+    public Double getMaxLatency() {
+        return maxLatency;
+    }
+
+    /**
+     * Get committed information rate that has to be available on each node edge point and link of a path.
+     * @return rate in bits per second or null if capacity is not considered
+     */
+    public Long getBandwidth() {
+        return bandwidth;
+    }
+
+    public TreeStrategy getTreeStrategy() {
+        return treeStrategy;
+    }
+
+    /**
+     * Get type of the requested service. Like tree strategy it is not a routing constraint.
+     * @return service type or null if not specified
+     */
+    public ServiceType getServiceType() {
+        return serviceType;
+    }
+
+    /**
+     * Check if constraints do not restrict minimal hop routing.
+     * Tree strategy is not a routing constraint, so it is not taken into account.
+     * @return true if there is nothing to enforce
+     */
+    public boolean isUnconstrained() {
+        return metric == Metric.HOP && includeNodes.isEmpty() && excludeNodes.isEmpty() && maxLatency == null
+                && bandwidth == null;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (other == null || getClass() != other.getClass()) {
+            return false;
+        }
+        Constraints that = (Constraints) other;
+        return metric == that.metric
+                && includeNodes.equals(that.includeNodes)
+                && excludeNodes.equals(that.excludeNodes)
+                && Objects.equals(maxLatency, that.maxLatency)
+                && Objects.equals(bandwidth, that.bandwidth)
+                && treeStrategy == that.treeStrategy
+                && serviceType == that.serviceType;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(metric, includeNodes, excludeNodes, maxLatency, bandwidth, treeStrategy, serviceType);
+    }
+
+    @Override
+    public String toString() {
+        return "Constraints{metric=" + metric + ", include=" + includeNodes + ", exclude=" + excludeNodes
+                + ", maxLatency=" + maxLatency + ", bandwidth=" + bandwidth + ", tree=" + treeStrategy
+                + ", serviceType=" + serviceType + "}";
+    }
+
+    public static class Builder {
+        private Metric metric = Metric.HOP;
+        private final List<Uuid> includeNodes = new ArrayList<>();
+        private final Set<Uuid> excludeNodes = new LinkedHashSet<>();
+        private Double maxLatency;
+        private Long bandwidth;
+        private TreeStrategy treeStrategy = TreeStrategy.SHORTEST_PATHS;
+        private ServiceType serviceType;
+
+        public Builder metric(Metric value) {
+            Objects.requireNonNull(value);
+            this.metric = value;
+            return this;
+        }
+
+        public Builder includeNode(Uuid nodeId) {
+            Objects.requireNonNull(nodeId);
+            includeNodes.add(nodeId);
+            return this;
+        }
+
+        public Builder excludeNode(Uuid nodeId) {
+            Objects.requireNonNull(nodeId);
+            excludeNodes.add(nodeId);
+            return this;
+        }
+
+        public Builder excludeNodes(Collection<Uuid> nodeIds) {
+            nodeIds.forEach(this::excludeNode);
+            return this;
+        }
+
+        public Builder maxLatency(Double value) {
+            this.maxLatency = value;
+            return this;
+        }
+
+        public Builder bandwidth(Long value) {
+            this.bandwidth = value;
+            return this;
+        }
+
+        public Builder treeStrategy(TreeStrategy value) {
+            Objects.requireNonNull(value);
+            this.treeStrategy = value;
+            return this;
+        }
+
+        public Builder serviceType(ServiceType value) {
+            this.serviceType = value;
+            return this;
+        }
+
+        public Constraints build() {
+            return new Constraints(this);
+        }
+    }
 }
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2018 Cisco Systems Inc and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.unimgr.mef.nrp.api;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.Uuid;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.OwnedNodeEdgePointRef;
+
+/**
+ * Decomposition for a single node without request specific data.
+ * Template is used to reuse results of {@link RequestDecomposer} for another request with the same endpoints.
+ */
+public final class DecompositionTemplate {
+    private final Uuid nodeUuid;
+    private final String activationDriverId;
+    private final List<OwnedNodeEdgePointRef> neps;
+    private final List<Uuid> sips;
+
+    private DecompositionTemplate(Subrequrest subrequest) {
+        this.nodeUuid = subrequest.getNodeUuid();
+        this.activationDriverId = subrequest.getActivationDriverId();
+        this.neps = subrequest.getEndpoints().stream().map(EndPoint::getNepRef).collect(Collectors.toList());
+        this.sips = subrequest.getEndpoints().stream()
+                .map(e -> e.getEndpoint() == null ? null
+                        : e.getEndpoint().getServiceInterfacePoint().getServiceInterfacePointId())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Create template for a node decomposition.
+     * @param subrequest decomposition for a node
+     * @return template
+     */
+    public static DecompositionTemplate of(Subrequrest subrequest) {
+        return new DecompositionTemplate(subrequest);
+    }
+
+    /**
+     * Create templates for a complete decomposition.
+     * @param decomposition result of decomposition (might be null)
+     * @return templates or empty list if decomposition is not defined
+     */
+    public static List<DecompositionTemplate> of(List<Subrequrest> decomposition) {
+        if (decomposition == null) {
+            return Collections.emptyList();
+        }
+        return decomposition.stream().map(DecompositionTemplate::new).collect(Collectors.toList());
+    }
+
+    /**
+     * Bind request endpoints to the templates.
+     * @param templates decomposition templates
+     * @param endpoints request endpoints
+     * @return decomposition for the request
+     */
+    public static List<Subrequrest> bind(List<DecompositionTemplate> templates, List<EndPoint> endpoints) {
+        return templates.stream().map(t -> t.bind(endpoints)).collect(Collectors.toList());
+    }
+
+    /**
+     * Bind request endpoints to the template.
+     * Endpoints are matched with node edge points by service interface point.
+     * @param endpoints request endpoints
+     * @return decomposition for the node
+     */
+    public Subrequrest bind(List<EndPoint> endpoints) {
+        List<EndPoint> bound = new ArrayList<>(neps.size());
+        for (int i = 0; i < neps.size(); ++i) {
+            Uuid sip = sips.get(i);
+            EndPoint ep = sip == null ? new EndPoint(null, null) : endpoints.stream()
+                    .filter(e -> sip.equals(e.getEndpoint().getServiceInterfacePoint()
+                            .getServiceInterfacePointId()))
+                    .findFirst()
+                    .orElse(new EndPoint(null, null));
+            bound.add(ep.setNepRef(neps.get(i)));
+        }
+        return new Subrequrest(nodeUuid, bound, activationDriverId);
+    }
+
+    public Uuid getNodeUuid() {
+        return nodeUuid;
+    }
+
+    public List<OwnedNodeEdgePointRef> getNeps() {
+        return Collections.unmodifiableList(neps);
+    }
+}
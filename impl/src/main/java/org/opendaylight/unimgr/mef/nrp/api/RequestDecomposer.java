@@ -26,4 +26,14 @@ public interface RequestDecomposer {
      * @throws FailureResult on decomposition problem
      */
     List<Subrequrest> decompose(List<EndPoint> endpoints, Constraints constraint) throws FailureResult;
+
+    /**
+     * Get decomposer bound to the current state of the topology.
+     * All requests decomposed with it see the same topology, regardless of the changes made in the meantime.
+     * @return decomposer bound to the topology, by default this decomposer
+     * @throws FailureResult if topology cannot be read
+     */
+    default RequestDecomposer snapshot() throws FailureResult {
+        return this;
+    }
 }
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2018 Cisco Systems Inc and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.unimgr.mef.nrp.common;
+
+import java.util.Collection;
+import java.util.Objects;
+import javax.annotation.Nonnull;
+import org.opendaylight.mdsal.binding.api.DataBroker;
+import org.opendaylight.mdsal.binding.api.DataObjectModification;
+import org.opendaylight.mdsal.binding.api.DataTreeChangeListener;
+import org.opendaylight.mdsal.binding.api.DataTreeIdentifier;
+import org.opendaylight.mdsal.binding.api.DataTreeModification;
+import org.opendaylight.mdsal.common.api.LogicalDatastoreType;
+import org.opendaylight.yangtools.concepts.ListenerRegistration;
+import org.opendaylight.yangtools.yang.binding.DataObject;
+import org.opendaylight.yangtools.yang.binding.InstanceIdentifier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Base of the in-memory indexes following a subtree of operational datastore.
+ * An index is updated by its listener, so it can lag behind a transaction that has just modified the subtree.
+ * Lookups are lock free.
+ * @param <T> type of the followed subtree root
+ */
+public abstract class AbstractIndex<T extends DataObject> implements DataTreeChangeListener<T> {
+    private static final Logger LOG = LoggerFactory.getLogger(AbstractIndex.class);
+
+    private final DataBroker broker;
+    private final InstanceIdentifier<T> path;
+    private ListenerRegistration<AbstractIndex<T>> registration;
+
+    /**
+     * Create index.
+     * @param broker data broker used to follow the changes or null if index is updated explicitly
+     * @param path followed subtree
+     */
+    protected AbstractIndex(DataBroker broker, InstanceIdentifier<T> path) {
+        this.broker = broker;
+        this.path = path;
+    }
+
+    public void init() {
+        Objects.requireNonNull(broker);
+        registration = broker.registerDataTreeChangeListener(
+                DataTreeIdentifier.create(LogicalDatastoreType.OPERATIONAL, path), this);
+        LOG.debug("{} registered: {}", getClass().getSimpleName(), registration);
+    }
+
+    public void close() {
+        if (registration != null) {
+            registration.close();
+            registration = null;
+        }
+    }
+
+    @Override
+    public void onDataTreeChanged(@Nonnull Collection<DataTreeModification<T>> collection) {
+        for (DataTreeModification<T> change : collection) {
+            DataObjectModification<T> root = change.getRootNode();
+            switch (root.getModificationType()) {
+                case WRITE:
+                    written(root);
+                    break;
+                case DELETE:
+                    deleted(root);
+                    break;
+                case SUBTREE_MODIFIED:
+                    modified(root);
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Apply a subtree root that has been created or replaced.
+     * @param root modification with the data after the write
+     */
+    protected abstract void written(DataObjectModification<T> root);
+
+    /**
+     * Apply a subtree root that has been removed.
+     * @param root modification with the data before the removal
+     */
+    protected abstract void deleted(DataObjectModification<T> root);
+
+    /**
+     * Apply changes below a subtree root.
+     * @param root modification with the modified children
+     */
+    protected abstract void modified(DataObjectModification<T> root);
+}
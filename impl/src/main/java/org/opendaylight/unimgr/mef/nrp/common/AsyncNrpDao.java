@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2018 Cisco Systems Inc and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.unimgr.mef.nrp.common;
+
+import com.google.common.util.concurrent.FluentFuture;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.MoreExecutors;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import org.opendaylight.mdsal.binding.api.ReadOperations;
+import org.opendaylight.mdsal.common.api.LogicalDatastoreType;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.Context;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.Uuid;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.tapi.context.ServiceInterfacePoint;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.tapi.context.ServiceInterfacePointKey;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.connectivity.context.Connection;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.connectivity.context.ConnectionKey;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.connectivity.context.ConnectivityService;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.connectivity.context.ConnectivityServiceKey;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.Context1;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.OwnedNodeEdgePointRef;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.node.OwnedNodeEdgePoint;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.node.OwnedNodeEdgePointKey;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.topology.Link;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.topology.LinkKey;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.topology.Node;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.topology.context.Topology;
+import org.opendaylight.yangtools.yang.binding.DataObject;
+import org.opendaylight.yangtools.yang.binding.InstanceIdentifier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Non-blocking counterpart of {@link NrpDao} read methods.
+ * Reads return futures completed by the datastore, so callers do not hold a thread while waiting for data.
+ * Results are transformed on the thread completing the read, so the transformations have to be cheap.
+ * Scans over all the entries of a list run on an executor supplied by the caller.
+ * Read failures are propagated as failed futures.
+ */
+public class AsyncNrpDao {
+    private static final Logger LOG = LoggerFactory.getLogger(AsyncNrpDao.class);
+    private static final InstanceIdentifier<org.opendaylight.yang.gen.v1.urn.onf.otcc.yang
+            .tapi.connectivity.rev180307.Context1> CS_CTX
+            = NrpDao.ctx().augmentation(org.opendaylight.yang.gen.v1.urn.onf.otcc.yang
+            .tapi.connectivity.rev180307.Context1.class);
+
+    private final ReadOperations rtx;
+
+    public AsyncNrpDao(ReadOperations rtx) {
+        Objects.requireNonNull(rtx);
+        this.rtx = rtx;
+    }
+
+    public FluentFuture<Optional<Topology>> getTopology(String uuid) {
+        return read(NrpDao.topo(uuid));
+    }
+
+    public FluentFuture<List<Topology>> getTopologies() {
+        return read(NrpDao.ctx().augmentation(Context1.class))
+                .transform(ctx -> ctx.map(Context1::getTopology).orElse(Collections.emptyList()),
+                        MoreExecutors.directExecutor());
+    }
+
+    public FluentFuture<Optional<Node>> getNode(String uuidTopo, String uuidNode) {
+        return read(NrpDao.node(new Uuid(uuidTopo), new Uuid(uuidNode)));
+    }
+
+    public FluentFuture<Optional<Node>> getNode(Uuid uuidNode) {
+        return read(NrpDao.node(uuidNode));
+    }
+
+    public FluentFuture<Optional<Link>> getLink(String uuidTopo, String uuidLink) {
+        return read(NrpDao.topo(uuidTopo).child(Link.class, new LinkKey(new Uuid(uuidLink))));
+    }
+
+    public FluentFuture<Optional<OwnedNodeEdgePoint>> readNep(OwnedNodeEdgePointRef ref) {
+        return read(NrpDao.node(ref.getTopologyId(), ref.getNodeId())
+                .child(OwnedNodeEdgePoint.class, new OwnedNodeEdgePointKey(ref.getOwnedNodeEdgePointId())));
+    }
+
+    public FluentFuture<Optional<ServiceInterfacePoint>> getSip(String sipId) {
+        return read(NrpDao.ctx().child(ServiceInterfacePoint.class, new ServiceInterfacePointKey(new Uuid(sipId))));
+    }
+
+    public FluentFuture<List<ServiceInterfacePoint>> getSips() {
+        return read(NrpDao.ctx())
+                .transform(ctx -> ctx.map(Context::getServiceInterfacePoint).orElse(Collections.emptyList()),
+                        MoreExecutors.directExecutor());
+    }
+
+    public FluentFuture<Optional<Connection>> getConnection(Uuid connectionId) {
+        return read(CS_CTX.child(Connection.class, new ConnectionKey(connectionId)));
+    }
+
+    public FluentFuture<List<ConnectivityService>> getConnectivityServiceList() {
+        return read(CS_CTX)
+                .transform(ctx -> ctx.map(org.opendaylight.yang.gen.v1.urn.onf.otcc.yang
+                                .tapi.connectivity.rev180307.Context1::getConnectivityService)
+                                .orElse(Collections.emptyList()),
+                        MoreExecutors.directExecutor());
+    }
+
+    public FluentFuture<Optional<ConnectivityService>> getConnectivityService(Uuid id) {
+        return read(CS_CTX.child(ConnectivityService.class, new ConnectivityServiceKey(id)));
+    }
+
+    /**
+     * Find connectivity service by identifier or name.
+     * Same lookup as {@link NrpDao#getConnectivityService(String, ServiceNameIndex)} with reads chained
+     * one after another.
+     * @param idOrName service identifier or any of its names
+     * @param names index of services by name or null if services have to be scanned
+     * @param executor executor the scan of all services runs on
+     * @return connectivity service if found
+     */
+    public FluentFuture<Optional<ConnectivityService>> getConnectivityService(String idOrName,
+                                                                              ServiceNameIndex names,
+                                                                              Executor executor) {
+        return getConnectivityService(new Uuid(idOrName)).transformAsync(cs -> {
+            if (cs.isPresent()) {
+                return Futures.immediateFuture(cs);
+            }
+            if (names == null) {
+                return findByName(idOrName, executor);
+            }
+            Uuid indexed = names.get(idOrName);
+            if (indexed == null) {
+                return Futures.immediateFuture(Optional.empty());
+            }
+            return getConnectivityService(indexed).transformAsync(hit -> {
+                if (hit.isPresent() && NrpDao.hasName(hit.get(), idOrName)) {
+                    return Futures.immediateFuture(hit);
+                }
+                LOG.debug("Service name index entry for {} is stale", idOrName);
+                return findByName(idOrName, executor);
+            }, MoreExecutors.directExecutor());
+        }, MoreExecutors.directExecutor());
+    }
+
+    private FluentFuture<Optional<ConnectivityService>> findByName(String name, Executor executor) {
+        return getConnectivityServiceList().transform(services -> services == null ? Optional.empty()
+                : services.stream().filter(cs -> NrpDao.hasName(cs, name)).findFirst(), executor);
+    }
+
+    private <T extends DataObject> FluentFuture<Optional<T>> read(InstanceIdentifier<T> path) {
+        return rtx.read(LogicalDatastoreType.OPERATIONAL, path);
+    }
+}
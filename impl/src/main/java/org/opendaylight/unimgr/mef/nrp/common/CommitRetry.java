@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2018 Cisco Systems Inc and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.unimgr.mef.nrp.common;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.FluentFuture;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import org.opendaylight.mdsal.binding.api.DataBroker;
+import org.opendaylight.mdsal.binding.api.ReadWriteTransaction;
+import org.opendaylight.mdsal.common.api.CommitInfo;
+import org.opendaylight.mdsal.common.api.OptimisticLockFailedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Commits data to the datastore, retrying when the commit fails on a conflict with a concurrent transaction.
+ * The model is written to a new transaction on each attempt, so it has to be idempotent, i.e. describe
+ * the target state with puts, merges and deletes rather than modify data read in a previous attempt.
+ * Attempts are separated by an exponential backoff with jitter, so conflicting writers do not retry in lockstep.
+ * Attempts run on the executor supplied by the caller, the shared scheduler only delays them and times out
+ * the commit at the deadline. No attempt is made after the deadline and the result is then reported as timed out.
+ */
+public class CommitRetry {
+    private static final Logger LOG = LoggerFactory.getLogger(CommitRetry.class);
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder().setNameFormat("commit-retry").setDaemon(true).build());
+
+    /**
+     * Retry policy used when none is configured.
+     */
+    public static final CommitRetry DEFAULT = new CommitRetry(10, 200, 2000);
+
+    private final long initialBackoff;
+    private final long maxBackoff;
+    private final long deadline;
+
+    /**
+     * Create retry policy.
+     * @param initialBackoff backoff after the first conflict in milliseconds, doubled after each next one
+     * @param maxBackoff maximal backoff in milliseconds
+     * @param deadline time in milliseconds after which the commit is given up
+     */
+    public CommitRetry(long initialBackoff, long maxBackoff, long deadline) {
+        Preconditions.checkArgument(initialBackoff >= 0, "backoff must not be negative");
+        Preconditions.checkArgument(maxBackoff >= initialBackoff, "maximal backoff must not be below initial one");
+        Preconditions.checkArgument(deadline > 0, "deadline must be positive");
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.deadline = deadline;
+    }
+
+    /**
+     * Write model and commit it.
+     * @param broker broker transactions are created with
+     * @param model writes the model to a transaction, is called once per attempt
+     * @param executor executor the attempts run on
+     * @param <T> type of the result
+     * @return result of the model written in the successful attempt
+     */
+    public <T> FluentFuture<T> commit(DataBroker broker, Function<ReadWriteTransaction, T> model,
+            Executor executor) {
+        final SettableFuture<T> result = SettableFuture.create();
+        new Attempts<>(broker, model, executor, result, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(deadline))
+                .submit(1, initialBackoff);
+        return FluentFuture.from(Futures.withTimeout(result, deadline, TimeUnit.MILLISECONDS, SCHEDULER));
+    }
+
+    public long getDeadline() {
+        return deadline;
+    }
+
+    /**
+     * Check whether commit failed because of a conflict with a concurrent transaction.
+     * @param error commit failure
+     * @return true if the commit can succeed when repeated
+     */
+    public static boolean isRetryable(Throwable error) {
+        return Throwables.getCausalChain(error).stream().anyMatch(OptimisticLockFailedException.class::isInstance);
+    }
+
+    private final class Attempts<T> {
+        private final DataBroker broker;
+        private final Function<ReadWriteTransaction, T> model;
+        private final Executor executor;
+        private final SettableFuture<T> result;
+        private final long until;
+
+        Attempts(DataBroker broker, Function<ReadWriteTransaction, T> model, Executor executor,
+                SettableFuture<T> result, long until) {
+            this.broker = broker;
+            this.model = model;
+            this.executor = executor;
+            this.result = result;
+            this.until = until;
+        }
+
+        void submit(int number, long backoff) {
+            try {
+                executor.execute(() -> attempt(number, backoff));
+            } catch (RejectedExecutionException e) {
+                result.setException(e);
+            }
+        }
+
+        @SuppressWarnings("checkstyle:illegalcatch")
+        void attempt(int number, long backoff) {
+            if (result.isDone()) {
+                //timed out while waiting for the executor
+                return;
+            }
+            ReadWriteTransaction tx = null;
+            final T value;
+            try {
+                tx = broker.newReadWriteTransaction();
+                value = model.apply(tx);
+            } catch (RuntimeException e) {
+                if (tx != null) {
+                    tx.cancel();
+                }
+                result.setException(e);
+                return;
+            }
+            Futures.addCallback(tx.commit(), new FutureCallback<CommitInfo>() {
+                @Override
+                public void onSuccess(CommitInfo info) {
+                    result.set(value);
+                }
+
+                @Override
+                public void onFailure(Throwable error) {
+                    retry(number, backoff, error);
+                }
+            }, MoreExecutors.directExecutor());
+        }
+
+        void retry(int number, long backoff, Throwable error) {
+            final long delay = ThreadLocalRandom.current().nextLong(backoff / 2, backoff + 1);
+            if (!isRetryable(error) || System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delay) >= until) {
+                result.setException(error);
+                return;
+            }
+            LOG.debug("Commit attempt {} conflicted with a concurrent transaction, retrying in {} ms", number, delay);
+            SCHEDULER.schedule(() -> submit(number + 1, Math.min(2 * backoff, maxBackoff)),
+                    delay, TimeUnit.MILLISECONDS);
+        }
+    }
+}
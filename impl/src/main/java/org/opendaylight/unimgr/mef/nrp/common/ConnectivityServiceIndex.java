@@ -0,0 +1,228 @@
+/*
+ * Copyright (c) 2018 Cisco Systems Inc and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.unimgr.mef.nrp.common;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.opendaylight.mdsal.binding.api.DataBroker;
+import org.opendaylight.mdsal.binding.api.DataObjectModification;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.LifecycleState;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.OperationalState;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.Uuid;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.Context1;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.ServiceType;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.connection.Route;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.connectivity.context.Connection;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.connectivity.context.ConnectivityService;
+import org.opendaylight.yangtools.yang.binding.DataObject;
+
+/**
+ * Index of connectivity services ordered by identifier.
+ * It keeps the attributes services are filtered by, so that a page of services can be selected
+ * without reading the whole connectivity context. Connections are followed to find the nodes a service goes through.
+ */
+public class ConnectivityServiceIndex extends AbstractIndex<Context1> {
+    private final NavigableMap<String, Entry> services = new ConcurrentSkipListMap<>();
+    private final Map<Uuid, Set<Uuid>> connectionNodes = new ConcurrentHashMap<>();
+    private final Map<Uuid, Set<Uuid>> connectionRoutes = new ConcurrentHashMap<>();
+
+    public ConnectivityServiceIndex() {
+        this(null);
+    }
+
+    public ConnectivityServiceIndex(DataBroker broker) {
+        super(broker, NrpDao.ctx().augmentation(Context1.class));
+    }
+
+    /**
+     * Stream services following a given one in identifier order.
+     * The stream is lazy and reflects changes made to the index while it is consumed.
+     * @param after identifier of the last service already seen or null to start with the first service
+     * @return services ordered by identifier
+     */
+    public Stream<Entry> after(String after) {
+        return (after == null ? services : services.tailMap(after, false)).values().stream();
+    }
+
+    /**
+     * Check whether any connection of a service, or any lower connection on its routes, goes through a node.
+     * @param entry indexed service
+     * @param nodeId node identifier
+     * @return true if service goes through the node
+     */
+    public boolean goesThrough(Entry entry, Uuid nodeId) {
+        Set<Uuid> visited = new HashSet<>();
+        return entry.connections.stream().anyMatch(c -> goesThrough(c, nodeId, visited));
+    }
+
+    private boolean goesThrough(Uuid connection, Uuid nodeId, Set<Uuid> visited) {
+        if (!visited.add(connection)) {
+            return false;
+        }
+        if (connectionNodes.getOrDefault(connection, Collections.emptySet()).contains(nodeId)) {
+            return true;
+        }
+        return connectionRoutes.getOrDefault(connection, Collections.emptySet()).stream()
+                .anyMatch(c -> goesThrough(c, nodeId, visited));
+    }
+
+    /**
+     * Replace the index content with a given connectivity context.
+     * @param context connectivity context or null if it has been removed
+     */
+    public void reset(Context1 context) {
+        services.clear();
+        connectionNodes.clear();
+        connectionRoutes.clear();
+        if (context == null) {
+            return;
+        }
+        if (context.getConnectivityService() != null) {
+            context.getConnectivityService().forEach(this::putService);
+        }
+        if (context.getConnection() != null) {
+            context.getConnection().forEach(this::putConnection);
+        }
+    }
+
+    /**
+     * Add or replace a service.
+     * @param service connectivity service
+     */
+    public void putService(ConnectivityService service) {
+        services.put(service.getUuid().getValue(), new Entry(service));
+    }
+
+    /**
+     * Remove a service.
+     * @param serviceId service identifier
+     */
+    public void removeService(Uuid serviceId) {
+        services.remove(serviceId.getValue());
+    }
+
+    /**
+     * Add or replace nodes and lower connections of a connection.
+     * @param connection connection
+     */
+    public void putConnection(Connection connection) {
+        Set<Uuid> nodes = connection.getConnectionEndPoint() == null ? Collections.emptySet()
+                : connection.getConnectionEndPoint().stream()
+                    .map(cep -> cep.getNodeId())
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toSet());
+        //routes refer to the lower connections
+        Set<Uuid> lower = connection.getRoute() == null ? Collections.emptySet()
+                : connection.getRoute().stream()
+                    .map(Route::getConnectionEndPoint)
+                    .filter(Objects::nonNull)
+                    .flatMap(List::stream)
+                    .collect(Collectors.toSet());
+        connectionNodes.put(connection.getUuid(), nodes);
+        connectionRoutes.put(connection.getUuid(), lower);
+    }
+
+    /**
+     * Remove a connection.
+     * @param connectionId connection identifier
+     */
+    public void removeConnection(Uuid connectionId) {
+        connectionNodes.remove(connectionId);
+        connectionRoutes.remove(connectionId);
+    }
+
+    @Override
+    protected void written(DataObjectModification<Context1> root) {
+        reset(root.getDataAfter());
+    }
+
+    @Override
+    protected void deleted(DataObjectModification<Context1> root) {
+        reset(null);
+    }
+
+    @Override
+    protected void modified(DataObjectModification<Context1> root) {
+        root.getModifiedChildren().forEach(this::apply);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void apply(DataObjectModification<? extends DataObject> modification) {
+        boolean deleted = modification.getModificationType() == DataObjectModification.ModificationType.DELETE;
+        if (ConnectivityService.class.equals(modification.getDataType())) {
+            DataObjectModification<ConnectivityService> service =
+                    (DataObjectModification<ConnectivityService>) modification;
+            if (deleted) {
+                removeService(service.getDataBefore().getUuid());
+            } else {
+                putService(service.getDataAfter());
+            }
+        } else if (Connection.class.equals(modification.getDataType())) {
+            DataObjectModification<Connection> connection = (DataObjectModification<Connection>) modification;
+            if (deleted) {
+                removeConnection(connection.getDataBefore().getUuid());
+            } else {
+                putConnection(connection.getDataAfter());
+            }
+        }
+    }
+
+    /**
+     * Indexed attributes of a connectivity service.
+     */
+    public static final class Entry {
+        private final Uuid uuid;
+        private final ServiceType serviceType;
+        private final Set<Uuid> sips;
+        private final List<Uuid> connections;
+        private final LifecycleState lifecycleState;
+        private final OperationalState operationalState;
+
+        private Entry(ConnectivityService service) {
+            uuid = service.getUuid();
+            serviceType = service.getServiceType();
+            sips = service.getEndPoint() == null ? Collections.emptySet() : service.getEndPoint().stream()
+                    .filter(ep -> ep.getServiceInterfacePoint() != null)
+                    .map(ep -> ep.getServiceInterfacePoint().getServiceInterfacePointId())
+                    .collect(Collectors.toSet());
+            connections = service.getConnection() == null ? Collections.emptyList() : service.getConnection();
+            lifecycleState = service.getLifecycleState();
+            operationalState = service.getOperationalState();
+        }
+
+        public Uuid getUuid() {
+            return uuid;
+        }
+
+        public ServiceType getServiceType() {
+            return serviceType;
+        }
+
+        public Set<Uuid> getSips() {
+            return sips;
+        }
+
+        public LifecycleState getLifecycleState() {
+            return lifecycleState;
+        }
+
+        public OperationalState getOperationalState() {
+            return operationalState;
+        }
+    }
+}
@@ -7,13 +7,18 @@
  */
 package org.opendaylight.unimgr.mef.nrp.common;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
-import java.util.LinkedList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ExecutionException;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import org.opendaylight.mdsal.binding.api.ReadOperations;
 import org.opendaylight.mdsal.binding.api.ReadTransaction;
@@ -30,6 +35,7 @@ import org.opendaylight.yang.gen.v1.urn.odl.unimgr.yang.unimgr.ext.rev170531.Nod
 import org.opendaylight.yang.gen.v1.urn.odl.unimgr.yang.unimgr.ext.rev170531.NodeSvmAugmentationBuilder;
 import org.opendaylight.yang.gen.v1.urn.odl.unimgr.yang.unimgr.ext.rev170531.context.topology.node.ServiceVlanMap;
 import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.Context;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.ContextBuilder;
 import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.LayerProtocolName;
 import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.ServiceInterfacePointRef;
 import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.Uuid;
@@ -37,7 +43,6 @@ import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.tapi
 import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.tapi.context.ServiceInterfacePointKey;
 import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.ConnectionEndPointRef;
 import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.OwnedNodeEdgePoint1;
-import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.OwnedNodeEdgePoint1Builder;
 import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.cep.list.ConnectionEndPoint;
 import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.cep.list.ConnectionEndPointKey;
 import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.connection.ConnectionEndPointBuilder;
@@ -50,9 +55,12 @@ import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev18030
 import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.connectivity.service.EndPointKey;
 import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.Context1;
 import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.OwnedNodeEdgePointRef;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.link.NodeEdgePointBuilder;
 import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.node.OwnedNodeEdgePoint;
 import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.node.OwnedNodeEdgePointBuilder;
 import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.node.OwnedNodeEdgePointKey;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.node.edge.point.MappedServiceInterfacePoint;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.node.edge.point.MappedServiceInterfacePointKey;
 import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.topology.Node;
 import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.topology.NodeBuilder;
 import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.topology.NodeKey;
@@ -77,18 +85,30 @@ public class NrpDao  {
 
     private final ReadWriteTransaction tx;
     private final ReadOperations rtx;
+    private final SipIndex sipIndex;
 
     public NrpDao(ReadWriteTransaction tx) {
+        this(tx, null);
+    }
+
+    /**
+     * Create DAO that resolves service interface points with an index.
+     * @param tx transaction
+     * @param sipIndex index of node edge points by service interface points or null if topology has to be scanned
+     */
+    public NrpDao(ReadWriteTransaction tx, SipIndex sipIndex) {
         if (tx == null) {
             throw new NullPointerException();
         }
         this.tx = tx;
         this.rtx = tx;
+        this.sipIndex = sipIndex;
     }
 
     public NrpDao(ReadTransaction tx) {
         this.rtx = tx;
         this.tx =  null;
+        this.sipIndex = null;
     }
 
     public Node createNode(String topologyId, String nodeId, LayerProtocolName name, List<OwnedNodeEdgePoint> neps) {
@@ -188,46 +208,137 @@ public class NrpDao  {
                 sip);
     }
 
+    /**
+     * Add or update service interface points.
+     * Points are merged into the context as a single modification, instead of a modification per point.
+     * @param sips service interface points
+     */
+    public void addSips(Collection<ServiceInterfacePoint> sips) {
+        verifyTx();
+        assert tx != null;
+        if (sips.isEmpty()) {
+            return;
+        }
+        tx.merge(LogicalDatastoreType.OPERATIONAL, ctx(),
+                new ContextBuilder().setServiceInterfacePoint(new ArrayList<>(sips)).build());
+    }
+
+    public void upsertNeps(String nodeId, Collection<OwnedNodeEdgePoint> neps) {
+        upsertNeps(new Uuid(nodeId), neps);
+    }
+
+    /**
+     * Add or update node edge points of a node.
+     * The node is read once and written back as a single modification
+     * with the given points replacing the ones of the same id.
+     * Connection end points of the replaced points are kept.
+     * @param nodeId node id
+     * @param neps node edge points
+     * @throws IllegalArgumentException if the node does not exist
+     */
+    public void upsertNeps(Uuid nodeId, Collection<OwnedNodeEdgePoint> neps) {
+        verifyTx();
+        assert tx != null;
+        if (neps.isEmpty()) {
+            return;
+        }
+        Node node = readNode(nodeId);
+        Map<Uuid, OwnedNodeEdgePoint> byId = new LinkedHashMap<>();
+        if (node.getOwnedNodeEdgePoint() != null) {
+            node.getOwnedNodeEdgePoint().forEach(nep -> byId.put(nep.getUuid(), nep));
+        }
+        neps.forEach(nep -> byId.put(nep.getUuid(), withCeps(nep, byId.get(nep.getUuid()))));
+        tx.put(LogicalDatastoreType.OPERATIONAL, node(nodeId),
+                new NodeBuilder(node).setOwnedNodeEdgePoint(new ArrayList<>(byId.values())).build());
+    }
+
+    /**
+     * Replace all node edge points of a node.
+     * The node is read once and written back with the given points as a single modification.
+     * Points missing from the collection are removed together with their connection end points,
+     * connection end points of the other points are kept.
+     * @param nodeId node id
+     * @param neps node edge points
+     * @param removeSips whether service interface points mapped only by the removed points are removed too
+     * @throws IllegalArgumentException if the node does not exist
+     */
+    public void replaceNodeEdgePoints(Uuid nodeId, Collection<OwnedNodeEdgePoint> neps, boolean removeSips) {
+        verifyTx();
+        assert tx != null;
+        Node node = readNode(nodeId);
+        Map<Uuid, OwnedNodeEdgePoint> old = node.getOwnedNodeEdgePoint() == null ? Collections.emptyMap()
+                : node.getOwnedNodeEdgePoint().stream().collect(Collectors.toMap(OwnedNodeEdgePoint::getUuid, n -> n));
+        if (removeSips) {
+            Set<Uuid> kept = neps.stream().flatMap(NrpDao::mappedSips).collect(Collectors.toSet());
+            removeSips(old.values().stream().flatMap(NrpDao::mappedSips)
+                    .filter(sip -> !kept.contains(sip)).distinct());
+        }
+        tx.put(LogicalDatastoreType.OPERATIONAL, node(nodeId), new NodeBuilder(node)
+                .setOwnedNodeEdgePoint(neps.stream().map(nep -> withCeps(nep, old.get(nep.getUuid())))
+                        .collect(Collectors.toList()))
+                .build());
+    }
+
+    private Node readNode(Uuid nodeId) {
+        Node node = null;
+        try {
+            node = getNode(nodeId);
+        } catch (InterruptedException | ExecutionException e) {
+            LOG.warn("Error while reading node: {}", e.getMessage());
+        }
+        if (node == null) {
+            throw new IllegalArgumentException("Cannot find node " + nodeId.getValue());
+        }
+        return node;
+    }
+
+    private static OwnedNodeEdgePoint withCeps(OwnedNodeEdgePoint nep, OwnedNodeEdgePoint old) {
+        OwnedNodeEdgePoint1 ceps = old == null ? null : old.augmentation(OwnedNodeEdgePoint1.class);
+        if (ceps == null || nep.augmentation(OwnedNodeEdgePoint1.class) != null) {
+            return nep;
+        }
+        return new OwnedNodeEdgePointBuilder(nep).addAugmentation(OwnedNodeEdgePoint1.class, ceps).build();
+    }
+
+    private static Stream<Uuid> mappedSips(OwnedNodeEdgePoint nep) {
+        return nep.getMappedServiceInterfacePoint() == null ? Stream.empty()
+                : nep.getMappedServiceInterfacePoint().stream()
+                    .map(ServiceInterfacePointRef::getServiceInterfacePointId);
+    }
+
     private Function<OwnedNodeEdgePointRef, KeyedInstanceIdentifier<OwnedNodeEdgePoint, OwnedNodeEdgePointKey>> toPath =
         ref -> topo(ref.getTopologyId())
                 .child(Node.class, new NodeKey(new Uuid(ref.getNodeId())))
                 .child(OwnedNodeEdgePoint.class, new OwnedNodeEdgePointKey(ref.getOwnedNodeEdgePointId()));
 
+    /**
+     * Add or replace connection end point of a node edge point.
+     * The end point is written as a keyed child, so the cost does not depend on the number of end points
+     * the node edge point already has and concurrent writes of different end points do not conflict.
+     * @param ref node edge point reference
+     * @param cep connection end point
+     * @return reference to the connection end point
+     * @throws IllegalArgumentException if the node edge point does not exist
+     */
     public org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307
             .connection.ConnectionEndPoint addConnectionEndPoint(OwnedNodeEdgePointRef ref, ConnectionEndPoint cep) {
         verifyTx();
         assert tx != null;
-        OwnedNodeEdgePoint nep = null;
+        KeyedInstanceIdentifier<OwnedNodeEdgePoint, OwnedNodeEdgePointKey> nepPath = toPath.apply(ref);
+        boolean exists = false;
         try {
-            nep = readNep(ref);
-        } catch (ReadFailedException | InterruptedException | ExecutionException e) {
+            exists = tx.exists(LogicalDatastoreType.OPERATIONAL, nepPath).get();
+        } catch (InterruptedException | ExecutionException e) {
             LOG.warn("Error while reading NEP: {}", e.getMessage());
         }
-        if (nep == null) {
+        if (!exists) {
             throw new IllegalArgumentException("Cannot find NEP for " + ref);
         }
 
-        OwnedNodeEdgePoint1Builder builder;
-
-        OwnedNodeEdgePoint1 aug = nep.augmentation(OwnedNodeEdgePoint1.class);
-        if (aug == null) {
-            builder = new OwnedNodeEdgePoint1Builder();
-        } else {
-            builder = new OwnedNodeEdgePoint1Builder(aug);
-        }
-
-        List<ConnectionEndPoint> newCepList = new LinkedList<ConnectionEndPoint>();
-        List<ConnectionEndPoint> cepList = builder.getConnectionEndPoint();
-        if (cepList != null) {
-            newCepList.addAll(cepList);
-        }
-
-        newCepList.add(cep);
-        builder.setConnectionEndPoint(newCepList);
-
-
-        nep = new OwnedNodeEdgePointBuilder(nep).addAugmentation(OwnedNodeEdgePoint1.class, builder.build()).build();
-        tx.merge(LogicalDatastoreType.OPERATIONAL, toPath.apply(ref), nep);
+        //augmentation and the list are created if this is the first end point of the NEP,
+        //unlike a merge of the parent structure the put is not reported as a write of the whole topology
+        tx.put(LogicalDatastoreType.OPERATIONAL, nepPath.augmentation(OwnedNodeEdgePoint1.class)
+                .child(ConnectionEndPoint.class, new ConnectionEndPointKey(cep.getUuid())), cep);
 
         return new ConnectionEndPointBuilder(ref).setConnectionEndPointId(cep.getUuid()).build();
     }
@@ -246,6 +357,50 @@ public class NrpDao  {
         return rtx.read(LogicalDatastoreType.OPERATIONAL, nepKey).get().orElse(null);
     }
 
+    /**
+     * Find node edge point a service interface point is mapped to.
+     * Index hits are verified against the node edge point in the transaction.
+     * Whole topology is read only if there is no index or it has not been updated yet.
+     * @param sip service interface point identifier
+     * @return reference to node edge point
+     */
+    public Optional<OwnedNodeEdgePointRef> getNepBySip(Uuid sip) throws InterruptedException, ExecutionException {
+        OwnedNodeEdgePointRef indexed = sipIndex == null ? null : sipIndex.get(sip);
+        if (indexed != null) {
+            //only the mapping entry is checked, not the whole node edge point with its connection end points
+            if (rtx.exists(LogicalDatastoreType.OPERATIONAL, toPath.apply(indexed)
+                    .child(MappedServiceInterfacePoint.class, new MappedServiceInterfacePointKey(sip))).get()) {
+                return Optional.of(indexed);
+            }
+            LOG.debug("SIP index entry for {} is stale", sip.getValue());
+        }
+
+        Topology topology = getTopology(TapiConstants.PRESTO_SYSTEM_TOPO);
+        if (topology == null || topology.getNode() == null) {
+            return Optional.empty();
+        }
+        NodeEdgePointBuilder builder = new NodeEdgePointBuilder()
+                .setTopologyId(new Uuid(TapiConstants.PRESTO_SYSTEM_TOPO));
+        for (Node node : topology.getNode()) {
+            if (node.getOwnedNodeEdgePoint() == null) {
+                continue;
+            }
+            Optional<OwnedNodeEdgePoint> nep = node.getOwnedNodeEdgePoint().stream()
+                    .filter(n -> mapsSip(n, sip))
+                    .findFirst();
+            if (nep.isPresent()) {
+                return Optional.of(builder.setNodeId(node.getUuid()).setOwnedNodeEdgePointId(nep.get().getUuid())
+                        .build());
+            }
+        }
+        return Optional.empty();
+    }
+
+    private static boolean mapsSip(OwnedNodeEdgePoint nep, Uuid sip) {
+        return nep.getMappedServiceInterfacePoint() != null && nep.getMappedServiceInterfacePoint().stream()
+                .anyMatch(ref -> sip.equals(ref.getServiceInterfacePointId()));
+    }
+
     public boolean hasSip(String nepId) {
         Uuid universalId = new Uuid("sip:" + nepId);
         try {
@@ -378,16 +533,39 @@ public class NrpDao  {
     }
 
     public ConnectivityService getConnectivityService(String idOrName) {
+        return getConnectivityService(idOrName, null);
+    }
+
+    /**
+     * Find connectivity service by identifier or name.
+     * With an index a name is resolved with a single read. Index entries are verified against the datastore
+     * and a stale entry falls back to a scan of all services, but names missing in the index are not searched for.
+     * @param idOrName service identifier or any of its names
+     * @param names index of services by name or null if services have to be scanned
+     * @return connectivity service or null if not found
+     */
+    public ConnectivityService getConnectivityService(String idOrName, ServiceNameIndex names) {
         ConnectivityService cs = getConnectivityService(new Uuid(idOrName));
         if (cs != null) {
             return cs;
         }
 
+        if (names != null) {
+            Uuid indexed = names.get(idOrName);
+            if (indexed == null) {
+                return null;
+            }
+            cs = getConnectivityService(indexed);
+            if (cs != null && hasName(cs, idOrName)) {
+                return cs;
+            }
+            LOG.debug("Service name index entry for {} is stale", idOrName);
+        }
+
         List<ConnectivityService> csList = getConnectivityServiceList();
         if (csList != null) {
             return csList.stream()
-                    .filter(child -> child.getName() != null && child.getName().stream()
-                            .anyMatch(n -> idOrName.equals(n.getValue())))
+                    .filter(child -> hasName(child, idOrName))
                     .findFirst().orElse(null);
 
         }
@@ -406,6 +584,10 @@ public class NrpDao  {
         }
     }
 
+    static boolean hasName(ConnectivityService cs, String name) {
+        return cs.getName() != null && cs.getName().stream().anyMatch(n -> name.equals(n.getValue()));
+    }
+
     public OwnedNodeEdgePoint getNepByCep(ConnectionEndPointRef ref) {
         KeyedInstanceIdentifier<OwnedNodeEdgePoint, OwnedNodeEdgePointKey> nepPath =
                 node(ref.getTopologyId(), ref.getNodeId())
@@ -465,9 +647,16 @@ public class NrpDao  {
         tx.delete(LogicalDatastoreType.OPERATIONAL, CS_CTX.child(Connection.class, new ConnectionKey(connectionId)));
     }
 
-    public ConnectivityService updateCsEndPoint(String serviceId,
+    /**
+     * Write end point of a connectivity service. The transaction is not committed.
+     * It is idempotent, so can be used with {@link CommitRetry}.
+     * @param serviceId service identifier
+     * @param endPoint updated end point
+     * @return connectivity service as read in the transaction
+     */
+    public ConnectivityService writeCsEndPoint(String serviceId,
             org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307
-            .update.connectivity.service.input.EndPoint endPoint) throws InterruptedException, ExecutionException {
+            .update.connectivity.service.input.EndPoint endPoint) {
         Objects.requireNonNull(endPoint);
         Objects.requireNonNull(serviceId);
         org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307
@@ -484,14 +673,6 @@ public class NrpDao  {
                     new EndPoint1Builder(endPoint.augmentation(EndPoint7.class)).build());
         }
         //XXX do we need to support name as well?
-        ConnectivityService cs = getConnectivityService(serviceId);
-        try {
-            tx.commit().get();
-        } catch (InterruptedException | ExecutionException e) {
-            LOG.warn("Problem with updating connectivity service endpoint: {}", e.getMessage());
-            throw e;
-        }
-
-        return cs;
+        return getConnectivityService(serviceId);
     }
 }
@@ -0,0 +1,350 @@
+/*
+ * Copyright (c) 2018 Cisco Systems Inc and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.unimgr.mef.nrp.common;
+
+import com.google.common.base.Function;
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.AsyncCallable;
+import com.google.common.util.concurrent.FluentFuture;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import org.opendaylight.yangtools.yang.common.RpcError;
+import org.opendaylight.yangtools.yang.common.RpcResult;
+import org.opendaylight.yangtools.yang.common.RpcResultBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Executor of RPC requests with admission control.
+ * Requests wait for a thread in a bounded queue. When the queue is full, or the number of requests of a given RPC
+ * in progress reaches the limit configured for it, the request is rejected at once
+ * with an error result instead of waiting for the client to time out.
+ * A single instance is shared by the RPC services, so the threads blocked on datastore operations
+ * are sized and monitored in one place. The module targets Java 8, which has no virtual threads,
+ * so blocking requests are served by a pool sized above the number of cores.
+ */
+public class RpcExecutor implements RpcExecutorMXBean, AutoCloseable {
+    public static final String OVERLOADED = "resource-denied";
+    private static final Logger LOG = LoggerFactory.getLogger(RpcExecutor.class);
+    private static final String MBEAN_NAME = "org.opendaylight.unimgr:type=RpcExecutor,name=";
+
+    private final String name;
+    private final int queueCapacity;
+    private final ThreadPoolExecutor pool;
+    private final ListeningExecutorService executor;
+    private final Map<String, Limit> limits = new ConcurrentHashMap<>();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder waitCount = new LongAdder();
+    private final LongAdder waitTime = new LongAdder();
+    private final AtomicLong maxWaitTime = new AtomicLong();
+    private ObjectName registered;
+
+    /**
+     * Create executor.
+     * @param name name used for threads and the MBean
+     * @param threads number of threads
+     * @param queueCapacity number of requests that can wait for a thread
+     */
+    public RpcExecutor(String name, int threads, int queueCapacity) {
+        Objects.requireNonNull(name);
+        Preconditions.checkArgument(threads > 0, "threads must be positive");
+        Preconditions.checkArgument(queueCapacity > 0, "queue capacity must be positive");
+        this.name = name;
+        this.queueCapacity = queueCapacity;
+        pool = new ThreadPoolExecutor(threads, threads, 1, TimeUnit.MINUTES,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new ThreadFactoryBuilder().setNameFormat(name + "-%d").setDaemon(true).build());
+        pool.allowCoreThreadTimeOut(true);
+        executor = MoreExecutors.listeningDecorator(pool);
+    }
+
+    public void init() {
+        try {
+            ObjectName objectName = new ObjectName(MBEAN_NAME + name);
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+            registered = objectName;
+        } catch (JMException e) {
+            LOG.warn("Cannot register {} executor MBean", name, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (registered != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(registered);
+            } catch (JMException e) {
+                LOG.warn("Cannot unregister {} executor MBean", name, e);
+            }
+            registered = null;
+        }
+        executor.shutdown();
+    }
+
+    /**
+     * Set maximal number of requests of an RPC that are queued or running at the same time.
+     * @param rpc name of the RPC
+     * @param permits maximal number of requests
+     */
+    public void limit(String rpc, int permits) {
+        Objects.requireNonNull(rpc);
+        Preconditions.checkArgument(permits > 0, "limit of %s must be positive", rpc);
+        limits.put(rpc, new Limit(permits));
+    }
+
+    /**
+     * Set limits of many RPCs.
+     * @param rpcLimits maximal number of requests in progress per RPC name
+     * @see #limit(String, int)
+     */
+    public void setLimits(Map<String, Integer> rpcLimits) {
+        rpcLimits.forEach(this::limit);
+    }
+
+    /**
+     * Submit request of an RPC.
+     * @param rpc name of the RPC
+     * @param task request processing
+     * @param <T> type of RPC output
+     * @return future result, already failed with {@value #OVERLOADED} error if the request is rejected
+     */
+    public <T> ListenableFuture<RpcResult<T>> submit(String rpc, Callable<RpcResult<T>> task) {
+        return start(rpc, () -> Futures.immediateFuture(task.call()));
+    }
+
+    /**
+     * Submit request of an RPC that completes asynchronously, e.g. on a datastore read.
+     * The task is started on this executor and the request counts against the limit of its RPC
+     * until the result is complete.
+     * @param rpc name of the RPC
+     * @param task starts request processing
+     * @param <T> type of RPC output
+     * @return future result, already failed with {@value #OVERLOADED} error if the request is rejected
+     */
+    public <T> FluentFuture<RpcResult<T>> submitAsync(String rpc, AsyncCallable<RpcResult<T>> task) {
+        return FluentFuture.from(start(rpc, task));
+    }
+
+    /**
+     * Start request of an RPC processed asynchronously, in stages running on other executors.
+     * The request counts against the limit of its RPC until the result is complete.
+     * @param rpc name of the RPC
+     * @param pipeline starts request processing
+     * @param <T> type of RPC output
+     * @return future result, already failed with {@value #OVERLOADED} error if the request is rejected
+     */
+    public <T> ListenableFuture<RpcResult<T>> submitStaged(String rpc,
+                                                           Supplier<? extends CompletionStage<RpcResult<T>>> pipeline) {
+        return start(rpc, () -> {
+            final SettableFuture<RpcResult<T>> result = SettableFuture.create();
+            pipeline.get().whenComplete((value, error) -> {
+                if (error == null) {
+                    result.set(value);
+                } else {
+                    result.setException(error);
+                }
+            });
+            return result;
+        });
+    }
+
+    /**
+     * Read data of an RPC and transform it on this executor, e.g. rewrite of data read from the datastore.
+     * @param rpc name of the RPC
+     * @param read starts the read
+     * @param function transformation
+     * @param <I> type of the transformed result
+     * @param <T> type of RPC output
+     * @return future result, failed with {@value #OVERLOADED} error if the request or the transformation is rejected
+     */
+    public <I, T> FluentFuture<RpcResult<T>> transform(String rpc, Supplier<? extends ListenableFuture<I>> read,
+                                                       Function<? super I, RpcResult<T>> function) {
+        return submitAsync(rpc, () -> FluentFuture.from(read.get()).transform(function, executor)
+                .catching(RejectedExecutionException.class, e -> {
+                    rejected.increment();
+                    LOG.warn("Request of {} rejected, {} executor queue is full", rpc, name);
+                    return overloaded(rpc);
+                }, MoreExecutors.directExecutor()));
+    }
+
+    /**
+     * Admit request of an RPC. All the requests go this way, so each takes the permit of its RPC,
+     * waits in the bounded queue and has the wait time recorded.
+     * @param rpc name of the RPC
+     * @param task starts request processing on a thread of this executor
+     * @param <T> type of RPC output
+     * @return future result, already failed with {@value #OVERLOADED} error if the request is rejected
+     */
+    @SuppressWarnings("checkstyle:illegalcatch")
+    private <T> ListenableFuture<RpcResult<T>> start(String rpc, AsyncCallable<RpcResult<T>> task) {
+        final Runnable release = acquire(rpc);
+        if (release == null) {
+            return Futures.immediateFuture(overloaded(rpc));
+        }
+        final SettableFuture<RpcResult<T>> result = SettableFuture.create();
+        //permit is returned before the result is complete, or when it is cancelled before the task runs
+        final SettableFuture<RpcResult<T>> processed = SettableFuture.create();
+        processed.addListener(() -> {
+            release.run();
+            result.setFuture(processed);
+        }, MoreExecutors.directExecutor());
+        result.addListener(release, MoreExecutors.directExecutor());
+        final long queued = System.nanoTime();
+        try {
+            pool.execute(() -> {
+                waited(System.nanoTime() - queued);
+                if (result.isDone()) {
+                    return;
+                }
+                try {
+                    processed.setFuture(task.call());
+                } catch (Exception e) {
+                    processed.setException(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            LOG.warn("Request of {} rejected, {} executor queue is full", rpc, name);
+            result.set(overloaded(rpc));
+        }
+        return result;
+    }
+
+    /**
+     * Take permit of an RPC.
+     * @param rpc name of the RPC
+     * @return action returning the permit, null if the limit of the RPC is reached
+     */
+    private Runnable acquire(String rpc) {
+        Limit limit = limits.get(rpc);
+        if (limit == null) {
+            return () -> { };
+        }
+        if (!limit.permits.tryAcquire()) {
+            rejected.increment();
+            LOG.warn("Request of {} rejected, limit of requests in progress reached", rpc);
+            return null;
+        }
+        //permit is returned once, either by the task or when the task is cancelled before it runs
+        final AtomicBoolean released = new AtomicBoolean();
+        return () -> {
+            if (released.compareAndSet(false, true)) {
+                limit.permits.release();
+            }
+        };
+    }
+
+    /**
+     * Build result of a request rejected because of overload.
+     * @param rpc name of the RPC
+     * @param <T> type of RPC output
+     * @return failed result
+     */
+    public static <T> RpcResult<T> overloaded(String rpc) {
+        return RpcResultBuilder.<T>failed()
+                .withError(RpcError.ErrorType.APPLICATION, OVERLOADED,
+                        "Service overloaded, " + rpc + " request rejected. Try again later")
+                .build();
+    }
+
+    /**
+     * Executor of the tasks supporting the RPCs, e.g. transformation of read results.
+     * It shares the bounded queue, so tasks might be rejected with {@link RejectedExecutionException}.
+     * @return executor
+     */
+    public ListeningExecutorService getExecutor() {
+        return executor;
+    }
+
+    void waited(long nanos) {
+        waitCount.increment();
+        waitTime.add(nanos);
+        maxWaitTime.accumulateAndGet(nanos, Math::max);
+    }
+
+    @Override
+    public int getPoolSize() {
+        return pool.getPoolSize();
+    }
+
+    @Override
+    public int getActiveCount() {
+        return pool.getActiveCount();
+    }
+
+    @Override
+    public int getQueueDepth() {
+        return pool.getQueue().size();
+    }
+
+    @Override
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    @Override
+    public long getCompletedCount() {
+        return pool.getCompletedTaskCount();
+    }
+
+    @Override
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    @Override
+    public double getAverageWaitTime() {
+        long count = waitCount.sum();
+        return count == 0 ? 0 : waitTime.sum() / (double) count / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    @Override
+    public double getMaxWaitTime() {
+        return maxWaitTime.get() / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    @Override
+    public Map<String, Integer> getInProgress() {
+        Map<String, Integer> inProgress = new TreeMap<>();
+        limits.forEach((rpc, limit) -> inProgress.put(rpc, limit.size - limit.permits.availablePermits()));
+        return inProgress;
+    }
+
+    private static final class Limit {
+        private final int size;
+        private final Semaphore permits;
+
+        Limit(int size) {
+            this.size = size;
+            this.permits = new Semaphore(size);
+        }
+    }
+}
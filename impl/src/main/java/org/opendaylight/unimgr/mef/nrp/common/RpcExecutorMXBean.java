@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2018 Cisco Systems Inc and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.unimgr.mef.nrp.common;
+
+import java.util.Map;
+
+/**
+ * RPC executor statistics exposed over JMX.
+ */
+public interface RpcExecutorMXBean {
+
+    int getPoolSize();
+
+    int getActiveCount();
+
+    int getQueueDepth();
+
+    int getQueueCapacity();
+
+    long getCompletedCount();
+
+    /**
+     * Number of requests rejected either because the queue was full or the limit of their RPC was reached.
+     * @return rejection count
+     */
+    long getRejectedCount();
+
+    /**
+     * Average time requests spent in the queue before execution.
+     * @return wait time in milliseconds
+     */
+    double getAverageWaitTime();
+
+    /**
+     * Longest time a request spent in the queue before execution.
+     * @return wait time in milliseconds
+     */
+    double getMaxWaitTime();
+
+    /**
+     * Number of requests queued or running per RPC with a limit configured.
+     * @return requests in progress by RPC name
+     */
+    Map<String, Integer> getInProgress();
+}
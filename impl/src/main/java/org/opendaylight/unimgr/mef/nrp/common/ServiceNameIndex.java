@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2018 Cisco Systems Inc and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.unimgr.mef.nrp.common;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import org.opendaylight.mdsal.binding.api.DataBroker;
+import org.opendaylight.mdsal.binding.api.DataObjectModification;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.Uuid;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.global._class.Name;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.Context1;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.connectivity.context.ConnectivityService;
+
+/**
+ * Index of connectivity services by name.
+ * It follows connectivity services in operational datastore, so a service that has just been created or renamed
+ * might not be found yet.
+ */
+public class ServiceNameIndex extends AbstractIndex<ConnectivityService> {
+    private final Map<String, Uuid> services = new ConcurrentHashMap<>();
+    private final Map<Uuid, List<String>> serviceNames = new HashMap<>();
+
+    public ServiceNameIndex() {
+        this(null);
+    }
+
+    public ServiceNameIndex(DataBroker broker) {
+        super(broker, NrpDao.ctx().augmentation(Context1.class).child(ConnectivityService.class));
+    }
+
+    /**
+     * Find connectivity service by name.
+     * @param name value of any of the service names
+     * @return service identifier or null if there is no service with the name
+     */
+    public Uuid get(String name) {
+        return name == null ? null : services.get(name);
+    }
+
+    /**
+     * Add or replace names of a service.
+     * @param service connectivity service
+     */
+    public synchronized void put(ConnectivityService service) {
+        remove(service.getUuid());
+        if (service.getName() == null || service.getName().isEmpty()) {
+            return;
+        }
+        List<String> names = service.getName().stream()
+                .map(Name::getValue)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        names.forEach(n -> services.put(n, service.getUuid()));
+        serviceNames.put(service.getUuid(), names);
+    }
+
+    /**
+     * Remove names of a service.
+     * @param serviceId service identifier
+     */
+    public synchronized void remove(Uuid serviceId) {
+        List<String> names = serviceNames.remove(serviceId);
+        if (names != null) {
+            //a name might have been taken over by another service in the meantime
+            names.forEach(n -> services.remove(n, serviceId));
+        }
+    }
+
+    @Override
+    protected void written(DataObjectModification<ConnectivityService> root) {
+        if (!names(root.getDataBefore()).equals(names(root.getDataAfter()))) {
+            put(root.getDataAfter());
+        }
+    }
+
+    @Override
+    protected void deleted(DataObjectModification<ConnectivityService> root) {
+        remove(root.getDataBefore().getUuid());
+    }
+
+    @Override
+    protected void modified(DataObjectModification<ConnectivityService> root) {
+        written(root);
+    }
+
+    private static List<Name> names(ConnectivityService service) {
+        return service == null || service.getName() == null ? Collections.emptyList() : service.getName();
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2018 Cisco Systems Inc and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.unimgr.mef.nrp.common;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import org.opendaylight.mdsal.binding.api.DataBroker;
+import org.opendaylight.mdsal.binding.api.DataObjectModification;
+import org.opendaylight.unimgr.mef.nrp.api.TapiConstants;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.ServiceInterfacePointRef;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.Uuid;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.OwnedNodeEdgePointRef;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.link.NodeEdgePointBuilder;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.node.OwnedNodeEdgePoint;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.topology.Node;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.topology.context.Topology;
+import org.opendaylight.yangtools.yang.binding.DataObject;
+
+/**
+ * Index of node edge points by service interface points mapped to them.
+ * It follows presto system topology and is updated with each node change.
+ */
+public class SipIndex extends AbstractIndex<Topology> {
+    private final Map<Uuid, OwnedNodeEdgePointRef> neps = new ConcurrentHashMap<>();
+    private final Map<Uuid, Set<Uuid>> nodeSips = new HashMap<>();
+
+    public SipIndex() {
+        this(null);
+    }
+
+    public SipIndex(DataBroker broker) {
+        super(broker, NrpDao.topo(TapiConstants.PRESTO_SYSTEM_TOPO));
+    }
+
+    /**
+     * Find node edge point a service interface point is mapped to.
+     * @param sip service interface point identifier
+     * @return reference to node edge point or null if the service interface point is not mapped
+     */
+    public OwnedNodeEdgePointRef get(Uuid sip) {
+        return sip == null ? null : neps.get(sip);
+    }
+
+    /**
+     * Replace the index content with a given topology.
+     * @param topology system topology or null if it has been removed
+     */
+    public synchronized void reset(Topology topology) {
+        neps.clear();
+        nodeSips.clear();
+        if (topology != null && topology.getNode() != null) {
+            topology.getNode().forEach(this::putNode);
+        }
+    }
+
+    /**
+     * Add or replace service interface points mapped to node edge points of a node.
+     * @param node node
+     */
+    public synchronized void putNode(Node node) {
+        removeNode(node.getUuid());
+        if (node.getOwnedNodeEdgePoint() == null) {
+            return;
+        }
+        NodeEdgePointBuilder builder = new NodeEdgePointBuilder()
+                .setTopologyId(new Uuid(TapiConstants.PRESTO_SYSTEM_TOPO))
+                .setNodeId(node.getUuid());
+        for (OwnedNodeEdgePoint nep : node.getOwnedNodeEdgePoint()) {
+            if (nep.getMappedServiceInterfacePoint() == null || nep.getMappedServiceInterfacePoint().isEmpty()) {
+                continue;
+            }
+            OwnedNodeEdgePointRef ref = builder.setOwnedNodeEdgePointId(nep.getUuid()).build();
+            Set<Uuid> sips = nep.getMappedServiceInterfacePoint().stream()
+                    .map(ServiceInterfacePointRef::getServiceInterfacePointId)
+                    .collect(Collectors.toSet());
+            sips.forEach(sip -> neps.put(sip, ref));
+            nodeSips.computeIfAbsent(node.getUuid(), k -> new HashSet<>()).addAll(sips);
+        }
+    }
+
+    /**
+     * Remove service interface points mapped to node edge points of a node.
+     * @param nodeId node identifier
+     */
+    public synchronized void removeNode(Uuid nodeId) {
+        Set<Uuid> sips = nodeSips.remove(nodeId);
+        if (sips != null) {
+            //a service interface point might have been remapped to another node in the meantime
+            sips.forEach(sip -> neps.computeIfPresent(sip,
+                (key, ref) -> nodeId.equals(ref.getNodeId()) ? null : ref));
+        }
+    }
+
+    @Override
+    protected void written(DataObjectModification<Topology> root) {
+        reset(root.getDataAfter());
+    }
+
+    @Override
+    protected void deleted(DataObjectModification<Topology> root) {
+        reset(null);
+    }
+
+    @Override
+    protected void modified(DataObjectModification<Topology> root) {
+        root.getModifiedChildren().forEach(this::apply);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void apply(DataObjectModification<? extends DataObject> modification) {
+        if (Node.class.equals(modification.getDataType())) {
+            DataObjectModification<Node> node = (DataObjectModification<Node>) modification;
+            if (node.getModificationType() == DataObjectModification.ModificationType.DELETE) {
+                removeNode(node.getDataBefore().getUuid());
+            } else if (!TopologyChanges.onlyConnectionEndPointsOfNode(node)) {
+                //connection end points written with each service do not change the mapping
+                putNode(node.getDataAfter());
+            }
+        }
+    }
+}
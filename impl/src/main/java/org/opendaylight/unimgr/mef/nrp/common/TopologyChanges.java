@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2018 Cisco Systems Inc and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.unimgr.mef.nrp.common;
+
+import org.opendaylight.mdsal.binding.api.DataObjectModification;
+import org.opendaylight.mdsal.binding.api.DataObjectModification.ModificationType;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.OwnedNodeEdgePoint1;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.node.OwnedNodeEdgePoint;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.topology.Node;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.topology.context.Topology;
+
+/**
+ * Classification of system topology changes.
+ * Connection end points are written to node edge points with each connectivity service created or removed,
+ * while listeners interested in the structure of the topology can skip such changes.
+ */
+public final class TopologyChanges {
+
+    private TopologyChanges() {
+    }
+
+    /**
+     * Check if only connection end points of a topology have been modified.
+     * @param topology modification of a topology
+     * @return true if neither nodes, node edge points nor links have been changed
+     */
+    public static boolean onlyConnectionEndPoints(DataObjectModification<Topology> topology) {
+        if (topology.getModificationType() != ModificationType.SUBTREE_MODIFIED) {
+            return false;
+        }
+        return topology.getModifiedChildren().stream()
+                .allMatch(child -> Node.class.equals(child.getDataType())
+                        && onlyConnectionEndPointsOfNode(child));
+    }
+
+    /**
+     * Check if only connection end points of a node have been modified.
+     * @param node modification of a node
+     * @return true if neither node attributes nor its node edge points have been changed
+     */
+    public static boolean onlyConnectionEndPointsOfNode(DataObjectModification<?> node) {
+        if (node.getModificationType() != ModificationType.SUBTREE_MODIFIED) {
+            return false;
+        }
+        return node.getModifiedChildren().stream()
+                .allMatch(nep -> OwnedNodeEdgePoint.class.equals(nep.getDataType())
+                        && nep.getModificationType() == ModificationType.SUBTREE_MODIFIED
+                        && nep.getModifiedChildren().stream()
+                                .allMatch(child -> OwnedNodeEdgePoint1.class.equals(child.getDataType())));
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2018 Cisco Systems Inc and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.unimgr.mef.nrp.common;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.opendaylight.yang.gen.v1.urn.odl.unimgr.yang.unimgr.ext.rev170531.NodeAdiAugmentation;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.OperationalState;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.PortDirection;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.ServiceInterfacePointRef;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.Uuid;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.OwnedNodeEdgePointRef;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.node.OwnedNodeEdgePoint;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.topology.Link;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.topology.Node;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.topology.context.Topology;
+
+/**
+ * Flat, immutable view of a topology limited to what path computation needs:
+ * node activation drivers, node edge point directions and mapped service interface points,
+ * and node edge points connected by links. It is built either from the binding {@link Topology}
+ * or by {@link TopologyProjectionReader} straight from the normalized nodes.
+ */
+public final class TopologyProjection {
+    private final List<NodeView> nodes;
+    private final List<LinkView> links;
+
+    TopologyProjection(List<NodeView> nodes, List<LinkView> links) {
+        this.nodes = Collections.unmodifiableList(nodes);
+        this.links = Collections.unmodifiableList(links);
+    }
+
+    /**
+     * Project binding topology.
+     * @param topology topology or null
+     * @return projection, empty if there is no topology
+     */
+    public static TopologyProjection of(Topology topology) {
+        if (topology == null) {
+            return new TopologyProjection(Collections.emptyList(), Collections.emptyList());
+        }
+        List<NodeView> nodes = topology.getNode() == null ? Collections.emptyList()
+                : topology.getNode().stream().map(TopologyProjection::toView).collect(Collectors.toList());
+        List<LinkView> links = topology.getLink() == null ? Collections.emptyList()
+                : topology.getLink().stream().map(TopologyProjection::toView).collect(Collectors.toList());
+        return new TopologyProjection(nodes, links);
+    }
+
+    public List<NodeView> getNodes() {
+        return nodes;
+    }
+
+    public List<LinkView> getLinks() {
+        return links;
+    }
+
+    private static NodeView toView(Node node) {
+        NodeAdiAugmentation aug = node.augmentation(NodeAdiAugmentation.class);
+        List<NepView> neps = node.getOwnedNodeEdgePoint() == null ? null
+                : node.getOwnedNodeEdgePoint().stream().map(TopologyProjection::toView).collect(Collectors.toList());
+        return new NodeView(node.getUuid(), aug == null ? null : aug.getActivationDriverId(), neps);
+    }
+
+    private static NepView toView(OwnedNodeEdgePoint nep) {
+        List<Uuid> sips = nep.getMappedServiceInterfacePoint() == null ? Collections.emptyList()
+                : nep.getMappedServiceInterfacePoint().stream()
+                    .map(ServiceInterfacePointRef::getServiceInterfacePointId).collect(Collectors.toList());
+        return new NepView(nep.getUuid(), nep.getLinkPortDirection(), sips);
+    }
+
+    private static LinkView toView(Link link) {
+        List<Uuid> neps = link.getNodeEdgePoint() == null ? null
+                : link.getNodeEdgePoint().stream()
+                    .map(OwnedNodeEdgePointRef::getOwnedNodeEdgePointId).collect(Collectors.toList());
+        return new LinkView(link.getUuid(), link.getOperationalState(), neps);
+    }
+
+    /**
+     * Projected node.
+     */
+    public static final class NodeView {
+        private final Uuid uuid;
+        private final String activationDriverId;
+        private final List<NepView> neps;
+
+        NodeView(Uuid uuid, String activationDriverId, List<NepView> neps) {
+            this.uuid = uuid;
+            this.activationDriverId = activationDriverId;
+            this.neps = neps;
+        }
+
+        public Uuid getUuid() {
+            return uuid;
+        }
+
+        public String getActivationDriverId() {
+            return activationDriverId;
+        }
+
+        /**
+         * Get node edge points.
+         * @return node edge points or null if the node has none defined
+         */
+        public List<NepView> getNeps() {
+            return neps;
+        }
+    }
+
+    /**
+     * Projected node edge point.
+     */
+    public static final class NepView {
+        private final Uuid uuid;
+        private final PortDirection linkPortDirection;
+        private final List<Uuid> sips;
+
+        NepView(Uuid uuid, PortDirection linkPortDirection, List<Uuid> sips) {
+            this.uuid = uuid;
+            this.linkPortDirection = linkPortDirection;
+            this.sips = sips;
+        }
+
+        public Uuid getUuid() {
+            return uuid;
+        }
+
+        public PortDirection getLinkPortDirection() {
+            return linkPortDirection;
+        }
+
+        /**
+         * Get mapped service interface points.
+         * @return identifiers of service interface points, empty if none is mapped
+         */
+        public List<Uuid> getSips() {
+            return sips;
+        }
+    }
+
+    /**
+     * Projected link.
+     */
+    public static final class LinkView {
+        private final Uuid uuid;
+        private final OperationalState operationalState;
+        private final List<Uuid> neps;
+
+        LinkView(Uuid uuid, OperationalState operationalState, List<Uuid> neps) {
+            this.uuid = uuid;
+            this.operationalState = operationalState;
+            this.neps = neps;
+        }
+
+        public Uuid getUuid() {
+            return uuid;
+        }
+
+        public OperationalState getOperationalState() {
+            return operationalState;
+        }
+
+        /**
+         * Get identifiers of connected node edge points.
+         * @return node edge point identifiers or null if the link has none defined
+         */
+        public List<Uuid> getNeps() {
+            return neps;
+        }
+    }
+}
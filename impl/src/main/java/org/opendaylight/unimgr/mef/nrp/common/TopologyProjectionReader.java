@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2018 Cisco Systems Inc and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.unimgr.mef.nrp.common;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import org.opendaylight.mdsal.binding.dom.codec.api.BindingNormalizedNodeSerializer;
+import org.opendaylight.mdsal.common.api.LogicalDatastoreType;
+import org.opendaylight.mdsal.dom.api.DOMDataBroker;
+import org.opendaylight.mdsal.dom.api.DOMDataTreeReadTransaction;
+import org.opendaylight.yang.gen.v1.urn.odl.unimgr.yang.unimgr.ext.rev170531.NodeAdiAugmentation;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.OperationalState;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.PortDirection;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.Uuid;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.link.NodeEdgePoint;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.node.OwnedNodeEdgePoint;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.node.edge.point.MappedServiceInterfacePoint;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.topology.Link;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.topology.Node;
+import org.opendaylight.yangtools.yang.common.QName;
+import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier.AugmentationIdentifier;
+import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier.NodeIdentifier;
+import org.opendaylight.yangtools.yang.data.api.schema.AugmentationNode;
+import org.opendaylight.yangtools.yang.data.api.schema.DataContainerChild;
+import org.opendaylight.yangtools.yang.data.api.schema.DataContainerNode;
+import org.opendaylight.yangtools.yang.data.api.schema.MapEntryNode;
+import org.opendaylight.yangtools.yang.data.api.schema.MapNode;
+import org.opendaylight.yangtools.yang.data.api.schema.NormalizedNode;
+
+/**
+ * Reads {@link TopologyProjection} through the DOM data broker.
+ * Only the leaves of the projection are extracted from the normalized nodes, so no binding objects
+ * are created for the nodes, node edge points and links, nor for their augmentations and
+ * connection end points.
+ */
+public class TopologyProjectionReader {
+    private static final NodeIdentifier NODE = NodeIdentifier.create(Node.QNAME);
+    private static final NodeIdentifier NODE_UUID = NodeIdentifier.create(QName.create(Node.QNAME, "uuid"));
+    private static final NodeIdentifier NEP = NodeIdentifier.create(OwnedNodeEdgePoint.QNAME);
+    private static final NodeIdentifier NEP_UUID =
+            NodeIdentifier.create(QName.create(OwnedNodeEdgePoint.QNAME, "uuid"));
+    private static final NodeIdentifier NEP_DIRECTION =
+            NodeIdentifier.create(QName.create(OwnedNodeEdgePoint.QNAME, "link-port-direction"));
+    private static final NodeIdentifier SIP = NodeIdentifier.create(MappedServiceInterfacePoint.QNAME);
+    private static final NodeIdentifier SIP_ID =
+            NodeIdentifier.create(QName.create(MappedServiceInterfacePoint.QNAME, "service-interface-point-id"));
+    private static final NodeIdentifier LINK = NodeIdentifier.create(Link.QNAME);
+    private static final NodeIdentifier LINK_UUID = NodeIdentifier.create(QName.create(Link.QNAME, "uuid"));
+    private static final NodeIdentifier LINK_STATE =
+            NodeIdentifier.create(QName.create(Link.QNAME, "operational-state"));
+    private static final NodeIdentifier LINK_NEP = NodeIdentifier.create(NodeEdgePoint.QNAME);
+    private static final NodeIdentifier LINK_NEP_ID =
+            NodeIdentifier.create(QName.create(NodeEdgePoint.QNAME, "owned-node-edge-point-id"));
+
+    private final DOMDataBroker broker;
+    private final BindingNormalizedNodeSerializer serializer;
+    private final AugmentationIdentifier driverAugmentation;
+    private final NodeIdentifier driverId;
+
+    /**
+     * Create reader.
+     * @param broker DOM data broker
+     * @param serializer binding to normalized node serializer used to translate the topology path
+     */
+    public TopologyProjectionReader(DOMDataBroker broker, BindingNormalizedNodeSerializer serializer) {
+        Objects.requireNonNull(broker);
+        Objects.requireNonNull(serializer);
+        this.broker = broker;
+        this.serializer = serializer;
+        driverAugmentation = (AugmentationIdentifier) serializer.toYangInstanceIdentifier(
+                NrpDao.node("node").augmentation(NodeAdiAugmentation.class)).getLastPathArgument();
+        driverId = NodeIdentifier.create(driverAugmentation.getPossibleChildNames().stream()
+                .filter(q -> "activation-driver-id".equals(q.getLocalName()))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("No activation-driver-id in " + driverAugmentation)));
+    }
+
+    /**
+     * Read topology projection from operational datastore.
+     * @param topologyId topology identifier
+     * @return projection, empty if there is no such topology
+     * @throws InterruptedException if interrupted while reading
+     * @throws ExecutionException if the read fails
+     */
+    public TopologyProjection read(String topologyId) throws InterruptedException, ExecutionException {
+        Optional<NormalizedNode<?, ?>> topology;
+        try (DOMDataTreeReadTransaction tx = broker.newReadOnlyTransaction()) {
+            topology = tx.read(LogicalDatastoreType.OPERATIONAL,
+                    serializer.toYangInstanceIdentifier(NrpDao.topo(topologyId))).get();
+        }
+        if (!topology.isPresent()) {
+            return new TopologyProjection(Collections.emptyList(), Collections.emptyList());
+        }
+        List<TopologyProjection.NodeView> nodes = new ArrayList<>();
+        for (MapEntryNode node : entries(topology.get(), NODE)) {
+            nodes.add(toNode(node));
+        }
+        List<TopologyProjection.LinkView> links = new ArrayList<>();
+        for (MapEntryNode link : entries(topology.get(), LINK)) {
+            links.add(toLink(link));
+        }
+        return new TopologyProjection(nodes, links);
+    }
+
+    private TopologyProjection.NodeView toNode(MapEntryNode node) {
+        List<TopologyProjection.NepView> neps = null;
+        Collection<MapEntryNode> nepEntries = entriesOrNull(node, NEP);
+        if (nepEntries != null) {
+            neps = new ArrayList<>(nepEntries.size());
+            for (MapEntryNode nep : nepEntries) {
+                neps.add(toNep(nep));
+            }
+        }
+        Object driver = null;
+        Optional<DataContainerChild<?, ?>> augmentation = node.getChild(driverAugmentation);
+        if (augmentation.isPresent()) {
+            driver = leaf((AugmentationNode) augmentation.get(), driverId);
+        }
+        return new TopologyProjection.NodeView(uuid(node, NODE_UUID), (String) driver, neps);
+    }
+
+    private static TopologyProjection.NepView toNep(MapEntryNode nep) {
+        Object direction = leaf(nep, NEP_DIRECTION);
+        Collection<MapEntryNode> sipEntries = entries(nep, SIP);
+        List<Uuid> sips = new ArrayList<>(sipEntries.size());
+        for (MapEntryNode sip : sipEntries) {
+            sips.add(uuid(sip, SIP_ID));
+        }
+        return new TopologyProjection.NepView(uuid(nep, NEP_UUID),
+                direction == null ? null : PortDirection.forName((String) direction).orElse(null), sips);
+    }
+
+    private static TopologyProjection.LinkView toLink(MapEntryNode link) {
+        Object state = leaf(link, LINK_STATE);
+        List<Uuid> neps = null;
+        Collection<MapEntryNode> nepEntries = entriesOrNull(link, LINK_NEP);
+        if (nepEntries != null) {
+            neps = new ArrayList<>(nepEntries.size());
+            for (MapEntryNode nep : nepEntries) {
+                neps.add(uuid(nep, LINK_NEP_ID));
+            }
+        }
+        return new TopologyProjection.LinkView(uuid(link, LINK_UUID),
+                state == null ? null : OperationalState.forName((String) state).orElse(null), neps);
+    }
+
+    private static Collection<MapEntryNode> entries(NormalizedNode<?, ?> parent, NodeIdentifier list) {
+        Collection<MapEntryNode> entries = entriesOrNull(parent, list);
+        return entries == null ? Collections.emptyList() : entries;
+    }
+
+    private static Collection<MapEntryNode> entriesOrNull(NormalizedNode<?, ?> parent, NodeIdentifier list) {
+        Optional<DataContainerChild<?, ?>> child = ((DataContainerNode<?>) parent).getChild(list);
+        return child.isPresent() ? ((MapNode) child.get()).getValue() : null;
+    }
+
+    private static Uuid uuid(DataContainerNode<?> parent, NodeIdentifier leaf) {
+        Object value = leaf(parent, leaf);
+        return value == null ? null : new Uuid((String) value);
+    }
+
+    private static Object leaf(DataContainerNode<?> parent, NodeIdentifier leaf) {
+        Optional<DataContainerChild<?, ?>> child = parent.getChild(leaf);
+        return child.isPresent() ? child.get().getValue() : null;
+    }
+}
@@ -9,10 +9,14 @@ package org.opendaylight.unimgr.mef.nrp.impl;
 
 import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 import javax.annotation.Nonnull;
 import org.checkerframework.checker.nullness.qual.Nullable;
@@ -21,10 +25,9 @@ import org.opendaylight.mdsal.binding.api.DataObjectModification;
 import org.opendaylight.mdsal.binding.api.DataTreeChangeListener;
 import org.opendaylight.mdsal.binding.api.DataTreeIdentifier;
 import org.opendaylight.mdsal.binding.api.DataTreeModification;
-import org.opendaylight.mdsal.binding.api.ReadWriteTransaction;
-import org.opendaylight.mdsal.common.api.CommitInfo;
 import org.opendaylight.mdsal.common.api.LogicalDatastoreType;
 import org.opendaylight.unimgr.mef.nrp.api.TapiConstants;
+import org.opendaylight.unimgr.mef.nrp.common.CommitRetry;
 import org.opendaylight.unimgr.mef.nrp.common.NrpDao;
 import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.Context;
 import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.Uuid;
@@ -52,12 +55,25 @@ public class AbstractNodeHandler implements DataTreeChangeListener<Topology> {
     private ListenerRegistration<AbstractNodeHandler> registration;
 
     private final DataBroker dataBroker;
+    private CommitRetry commitRetry = CommitRetry.DEFAULT;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(
+            new ThreadFactoryBuilder().setNameFormat("abstract-node-handler").setDaemon(true).build());
+    private ListenableFuture<Object> pending = Futures.immediateFuture(null);
 
     public AbstractNodeHandler(DataBroker dataBroker) {
         Objects.requireNonNull(dataBroker);
         this.dataBroker = dataBroker;
     }
 
+    /**
+     * Set retry policy of the abstract node updates.
+     * The updates fall back to {@link CommitRetry#DEFAULT}.
+     * @param commitRetry retry policy
+     */
+    public void setCommitRetry(CommitRetry commitRetry) {
+        this.commitRetry = commitRetry;
+    }
+
     public void init() {
         registration = dataBroker
                 .registerDataTreeChangeListener(
@@ -71,6 +87,7 @@ public class AbstractNodeHandler implements DataTreeChangeListener<Topology> {
             registration.close();
             LOG.debug("AbstractNodeHandler closed");
         }
+        executor.shutdown();
     }
 
     @Override
@@ -97,19 +114,23 @@ public class AbstractNodeHandler implements DataTreeChangeListener<Topology> {
                 .map(nep -> (OwnedNodeEdgePoint) nep.getDataBefore())
                 .collect(Collectors.toList());
 
-        final ReadWriteTransaction topoTx = dataBroker.newReadWriteTransaction();
-        NrpDao dao = new NrpDao(topoTx);
+        //changes are committed in order, so a retried commit does not override the next one
+        pending = Futures.transformAsync(Futures.catching(pending, Throwable.class, t -> null,
+                MoreExecutors.directExecutor()), v -> commitRetry.commit(dataBroker, topoTx -> {
+                    NrpDao dao = new NrpDao(topoTx);
 
-        toUpdateNeps
-                .forEach(dao::updateAbstractNep);
+                    toUpdateNeps
+                            .forEach(dao::updateAbstractNep);
 
-        toDeleteNeps
-                .forEach(dao::deleteAbstractNep);
+                    toDeleteNeps
+                            .forEach(dao::deleteAbstractNep);
+                    return null;
+                }, executor), MoreExecutors.directExecutor());
 
-        Futures.addCallback(topoTx.commit(), new FutureCallback<CommitInfo>() {
+        Futures.addCallback(pending, new FutureCallback<Object>() {
 
             @Override
-            public void onSuccess(@Nullable CommitInfo result) {
+            public void onSuccess(@Nullable Object result) {
                 LOG.info("Abstract TAPI node updated successful");
             }
 
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2018 Cisco Systems Inc and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.unimgr.mef.nrp.impl;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.opendaylight.unimgr.mef.nrp.api.ActivationDriver;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.Uuid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs activation of many services, grouping the drivers by node.
+ * Each node is visited once and all the services configured on it are activated one after another.
+ * Services are independent: when a driver of a service fails, all drivers of that service are rolled back,
+ * whereas the remaining services are activated and committed.
+ */
+public class ActivationBatch {
+    private static final Logger LOG = LoggerFactory.getLogger(ActivationBatch.class);
+
+    private final Map<Uuid, List<Activation>> nodes = new LinkedHashMap<>();
+    private final Map<String, List<ActivationDriver>> services = new LinkedHashMap<>();
+
+    /**
+     * Add driver configuring a node for a service.
+     * @param serviceId service the driver is initialized for
+     * @param nodeId node the driver configures
+     * @param driver initialized driver
+     */
+    public void addDriver(String serviceId, Uuid nodeId, ActivationDriver driver) {
+        nodes.computeIfAbsent(nodeId, k -> new ArrayList<>()).add(new Activation(serviceId, driver));
+        services.computeIfAbsent(serviceId, k -> new ArrayList<>()).add(driver);
+    }
+
+    /**
+     * Activate the contents of this batch.
+     * Nodes are visited in the order of the priority of their drivers.
+     * @return result per service
+     */
+    @SuppressWarnings("checkstyle:illegalcatch")
+    public Map<String, ActivationTransaction.Result> activate() {
+        Map<String, Throwable> failed = new HashMap<>();
+        List<List<Activation>> ordered = new ArrayList<>(nodes.values());
+        ordered.sort(Comparator.comparingInt(ActivationBatch::priority));
+
+        for (List<Activation> node : ordered) {
+            for (Activation a : node) {
+                if (failed.containsKey(a.serviceId)) {
+                    continue;
+                }
+                try {
+                    a.driver.activate();
+                } catch (Throwable e) {
+                    LOG.warn("Activation of {} failed", a.serviceId, e);
+                    failed.put(a.serviceId, e);
+                }
+            }
+        }
+
+        Map<String, ActivationTransaction.Result> results = new LinkedHashMap<>();
+        services.forEach((serviceId, drivers) -> {
+            Throwable failure = failed.get(serviceId);
+            if (failure == null) {
+                try {
+                    drivers.forEach(ActivationDriver::commit);
+                    results.put(serviceId, ActivationTransaction.Result.success());
+                    return;
+                } catch (Throwable e) {
+                    LOG.warn("Commit of {} failed", serviceId, e);
+                    failure = e;
+                }
+            }
+            LOG.info("Rolling back activation of {}", serviceId);
+            drivers.forEach(ActivationDriver::rollback);
+            results.put(serviceId, ActivationTransaction.Result.fail(failure.getMessage(), failure));
+        });
+        LOG.info("Activate batch of {} services finished, {} failed", services.size(),
+                results.values().stream().filter(r -> !r.isSuccessful()).count());
+        return results;
+    }
+
+    private static int priority(List<Activation> node) {
+        return node.stream().mapToInt(a -> a.driver.priority()).min().orElse(Integer.MAX_VALUE);
+    }
+
+    private static final class Activation {
+        private final String serviceId;
+        private final ActivationDriver driver;
+
+        Activation(String serviceId, ActivationDriver driver) {
+            this.serviceId = serviceId;
+            this.driver = driver;
+        }
+    }
+}
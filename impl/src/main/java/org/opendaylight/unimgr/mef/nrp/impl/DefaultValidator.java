@@ -11,15 +11,20 @@ package org.opendaylight.unimgr.mef.nrp.impl;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 import javax.annotation.Nonnull;
 import org.opendaylight.mdsal.binding.api.DataBroker;
+import org.opendaylight.unimgr.mef.nrp.api.FailureResult;
 import org.opendaylight.unimgr.mef.nrp.api.RequestValidator;
 import org.opendaylight.unimgr.mef.nrp.common.NrpDao;
+import org.opendaylight.unimgr.mef.nrp.common.ServiceNameIndex;
+import org.opendaylight.unimgr.mef.nrp.impl.decomposer.TopologyGraph;
 import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.LocalClass;
 import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.PortRole;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.Uuid;
 import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.CreateConnectivityServiceInput;
 import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.ServiceType;
 import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.UpdateConnectivityServiceInput;
@@ -37,11 +42,31 @@ public class DefaultValidator implements RequestValidator {
     private static final Logger LOG = LoggerFactory.getLogger(DefaultValidator.class);
 
     private final  DataBroker dataBroker;
+    private TopologyGraph topologyGraph;
+    private ServiceNameIndex serviceNameIndex;
 
     public DefaultValidator(DataBroker dataBroker) {
         this.dataBroker = dataBroker;
     }
 
+    /**
+     * Set system topology graph used to reject requests with endpoints in disconnected parts of the topology.
+     * No reachability check is done without the graph.
+     * @param topologyGraph topology graph
+     */
+    public void setTopologyGraph(TopologyGraph topologyGraph) {
+        this.topologyGraph = topologyGraph;
+    }
+
+    /**
+     * Set index of connectivity services by name.
+     * Names are resolved by scanning all the services when there is no index.
+     * @param serviceNameIndex index following connectivity services
+     */
+    public void setServiceNameIndex(ServiceNameIndex serviceNameIndex) {
+        this.serviceNameIndex = serviceNameIndex;
+    }
+
     @Override
     public @Nonnull ValidationResult checkValid(CreateConnectivityServiceInput input) {
         LOG.debug("Validation for request started");
@@ -54,7 +79,7 @@ public class DefaultValidator implements RequestValidator {
     @Override
     public @Nonnull ValidationResult checkValid(UpdateConnectivityServiceInput input) {
         ConnectivityService cs = new NrpDao(dataBroker.newReadOnlyTransaction())
-                .getConnectivityService(input.getServiceIdOrName());
+                .getConnectivityService(input.getServiceIdOrName(), serviceNameIndex);
 
         if (cs == null) {
             return new ValidationResult()
@@ -89,11 +114,22 @@ public class DefaultValidator implements RequestValidator {
     }
 
     @Nonnull protected  ValidationResult validateState(CreateConnectivityServiceInput input) {
-        // simple use case to validate port based service
-        // more complex implementation could use caching techniques
-        //TODO implement
+        ValidationResult validationResult = new ValidationResult();
+        if (topologyGraph == null || input.getEndPoint() == null) {
+            return validationResult;
+        }
 
-        return new ValidationResult();
+        List<Uuid> sips = input.getEndPoint().stream()
+                .filter(e -> e.getServiceInterfacePoint() != null)
+                .map(e -> e.getServiceInterfacePoint().getServiceInterfacePointId())
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        try {
+            topologyGraph.snapshot().getReachability().verify(sips);
+        } catch (FailureResult e) {
+            validationResult.problem(e.getMessage());
+        }
+        return validationResult;
     }
 
     @Nonnull protected ValidationResult verifyPayloadCorrect(CreateConnectivityServiceInput input) {
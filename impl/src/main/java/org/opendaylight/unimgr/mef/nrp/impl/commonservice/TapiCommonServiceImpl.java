@@ -7,28 +7,20 @@
  */
 package org.opendaylight.unimgr.mef.nrp.impl.commonservice;
 
+import com.google.common.util.concurrent.FluentFuture;
 import com.google.common.util.concurrent.ListenableFuture;
-import com.google.common.util.concurrent.ListeningExecutorService;
 import com.google.common.util.concurrent.MoreExecutors;
-import java.util.Collections;
-import java.util.List;
 import java.util.Objects;
-import java.util.Optional;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.ThreadPoolExecutor;
-import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import org.opendaylight.mdsal.binding.api.DataBroker;
-import org.opendaylight.mdsal.binding.api.ReadTransaction;
-import org.opendaylight.mdsal.common.api.LogicalDatastoreType;
-import org.opendaylight.unimgr.mef.nrp.common.NrpDao;
+import org.opendaylight.unimgr.mef.nrp.common.AsyncNrpDao;
+import org.opendaylight.unimgr.mef.nrp.common.RpcExecutor;
 import org.opendaylight.yang.gen.v1.urn.mef.yang.nrp._interface.rev180321.NrpSipAttrs;
 import org.opendaylight.yang.gen.v1.urn.mef.yang.nrp._interface.rev180321.ServiceInterfacePoint1;
 import org.opendaylight.yang.gen.v1.urn.mef.yang.nrp._interface.rev180321.Sip1;
 import org.opendaylight.yang.gen.v1.urn.mef.yang.nrp._interface.rev180321.Sip1Builder;
 import org.opendaylight.yang.gen.v1.urn.mef.yang.nrp._interface.rev180321.Sip2;
 import org.opendaylight.yang.gen.v1.urn.mef.yang.nrp._interface.rev180321.Sip2Builder;
-import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.Context;
 import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.GetServiceInterfacePointDetailsInput;
 import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.GetServiceInterfacePointDetailsOutput;
 import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.GetServiceInterfacePointDetailsOutputBuilder;
@@ -38,7 +30,6 @@ import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.GetS
 import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.TapiCommonService;
 import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.UpdateServiceInterfacePointInput;
 import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.UpdateServiceInterfacePointOutput;
-import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.tapi.context.ServiceInterfacePoint;
 import org.opendaylight.yangtools.yang.common.RpcError;
 import org.opendaylight.yangtools.yang.common.RpcResult;
 import org.opendaylight.yangtools.yang.common.RpcResultBuilder;
@@ -49,57 +40,61 @@ import org.slf4j.LoggerFactory;
  * TapiCommon RPC implementation.
  * @author bartosz.michalik@amartus.com
  */
-public class TapiCommonServiceImpl implements TapiCommonService {
+public class TapiCommonServiceImpl implements TapiCommonService, AutoCloseable {
     private static final Logger LOG = LoggerFactory.getLogger(TapiCommonServiceImpl.class);
     private DataBroker broker;
 
-    // TODO decide on strategy for executor service
-    private ListeningExecutorService executor = null;
+    private RpcExecutor executor = null;
+    private boolean ownExecutor;
 
     public void init() {
         Objects.requireNonNull(broker);
         if (executor == null) {
-            executor = MoreExecutors.listeningDecorator(
-                new ThreadPoolExecutor(4, 16,
-                    30, TimeUnit.MINUTES,
-                    new LinkedBlockingQueue<>()));
+            executor = new RpcExecutor("tapi-common", 4, 256);
+            ownExecutor = true;
         }
         LOG.info("TapiCommonServiceImpl initialized");
     }
 
+    @Override
+    public void close() {
+        if (ownExecutor) {
+            executor.close();
+        }
+    }
+
     @Override
     public ListenableFuture<RpcResult<GetServiceInterfacePointDetailsOutput>> getServiceInterfacePointDetails(
             GetServiceInterfacePointDetailsInput input) {
-        final String sip = input.getSipIdOrName();
-        return executor.submit(() -> {
-            NrpDao dao = new NrpDao(broker.newReadOnlyTransaction());
-            try {
-                ServiceInterfacePoint result = dao.getSip(sip);
-                if (result == null) {
-                    throw new IllegalArgumentException("Cannot find SIP for uuid " + sip);
-                }
-                org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307
-                        .get.service._interface.point.details.output.SipBuilder sipBuilder
-                        = new org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307
-                        .get.service._interface.point.details.output.SipBuilder(result);
-                NrpSipAttrs aug = result.augmentation(ServiceInterfacePoint1.class);
-                if (aug != null) {
-                    sipBuilder.addAugmentation(Sip1.class, new Sip1Builder(aug).build());
-                }
-                return RpcResultBuilder.success(
-
+        return executor.submitAsync("get-service-interface-point-details", () -> readSipDetails(input));
+    }
 
-                        new GetServiceInterfacePointDetailsOutputBuilder()
-                                .setSip(sipBuilder.build())
-                                .build())
-                        .build();
+    private FluentFuture<RpcResult<GetServiceInterfacePointDetailsOutput>> readSipDetails(
+            GetServiceInterfacePointDetailsInput input) {
+        final String sip = input.getSipIdOrName();
+        AsyncNrpDao dao = new AsyncNrpDao(broker.newReadOnlyTransaction());
 
-            } catch (IllegalArgumentException e) {
-                return  RpcResultBuilder.<GetServiceInterfacePointDetailsOutput>failed()
+        return dao.getSip(sip).transform(result -> {
+            if (!result.isPresent()) {
+                return RpcResultBuilder.<GetServiceInterfacePointDetailsOutput>failed()
                         .withError(RpcError.ErrorType.APPLICATION,
-                        String.format("Cannot read SIP with uuid: %s", sip) ,e).build();
+                                String.format("Cannot read SIP with uuid: %s", sip),
+                                new IllegalArgumentException("Cannot find SIP for uuid " + sip)).build();
+            }
+            org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307
+                    .get.service._interface.point.details.output.SipBuilder sipBuilder
+                    = new org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307
+                    .get.service._interface.point.details.output.SipBuilder(result.get());
+            NrpSipAttrs aug = result.get().augmentation(ServiceInterfacePoint1.class);
+            if (aug != null) {
+                sipBuilder.addAugmentation(Sip1.class, new Sip1Builder(aug).build());
             }
-        });
+            return RpcResultBuilder.success(
+                    new GetServiceInterfacePointDetailsOutputBuilder()
+                            .setSip(sipBuilder.build())
+                            .build())
+                    .build();
+        }, MoreExecutors.directExecutor());
     }
 
     @Override
@@ -111,39 +106,33 @@ public class TapiCommonServiceImpl implements TapiCommonService {
     @Override
     public ListenableFuture<RpcResult<GetServiceInterfacePointListOutput>> getServiceInterfacePointList(
             GetServiceInterfacePointListInput input) {
-        return executor.submit(() -> {
-            ReadTransaction rtx = broker.newReadOnlyTransaction();
-            RpcResult<GetServiceInterfacePointListOutput> out = RpcResultBuilder
-                    .success(new GetServiceInterfacePointListOutputBuilder().build()).build();
-            List<ServiceInterfacePoint> sips;
-            Optional<Context> ctx = rtx.read(LogicalDatastoreType.OPERATIONAL, NrpDao.ctx()).get();
-            if (ctx.isPresent()) {
-                sips = ctx.get().getServiceInterfacePoint();
+        return executor.transform("get-service-interface-point-list",
+            () -> new AsyncNrpDao(broker.newReadOnlyTransaction()).getSips(), sips -> RpcResultBuilder.success(
+                new GetServiceInterfacePointListOutputBuilder()
+                        .setSip(sips.stream().map(t -> {
+                            NrpSipAttrs nrpAug = t.augmentation(ServiceInterfacePoint1.class);
+                            org.opendaylight.yang.gen.v1.urn.onf.otcc.yang
+                                    .tapi.common.rev180307
+                                    .get.service._interface.point.list.output.SipBuilder sipBuilder
+                                    = new org.opendaylight.yang.gen.v1.urn.onf.otcc.yang
+                                    .tapi.common.rev180307
+                                    .get.service._interface.point.list.output.SipBuilder(t);
+                            if (nrpAug != null) {
+                                sipBuilder.addAugmentation(Sip2.class, new Sip2Builder(nrpAug).build());
+                            }
 
-                if (sips == null) {
-                    sips = Collections.emptyList();
-                }
-
-                out = RpcResultBuilder.success(
-                        new GetServiceInterfacePointListOutputBuilder()
-                                .setSip(sips.stream().map(t -> {
-                                    NrpSipAttrs nrpAug = t.augmentation(ServiceInterfacePoint1.class);
-                                    org.opendaylight.yang.gen.v1.urn.onf.otcc.yang
-                                            .tapi.common.rev180307
-                                            .get.service._interface.point.list.output.SipBuilder sipBuilder
-                                            = new org.opendaylight.yang.gen.v1.urn.onf.otcc.yang
-                                            .tapi.common.rev180307
-                                            .get.service._interface.point.list.output.SipBuilder(t);
-                                    if (nrpAug != null) {
-                                        sipBuilder.addAugmentation(Sip2.class, new Sip2Builder(nrpAug).build());
-                                    }
+                            return sipBuilder.build();
+                        }).collect(Collectors.toList())).build()
+        ).build());
+    }
 
-                                    return sipBuilder.build();
-                                }).collect(Collectors.toList())).build()
-                ).build();
-            }
-            return out;
-        });
+    /**
+     * Set executor shared by the RPC services.
+     * A private executor with default sizing is created in init otherwise.
+     * @param executor executor with admission control, its lifecycle is managed by the caller
+     */
+    public void setExecutor(RpcExecutor executor) {
+        this.executor = executor;
     }
 
     public void setBroker(DataBroker broker) {
@@ -8,29 +8,38 @@
 
 package org.opendaylight.unimgr.mef.nrp.impl.connectivityservice;
 
+import com.google.common.util.concurrent.FluentFuture;
 import java.text.MessageFormat;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.stream.Collectors;
 import org.opendaylight.mdsal.binding.api.ReadWriteTransaction;
 import org.opendaylight.mdsal.common.api.LogicalDatastoreType;
 import org.opendaylight.unimgr.mef.nrp.api.ActivationDriver;
+import org.opendaylight.unimgr.mef.nrp.api.Constraints;
 import org.opendaylight.unimgr.mef.nrp.api.EndPoint;
 import org.opendaylight.unimgr.mef.nrp.api.FailureResult;
+import org.opendaylight.unimgr.mef.nrp.api.RequestDecomposer;
 import org.opendaylight.unimgr.mef.nrp.api.RequestValidator;
 import org.opendaylight.unimgr.mef.nrp.api.Subrequrest;
 import org.opendaylight.unimgr.mef.nrp.api.TapiConstants;
 import org.opendaylight.unimgr.mef.nrp.common.NrpDao;
+import org.opendaylight.unimgr.mef.nrp.common.RpcExecutor;
 import org.opendaylight.unimgr.mef.nrp.common.TapiUtils;
 import org.opendaylight.unimgr.mef.nrp.impl.ActivationTransaction;
+import org.opendaylight.unimgr.mef.nrp.impl.connectivityservice.ServicePipeline.Stage;
+import org.opendaylight.unimgr.mef.nrp.impl.decomposer.CapacityLedger;
+import org.opendaylight.unimgr.mef.nrp.impl.pathcomputation.PlannedPath;
 import org.opendaylight.yang.gen.v1.urn.mef.yang.nrp._interface.rev180321.EndPoint1;
 import org.opendaylight.yang.gen.v1.urn.mef.yang.nrp._interface.rev180321.EndPoint1Builder;
 import org.opendaylight.yang.gen.v1.urn.mef.yang.nrp._interface.rev180321.EndPoint2;
@@ -61,10 +70,10 @@ import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev18030
 import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.connectivity.service.EndPointBuilder;
 import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.create.connectivity.service.input.ConnConstraint;
 import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.create.connectivity.service.input.ConnConstraintBuilder;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.create.connectivity.service.input.TopoConstraint;
 import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.create.connectivity.service.output.ServiceBuilder;
 import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.NodeRef;
 import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.OwnedNodeEdgePointRef;
-import org.opendaylight.yangtools.yang.common.RpcError;
 import org.opendaylight.yangtools.yang.common.RpcError.ErrorType;
 import org.opendaylight.yangtools.yang.common.RpcResult;
 import org.opendaylight.yangtools.yang.common.RpcResultBuilder;
@@ -75,13 +84,17 @@ import org.slf4j.LoggerFactory;
  * Create connectivity implementation.
  * @author bartosz.michalik@amartus.com
  */
-class CreateConnectivityAction implements Callable<RpcResult<CreateConnectivityServiceOutput>> {
+class CreateConnectivityAction {
     private static final Logger LOG = LoggerFactory.getLogger(CreateConnectivityAction.class);
 
     private TapiConnectivityServiceImpl service;
     private final CreateConnectivityServiceInput input;
     private List<Subrequrest> decomposedRequest;
-    private List<EndPoint> endpoints;
+    private final List<EndPoint> endpoints;
+    private String stamp;
+    private boolean activated;
+    private List<String> problems;
+    private NodeLocks.Lease lease;
 
     CreateConnectivityAction(TapiConnectivityServiceImpl tapiConnectivityService,
                              CreateConnectivityServiceInput input) {
@@ -89,71 +102,133 @@ class CreateConnectivityAction implements Callable<RpcResult<CreateConnectivityS
         Objects.requireNonNull(input);
         this.service = tapiConnectivityService;
         this.input = input;
+        this.endpoints = input.getEndPoint() == null ? Collections.emptyList() :
+            input.getEndPoint().stream().map(ep -> {
+                EndPoint2 nrpAttributes = ep.augmentation(EndPoint2.class);
+                EndPoint endPoint = new EndPoint(ep, nrpAttributes);
+                endPoint.setLocalId(ep.getLocalId());
+                return endPoint;
+            }).collect(Collectors.toList());
     }
 
-    @Override
-    @SuppressWarnings("checkstyle:illegalcatch")
-    public RpcResult<CreateConnectivityServiceOutput> call() {
+    /**
+     * Create the service in the stages of the pipeline.
+     * The request is validated and decomposed in {@link Stage#DECOMPOSITION}, the drivers are activated
+     * in {@link Stage#ACTIVATION} and the connectivity model is stored in {@link Stage#COMMIT}.
+     * Nodes of the decomposed request are locked from the activation until the model is stored.
+     * @param pipeline executors of the stages
+     * @return result of the request
+     */
+    CompletionStage<RpcResult<CreateConnectivityServiceOutput>> execute(ServicePipeline pipeline) {
         LOG.debug("running CreateConnectivityService task");
 
-        try {
-            RequestValidator.ValidationResult validationResult = validateInput();
-            if (validationResult.invalid()) {
-                LOG.debug("validation for create connectivity service failed = {}", input);
-                RpcResultBuilder<CreateConnectivityServiceOutput> res = RpcResultBuilder.failed();
-                validationResult.getProblems().forEach(p -> res.withError(RpcError.ErrorType.APPLICATION, p));
-                return res.build();
+        return pipeline.supply(Stage.DECOMPOSITION, this::prepare)
+                .thenCompose(tx -> lock().thenCompose(l -> pipeline.supply(Stage.ACTIVATION, () -> activate(tx))))
+                .thenCompose(txResult -> pipeline.compose(Stage.COMMIT, () -> store(pipeline)))
+                .handle(this::toResult);
+    }
 
-            }
+    private ActivationTransaction prepare() throws FailureResult {
+        RequestValidator.ValidationResult validationResult = validateInput();
+        if (validationResult.invalid()) {
+            LOG.debug("validation for create connectivity service failed = {}", input);
+            problems = validationResult.getProblems();
+            throw new FailureResult("Invalid request");
+        }
 
-            endpoints = input.getEndPoint() == null ? Collections.emptyList() :
-                input.getEndPoint().stream().map(ep -> {
-                    EndPoint2 nrpAttributes = ep.augmentation(EndPoint2.class);
-                    EndPoint endPoint = new EndPoint(ep, nrpAttributes);
-                    endPoint.setLocalId(ep.getLocalId());
-                    return endPoint;
-                }).collect(Collectors.toList());
-
-            String uniqueStamp = service.getServiceIdPool().getServiceId();
-            LOG.debug("connectivity service passed validation, request = {}", input);
-
-            ActivationTransaction tx = prepareTransaction(
-                                                       toCsId(uniqueStamp),
-                                                       input.getConnConstraint().isIsExclusive(),
-                                                       input.getConnConstraint().getServiceType());
-            if (tx != null) {
-                ActivationTransaction.Result txResult = tx.activate();
-                if (txResult.isSuccessful()) {
-                    LOG.info("ConnectivityService construct activated successfully, request = {} ", input);
-
-                    // XXX [bm] when createConnectivityModel methods throws an exception we have desync
-                    // (devices are configured but no data stored in MD-SAL. How should we address that?
-                    ConnectivityService cs = createConnectivityModel(uniqueStamp);
-                    CreateConnectivityServiceOutput result = new CreateConnectivityServiceOutputBuilder()
-                            .setService(new ServiceBuilder(cs).build()).build();
-                    return RpcResultBuilder.success(result).build();
-                } else {
-                    LOG.warn("CreateConnectivityService failed, reason = {}, request = {}",
-                            txResult.getMessage(), input);
-                }
-            }
-            throw new IllegalStateException("no transaction created for create connectivity request");
-
-        } catch (FailureResult | TimeoutException | InterruptedException | ExecutionException e) {
-            LOG.warn("Exception in create connectivity service", e);
-            return RpcResultBuilder
-                    .<CreateConnectivityServiceOutput>failed()
-                    .withError(ErrorType.APPLICATION, e.getMessage())
-                    .build();
+        stamp = service.getServiceIdPool().getServiceId();
+        LOG.debug("connectivity service passed validation, request = {}", input);
+        return prepareTransaction(toCsId(stamp));
+    }
+
+    private CompletableFuture<NodeLocks.Lease> lock() {
+        return service.getNodeLocks().acquire(getNodes()).thenApply(l -> {
+            lease = l;
+            return l;
+        });
+    }
+
+    private ActivationTransaction.Result activate(ActivationTransaction tx) throws FailureResult {
+        ActivationTransaction.Result txResult = tx.activate();
+        if (!txResult.isSuccessful()) {
+            LOG.warn("CreateConnectivityService failed, reason = {}, request = {}", txResult.getMessage(), input);
+            throw new FailureResult(txResult.getMessage().orElse("Activation failed"));
+        }
+        activated = true;
+        LOG.info("ConnectivityService construct activated successfully, request = {} ", input);
+        return txResult;
+    }
+
+    // XXX [bm] when storing the model fails we have desync
+    // (devices are configured but no data stored in MD-SAL. How should we address that?
+    private CompletionStage<ConnectivityService> store(ServicePipeline pipeline) {
+        LOG.debug("Storing connectivity related model for {} to operational data store", stamp);
+        final FluentFuture<ConnectivityService> commit = service.getCommitRetry().commit(service.getBroker(),
+            tx -> writeConnectivityModel(tx, stamp), pipeline.getExecutor(Stage.COMMIT));
+        return pipeline.toStage(commit).thenApply(cs -> {
+            LOG.info("Success with serializing Connections and Connectivity Service for {}", stamp);
+            return cs;
+        });
+    }
+
+    private RpcResult<CreateConnectivityServiceOutput> toResult(ConnectivityService cs, Throwable error) {
+        if (lease != null) {
+            lease.close();
         }
+        if (error == null) {
+            CreateConnectivityServiceOutput result = new CreateConnectivityServiceOutputBuilder()
+                    .setService(new ServiceBuilder(cs).build()).build();
+            return RpcResultBuilder.success(result).build();
+        }
+        if (stamp != null && !activated) {
+            release(toCsId(stamp));
+        }
+        final Throwable cause = error instanceof CompletionException && error.getCause() != null
+                ? error.getCause() : error;
+
+        RpcResultBuilder<CreateConnectivityServiceOutput> res = RpcResultBuilder.failed();
+        if (problems != null) {
+            problems.forEach(p -> res.withError(ErrorType.APPLICATION, p));
+            return res.build();
+        }
+        if (cause instanceof RejectedExecutionException) {
+            return RpcExecutor.overloaded("create-connectivity-service");
+        }
+        if (activated) {
+            LOG.error("Error with committing Connections and Connectivity Service for {} within {} ms",
+                    stamp, service.getCommitRetry().getDeadline(), cause);
+        } else {
+            LOG.warn("Exception in create connectivity service", cause);
+        }
+        return res.withError(ErrorType.APPLICATION,
+                cause.getMessage() == null ? cause.getClass().getSimpleName() : cause.getMessage()).build();
     }
 
-    private ActivationTransaction prepareTransaction(
-                                                    String serviceId,
-                                                    boolean isExclusive,
-                                                    ServiceType serviceType) throws FailureResult {
-        LOG.debug("decompose request");
-        decomposedRequest = service.getDecomposer().decompose(endpoints, null);
+    private ActivationTransaction prepareTransaction(String serviceId) throws FailureResult {
+        decompose(serviceId, service.getDecomposer());
+        ActivationTransaction tx = new ActivationTransaction();
+        initializeDrivers(serviceId).values().forEach(tx::addDriver);
+        return tx;
+    }
+
+    /**
+     * Decompose the request and reserve bandwidth of its endpoints.
+     * @param serviceId identifier of the service bandwidth is reserved for
+     * @param decomposer decomposer used if the request does not include a precomputed path
+     * @throws FailureResult if request cannot be decomposed
+     */
+    void decompose(String serviceId, RequestDecomposer decomposer) throws FailureResult {
+        final CapacityLedger ledger = service.getCapacityLedger();
+        final long demand = CapacityLedger.demand(endpoints);
+        decomposedRequest = precomputedPath();
+        if (decomposedRequest == null) {
+            LOG.debug("decompose request");
+            Constraints.Builder constraints = Constraints.builder(input.getTopoConstraint(), input.getConnConstraint());
+            if (ledger != null && demand > 0) {
+                constraints.bandwidth(demand);
+            }
+            decomposedRequest = decomposer.decompose(endpoints, constraints.build());
+        }
 
         if (decomposedRequest == null || decomposedRequest.isEmpty()) {
             throw new FailureResult("Cannot define activation scheme for "
@@ -163,9 +238,26 @@ class CreateConnectivityAction implements Callable<RpcResult<CreateConnectivityS
                     .collect(Collectors.joining(",", "[", "]")));
         }
 
-        ActivationTransaction tx = new ActivationTransaction();
+        if (ledger != null) {
+            ledger.reserve(serviceId, decomposedRequest.stream()
+                    .flatMap(s -> s.getEndpoints().stream())
+                    .map(e -> e.getNepRef().getOwnedNodeEdgePointId())
+                    .collect(Collectors.toList()), demand);
+        }
+    }
 
-        decomposedRequest.stream().map(s -> {
+    /**
+     * Create and initialize drivers of the decomposed request.
+     * @param serviceId service identifier
+     * @return drivers by node they configure
+     */
+    Map<Uuid, ActivationDriver> initializeDrivers(String serviceId) {
+        assert decomposedRequest != null : "this method can be only run after request was successfuly decomposed";
+        final boolean isExclusive = input.getConnConstraint().isIsExclusive();
+        final ServiceType serviceType = input.getConnConstraint().getServiceType();
+
+        Map<Uuid, ActivationDriver> drivers = new LinkedHashMap<>();
+        decomposedRequest.forEach(s -> {
             Optional<ActivationDriver> driver = service.getDriverRepo().getDriver(s.getActivationDriverId());
             if (!driver.isPresent()) {
                 throw new IllegalStateException(MessageFormat
@@ -173,28 +265,82 @@ class CreateConnectivityAction implements Callable<RpcResult<CreateConnectivityS
             }
             driver.get().initialize(s.getEndpoints(), serviceId, null, isExclusive, serviceType);
             LOG.debug("driver {} added to activation transaction", driver.get());
-            return driver.get();
-        }).forEach(tx::addDriver);
+            drivers.put(s.getNodeUuid(), driver.get());
+        });
+        return drivers;
+    }
 
-        return tx;
+    /**
+     * Release bandwidth reserved for the service.
+     * @param serviceId service identifier
+     */
+    void release(String serviceId) {
+        if (service.getCapacityLedger() != null) {
+            service.getCapacityLedger().release(serviceId);
+        }
     }
 
-    private RequestValidator.ValidationResult validateInput() {
+    private List<Subrequrest> precomputedPath() throws FailureResult {
+        TopoConstraint constraint = input.getTopoConstraint();
+        if (constraint == null || constraint.getIncludePath() == null || constraint.getIncludePath().isEmpty()) {
+            return null;
+        }
+        if (constraint.getIncludePath().size() > 1) {
+            throw new FailureResult("Only single path can be included in the request");
+        }
+        Uuid pathId = constraint.getIncludePath().get(0).getPathId();
+        PlannedPath path = service.getPathStore() == null ? null : service.getPathStore().get(pathId);
+        if (path == null) {
+            throw new FailureResult("Path {0} does not exist", pathId == null ? null : pathId.getValue());
+        }
+        if (!path.connects(endpoints)) {
+            throw new FailureResult("Path {0} is not computed for the requested endpoints", pathId.getValue());
+        }
+        LOG.debug("using precomputed path {}", pathId.getValue());
+        return path.bind(endpoints);
+    }
+
+    /**
+     * Get nodes of the decomposed request.
+     * @return node identifiers
+     */
+    List<Uuid> getNodes() {
+        assert decomposedRequest != null : "this method can be only run after request was successfuly decomposed";
+        return decomposedRequest.stream().map(Subrequrest::getNodeUuid).collect(Collectors.toList());
+    }
+
+    /**
+     * Get service interface points of the request endpoints.
+     * @return service interface point identifiers
+     */
+    List<Uuid> getSips() {
+        return endpoints.stream()
+                .map(EndPoint::getEndpoint)
+                .filter(ep -> ep.getServiceInterfacePoint() != null)
+                .map(ep -> ep.getServiceInterfacePoint().getServiceInterfacePointId())
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    RequestValidator.ValidationResult validateInput() {
         return service.getValidator().checkValid(input);
     }
 
-    private String toCsId(String uniqueStamp) {
+    static String toCsId(String uniqueStamp) {
         return "cs:" + uniqueStamp;
     }
 
-    private ConnectivityService createConnectivityModel(String uniqueStamp)
-            throws TimeoutException, InterruptedException, ExecutionException {
+    /**
+     * Write connections and connectivity service of the decomposed request.
+     * @param tx transaction the model is written with, not committed
+     * @param uniqueStamp service stamp
+     * @return connectivity service
+     */
+    ConnectivityService writeConnectivityModel(ReadWriteTransaction tx, String uniqueStamp) {
         assert decomposedRequest != null : "this method can be only run after request was successfuly decomposed";
-        //sort of unique ;)
 
         LOG.debug("Preparing connectivity related model for {}", uniqueStamp);
 
-        final ReadWriteTransaction tx = service.getBroker().newReadWriteTransaction();
         NrpDao nrpDao = new NrpDao(tx);
 
         List<Connection> systemConnections = decomposedRequest.stream().map(s -> new ConnectionBuilder()
@@ -248,18 +394,6 @@ class CreateConnectivityAction implements Callable<RpcResult<CreateConnectivityS
         tx.put(LogicalDatastoreType.OPERATIONAL, TapiConnectivityServiceImpl.CONNECTIVITY_CTX.child(Connection.class,
                 new ConnectionKey(globalConnection.getUuid())), globalConnection);
 
-        LOG.debug("Storing connectivity related model for {} to operational data store", uniqueStamp);
-
-
-        try {
-            tx.commit().get(500, TimeUnit.MILLISECONDS);
-            LOG.info("Success with serializing Connections and Connectivity Service for {}", uniqueStamp);
-        } catch (TimeoutException | InterruptedException | ExecutionException e) {
-            LOG.error("Error with committing Connections and Connectivity Service for {} within {} ms",
-                    uniqueStamp, 500);
-            throw e;
-        }
-
         return new ConnectivityServiceBuilder(cs).build();
     }
 
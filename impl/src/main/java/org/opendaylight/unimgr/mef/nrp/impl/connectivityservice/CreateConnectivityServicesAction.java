@@ -0,0 +1,298 @@
+/*
+ * Copyright (c) 2018 Cisco Systems Inc and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.unimgr.mef.nrp.impl.connectivityservice;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Collectors;
+import org.opendaylight.unimgr.mef.nrp.api.FailureResult;
+import org.opendaylight.unimgr.mef.nrp.api.RequestDecomposer;
+import org.opendaylight.unimgr.mef.nrp.api.RequestValidator;
+import org.opendaylight.unimgr.mef.nrp.common.RpcExecutor;
+import org.opendaylight.unimgr.mef.nrp.impl.ActivationBatch;
+import org.opendaylight.unimgr.mef.nrp.impl.ActivationTransaction;
+import org.opendaylight.unimgr.mef.nrp.impl.connectivityservice.ServicePipeline.Stage;
+import org.opendaylight.yang.gen.v1.urn.mef.yang.nrp._interface.rev180321.EndPoint2;
+import org.opendaylight.yang.gen.v1.urn.mef.yang.nrp._interface.rev180321.EndPoint2Builder;
+import org.opendaylight.yang.gen.v1.urn.odl.unimgr.yang.unimgr.ext.rev170531.CreateConnectivityServicesInput;
+import org.opendaylight.yang.gen.v1.urn.odl.unimgr.yang.unimgr.ext.rev170531.CreateConnectivityServicesOutput;
+import org.opendaylight.yang.gen.v1.urn.odl.unimgr.yang.unimgr.ext.rev170531.CreateConnectivityServicesOutputBuilder;
+import org.opendaylight.yang.gen.v1.urn.odl.unimgr.yang.unimgr.ext.rev170531.create.connectivity.services.input.Request;
+import org.opendaylight.yang.gen.v1.urn.odl.unimgr.yang.unimgr.ext.rev170531.create.connectivity.services.output.Result;
+import org.opendaylight.yang.gen.v1.urn.odl.unimgr.yang.unimgr.ext.rev170531.create.connectivity.services.output.ResultBuilder;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.Uuid;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.CreateConnectivityServiceInput;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.CreateConnectivityServiceInputBuilder;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.create.connectivity.service.input.ConnConstraintBuilder;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.create.connectivity.service.input.EndPoint;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.create.connectivity.service.input.EndPointBuilder;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.create.connectivity.service.input.TopoConstraintBuilder;
+import org.opendaylight.yangtools.yang.common.RpcError;
+import org.opendaylight.yangtools.yang.common.RpcResult;
+import org.opendaylight.yangtools.yang.common.RpcResultBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Create many connectivity services in a single pass.
+ * Each request is validated, and checked against other requests of the batch for service interface points
+ * used exclusively. All requests are decomposed against the same state of the topology,
+ * activated with drivers grouped per node and stored in a single transaction.
+ * Failure of a request does not affect the others, the outcome is reported per request.
+ */
+class CreateConnectivityServicesAction {
+    private static final Logger LOG = LoggerFactory.getLogger(CreateConnectivityServicesAction.class);
+
+    private final TapiConnectivityServiceImpl service;
+    private final CreateConnectivityServicesInput input;
+    private NodeLocks.Lease lease;
+
+    CreateConnectivityServicesAction(TapiConnectivityServiceImpl tapiConnectivityService,
+                                     CreateConnectivityServicesInput input) {
+        Objects.requireNonNull(tapiConnectivityService);
+        Objects.requireNonNull(input);
+        this.service = tapiConnectivityService;
+        this.input = input;
+    }
+
+    /**
+     * Create the services in the stages of the pipeline.
+     * The requests are validated and decomposed in {@link Stage#DECOMPOSITION}, the drivers are activated
+     * in {@link Stage#ACTIVATION} and the connectivity model is stored in {@link Stage#COMMIT}.
+     * Nodes of all the requests are locked from the activation until the model is stored.
+     * @param pipeline executors of the stages
+     * @return outcome of each request
+     */
+    CompletionStage<RpcResult<CreateConnectivityServicesOutput>> execute(ServicePipeline pipeline) {
+        if (input.getRequest() == null || input.getRequest().isEmpty()) {
+            return CompletableFuture.completedFuture(RpcResultBuilder.<CreateConnectivityServicesOutput>failed()
+                    .withError(RpcError.ErrorType.APPLICATION, "No requests in the batch")
+                    .build());
+        }
+        LOG.debug("running CreateConnectivityServices task for {} requests", input.getRequest().size());
+
+        List<Item> items = input.getRequest().stream().map(r -> new Item(r, service)).collect(Collectors.toList());
+        return pipeline.supply(Stage.DECOMPOSITION, () -> prepare(items))
+                .thenCompose(batch -> lock(items)
+                        .thenCompose(l -> pipeline.supply(Stage.ACTIVATION, () -> activate(items, batch))))
+                .thenCompose(v -> pipeline.compose(Stage.COMMIT, () -> store(items, pipeline)))
+                .handle((v, error) -> toResult(items, error));
+    }
+
+    private ActivationBatch prepare(List<Item> items) {
+        validate(items);
+        ActivationBatch batch = new ActivationBatch();
+        try {
+            decompose(items, service.getDecomposer().snapshot(), batch);
+        } catch (FailureResult e) {
+            LOG.warn("Cannot decompose batch of requests", e);
+            items.stream().filter(Item::pending).forEach(i -> i.fail(e.getMessage()));
+        }
+        return batch;
+    }
+
+    private CompletableFuture<NodeLocks.Lease> lock(List<Item> items) {
+        return service.getNodeLocks().acquire(items.stream().filter(Item::pending)
+                .flatMap(i -> i.action.getNodes().stream()).collect(Collectors.toList())).thenApply(l -> {
+                    lease = l;
+                    return l;
+                });
+    }
+
+    private RpcResult<CreateConnectivityServicesOutput> toResult(List<Item> items, Throwable error) {
+        if (lease != null) {
+            lease.close();
+        }
+        if (error != null) {
+            final Throwable cause = error instanceof CompletionException && error.getCause() != null
+                    ? error.getCause() : error;
+            if (cause instanceof RejectedExecutionException) {
+                items.stream().filter(i -> i.pending() && i.uniqueStamp != null)
+                        .forEach(i -> i.action.release(CreateConnectivityAction.toCsId(i.uniqueStamp)));
+                return RpcExecutor.overloaded("create-connectivity-services");
+            }
+            LOG.warn("Exception in create connectivity services", cause);
+            items.stream().filter(Item::pending).forEach(i -> i.fail(
+                    cause.getMessage() == null ? cause.getClass().getSimpleName() : cause.getMessage()));
+        }
+
+        List<Result> results = items.stream().map(i -> new ResultBuilder()
+                .setRequestId(i.requestId)
+                .setServiceId(i.error == null ? new Uuid(CreateConnectivityAction.toCsId(i.uniqueStamp)) : null)
+                .setError(i.error)
+                .build()).collect(Collectors.toList());
+        LOG.info("Batch of {} connectivity services processed, {} created", items.size(),
+                items.stream().filter(i -> i.error == null).count());
+        return RpcResultBuilder.success(new CreateConnectivityServicesOutputBuilder().setResult(results).build())
+                .build();
+    }
+
+    private void validate(List<Item> items) {
+        Map<Uuid, String> exclusive = new HashMap<>();
+        Map<Uuid, String> used = new HashMap<>();
+
+        for (Item item : items) {
+            if (item.request.getConnConstraint() == null) {
+                item.fail("No connectivity constraint specified for a connectivity service");
+                continue;
+            }
+            RequestValidator.ValidationResult validation = item.action.validateInput();
+            if (validation.invalid()) {
+                item.fail(String.join("; ", validation.getProblems()));
+                continue;
+            }
+
+            List<Uuid> sips = item.action.getSips();
+            boolean isExclusive = item.input.getConnConstraint().isIsExclusive();
+            for (Uuid sip : sips) {
+                String conflicting = exclusive.get(sip);
+                if (conflicting == null && isExclusive) {
+                    conflicting = used.get(sip);
+                }
+                if (conflicting != null) {
+                    item.fail("Service interface point " + sip.getValue()
+                            + " is used by request " + conflicting + " of the batch");
+                    break;
+                }
+            }
+            if (item.pending()) {
+                sips.forEach(sip -> {
+                    used.putIfAbsent(sip, item.requestId);
+                    if (isExclusive) {
+                        exclusive.put(sip, item.requestId);
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * Decompose pending requests.
+     * @param items requests of the batch
+     * @param decomposer decomposer
+     * @param batch collects drivers of the decomposed requests
+     */
+    @SuppressWarnings("checkstyle:illegalcatch")
+    private void decompose(List<Item> items, RequestDecomposer decomposer, ActivationBatch batch) {
+        for (Item item : items) {
+            if (!item.pending()) {
+                continue;
+            }
+            item.uniqueStamp = service.getServiceIdPool().getServiceId();
+            String csId = CreateConnectivityAction.toCsId(item.uniqueStamp);
+            try {
+                item.action.decompose(csId, decomposer);
+                item.action.initializeDrivers(csId).forEach((node, driver) -> batch.addDriver(csId, node, driver));
+            } catch (FailureResult | RuntimeException e) {
+                LOG.warn("Request {} of the batch cannot be decomposed", item.requestId, e);
+                item.action.release(csId);
+                item.fail(e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Activate decomposed requests, the nodes of the requests are locked.
+     * @param items requests of the batch
+     * @param batch drivers of the decomposed requests
+     * @return nothing
+     */
+    private Void activate(List<Item> items, ActivationBatch batch) {
+        Map<String, ActivationTransaction.Result> activated = batch.activate();
+        for (Item item : items) {
+            if (!item.pending()) {
+                continue;
+            }
+            String csId = CreateConnectivityAction.toCsId(item.uniqueStamp);
+            ActivationTransaction.Result result = activated.get(csId);
+            if (result == null || !result.isSuccessful()) {
+                item.action.release(csId);
+                item.fail(result == null ? "Request not activated"
+                        : result.getMessage().orElse("Activation failed"));
+            }
+        }
+        return null;
+    }
+
+    private CompletionStage<Void> store(List<Item> items, ServicePipeline pipeline) {
+        List<Item> activated = items.stream().filter(Item::pending).collect(Collectors.toList());
+        if (activated.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        // XXX [bm] as for a single service, failure to store leaves devices configured with no data in MD-SAL
+        LOG.debug("Storing connectivity related model of {} services to operational data store", activated.size());
+        return pipeline.toStage(service.getCommitRetry().commit(service.getBroker(), tx -> {
+            activated.forEach(i -> i.action.writeConnectivityModel(tx, i.uniqueStamp));
+            return (Void) null;
+        }, pipeline.getExecutor(Stage.COMMIT))).exceptionally(e -> {
+            LOG.error("Error with committing Connections and Connectivity Services of {} requests within {} ms",
+                    activated.size(), service.getCommitRetry().getDeadline(), e);
+            activated.forEach(i -> i.fail("Service activated but not stored: " + e.getMessage()));
+            return null;
+        });
+    }
+
+    /**
+     * Convert request of the batch to the input of a single service creation.
+     * @param request request of the batch
+     * @return create connectivity service input
+     */
+    static CreateConnectivityServiceInput toInput(Request request) {
+        return new CreateConnectivityServiceInputBuilder()
+                .setEndPoint(request.getEndPoint() == null ? null : request.getEndPoint().stream()
+                        .map(CreateConnectivityServicesAction::toEndPoint)
+                        .collect(Collectors.toList()))
+                .setConnConstraint(request.getConnConstraint() == null ? null
+                        : new ConnConstraintBuilder(request.getConnConstraint())
+                            .setIsExclusive(!Boolean.FALSE.equals(request.getConnConstraint().isIsExclusive()))
+                            .build())
+                .setTopoConstraint(request.getTopoConstraint() == null ? null
+                        : new TopoConstraintBuilder(request.getTopoConstraint()).build())
+                .build();
+    }
+
+    private static EndPoint toEndPoint(
+            org.opendaylight.yang.gen.v1.urn.odl.unimgr.yang.unimgr.ext.rev170531
+                    .create.connectivity.services.input.request.EndPoint ep) {
+        return new EndPointBuilder(ep)
+                .addAugmentation(EndPoint2.class, new EndPoint2Builder(ep).build())
+                .build();
+    }
+
+    private static final class Item {
+        private final String requestId;
+        private final Request request;
+        private final CreateConnectivityServiceInput input;
+        private final CreateConnectivityAction action;
+        private String uniqueStamp;
+        private String error;
+
+        Item(Request request, TapiConnectivityServiceImpl service) {
+            this.requestId = request.getRequestId();
+            this.request = request;
+            this.input = toInput(request);
+            this.action = new CreateConnectivityAction(service, input);
+        }
+
+        boolean pending() {
+            return error == null;
+        }
+
+        void fail(String message) {
+            LOG.debug("Request {} of the batch failed: {}", requestId, message);
+            error = message == null ? "Request failed" : message;
+        }
+    }
+}
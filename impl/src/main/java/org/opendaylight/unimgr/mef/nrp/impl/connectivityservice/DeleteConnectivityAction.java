@@ -9,22 +9,29 @@
 package org.opendaylight.unimgr.mef.nrp.impl.connectivityservice;
 
 import java.text.MessageFormat;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.stream.Collectors;
 import org.opendaylight.mdsal.binding.api.ReadWriteTransaction;
 import org.opendaylight.mdsal.common.api.LogicalDatastoreType;
 import org.opendaylight.unimgr.mef.nrp.api.ActivationDriver;
 import org.opendaylight.unimgr.mef.nrp.api.EndPoint;
+import org.opendaylight.unimgr.mef.nrp.api.FailureResult;
 import org.opendaylight.unimgr.mef.nrp.common.NrpDao;
+import org.opendaylight.unimgr.mef.nrp.common.RpcExecutor;
 import org.opendaylight.unimgr.mef.nrp.common.TapiUtils;
 import org.opendaylight.unimgr.mef.nrp.impl.ActivationTransaction;
+import org.opendaylight.unimgr.mef.nrp.impl.connectivityservice.ServicePipeline.Stage;
 import org.opendaylight.yang.gen.v1.urn.mef.yang.nrp._interface.rev180321.EndPoint1;
 import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.ServiceInterfacePointRef;
 import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.Uuid;
@@ -50,13 +57,16 @@ import org.slf4j.LoggerFactory;
 /*
  * @author bartosz.michalik@amartus.com
  */
-public class DeleteConnectivityAction implements Callable<RpcResult<DeleteConnectivityServiceOutput>> {
+public class DeleteConnectivityAction {
     private static final Logger LOG = LoggerFactory.getLogger(DeleteConnectivityAction.class);
 
     private final DeleteConnectivityServiceInput input;
     private final TapiConnectivityServiceImpl service;
     private Uuid serviceId;
+    private Service response;
     private List<Uuid> connectionIds = new LinkedList<>();
+    private List<Uuid> nodes;
+    private NodeLocks.Lease lease;
 
     DeleteConnectivityAction(
                             TapiConnectivityServiceImpl tapiConnectivityService,
@@ -68,9 +78,23 @@ public class DeleteConnectivityAction implements Callable<RpcResult<DeleteConnec
         this.input = input;
     }
 
+    /**
+     * Remove the service in the stages of the pipeline.
+     * The drivers are prepared in {@link Stage#DECOMPOSITION}, the service is deactivated
+     * in {@link Stage#ACTIVATION} and the connectivity model is removed in {@link Stage#COMMIT}.
+     * Nodes of the service are locked from the deactivation until the model is removed.
+     * @param pipeline executors of the stages
+     * @return result of the request
+     */
+    CompletionStage<RpcResult<DeleteConnectivityServiceOutput>> execute(ServicePipeline pipeline) {
+        return pipeline.supply(Stage.DECOMPOSITION, this::prepare)
+                .thenCompose(tx -> lock().thenCompose(l -> pipeline.supply(Stage.ACTIVATION, () -> deactivate(tx))))
+                .thenCompose(txResult -> pipeline.compose(Stage.COMMIT, () -> removeConnectivity(pipeline)))
+                .handle(this::toResult);
+    }
+
     @SuppressWarnings("checkstyle:illegalcatch")
-    @Override
-    public RpcResult<DeleteConnectivityServiceOutput> call() {
+    private ActivationTransaction prepare() throws FailureResult {
         serviceId = new Uuid(input.getServiceIdOrName());
         NrpDao nrpDao = new NrpDao(service.getBroker().newReadOnlyTransaction());
 
@@ -79,11 +103,7 @@ public class DeleteConnectivityAction implements Callable<RpcResult<DeleteConnec
 
         if (cs == null) {
             LOG.warn("No ConnectivityService for id {}", input.getServiceIdOrName());
-            return RpcResultBuilder
-                    .<DeleteConnectivityServiceOutput>failed()
-                    .withError(RpcError.ErrorType.APPLICATION,
-                            MessageFormat.format("Service {0} does not exist", input.getServiceIdOrName()))
-                    .build();
+            throw new FailureResult("Service {0} does not exist", input.getServiceIdOrName());
         }
 
         LOG.warn("ConnectivityService cs = {}", cs.toString());
@@ -93,48 +113,69 @@ public class DeleteConnectivityAction implements Callable<RpcResult<DeleteConnec
             data = prepareData(cs, nrpDao);
         } catch (Exception e) {
             LOG.error("Service {} does not exists", input.getServiceIdOrName());
-            return RpcResultBuilder
-                    .<DeleteConnectivityServiceOutput>failed()
-                    .withError(RpcError.ErrorType.APPLICATION,
-                            MessageFormat.format("error while preparing data for service {0} ",
-                                                    input.getServiceIdOrName()))
-                    .build();
+            throw new IllegalStateException(MessageFormat.format("error while preparing data for service {0} ",
+                    input.getServiceIdOrName()), e);
         }
 
         assert data != null;
 
-        Service response = new ServiceBuilder(cs).build();
+        nodes = new ArrayList<>(data.keySet());
+        response = new ServiceBuilder(cs).build();
+        return prepareTransaction(data,nrpDao, cs.isIsExclusive() , cs.getServiceType());
+    }
 
-        try {
-            ActivationTransaction tx = prepareTransaction(data,nrpDao, cs.isIsExclusive() , cs.getServiceType());
-
-            if (tx != null) {
-                ActivationTransaction.Result txResult = tx.deactivate();
-                if (txResult.isSuccessful()) {
-                    LOG.warn("ConnectivityService construct deactivated successfully, request = {} ", input);
-                    removeConnectivity();
-
-                    DeleteConnectivityServiceOutput result = new DeleteConnectivityServiceOutputBuilder()
-                            .setService(new ServiceBuilder(response).build()).build();
-                    return RpcResultBuilder.success(result).build();
-                } else {
-                    LOG.warn("CreateConnectivityService deactivation failed, reason = {}, request = {}",
-                            txResult.getMessage(), input);
-                }
+    private CompletableFuture<NodeLocks.Lease> lock() {
+        return service.getNodeLocks().acquire(nodes).thenApply(l -> {
+            lease = l;
+            return l;
+        });
+    }
+
+    private ActivationTransaction.Result deactivate(ActivationTransaction tx) throws FailureResult {
+        ActivationTransaction.Result txResult = tx.deactivate();
+        if (!txResult.isSuccessful()) {
+            LOG.warn("CreateConnectivityService deactivation failed, reason = {}, request = {}",
+                    txResult.getMessage(), input);
+            throw new FailureResult(txResult.getMessage().orElse("Deactivation failed"));
+        }
+        LOG.warn("ConnectivityService construct deactivated successfully, request = {} ", input);
+        return txResult;
+    }
+
+    private RpcResult<DeleteConnectivityServiceOutput> toResult(Object removed, Throwable error) {
+        if (lease != null) {
+            lease.close();
+        }
+        if (error == null) {
+            if (service.getCapacityLedger() != null) {
+                service.getCapacityLedger().release(serviceId.getValue());
             }
-            throw new IllegalStateException("no transaction created for delete connectivity request");
-        } catch (InterruptedException | ExecutionException e) {
-            LOG.error("Exception in delete connectivity service", e);
-            return RpcResultBuilder
-                    .<DeleteConnectivityServiceOutput>failed()
-                    .build();
+            DeleteConnectivityServiceOutput result = new DeleteConnectivityServiceOutputBuilder()
+                    .setService(new ServiceBuilder(response).build()).build();
+            return RpcResultBuilder.success(result).build();
+        }
+        final Throwable cause = error instanceof CompletionException && error.getCause() != null
+                ? error.getCause() : error;
+        if (cause instanceof RejectedExecutionException) {
+            return RpcExecutor.overloaded("delete-connectivity-service");
         }
+        if (!(cause instanceof FailureResult)) {
+            LOG.error("Exception in delete connectivity service", cause);
+        }
+        return RpcResultBuilder
+                .<DeleteConnectivityServiceOutput>failed()
+                .withError(RpcError.ErrorType.APPLICATION,
+                        cause.getMessage() == null ? cause.getClass().getSimpleName() : cause.getMessage())
+                .build();
     }
 
-    private void removeConnectivity()
-            throws InterruptedException, ExecutionException {
+    private CompletionStage<Void> removeConnectivity(ServicePipeline pipeline) {
+        //TODO should be transactional with operations on deactivation
+        return pipeline.toStage(service.getCommitRetry().commit(service.getBroker(), this::removeModel,
+                pipeline.getExecutor(Stage.COMMIT)));
+    }
 
-        ReadWriteTransaction tx = service.getBroker().newReadWriteTransaction();
+    private Void removeModel(ReadWriteTransaction tx) {
         NrpDao nrpDao = new NrpDao(tx);
         InstanceIdentifier<Context1> conCtx = NrpDao.ctx().augmentation(Context1.class);
         LOG.debug("Removing connectivity service {}", serviceId.getValue());
@@ -145,8 +186,7 @@ public class DeleteConnectivityAction implements Callable<RpcResult<DeleteConnec
             LOG.debug("Removing connection {}", csId.getValue());
             nrpDao.removeConnection(csId);
         });
-        //TODO should be transactional with operations on deactivation
-        tx.commit().get();
+        return null;
     }
 
     private ActivationTransaction prepareTransaction(
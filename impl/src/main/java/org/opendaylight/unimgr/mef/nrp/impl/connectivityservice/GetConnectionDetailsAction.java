@@ -8,21 +8,26 @@
 
 package org.opendaylight.unimgr.mef.nrp.impl.connectivityservice;
 
-import java.util.concurrent.Callable;
+import com.google.common.util.concurrent.FluentFuture;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.MoreExecutors;
+import java.util.concurrent.Executor;
 import org.opendaylight.unimgr.mef.nrp.api.FailureResult;
-import org.opendaylight.unimgr.mef.nrp.common.NrpDao;
+import org.opendaylight.unimgr.mef.nrp.common.AsyncNrpDao;
 import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.Uuid;
 import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.GetConnectionDetailsInput;
 import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.GetConnectionDetailsOutput;
 import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.GetConnectionDetailsOutputBuilder;
-import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.connectivity.context.Connection;
-import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.connectivity.context.ConnectivityService;
 import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.get.connection.details.output.ConnectionBuilder;
 import org.opendaylight.yangtools.yang.common.RpcError.ErrorType;
 import org.opendaylight.yangtools.yang.common.RpcResult;
 import org.opendaylight.yangtools.yang.common.RpcResultBuilder;
 
-public class GetConnectionDetailsAction implements Callable<RpcResult<GetConnectionDetailsOutput>> {
+/**
+ * Reads connection details without blocking a thread for the datastore reads.
+ * If only a service is given, the service is read first to find its connection.
+ */
+public class GetConnectionDetailsAction {
 
     private final TapiConnectivityServiceImpl service;
     private final GetConnectionDetailsInput input;
@@ -32,43 +37,45 @@ public class GetConnectionDetailsAction implements Callable<RpcResult<GetConnect
         this.input = input;
     }
 
-    @Override
-    public RpcResult<GetConnectionDetailsOutput> call() {
-
-        try {
-            NrpDao nrpDao = new NrpDao(service.getBroker().newReadOnlyTransaction());
-
-            String connectionId = input.getConnectionIdOrName();
-            if (connectionId == null) {
-                String serviceId = input.getServiceIdOrName();
-                if (serviceId == null) {
-                    throw new FailureResult("Cannot fetch connection without id.");
-                }
+    public FluentFuture<RpcResult<GetConnectionDetailsOutput>> execute() {
+        AsyncNrpDao nrpDao = new AsyncNrpDao(service.getBroker().newReadOnlyTransaction());
 
-                ConnectivityService cs = nrpDao.getConnectivityService(input.getServiceIdOrName());
-                if (cs == null) {
-                    throw new FailureResult("There is no service with id {0}", input.getServiceIdOrName());
-                }
-                connectionId = cs.getConnection().get(0).getValue();
-            }
-
-            Connection connection = nrpDao.getConnection(new Uuid(connectionId));
-            if (connection == null) {
-                throw new FailureResult("There is no connection with id {0}", connectionId);
-            }
-
-            return RpcResultBuilder.success(
-                    new GetConnectionDetailsOutputBuilder()
-                    .setConnection(new ConnectionBuilder(connection).build())
-                    .build()).build();
+        return connectionId(nrpDao).transformAsync(connectionId -> nrpDao.getConnection(new Uuid(connectionId))
+                .transform(connection -> {
+                    if (!connection.isPresent()) {
+                        return failed(new FailureResult("There is no connection with id {0}", connectionId));
+                    }
+                    return RpcResultBuilder.success(
+                            new GetConnectionDetailsOutputBuilder()
+                            .setConnection(new ConnectionBuilder(connection.get()).build())
+                            .build()).build();
+                }, MoreExecutors.directExecutor()), MoreExecutors.directExecutor())
+                .catching(FailureResult.class, GetConnectionDetailsAction::failed, MoreExecutors.directExecutor());
+    }
 
-        } catch (FailureResult e) {
-            return RpcResultBuilder
-                    .<GetConnectionDetailsOutput>failed()
-                    .withError(ErrorType.APPLICATION, e.getMessage())
-                    .build();
+    private FluentFuture<String> connectionId(AsyncNrpDao nrpDao) {
+        if (input.getConnectionIdOrName() != null) {
+            return FluentFuture.from(Futures.immediateFuture(input.getConnectionIdOrName()));
+        }
+        String serviceId = input.getServiceIdOrName();
+        if (serviceId == null) {
+            return FluentFuture.from(Futures.immediateFailedFuture(
+                    new FailureResult("Cannot fetch connection without id.")));
         }
 
+        final Executor scan = service.getExecutor().getExecutor();
+        return nrpDao.getConnectivityService(serviceId, service.getServiceNameIndex(), scan).transformAsync(cs -> {
+            if (!cs.isPresent()) {
+                throw new FailureResult("There is no service with id {0}", serviceId);
+            }
+            return Futures.immediateFuture(cs.get().getConnection().get(0).getValue());
+        }, MoreExecutors.directExecutor());
     }
 
+    private static RpcResult<GetConnectionDetailsOutput> failed(FailureResult failure) {
+        return RpcResultBuilder
+                .<GetConnectionDetailsOutput>failed()
+                .withError(ErrorType.APPLICATION, failure.getMessage())
+                .build();
+    }
 }
@@ -8,20 +8,24 @@
 
 package org.opendaylight.unimgr.mef.nrp.impl.connectivityservice;
 
+import com.google.common.util.concurrent.FluentFuture;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.MoreExecutors;
 import java.util.Objects;
-import java.util.concurrent.Callable;
 import org.opendaylight.unimgr.mef.nrp.api.FailureResult;
-import org.opendaylight.unimgr.mef.nrp.common.NrpDao;
+import org.opendaylight.unimgr.mef.nrp.common.AsyncNrpDao;
 import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.GetConnectivityServiceDetailsInput;
 import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.GetConnectivityServiceDetailsOutput;
 import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.GetConnectivityServiceDetailsOutputBuilder;
-import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.connectivity.context.ConnectivityService;
 import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.get.connectivity.service.details.output.ServiceBuilder;
 import org.opendaylight.yangtools.yang.common.RpcError.ErrorType;
 import org.opendaylight.yangtools.yang.common.RpcResult;
 import org.opendaylight.yangtools.yang.common.RpcResultBuilder;
 
-public class GetConnectivityDetailsAction implements Callable<RpcResult<GetConnectivityServiceDetailsOutput>> {
+/**
+ * Reads connectivity service details without blocking a thread for the datastore read.
+ */
+public class GetConnectivityDetailsAction {
 
     private final TapiConnectivityServiceImpl service;
     private final GetConnectivityServiceDetailsInput input;
@@ -32,30 +36,30 @@ public class GetConnectivityDetailsAction implements Callable<RpcResult<GetConne
         this.input = input;
     }
 
-    @Override
-    public RpcResult<GetConnectivityServiceDetailsOutput> call() {
-
-        try {
-            if (input.getServiceIdOrName() == null) {
-                throw new FailureResult("get-connectivity-service-details requires a valid service-id-or-name");
-            }
-
-            NrpDao nrpDao = new NrpDao(service.getBroker().newReadOnlyTransaction());
-            ConnectivityService value = nrpDao.getConnectivityService(input.getServiceIdOrName());
-
-            if (value == null) {
-                throw new FailureResult("There is no service with id {0}", input.getServiceIdOrName());
-            }
+    public FluentFuture<RpcResult<GetConnectivityServiceDetailsOutput>> execute() {
+        if (input.getServiceIdOrName() == null) {
+            return FluentFuture.from(Futures.immediateFuture(failed(
+                    new FailureResult("get-connectivity-service-details requires a valid service-id-or-name"))));
+        }
 
-            return RpcResultBuilder.success(
-                    new GetConnectivityServiceDetailsOutputBuilder()
-                    .setService(new ServiceBuilder(value).build())).build();
+        AsyncNrpDao nrpDao = new AsyncNrpDao(service.getBroker().newReadOnlyTransaction());
+        return nrpDao.getConnectivityService(input.getServiceIdOrName(), service.getServiceNameIndex(),
+                service.getExecutor().getExecutor())
+                .transform(value -> {
+                    if (!value.isPresent()) {
+                        return failed(new FailureResult("There is no service with id {0}",
+                                input.getServiceIdOrName()));
+                    }
+                    return RpcResultBuilder.success(
+                            new GetConnectivityServiceDetailsOutputBuilder()
+                            .setService(new ServiceBuilder(value.get()).build())).build();
+                }, MoreExecutors.directExecutor());
+    }
 
-        } catch (FailureResult e) {
-            return RpcResultBuilder
-                    .<GetConnectivityServiceDetailsOutput>failed()
-                    .withError(ErrorType.APPLICATION, e.getMessage())
-                    .build();
-        }
+    private static RpcResult<GetConnectivityServiceDetailsOutput> failed(FailureResult failure) {
+        return RpcResultBuilder
+                .<GetConnectivityServiceDetailsOutput>failed()
+                .withError(ErrorType.APPLICATION, failure.getMessage())
+                .build();
     }
 }
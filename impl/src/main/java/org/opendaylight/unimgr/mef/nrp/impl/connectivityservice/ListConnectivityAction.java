@@ -8,20 +8,21 @@
 
 package org.opendaylight.unimgr.mef.nrp.impl.connectivityservice;
 
-import java.util.ArrayList;
-import java.util.List;
+import com.google.common.util.concurrent.FluentFuture;
 import java.util.Objects;
-import java.util.concurrent.Callable;
-import org.opendaylight.unimgr.mef.nrp.common.NrpDao;
+import java.util.stream.Collectors;
+import org.opendaylight.unimgr.mef.nrp.common.AsyncNrpDao;
 import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.GetConnectivityServiceListOutput;
 import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.GetConnectivityServiceListOutputBuilder;
-import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.connectivity.context.ConnectivityService;
-import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.get.connectivity.service.list.output.Service;
 import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.get.connectivity.service.list.output.ServiceBuilder;
 import org.opendaylight.yangtools.yang.common.RpcResult;
 import org.opendaylight.yangtools.yang.common.RpcResultBuilder;
 
-public class ListConnectivityAction implements Callable<RpcResult<GetConnectivityServiceListOutput>> {
+/**
+ * Lists all connectivity services. Services are rewritten to the output on the service executor
+ * as it is proportional to the number of services. When the executor is overloaded the request is rejected.
+ */
+public class ListConnectivityAction {
 
     private final TapiConnectivityServiceImpl service;
 
@@ -30,20 +31,13 @@ public class ListConnectivityAction implements Callable<RpcResult<GetConnectivit
         this.service = service;
     }
 
-    @Override
-    public RpcResult<GetConnectivityServiceListOutput> call() {
-        List<Service> services = new ArrayList<>();
-
-        NrpDao nrpDao = new NrpDao(service.getBroker().newReadOnlyTransaction());
-        List<ConnectivityService> connectivityServices = nrpDao.getConnectivityServiceList();
-        if (connectivityServices != null) {
-            for (ConnectivityService cs : connectivityServices) {
-                services.add(new ServiceBuilder(cs).build());
-            }
-        }
-
-        return RpcResultBuilder.success(
+    public FluentFuture<RpcResult<GetConnectivityServiceListOutput>> execute() {
+        return service.getExecutor().transform("get-connectivity-service-list",
+            () -> new AsyncNrpDao(service.getBroker().newReadOnlyTransaction()).getConnectivityServiceList(),
+            connectivityServices -> RpcResultBuilder.success(
                 new GetConnectivityServiceListOutputBuilder()
-                .setService(services)).build();
+                .setService(connectivityServices.stream()
+                        .map(cs -> new ServiceBuilder(cs).build())
+                        .collect(Collectors.toList()))).build());
     }
 }
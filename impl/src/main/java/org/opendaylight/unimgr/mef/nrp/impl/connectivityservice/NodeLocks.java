@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2018 Cisco Systems Inc and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.unimgr.mef.nrp.impl.connectivityservice;
+
+import com.google.common.base.Preconditions;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.Uuid;
+
+/**
+ * Serializes requests configuring the same nodes.
+ * Nodes are mapped to a fixed number of stripes. A request holds the stripes of all its nodes from the
+ * activation of the drivers until the connectivity model is committed, so requests sharing a node neither
+ * configure the device nor update its edge points concurrently. Requests on disjoint nodes run in parallel,
+ * unless their nodes share a stripe.
+ * Stripes are taken one by one in ascending order, thus two requests cannot wait for each other.
+ * Waiting does not hold a thread, the request continues on the thread of the request releasing the stripe.
+ */
+public class NodeLocks {
+    private final Stripe[] stripes;
+
+    /**
+     * Create locks.
+     * @param stripes number of stripes, the more the less likely unrelated nodes are serialized
+     */
+    public NodeLocks(int stripes) {
+        Preconditions.checkArgument(stripes > 0, "number of stripes must be positive");
+        this.stripes = new Stripe[stripes];
+        for (int i = 0; i < stripes; ++i) {
+            this.stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * Acquire locks of nodes.
+     * @param nodes nodes of the request
+     * @return lease completed when all the locks are held
+     */
+    public CompletableFuture<Lease> acquire(Collection<Uuid> nodes) {
+        final List<Stripe> taken = new ArrayList<>();
+        CompletableFuture<Void> all = CompletableFuture.completedFuture(null);
+        for (int index : indexes(nodes)) {
+            final Stripe stripe = stripes[index];
+            taken.add(stripe);
+            all = all.thenCompose(v -> stripe.acquire());
+        }
+        return all.thenApply(v -> new Lease(taken));
+    }
+
+    /**
+     * Acquire locks of nodes, waiting until all the locks are held.
+     * @param nodes nodes of the request
+     * @return lease
+     * @throws InterruptedException when interrupted while waiting, no locks are held then
+     */
+    public Lease lock(Collection<Uuid> nodes) throws InterruptedException {
+        final CompletableFuture<Lease> lease = acquire(nodes);
+        try {
+            return lease.get();
+        } catch (InterruptedException e) {
+            lease.thenAccept(Lease::close);
+            throw e;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Cannot acquire locks of " + nodes, e);
+        }
+    }
+
+    /**
+     * Number of requests waiting for locks.
+     * @return waiting requests
+     */
+    public int getWaiting() {
+        int waiting = 0;
+        for (Stripe stripe : stripes) {
+            waiting += stripe.waiting();
+        }
+        return waiting;
+    }
+
+    private TreeSet<Integer> indexes(Collection<Uuid> nodes) {
+        TreeSet<Integer> indexes = new TreeSet<>();
+        nodes.stream().filter(Objects::nonNull)
+                .forEach(n -> indexes.add(Math.floorMod(n.getValue().hashCode(), stripes.length)));
+        return indexes;
+    }
+
+    /**
+     * Locks held by a request.
+     */
+    public static final class Lease implements AutoCloseable {
+        private final List<Stripe> taken;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Lease(List<Stripe> taken) {
+            this.taken = taken;
+        }
+
+        /**
+         * Release the locks. Subsequent calls have no effect.
+         */
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true)) {
+                for (int i = taken.size() - 1; i >= 0; --i) {
+                    taken.get(i).release();
+                }
+            }
+        }
+    }
+
+    private static final class Stripe {
+        private final Deque<CompletableFuture<Void>> waiters = new ArrayDeque<>();
+        private boolean held;
+
+        synchronized CompletableFuture<Void> acquire() {
+            if (!held) {
+                held = true;
+                return CompletableFuture.completedFuture(null);
+            }
+            CompletableFuture<Void> waiter = new CompletableFuture<>();
+            waiters.add(waiter);
+            return waiter;
+        }
+
+        void release() {
+            final CompletableFuture<Void> next;
+            synchronized (this) {
+                next = waiters.poll();
+                if (next == null) {
+                    held = false;
+                    return;
+                }
+            }
+            // the stripe is handed over to the next waiter
+            next.complete(null);
+        }
+
+        synchronized int waiting() {
+            return waiters.size();
+        }
+    }
+}
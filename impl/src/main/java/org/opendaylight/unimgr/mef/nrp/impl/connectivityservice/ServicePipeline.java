@@ -0,0 +1,241 @@
+/*
+ * Copyright (c) 2018 Cisco Systems Inc and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.unimgr.mef.nrp.impl.connectivityservice;
+
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Executors of the stages of connectivity service creation and removal.
+ * Each stage runs on its own pool, so a slow device activation does not hold the threads
+ * decomposition of other requests needs:
+ * <ul>
+ *     <li>{@link Stage#DECOMPOSITION} - validation and decomposition of a request, bound by CPU</li>
+ *     <li>{@link Stage#ACTIVATION} - configuration of the devices, waiting for the devices</li>
+ *     <li>{@link Stage#COMMIT} - write of the connectivity model to the datastore</li>
+ * </ul>
+ * Decomposition and activation tasks over the queue capacity are rejected. Commit tasks are never rejected,
+ * as the devices are already configured when the model is stored.
+ */
+public class ServicePipeline implements ServicePipelineMXBean, AutoCloseable {
+    private static final Logger LOG = LoggerFactory.getLogger(ServicePipeline.class);
+    private static final String MBEAN_NAME = "org.opendaylight.unimgr:type=ServicePipeline";
+
+    public enum Stage {
+        DECOMPOSITION, ACTIVATION, COMMIT
+    }
+
+    private final Map<Stage, ThreadPoolExecutor> executors = new EnumMap<>(Stage.class);
+    private final Map<Stage, Latency> latencies = new EnumMap<>(Stage.class);
+    private ObjectName registered;
+
+    /**
+     * Create pipeline.
+     * @param decompositionThreads number of threads decomposing requests, usually the number of cores
+     * @param activationThreads number of threads activating requests on the devices
+     * @param commitThreads number of threads writing to the datastore
+     * @param queueCapacity number of decomposition and activation tasks that can wait for a thread
+     */
+    public ServicePipeline(int decompositionThreads, int activationThreads, int commitThreads, int queueCapacity) {
+        Preconditions.checkArgument(queueCapacity > 0, "queue capacity must be positive");
+        executors.put(Stage.DECOMPOSITION,
+                executor(Stage.DECOMPOSITION, decompositionThreads, new ArrayBlockingQueue<>(queueCapacity)));
+        executors.put(Stage.ACTIVATION,
+                executor(Stage.ACTIVATION, activationThreads, new ArrayBlockingQueue<>(queueCapacity)));
+        executors.put(Stage.COMMIT, executor(Stage.COMMIT, commitThreads, new LinkedBlockingQueue<>()));
+        for (Stage stage : Stage.values()) {
+            latencies.put(stage, new Latency());
+        }
+    }
+
+    private static ThreadPoolExecutor executor(Stage stage, int threads, BlockingQueue<Runnable> queue) {
+        Preconditions.checkArgument(threads > 0, "threads of %s must be positive", stage);
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 1, TimeUnit.MINUTES, queue,
+                new ThreadFactoryBuilder()
+                        .setNameFormat("service-" + stage.name().toLowerCase(Locale.ROOT) + "-%d")
+                        .setDaemon(true).build());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    public void init() {
+        try {
+            ObjectName name = new ObjectName(MBEAN_NAME);
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+            registered = name;
+        } catch (JMException e) {
+            LOG.warn("Cannot register service pipeline MBean", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (registered != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(registered);
+            } catch (JMException e) {
+                LOG.warn("Cannot unregister service pipeline MBean", e);
+            }
+            registered = null;
+        }
+        executors.values().forEach(ThreadPoolExecutor::shutdown);
+    }
+
+    /**
+     * Run task on the executor of a stage.
+     * @param stage stage of the pipeline
+     * @param task task
+     * @param <T> type of the result
+     * @return result, completed exceptionally with {@link RejectedExecutionException} if the stage is overloaded
+     */
+    public <T> CompletableFuture<T> supply(Stage stage, Callable<T> task) {
+        return compose(stage, () -> CompletableFuture.completedFuture(task.call()));
+    }
+
+    /**
+     * Run asynchronous task on the executor of a stage.
+     * The stage lasts until the result of the task is complete.
+     * @param stage stage of the pipeline
+     * @param task task
+     * @param <T> type of the result
+     * @return result, completed exceptionally with {@link RejectedExecutionException} if the stage is overloaded
+     */
+    @SuppressWarnings("checkstyle:illegalcatch")
+    public <T> CompletableFuture<T> compose(Stage stage, Callable<? extends CompletionStage<T>> task) {
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        final Latency latency = latencies.get(stage);
+        final long scheduled = System.nanoTime();
+        try {
+            executors.get(stage).execute(() -> {
+                try {
+                    task.call().whenComplete((value, error) -> {
+                        if (error == null) {
+                            result.complete(value);
+                        } else {
+                            result.completeExceptionally(error);
+                        }
+                    });
+                } catch (Exception e) {
+                    result.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            LOG.warn("{} stage of the service pipeline is overloaded", stage);
+            result.completeExceptionally(e);
+            return result;
+        }
+        return result.whenComplete((value, error) -> latency.record(System.nanoTime() - scheduled));
+    }
+
+    /**
+     * Get executor of a stage, e.g. to run asynchronous steps of a task that already runs in the stage.
+     * @param stage stage of the pipeline
+     * @return executor of the stage
+     */
+    public Executor getExecutor(Stage stage) {
+        return executors.get(stage);
+    }
+
+    /**
+     * Adapt future, e.g. of a datastore commit, to a completion stage.
+     * @param future future
+     * @param <T> type of the result
+     * @return completion stage
+     */
+    public <T> CompletableFuture<T> toStage(ListenableFuture<T> future) {
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        Futures.addCallback(future, new FutureCallback<T>() {
+            @Override
+            public void onSuccess(T value) {
+                result.complete(value);
+            }
+
+            @Override
+            public void onFailure(Throwable error) {
+                result.completeExceptionally(error);
+            }
+        }, MoreExecutors.directExecutor());
+        return result;
+    }
+
+    @Override
+    public Map<String, Long> getCount() {
+        return stats(l -> l.count.sum());
+    }
+
+    @Override
+    public Map<String, Double> getAverageLatency() {
+        return stats(Latency::average);
+    }
+
+    @Override
+    public Map<String, Double> getMaxLatency() {
+        return stats(l -> toMillis(l.max.get()));
+    }
+
+    @Override
+    public Map<String, Integer> getQueueDepth() {
+        Map<String, Integer> depth = new LinkedHashMap<>();
+        executors.forEach((stage, executor) -> depth.put(stage.name(), executor.getQueue().size()));
+        return depth;
+    }
+
+    private <T> Map<String, T> stats(Function<Latency, T> stat) {
+        Map<String, T> stats = new LinkedHashMap<>();
+        latencies.forEach((stage, latency) -> stats.put(stage.name(), stat.apply(latency)));
+        return stats;
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    private static final class Latency {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder total = new LongAdder();
+        private final AtomicLong max = new AtomicLong();
+
+        void record(long nanos) {
+            count.increment();
+            total.add(nanos);
+            max.accumulateAndGet(nanos, Math::max);
+        }
+
+        double average() {
+            long cnt = count.sum();
+            return cnt == 0 ? 0 : toMillis(total.sum()) / cnt;
+        }
+    }
+}
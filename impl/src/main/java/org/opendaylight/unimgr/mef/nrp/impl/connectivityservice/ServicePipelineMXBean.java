@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2018 Cisco Systems Inc and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.unimgr.mef.nrp.impl.connectivityservice;
+
+import java.util.Map;
+
+/**
+ * Connectivity service pipeline statistics exposed over JMX.
+ * Latency of a stage is measured from the moment it is scheduled, so it includes the time spent waiting for a thread.
+ */
+public interface ServicePipelineMXBean {
+
+    /**
+     * Number of completed stages.
+     * @return count by stage name
+     */
+    Map<String, Long> getCount();
+
+    /**
+     * Average latency of the stages.
+     * @return latency in milliseconds by stage name
+     */
+    Map<String, Double> getAverageLatency();
+
+    /**
+     * Maximal latency of the stages.
+     * @return latency in milliseconds by stage name
+     */
+    Map<String, Double> getMaxLatency();
+
+    /**
+     * Number of tasks waiting for a thread.
+     * @return queue depth by stage name
+     */
+    Map<String, Integer> getQueueDepth();
+}
@@ -9,18 +9,21 @@
 package org.opendaylight.unimgr.mef.nrp.impl.connectivityservice;
 
 import com.google.common.util.concurrent.ListenableFuture;
-import com.google.common.util.concurrent.ListeningExecutorService;
-import com.google.common.util.concurrent.MoreExecutors;
 import java.util.Objects;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.ThreadPoolExecutor;
-import java.util.concurrent.TimeUnit;
 import org.opendaylight.mdsal.binding.api.DataBroker;
 import org.opendaylight.unimgr.mef.nrp.api.ActivationDriverRepoService;
 import org.opendaylight.unimgr.mef.nrp.api.RequestDecomposer;
 import org.opendaylight.unimgr.mef.nrp.api.RequestValidator;
+import org.opendaylight.unimgr.mef.nrp.common.CommitRetry;
 import org.opendaylight.unimgr.mef.nrp.common.NrpDao;
+import org.opendaylight.unimgr.mef.nrp.common.RpcExecutor;
+import org.opendaylight.unimgr.mef.nrp.common.ServiceNameIndex;
+import org.opendaylight.unimgr.mef.nrp.common.SipIndex;
 import org.opendaylight.unimgr.mef.nrp.impl.ConnectivityServiceIdResourcePool;
+import org.opendaylight.unimgr.mef.nrp.impl.decomposer.CapacityLedger;
+import org.opendaylight.unimgr.mef.nrp.impl.pathcomputation.PathStore;
+import org.opendaylight.yang.gen.v1.urn.odl.unimgr.yang.unimgr.ext.rev170531.CreateConnectivityServicesInput;
+import org.opendaylight.yang.gen.v1.urn.odl.unimgr.yang.unimgr.ext.rev170531.CreateConnectivityServicesOutput;
 import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.Context1;
 import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.CreateConnectivityServiceInput;
 import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.CreateConnectivityServiceOutput;
@@ -53,9 +56,17 @@ public class TapiConnectivityServiceImpl implements TapiConnectivityService, Aut
     private RequestValidator validator;
     private DataBroker broker;
     private ConnectivityServiceIdResourcePool serviceIdPool;
+    private PathStore pathStore;
+    private CapacityLedger capacityLedger;
+    private SipIndex sipIndex;
+    private ServiceNameIndex serviceNameIndex;
 
-    private ListeningExecutorService executor = null;
-
+    private RpcExecutor executor = null;
+    private boolean ownExecutor;
+    private ServicePipeline pipeline = null;
+    private boolean ownPipeline;
+    private NodeLocks nodeLocks = null;
+    private CommitRetry commitRetry = CommitRetry.DEFAULT;
 
     public void init() {
         Objects.requireNonNull(driverRepo);
@@ -64,55 +75,81 @@ public class TapiConnectivityServiceImpl implements TapiConnectivityService, Aut
         Objects.requireNonNull(broker);
         Objects.requireNonNull(serviceIdPool);
         if (executor == null) {
-            executor = MoreExecutors.listeningDecorator(
-                    new ThreadPoolExecutor(4, 16,
-                            30, TimeUnit.MINUTES,
-                            new LinkedBlockingQueue<>()));
+            executor = new RpcExecutor("tapi-connectivity", 8, 256);
+            ownExecutor = true;
+        }
+        if (pipeline == null) {
+            pipeline = new ServicePipeline(Runtime.getRuntime().availableProcessors(), 8, 2, 256);
+            ownPipeline = true;
+        }
+        if (nodeLocks == null) {
+            nodeLocks = new NodeLocks(64);
         }
         LOG.info("TapiConnectivityService initialized");
     }
 
     @Override
     public void close() throws Exception {
-        executor.shutdown();
+        if (ownExecutor) {
+            executor.close();
+        }
+        if (ownPipeline) {
+            pipeline.close();
+        }
     }
 
     @Override
     public ListenableFuture<RpcResult<CreateConnectivityServiceOutput>> createConnectivityService(
             CreateConnectivityServiceInput input) {
-        return executor.submit(new CreateConnectivityAction(this, input));
+        return executor.submitStaged("create-connectivity-service",
+            () -> new CreateConnectivityAction(this, input).execute(pipeline));
+    }
+
+    /**
+     * Create batch of connectivity services.
+     * @param input requests of the batch
+     * @return outcome of each request
+     * @see org.opendaylight.yang.gen.v1.urn.odl.unimgr.yang.unimgr.ext.rev170531.UnimgrExtService
+     */
+    public ListenableFuture<RpcResult<CreateConnectivityServicesOutput>> createConnectivityServices(
+            CreateConnectivityServicesInput input) {
+        return executor.submitStaged("create-connectivity-services",
+            () -> new CreateConnectivityServicesAction(this, input).execute(pipeline));
     }
 
 
     @Override
     public ListenableFuture<RpcResult<UpdateConnectivityServiceOutput>> updateConnectivityService(
             UpdateConnectivityServiceInput input) {
-        return executor.submit(new UpdateConnectivityAction(this, input));
+        return executor.submitStaged("update-connectivity-service",
+            () -> new UpdateConnectivityAction(this, input).execute(pipeline));
     }
 
     @Override
     public ListenableFuture<RpcResult<GetConnectionDetailsOutput>> getConnectionDetails(
             GetConnectionDetailsInput input) {
-        return executor.submit(new GetConnectionDetailsAction(this, input));
+        return executor.submitAsync("get-connection-details",
+            () -> new GetConnectionDetailsAction(this, input).execute());
     }
 
     @Override
     public ListenableFuture<RpcResult<GetConnectivityServiceDetailsOutput>> getConnectivityServiceDetails(
             GetConnectivityServiceDetailsInput input) {
-        return executor.submit(new GetConnectivityDetailsAction(this, input));
+        return executor.submitAsync("get-connectivity-service-details",
+            () -> new GetConnectivityDetailsAction(this, input).execute());
     }
 
     @Override
     public ListenableFuture<RpcResult<DeleteConnectivityServiceOutput>> deleteConnectivityService(
             DeleteConnectivityServiceInput input) {
-        return executor.submit(new DeleteConnectivityAction(this,input));
-
+        return executor.submitStaged("delete-connectivity-service",
+            () -> new DeleteConnectivityAction(this, input).execute(pipeline));
     }
 
     @Override
     public ListenableFuture<RpcResult<GetConnectivityServiceListOutput>> getConnectivityServiceList(
             GetConnectivityServiceListInput input) {
-        return executor.submit(new ListConnectivityAction(this));
+        return new ListConnectivityAction(this).execute();
     }
 
 
@@ -132,17 +169,81 @@ public class TapiConnectivityServiceImpl implements TapiConnectivityService, Aut
         this.broker = broker;
     }
 
-    public void setExecutor(ListeningExecutorService executor) {
+    /**
+     * Set executor of the RPCs. If none is set, init creates one with default sizing and close shuts it down.
+     * @param executor executor with admission control, its lifecycle is managed by the caller
+     */
+    public void setExecutor(RpcExecutor executor) {
         this.executor = executor;
-        if (executor != null) {
-            throw new IllegalStateException();
-        }
+    }
+
+    /**
+     * Set executors of the stages of connectivity service creation and removal.
+     * Without it, init creates a default sized pipeline that close shuts down.
+     * @param pipeline stage executors, its lifecycle is managed by the caller
+     */
+    public void setPipeline(ServicePipeline pipeline) {
+        this.pipeline = pipeline;
+    }
+
+    /**
+     * Set locks serializing requests that configure the same nodes.
+     * Locks with the default number of stripes are used when none are set.
+     * @param nodeLocks locks shared by all connectivity service requests
+     */
+    public void setNodeLocks(NodeLocks nodeLocks) {
+        this.nodeLocks = nodeLocks;
+    }
+
+    /**
+     * Set retry policy of the commits of connectivity models.
+     * {@link CommitRetry#DEFAULT} applies until a policy is set.
+     * @param commitRetry retry policy
+     */
+    public void setCommitRetry(CommitRetry commitRetry) {
+        this.commitRetry = commitRetry;
     }
 
     public void setServiceIdPool(ConnectivityServiceIdResourcePool serviceIdPool) {
         this.serviceIdPool = serviceIdPool;
     }
 
+    /**
+     * Set store of precomputed paths.
+     * Requests with include-path constraint are rejected while no store is set.
+     * @param pathStore paths computed with path computation service
+     */
+    public void setPathStore(PathStore pathStore) {
+        this.pathStore = pathStore;
+    }
+
+    /**
+     * Set ledger of reserved bandwidth.
+     * Until a ledger is set, path computation ignores bandwidth profiles.
+     * @param capacityLedger ledger shared with the topology graph
+     */
+    public void setCapacityLedger(CapacityLedger capacityLedger) {
+        this.capacityLedger = capacityLedger;
+    }
+
+    /**
+     * Set index of node edge points by service interface points.
+     * Endpoint updates read the system topology when no index is set.
+     * @param sipIndex index following system topology
+     */
+    public void setSipIndex(SipIndex sipIndex) {
+        this.sipIndex = sipIndex;
+    }
+
+    /**
+     * Set index of connectivity services by name, used to resolve services referred by name.
+     * A null index makes these lookups read the whole connectivity context.
+     * @param serviceNameIndex index following connectivity services
+     */
+    public void setServiceNameIndex(ServiceNameIndex serviceNameIndex) {
+        this.serviceNameIndex = serviceNameIndex;
+    }
+
     ActivationDriverRepoService getDriverRepo() {
         return driverRepo;
     }
@@ -159,7 +260,39 @@ public class TapiConnectivityServiceImpl implements TapiConnectivityService, Aut
         return broker;
     }
 
+    RpcExecutor getExecutor() {
+        return executor;
+    }
+
+    CommitRetry getCommitRetry() {
+        return commitRetry;
+    }
+
+    ServicePipeline getPipeline() {
+        return pipeline;
+    }
+
+    NodeLocks getNodeLocks() {
+        return nodeLocks;
+    }
+
     ConnectivityServiceIdResourcePool getServiceIdPool() {
         return serviceIdPool;
     }
+
+    PathStore getPathStore() {
+        return pathStore;
+    }
+
+    CapacityLedger getCapacityLedger() {
+        return capacityLedger;
+    }
+
+    SipIndex getSipIndex() {
+        return sipIndex;
+    }
+
+    ServiceNameIndex getServiceNameIndex() {
+        return serviceNameIndex;
+    }
 }
@@ -10,19 +10,24 @@ package org.opendaylight.unimgr.mef.nrp.impl.connectivityservice;
 
 import java.text.MessageFormat;
 import java.util.Collections;
+import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ExecutionException;
-import java.util.function.Function;
-import java.util.function.Predicate;
+import java.util.concurrent.RejectedExecutionException;
+import org.opendaylight.mdsal.binding.api.ReadWriteTransaction;
 import org.opendaylight.unimgr.mef.nrp.api.ActivationDriver;
 import org.opendaylight.unimgr.mef.nrp.api.EndPoint;
 import org.opendaylight.unimgr.mef.nrp.api.FailureResult;
 import org.opendaylight.unimgr.mef.nrp.api.RequestValidator;
 import org.opendaylight.unimgr.mef.nrp.api.TapiConstants;
 import org.opendaylight.unimgr.mef.nrp.common.NrpDao;
+import org.opendaylight.unimgr.mef.nrp.common.RpcExecutor;
 import org.opendaylight.unimgr.mef.nrp.impl.ActivationTransaction;
+import org.opendaylight.unimgr.mef.nrp.impl.connectivityservice.ServicePipeline.Stage;
 import org.opendaylight.yang.gen.v1.urn.mef.yang.nrp._interface.rev180321.EndPoint7;
 import org.opendaylight.yang.gen.v1.urn.odl.unimgr.yang.unimgr.ext.rev170531.NodeAdiAugmentation;
 import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.Uuid;
@@ -32,18 +37,14 @@ import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev18030
 import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.connectivity.context.ConnectivityService;
 import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.update.connectivity.service.output.ServiceBuilder;
 import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.OwnedNodeEdgePointRef;
-import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.link.NodeEdgePointBuilder;
-import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.node.OwnedNodeEdgePoint;
 import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.topology.Node;
-import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.topology.context.Topology;
-import org.opendaylight.yangtools.yang.common.RpcError;
 import org.opendaylight.yangtools.yang.common.RpcError.ErrorType;
 import org.opendaylight.yangtools.yang.common.RpcResult;
 import org.opendaylight.yangtools.yang.common.RpcResultBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-public class UpdateConnectivityAction implements Callable<RpcResult<UpdateConnectivityServiceOutput>> {
+public class UpdateConnectivityAction {
 
     private static final Logger LOG = LoggerFactory.getLogger(UpdateConnectivityAction.class);
 
@@ -51,6 +52,9 @@ public class UpdateConnectivityAction implements Callable<RpcResult<UpdateConnec
     private final UpdateConnectivityServiceInput input;
     private EndPoint endpoint;
     private NrpDao nrpDao;
+    private Uuid nodeId;
+    private List<String> problems;
+    private NodeLocks.Lease lease;
 
     UpdateConnectivityAction(TapiConnectivityServiceImpl tapiConnectivityService,
                              UpdateConnectivityServiceInput input) {
@@ -61,53 +65,89 @@ public class UpdateConnectivityAction implements Callable<RpcResult<UpdateConnec
         this.input = input;
     }
 
-    @Override
-    @SuppressWarnings("checkstyle:illegalcatch")
-    public RpcResult<UpdateConnectivityServiceOutput> call() {
-
+    /**
+     * Update the service in the stages of the pipeline.
+     * The request is validated and the driver prepared in {@link Stage#DECOMPOSITION}, the endpoint is updated
+     * in {@link Stage#ACTIVATION} and the connectivity model is stored in {@link Stage#COMMIT}.
+     * The node of the endpoint is locked from the update until the model is stored.
+     * @param pipeline executors of the stages
+     * @return result of the request
+     */
+    CompletionStage<RpcResult<UpdateConnectivityServiceOutput>> execute(ServicePipeline pipeline) {
         LOG.debug("running UpdateConnectivityService task");
 
-        nrpDao = new NrpDao(service.getBroker().newReadWriteTransaction());
-        try {
-            // TODO validate input
-            RequestValidator.ValidationResult validationResult = service.getValidator().checkValid(input);
-
-            if (validationResult.invalid()) {
-                RpcResultBuilder<UpdateConnectivityServiceOutput> res = RpcResultBuilder.failed();
-                validationResult.getProblems().forEach(
-                    p -> res.withError(RpcError.ErrorType.APPLICATION, p));
-                return res.build();
-            }
+        return pipeline.supply(Stage.DECOMPOSITION, this::prepare)
+                .thenCompose(tx -> lock().thenCompose(l -> pipeline.supply(Stage.ACTIVATION, () -> update(tx))))
+                .thenCompose(txResult -> pipeline.compose(Stage.COMMIT, () -> store(pipeline)))
+                .handle(this::toResult);
+    }
 
-            endpoint = new EndPoint(input.getEndPoint(), input.getEndPoint().augmentation(EndPoint7.class));
+    private ActivationTransaction prepare() throws FailureResult {
+        // TODO validate input
+        RequestValidator.ValidationResult validationResult = service.getValidator().checkValid(input);
+        if (validationResult.invalid()) {
+            problems = validationResult.getProblems();
+            throw new FailureResult("Invalid request");
+        }
 
-            String serviceId = input.getServiceIdOrName();
+        endpoint = new EndPoint(input.getEndPoint(), input.getEndPoint().augmentation(EndPoint7.class));
 
-            ActivationTransaction tx = prepareTransaction(serviceId);
-            if (tx != null) {
-                ActivationTransaction.Result txResult = tx.update();
-                if (txResult.isSuccessful()) {
-                    LOG.info("ConnectivityService construct updated successfully, request = {} ", input);
+        final ReadWriteTransaction readTx = service.getBroker().newReadWriteTransaction();
+        try {
+            nrpDao = new NrpDao(readTx, service.getSipIndex());
+            return prepareTransaction(input.getServiceIdOrName());
+        } finally {
+            readTx.cancel();
+        }
+    }
 
-                    //XXX we might be also supporting CS constraints update
-                    ConnectivityService cs = nrpDao.updateCsEndPoint(serviceId, input.getEndPoint());
+    private CompletableFuture<NodeLocks.Lease> lock() {
+        return service.getNodeLocks().acquire(Collections.singletonList(nodeId)).thenApply(l -> {
+            lease = l;
+            return l;
+        });
+    }
 
-                    UpdateConnectivityServiceOutput result = new UpdateConnectivityServiceOutputBuilder()
-                            .setService(new ServiceBuilder(cs).build()).build();
-                    return RpcResultBuilder.success(result).build();
-                } else {
-                    LOG.warn("UpdateConnectivityService failed, reason = {}, request = {}", txResult.getMessage(),
-                            input);
-                }
-            }
-            throw new IllegalStateException("no transaction created for update connectivity request");
+    private ActivationTransaction.Result update(ActivationTransaction tx) throws FailureResult {
+        ActivationTransaction.Result txResult = tx.update();
+        if (!txResult.isSuccessful()) {
+            LOG.warn("UpdateConnectivityService failed, reason = {}, request = {}", txResult.getMessage(), input);
+            throw new FailureResult(txResult.getMessage().orElse("Update failed"));
+        }
+        LOG.info("ConnectivityService construct updated successfully, request = {} ", input);
+        return txResult;
+    }
 
-        } catch (FailureResult | InterruptedException | ExecutionException e) {
-            LOG.warn("Exception in update connectivity service", e);
-            return RpcResultBuilder.<UpdateConnectivityServiceOutput>failed()
-                    .withError(ErrorType.APPLICATION, e.getMessage()).build();
+    private CompletionStage<ConnectivityService> store(ServicePipeline pipeline) {
+        //XXX we might be also supporting CS constraints update
+        return pipeline.toStage(service.getCommitRetry().commit(service.getBroker(),
+            tx -> new NrpDao(tx).writeCsEndPoint(input.getServiceIdOrName(), input.getEndPoint()),
+            pipeline.getExecutor(Stage.COMMIT)));
+    }
+
+    private RpcResult<UpdateConnectivityServiceOutput> toResult(ConnectivityService cs, Throwable error) {
+        if (lease != null) {
+            lease.close();
+        }
+        if (error == null) {
+            UpdateConnectivityServiceOutput result = new UpdateConnectivityServiceOutputBuilder()
+                    .setService(new ServiceBuilder(cs).build()).build();
+            return RpcResultBuilder.success(result).build();
         }
+        final Throwable cause = error instanceof CompletionException && error.getCause() != null
+                ? error.getCause() : error;
 
+        RpcResultBuilder<UpdateConnectivityServiceOutput> res = RpcResultBuilder.failed();
+        if (problems != null) {
+            problems.forEach(p -> res.withError(ErrorType.APPLICATION, p));
+            return res.build();
+        }
+        if (cause instanceof RejectedExecutionException) {
+            return RpcExecutor.overloaded("update-connectivity-service");
+        }
+        LOG.warn("Exception in update connectivity service", cause);
+        return res.withError(ErrorType.APPLICATION,
+                cause.getMessage() == null ? cause.getClass().getSimpleName() : cause.getMessage()).build();
     }
 
     private ActivationTransaction prepareTransaction(String serviceId) throws FailureResult {
@@ -116,7 +156,8 @@ public class UpdateConnectivityAction implements Callable<RpcResult<UpdateConnec
         Optional<? extends OwnedNodeEdgePointRef> nepRef = getNep();
         nepRef.ifPresent(ownedNodeEdgePointRef -> {
             try {
-                Node node = nrpDao.getNode(ownedNodeEdgePointRef.getNodeId());
+                nodeId = ownedNodeEdgePointRef.getNodeId();
+                Node node = nrpDao.getNode(nodeId);
                 NodeAdiAugmentation aug = node.augmentation(NodeAdiAugmentation.class);
                 if (aug != null) {
                     Optional<ActivationDriver> driver = service.getDriverRepo().getDriver(aug.getActivationDriverId());
@@ -141,40 +182,8 @@ public class UpdateConnectivityAction implements Callable<RpcResult<UpdateConnec
     }
 
     private Optional<? extends OwnedNodeEdgePointRef> getNep() throws FailureResult {
-
         try {
-            Topology prestoTopo = nrpDao.getTopology(TapiConstants.PRESTO_SYSTEM_TOPO);
-            if (prestoTopo.getNode() == null) {
-                throw new FailureResult("There are no nodes in {0} topology", TapiConstants.PRESTO_SYSTEM_TOPO);
-            }
-
-            final Predicate<OwnedNodeEdgePoint> hasSip = nep -> nep.getMappedServiceInterfacePoint() != null
-                    && nep.getMappedServiceInterfacePoint().stream()
-                    .anyMatch(sip ->
-                         sip.getServiceInterfacePointId().equals(
-                                 endpoint.getEndpoint().getServiceInterfacePoint().getServiceInterfacePointId()
-                         )
-                    );
-
-            final NodeEdgePointBuilder nepBuilder = new NodeEdgePointBuilder()
-                    .setTopologyId(new Uuid(TapiConstants.PRESTO_SYSTEM_TOPO));
-            final Function<Node, Optional<? extends OwnedNodeEdgePointRef>> getSip =
-                (Node node) -> node.getOwnedNodeEdgePoint()
-                    .stream().filter(nep -> nep.getMappedServiceInterfacePoint() != null)
-                    .filter(hasSip)
-                    .map(nep -> {
-                        nepBuilder.setNodeId(node.getUuid());
-                        nepBuilder.setOwnedNodeEdgePointId(nep.getUuid());
-                        return nepBuilder.build();
-                    })
-                    .findFirst();
-
-
-            return prestoTopo.getNode().stream()
-                    .map(getSip::apply)
-                    .filter(Optional::isPresent)
-                    .findFirst().orElse(Optional.empty());
-
+            return nrpDao.getNepBySip(endpoint.getEndpoint().getServiceInterfacePoint().getServiceInterfacePointId());
         } catch (InterruptedException | ExecutionException e) {
             throw new FailureResult("Cannot read {0} topology - {1}", TapiConstants.PRESTO_SYSTEM_TOPO, e);
         }
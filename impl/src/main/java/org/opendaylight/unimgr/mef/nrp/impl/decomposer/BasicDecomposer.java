@@ -27,21 +27,45 @@ public class BasicDecomposer implements RequestDecomposer {
     private static final Logger LOG = LoggerFactory.getLogger(BasicDecomposer.class);
 
     private final DataBroker broker;
+    private final TopologyGraph topologyGraph;
 
     public BasicDecomposer(DataBroker broker) {
+        this(broker, null);
+    }
+
+    /**
+     * Create decomposer that computes paths on the incrementally maintained topology graph.
+     * @param broker data broker
+     * @param topologyGraph system topology graph or null if topology has to be read for each request
+     */
+    public BasicDecomposer(DataBroker broker, TopologyGraph topologyGraph) {
         this.broker = broker;
+        this.topologyGraph = topologyGraph;
         LOG.trace("basic decomposer initialized");
     }
 
     /**
      * We currently support only one-to-one mapping between nep and sip.
      * @param endpoints list of endpoints
-     * @param constraint decomposition constraints
+     * @param constraint routing constraints or null for minimal hop routing
      * @return decomposed request
      */
     @Override
     public List<Subrequrest> decompose(List<EndPoint> endpoints, Constraints constraint) throws FailureResult {
-        return new DecompositionAction(endpoints, broker).decompose();
+        if (topologyGraph == null) {
+            return new DecompositionAction(endpoints, broker).withConstraints(constraint).decompose();
+        }
+        return new DecompositionAction(endpoints, topologyGraph.snapshot()).withConstraints(constraint).decompose();
+    }
+
+    @Override
+    public RequestDecomposer snapshot() {
+        if (topologyGraph == null) {
+            return this;
+        }
+        TopologyGraph.Snapshot snapshot = topologyGraph.snapshot();
+        return (endpoints, constraint) -> new DecompositionAction(endpoints, snapshot)
+                .withConstraints(constraint).decompose();
     }
 
 }
@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2018 Cisco Systems Inc and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.unimgr.mef.nrp.impl.decomposer;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import org.opendaylight.unimgr.mef.nrp.api.Constraints;
+import org.opendaylight.unimgr.mef.nrp.api.DecompositionTemplate;
+import org.opendaylight.unimgr.mef.nrp.api.EndPoint;
+import org.opendaylight.unimgr.mef.nrp.api.FailureResult;
+import org.opendaylight.unimgr.mef.nrp.api.RequestDecomposer;
+import org.opendaylight.unimgr.mef.nrp.api.Subrequrest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Request decomposer that caches decomposition results of another decomposer.
+ * Results are keyed with service interface points and directions of the endpoints, constraints
+ * and topology version, thus any structural change of system topology invalidates the cache.
+ * Connection end points written with each service do not change the version of {@link TopologyGraph}.
+ * The delegate must compute on the same version, e.g. {@link CompactDecomposer} following the graph,
+ * otherwise a result computed on a stale topology can be cached under the new version.
+ * Only the structure of a decomposition is cached. Endpoints of the request are bound to the result on each hit.
+ * Bandwidth constrained requests are not cached as residual capacity changes without topology changes.
+ */
+public class CachingDecomposer implements RequestDecomposer, DecompositionCacheMXBean {
+    private static final Logger LOG = LoggerFactory.getLogger(CachingDecomposer.class);
+    private static final String MBEAN_NAME = "org.opendaylight.unimgr:type=DecompositionCache";
+
+    private final RequestDecomposer delegate;
+    private final LongSupplier topologyVersion;
+    private final long maximumSize;
+    private final Cache<Key, List<DecompositionTemplate>> cache;
+    private volatile long currentVersion = -1;
+    private ObjectName registered;
+
+    /**
+     * Create decomposer that caches results computed on the topology graph.
+     * @param delegate decomposer that computes the results
+     * @param topologyGraph system topology graph, its version keys the results
+     * @param maximumSize maximal number of cached decompositions
+     */
+    public CachingDecomposer(RequestDecomposer delegate, TopologyGraph topologyGraph, long maximumSize) {
+        this(delegate, topologyGraph::getVersion, maximumSize);
+    }
+
+    public CachingDecomposer(RequestDecomposer delegate, LongSupplier topologyVersion, long maximumSize) {
+        Objects.requireNonNull(delegate);
+        Objects.requireNonNull(topologyVersion);
+        this.delegate = delegate;
+        this.topologyVersion = topologyVersion;
+        this.maximumSize = maximumSize;
+        this.cache = CacheBuilder.newBuilder().maximumSize(maximumSize).recordStats().build();
+    }
+
+    public void init() {
+        try {
+            ObjectName name = new ObjectName(MBEAN_NAME);
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+            registered = name;
+        } catch (JMException e) {
+            LOG.warn("Cannot register decomposition cache MBean", e);
+        }
+    }
+
+    public void close() {
+        if (registered != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(registered);
+            } catch (JMException e) {
+                LOG.warn("Cannot unregister decomposition cache MBean", e);
+            }
+            registered = null;
+        }
+        cache.invalidateAll();
+    }
+
+    @Override
+    public List<Subrequrest> decompose(List<EndPoint> endpoints, Constraints constraint) throws FailureResult {
+        if (constraint != null && constraint.getBandwidth() != null) {
+            return delegate.decompose(endpoints, constraint);
+        }
+        long version = topologyVersion.getAsLong();
+        if (version != currentVersion) {
+            //entries of the previous topology are never hit again
+            cache.invalidateAll();
+            currentVersion = version;
+        }
+
+        Key key = new Key(version, endpoints, constraint);
+        List<DecompositionTemplate> cached = cache.getIfPresent(key);
+        if (cached != null) {
+            LOG.debug("decomposition for {} found in cache", key.endpoints);
+            return cached.isEmpty() ? null : DecompositionTemplate.bind(cached, endpoints);
+        }
+
+        List<Subrequrest> result = delegate.decompose(endpoints, constraint);
+        cache.put(key, DecompositionTemplate.of(result));
+        return result;
+    }
+
+    /**
+     * Results computed on a snapshot are not cached, as the snapshot may fall behind the topology version.
+     * @return snapshot of the delegate
+     * @throws FailureResult if delegate cannot take the snapshot
+     */
+    @Override
+    public RequestDecomposer snapshot() throws FailureResult {
+        return delegate.snapshot();
+    }
+
+    @Override
+    public long getHitCount() {
+        return cache.stats().hitCount();
+    }
+
+    @Override
+    public long getMissCount() {
+        return cache.stats().missCount();
+    }
+
+    @Override
+    public long getEvictionCount() {
+        return cache.stats().evictionCount();
+    }
+
+    @Override
+    public long getSize() {
+        return cache.size();
+    }
+
+    @Override
+    public long getMaximumSize() {
+        return maximumSize;
+    }
+
+    private static final class Key {
+        private final long version;
+        private final List<String> endpoints;
+        private final Constraints constraints;
+
+        Key(long version, List<EndPoint> endpoints, Constraints constraints) {
+            this.version = version;
+            this.endpoints = endpoints.stream()
+                    .map(e -> e.getEndpoint().getServiceInterfacePoint().getServiceInterfacePointId().getValue()
+                            + "/" + e.getEndpoint().getDirection())
+                    .sorted()
+                    .collect(Collectors.toList());
+            this.constraints = constraints;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (other == null || getClass() != other.getClass()) {
+                return false;
+            }
+            Key key = (Key) other;
+            return version == key.version
+                    && Objects.equals(endpoints, key.endpoints)
+                    && Objects.equals(constraints, key.constraints);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(version, endpoints, constraints);
+        }
+    }
+}
@@ -0,0 +1,364 @@
+/*
+ * Copyright (c) 2018 Cisco Systems Inc and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.unimgr.mef.nrp.impl.decomposer;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
+import org.opendaylight.mdsal.binding.api.DataBroker;
+import org.opendaylight.mdsal.binding.api.ReadTransaction;
+import org.opendaylight.mdsal.common.api.LogicalDatastoreType;
+import org.opendaylight.unimgr.mef.nrp.api.EndPoint;
+import org.opendaylight.unimgr.mef.nrp.api.FailureResult;
+import org.opendaylight.unimgr.mef.nrp.common.NrpDao;
+import org.opendaylight.yang.gen.v1.urn.mef.yang.mef.common.rev180321.BwpFlow;
+import org.opendaylight.yang.gen.v1.urn.mef.yang.nrp._interface.rev180321.EndPoint1;
+import org.opendaylight.yang.gen.v1.urn.mef.yang.nrp._interface.rev180321.nrp.connectivity.service.end.point.attrs.NrpCarrierEthConnectivityEndPointResource;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.CapacityPac;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.CapacityValue;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.Uuid;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.Context1;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.connectivity.context.Connection;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.connectivity.context.ConnectivityService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * In-memory ledger of committed information rate reserved on node edge points and links.
+ * Capacities are taken from total-potential-capacity of the system topology by {@link TopologyGraph},
+ * reservations are made for connectivity services when they are created and released when they are deleted.
+ * When initialized with a data broker, the ledger is seeded with connectivity services already in the datastore.
+ * Resources without capacity defined are not limited.
+ * Reads are lock free, so the ledger can be consulted during path computation.
+ * Reservations are serialized, so a reservation that would exceed capacity of a resource is rejected.
+ */
+public class CapacityLedger {
+    private static final Logger LOG = LoggerFactory.getLogger(CapacityLedger.class);
+
+    private final DataBroker broker;
+    private final Map<Uuid, Long> capacity = new ConcurrentHashMap<>();
+    private final Map<Uuid, Long> reserved = new ConcurrentHashMap<>();
+    private final Map<Uuid, List<Uuid>> links = new HashMap<>();
+    private final Map<Uuid, Set<Uuid>> nepLinks = new HashMap<>();
+    private final Map<Uuid, Set<String>> nepServices = new HashMap<>();
+    private final Map<String, Reservation> services = new HashMap<>();
+
+    public CapacityLedger() {
+        this(null);
+    }
+
+    /**
+     * Create ledger.
+     * @param broker data broker existing connectivity services are read with or null if there are none
+     */
+    public CapacityLedger(DataBroker broker) {
+        this.broker = broker;
+    }
+
+    /**
+     * Reserve capacity for connectivity services in the datastore.
+     * Existing services are accounted even if they exceed capacity of a resource.
+     */
+    public void init() {
+        if (broker == null) {
+            return;
+        }
+        final Optional<Context1> ctx;
+        try (ReadTransaction tx = broker.newReadOnlyTransaction()) {
+            ctx = tx.read(LogicalDatastoreType.OPERATIONAL, NrpDao.ctx().augmentation(Context1.class)).get();
+        } catch (InterruptedException | ExecutionException e) {
+            LOG.warn("Cannot read connectivity services, capacity reserved for them is not accounted", e);
+            return;
+        }
+        if (!ctx.isPresent() || ctx.get().getConnectivityService() == null) {
+            return;
+        }
+        Map<Uuid, Connection> connections = ctx.get().getConnection() == null ? Collections.emptyMap()
+                : ctx.get().getConnection().stream().collect(Collectors.toMap(Connection::getUuid, c -> c));
+        synchronized (this) {
+            for (ConnectivityService cs : ctx.get().getConnectivityService()) {
+                long cir = demand(cs.getEndPoint() == null ? Collections.emptyList() : cs.getEndPoint().stream()
+                        .map(ep -> new EndPoint(ep, ep.augmentation(EndPoint1.class)))
+                        .collect(Collectors.toList()));
+                if (cir > 0) {
+                    apply(cs.getUuid().getValue(), new Reservation(resources(neps(cs, connections)), cir));
+                }
+            }
+            LOG.debug("capacity reserved for {} connectivity services", services.size());
+        }
+    }
+
+    /**
+     * Get node edge points used by system connections of a connectivity service.
+     */
+    private static Set<Uuid> neps(ConnectivityService cs, Map<Uuid, Connection> connections) {
+        Set<Uuid> neps = new HashSet<>();
+        if (cs.getConnection() == null) {
+            return neps;
+        }
+        cs.getConnection().stream().map(connections::get).filter(Objects::nonNull)
+                .filter(c -> c.getRoute() != null)
+                .flatMap(c -> c.getRoute().stream())
+                .filter(r -> r.getConnectionEndPoint() != null)
+                .flatMap(r -> r.getConnectionEndPoint().stream())
+                .map(connections::get).filter(c -> c != null && c.getConnectionEndPoint() != null)
+                .flatMap(c -> c.getConnectionEndPoint().stream())
+                .forEach(cep -> neps.add(cep.getOwnedNodeEdgePointId()));
+        return neps;
+    }
+
+    /**
+     * Get bandwidth demand of a service, that is the highest CIR of ingress and egress bandwidth profiles
+     * of its endpoints.
+     * @param endpoints service endpoints
+     * @return CIR in bits per second or 0 if no bandwidth profile is defined
+     */
+    public static long demand(Collection<EndPoint> endpoints) {
+        long demand = 0;
+        for (EndPoint ep : endpoints) {
+            if (ep.getAttrs() == null) {
+                continue;
+            }
+            NrpCarrierEthConnectivityEndPointResource resource =
+                    ep.getAttrs().getNrpCarrierEthConnectivityEndPointResource();
+            if (resource != null) {
+                demand = Math.max(demand, Math.max(cir(resource.getIngressBwpFlow()),
+                        cir(resource.getEgressBwpFlow())));
+            }
+        }
+        return demand;
+    }
+
+    private static long cir(BwpFlow flow) {
+        if (flow == null || flow.getCir() == null || flow.getCir().getValue() == null) {
+            return 0;
+        }
+        return flow.getCir().getValue();
+    }
+
+    /**
+     * Convert total potential capacity of a resource to bits per second.
+     * @param resource node edge point or link
+     * @return capacity or null if it is not defined with a rate unit
+     */
+    static Long capacity(CapacityPac resource) {
+        return resource.getTotalPotentialCapacity() == null ? null
+                : bps(resource.getTotalPotentialCapacity().getTotalSize());
+    }
+
+    /**
+     * Convert capacity value to bits per second.
+     * @param size capacity value
+     * @return capacity or null if it is not defined with a rate unit
+     */
+    public static Long bps(CapacityValue size) {
+        if (size == null || size.getValue() == null || size.getUnit() == null) {
+            return null;
+        }
+        long value = size.getValue().longValue();
+        switch (size.getUnit()) {
+            case TBPS:
+                return value * 1_000_000_000_000L;
+            case GBPS:
+                return value * 1_000_000_000L;
+            case MBPS:
+                return value * 1_000_000L;
+            case KBPS:
+                return value * 1_000L;
+            default:
+                LOG.debug("Capacity unit {} is not a rate - ignored", size.getUnit());
+                return null;
+        }
+    }
+
+    /**
+     * Set capacity of a node edge point or a link.
+     * @param resource resource identifier
+     * @param bps capacity in bits per second or null if it is not limited
+     */
+    public void putCapacity(Uuid resource, Long bps) {
+        Objects.requireNonNull(resource);
+        if (bps == null) {
+            capacity.remove(resource);
+        } else {
+            capacity.put(resource, bps);
+        }
+    }
+
+    /**
+     * Register link, so that it is accounted for services using its node edge points.
+     * Capacity of the link is reserved for services already using both its node edge points.
+     * @param linkId link identifier
+     * @param neps node edge points of the link
+     * @param bps capacity in bits per second or null if it is not limited
+     */
+    public synchronized void putLink(Uuid linkId, List<Uuid> neps, Long bps) {
+        Objects.requireNonNull(neps);
+        removeLink(linkId);
+        putCapacity(linkId, bps);
+        links.put(linkId, neps);
+        neps.forEach(n -> nepLinks.computeIfAbsent(n, k -> new HashSet<>()).add(linkId));
+        if (neps.isEmpty()) {
+            return;
+        }
+        nepServices.getOrDefault(neps.get(0), Collections.emptySet()).stream()
+                .map(services::get)
+                .filter(r -> r.resources.containsAll(neps))
+                .forEach(r -> {
+                    r.resources.add(linkId);
+                    reserved.merge(linkId, r.cir, Long::sum);
+                });
+    }
+
+    public synchronized void removeLink(Uuid linkId) {
+        capacity.remove(linkId);
+        reserved.remove(linkId);
+        List<Uuid> neps = links.remove(linkId);
+        if (neps == null) {
+            return;
+        }
+        neps.forEach(n -> {
+            Set<Uuid> ls = nepLinks.get(n);
+            if (ls != null) {
+                ls.remove(linkId);
+                if (ls.isEmpty()) {
+                    nepLinks.remove(n);
+                }
+            }
+            nepServices.getOrDefault(n, Collections.emptySet())
+                    .forEach(serviceId -> services.get(serviceId).resources.remove(linkId));
+        });
+    }
+
+    /**
+     * Get capacity which is not reserved yet.
+     * @param resource resource identifier
+     * @return residual capacity in bits per second, {@link Long#MAX_VALUE} if the resource is not limited
+     */
+    public long residual(Uuid resource) {
+        Long total = capacity.get(resource);
+        if (total == null) {
+            return Long.MAX_VALUE;
+        }
+        return total - reserved.getOrDefault(resource, 0L);
+    }
+
+    /**
+     * Get reserved fraction of capacity.
+     * @param resource resource identifier
+     * @return utilization, 0 if the resource is not limited
+     */
+    public double utilization(Uuid resource) {
+        Long total = capacity.get(resource);
+        if (total == null || total == 0) {
+            return 0;
+        }
+        return reserved.getOrDefault(resource, 0L) / (double) total;
+    }
+
+    /**
+     * Reserve capacity for a service on node edge points and links between them.
+     * Previous reservation of the service is replaced.
+     * @param serviceId connectivity service identifier
+     * @param neps node edge points used by the service
+     * @param cir committed information rate in bits per second
+     * @throws FailureResult if residual capacity of any of the resources is lower than the rate,
+     *      the previous reservation is kept then
+     */
+    public synchronized void reserve(String serviceId, Collection<Uuid> neps, long cir) throws FailureResult {
+        Objects.requireNonNull(serviceId);
+        Reservation previous = services.get(serviceId);
+        release(serviceId);
+        if (cir <= 0) {
+            return;
+        }
+        Set<Uuid> resources = resources(neps);
+        List<String> exceeded = resources.stream()
+                .filter(r -> residual(r) < cir)
+                .map(Uuid::getValue)
+                .sorted()
+                .collect(Collectors.toList());
+        if (!exceeded.isEmpty()) {
+            if (previous != null) {
+                apply(serviceId, previous);
+            }
+            throw new FailureResult("Not enough capacity for {0} bps on {1}", String.valueOf(cir), exceeded);
+        }
+        apply(serviceId, new Reservation(resources, cir));
+        LOG.debug("{} bps reserved for {} on {} resources", cir, serviceId, resources.size());
+    }
+
+    /**
+     * Get node edge points and links between them.
+     */
+    private Set<Uuid> resources(Collection<Uuid> neps) {
+        Set<Uuid> resources = new HashSet<>(neps);
+        for (Uuid nep : neps) {
+            for (Uuid link : nepLinks.getOrDefault(nep, Collections.emptySet())) {
+                if (resources.containsAll(links.get(link))) {
+                    resources.add(link);
+                }
+            }
+        }
+        return resources;
+    }
+
+    private void apply(String serviceId, Reservation reservation) {
+        reservation.resources.forEach(r -> reserved.merge(r, reservation.cir, Long::sum));
+        reservation.resources.stream().filter(r -> !links.containsKey(r))
+                .forEach(n -> nepServices.computeIfAbsent(n, k -> new HashSet<>()).add(serviceId));
+        services.put(serviceId, reservation);
+    }
+
+    /**
+     * Release capacity reserved for a service.
+     * @param serviceId connectivity service identifier
+     * @return true if there was a reservation for the service
+     */
+    public synchronized boolean release(String serviceId) {
+        Reservation reservation = services.remove(serviceId);
+        if (reservation == null) {
+            return false;
+        }
+        reservation.resources.forEach(r -> {
+            reserved.computeIfPresent(r, (k, v) -> {
+                long left = v - reservation.cir;
+                return left > 0 ? left : null;
+            });
+            Set<String> ss = nepServices.get(r);
+            if (ss != null) {
+                ss.remove(serviceId);
+                if (ss.isEmpty()) {
+                    nepServices.remove(r);
+                }
+            }
+        });
+        LOG.debug("{} bps released for {}", reservation.cir, serviceId);
+        return true;
+    }
+
+    private static final class Reservation {
+        private final Set<Uuid> resources;
+        private final long cir;
+
+        private Reservation(Set<Uuid> resources, long cir) {
+            this.resources = new HashSet<>(resources);
+            this.cir = cir;
+        }
+    }
+}
@@ -0,0 +1,303 @@
+/*
+ * Copyright (c) 2018 Cisco Systems Inc and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.unimgr.mef.nrp.impl.decomposer;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import javax.annotation.Nonnull;
+import org.opendaylight.mdsal.binding.api.DataBroker;
+import org.opendaylight.mdsal.binding.api.DataTreeChangeListener;
+import org.opendaylight.mdsal.binding.api.DataTreeIdentifier;
+import org.opendaylight.mdsal.binding.api.DataTreeModification;
+import org.opendaylight.mdsal.binding.api.ReadTransaction;
+import org.opendaylight.mdsal.common.api.LogicalDatastoreType;
+import org.opendaylight.unimgr.mef.nrp.api.Constraints;
+import org.opendaylight.unimgr.mef.nrp.api.EndPoint;
+import org.opendaylight.unimgr.mef.nrp.api.FailureResult;
+import org.opendaylight.unimgr.mef.nrp.api.RequestDecomposer;
+import org.opendaylight.unimgr.mef.nrp.api.Subrequrest;
+import org.opendaylight.unimgr.mef.nrp.api.TapiConstants;
+import org.opendaylight.unimgr.mef.nrp.common.NrpDao;
+import org.opendaylight.unimgr.mef.nrp.common.TapiUtils;
+import org.opendaylight.unimgr.mef.nrp.common.TopologyChanges;
+import org.opendaylight.unimgr.mef.nrp.common.TopologyProjection;
+import org.opendaylight.unimgr.mef.nrp.common.TopologyProjectionReader;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.PortDirection;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.Uuid;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.connectivity.service.end.point.ServiceInterfacePoint;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.topology.context.Topology;
+import org.opendaylight.yangtools.concepts.ListenerRegistration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Request decomposer that computes paths on a {@link CompactGraph}.
+ * It produces the same decomposition as {@link BasicDecomposer} but keeps the system topology
+ * in primitive arrays instead of object graph, which significantly reduces memory footprint
+ * and traversal cost for large topologies.
+ * When initialized the graph is built once and reused until structure of system topology changes,
+ * or until the version of {@link TopologyGraph} changes if the decomposer follows one.
+ * Only minimal hop routing is supported, requests with routing {@link Constraints} or Steiner tree strategy
+ * are rejected.
+ */
+public class CompactDecomposer implements RequestDecomposer, DataTreeChangeListener<Topology> {
+    private static final Logger LOG = LoggerFactory.getLogger(CompactDecomposer.class);
+
+    private final DataBroker broker;
+    private final AtomicLong generation = new AtomicLong();
+    private final ForkJoinPool pool;
+    private volatile Cached cached;
+    private ListenerRegistration<CompactDecomposer> registration;
+    private TopologyProjectionReader topologyReader;
+    private TopologyGraph topologyGraph;
+
+    public CompactDecomposer(DataBroker broker) {
+        this(broker, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Create decomposer.
+     * @param broker data broker
+     * @param pool pool used to compute shortest path trees for multipoint requests
+     */
+    public CompactDecomposer(DataBroker broker, ForkJoinPool pool) {
+        Objects.requireNonNull(broker);
+        Objects.requireNonNull(pool);
+        this.broker = broker;
+        this.pool = pool;
+    }
+
+    /**
+     * Set reader of topology projections.
+     * The graph is built from the binding topology when the reader is missing.
+     * @param topologyReader reader extracting only the attributes the graph is built of
+     */
+    public void setTopologyReader(TopologyProjectionReader topologyReader) {
+        this.topologyReader = topologyReader;
+    }
+
+    /**
+     * Follow the version of the topology graph instead of listening to the topology.
+     * The decomposers on the graph and the decompositions cached under its version then see the same changes.
+     * @param topologyGraph system topology graph
+     */
+    public void setTopologyGraph(TopologyGraph topologyGraph) {
+        this.topologyGraph = topologyGraph;
+    }
+
+    public void init() {
+        if (topologyGraph != null) {
+            LOG.debug("CompactDecomposer follows topology graph version");
+            return;
+        }
+        registration = broker.registerDataTreeChangeListener(
+                DataTreeIdentifier.create(LogicalDatastoreType.OPERATIONAL,
+                        NrpDao.topo(TapiConstants.PRESTO_SYSTEM_TOPO)), this);
+        LOG.debug("CompactDecomposer registered: {}", registration);
+    }
+
+    public void close() {
+        if (registration != null) {
+            registration.close();
+            registration = null;
+            cached = null;
+            LOG.debug("CompactDecomposer closed");
+        }
+    }
+
+    @Override
+    public void onDataTreeChanged(@Nonnull Collection<DataTreeModification<Topology>> changes) {
+        //connection end points are not part of the graph
+        if (!changes.stream().allMatch(c -> TopologyChanges.onlyConnectionEndPoints(c.getRootNode()))) {
+            generation.incrementAndGet();
+        }
+    }
+
+    @Override
+    public List<Subrequrest> decompose(List<EndPoint> endpoints, Constraints constraint) throws FailureResult {
+        return decompose(graph(), endpoints, constraint);
+    }
+
+    private List<Subrequrest> decompose(CompactGraph graph, List<EndPoint> endpoints, Constraints constraint)
+            throws FailureResult {
+        Objects.requireNonNull(endpoints);
+        if (endpoints.size() < 2) {
+            throw new IllegalArgumentException("there should be at least two endpoints defined");
+        }
+        if (constraint != null && (!constraint.isUnconstrained()
+                || constraint.getTreeStrategy() != Constraints.TreeStrategy.SHORTEST_PATHS)) {
+            throw new FailureResult("Routing constraints are not supported: {0}", constraint);
+        }
+
+        if (graph.isEmpty()) {
+            throw new FailureResult("There are no nodes in {0} topology", TapiConstants.PRESTO_SYSTEM_TOPO);
+        }
+
+        Set<String> missingSips = endpoints.stream()
+                .map(e -> toUuid(e.getEndpoint().getServiceInterfacePoint()))
+                .filter(sip -> graph.vertex(sip) < 0)
+                .map(Uuid::getValue)
+                .collect(Collectors.toSet());
+        if (!missingSips.isEmpty()) {
+            throw new FailureResult("Some service interface points not found in the system: "
+                    + missingSips.stream().collect(Collectors.joining(",", "[", "]")));
+        }
+        graph.reachability().verify(endpoints.stream()
+                .map(e -> toUuid(e.getEndpoint().getServiceInterfacePoint()))
+                .collect(Collectors.toList()));
+
+        Map<Integer, PortDirection> selected = new LinkedHashMap<>();
+        for (EndPoint e : endpoints) {
+            int vertex = graph.vertex(toUuid(e.getEndpoint().getServiceInterfacePoint()));
+            PortDirection dir = e.getEndpoint().getDirection();
+            if ((!graph.isInput(vertex) && dir != PortDirection.OUTPUT)
+                    || (!graph.isOutput(vertex) && dir != PortDirection.INPUT)) {
+                throw new IllegalArgumentException("Port direction for "
+                        + e.getEndpoint().getLocalId() + " incompatible with NEP."
+                        + "CEP " + dir + "  NEP " + (graph.isInput(vertex) ? "INPUT" : "OUTPUT"));
+            }
+            selected.putIfAbsent(vertex, dir);
+        }
+
+        int[] inputs = selected.entrySet().stream()
+                .filter(e -> e.getValue() == PortDirection.BIDIRECTIONAL || e.getValue() == PortDirection.INPUT)
+                .mapToInt(Map.Entry::getKey).toArray();
+        int[] outputs = selected.entrySet().stream()
+                .filter(e -> e.getValue() == PortDirection.BIDIRECTIONAL || e.getValue() == PortDirection.OUTPUT)
+                .mapToInt(Map.Entry::getKey).toArray();
+
+        List<int[]> paths;
+        if (inputs.length < DecompositionAction.PARALLEL_THRESHOLD) {
+            paths = paths(graph, inputs, outputs);
+        } else {
+            //each task reuses single search for a slice of sources
+            int slices = Math.min(pool.getParallelism(), inputs.length);
+            List<ForkJoinTask<List<int[]>>> tasks = IntStream.range(0, slices)
+                    .mapToObj(slice -> pool.submit(() -> paths(graph, IntStream.range(0, inputs.length)
+                            .filter(k -> k % slices == slice).map(k -> inputs[k]).toArray(), outputs)))
+                    .collect(Collectors.toList());
+            paths = tasks.stream().flatMap(t -> t.join().stream()).collect(Collectors.toList());
+        }
+
+        Map<Integer, Set<Integer>> nodes = new TreeMap<>();
+        for (int[] path : paths) {
+            if (path.length == 0) {
+                LOG.info("At least single path between endpoints not found");
+                return null;
+            }
+            for (int v : path) {
+                if (!graph.isHub(v)) {
+                    nodes.computeIfAbsent(graph.node(v), k -> new LinkedHashSet<>()).add(v);
+                }
+            }
+        }
+
+        if (nodes.isEmpty()) {
+            return null;
+        }
+
+        return nodes.entrySet().stream()
+                .map(e -> new Subrequrest(
+                        graph.nodeUuid(e.getKey()),
+                        e.getValue().stream().map(v -> toEndPoint(graph, v, endpoints)).collect(Collectors.toList()),
+                        graph.activationDriverId(e.getKey())))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Decomposer bound to the graph built of the current topology.
+     * @return decomposer reusing the graph for all requests
+     * @throws FailureResult if topology cannot be read
+     */
+    @Override
+    public RequestDecomposer snapshot() throws FailureResult {
+        CompactGraph graph = graph();
+        return (endpoints, constraint) -> decompose(graph, endpoints, constraint);
+    }
+
+    private static List<int[]> paths(CompactGraph graph, int[] sources, int[] destinations) {
+        CompactGraph.Search search = graph.search();
+        List<int[]> paths = new ArrayList<>();
+        for (int i : sources) {
+            //tree is not worth computing for a single destination
+            boolean single = destinations.length <= 2;
+            if (!single) {
+                search.tree(i);
+            }
+            for (int o : destinations) {
+                if (i != o) {
+                    paths.add(single ? search.path(i, o) : search.pathTo(o));
+                }
+            }
+        }
+        return paths;
+    }
+
+    private CompactGraph graph() throws FailureResult {
+        Cached current = cached;
+        long gen = topologyGraph == null ? generation.get() : topologyGraph.getVersion();
+        if ((registration != null || topologyGraph != null) && current != null && current.generation == gen) {
+            return current.graph;
+        }
+        try {
+            CompactGraph graph = CompactGraph.of(readTopology());
+            cached = new Cached(gen, graph);
+            LOG.debug("compact graph built with {} vertices and {} edges", graph.vertexCount(), graph.edgeCount());
+            return graph;
+        } catch (InterruptedException | ExecutionException e) {
+            throw new FailureResult("Cannot read {0} topology - {1}", TapiConstants.PRESTO_SYSTEM_TOPO, e);
+        }
+    }
+
+    private TopologyProjection readTopology() throws InterruptedException, ExecutionException {
+        if (topologyReader != null) {
+            return topologyReader.read(TapiConstants.PRESTO_SYSTEM_TOPO);
+        }
+        try (ReadTransaction tx = broker.newReadOnlyTransaction()) {
+            return TopologyProjection.of(new NrpDao(tx).getTopology(TapiConstants.PRESTO_SYSTEM_TOPO));
+        }
+    }
+
+    private static EndPoint toEndPoint(CompactGraph graph, int vertex, List<EndPoint> endpoints) {
+        Uuid sip = graph.sip(vertex);
+        EndPoint ep = endpoints.stream()
+                .filter(e -> e.getEndpoint().getServiceInterfacePoint().getServiceInterfacePointId().equals(sip))
+                .findFirst()
+                .orElse(new EndPoint(null, null));
+        ep.setNepRef(TapiUtils.toSysNepRef(graph.nodeUuid(graph.node(vertex)), graph.nep(vertex)));
+        return ep;
+    }
+
+    private static Uuid toUuid(ServiceInterfacePoint sip) {
+        return sip == null ? null : sip.getServiceInterfacePointId();
+    }
+
+    private static final class Cached {
+        private final long generation;
+        private final CompactGraph graph;
+
+        Cached(long generation, CompactGraph graph) {
+            this.generation = generation;
+            this.graph = graph;
+        }
+    }
+}
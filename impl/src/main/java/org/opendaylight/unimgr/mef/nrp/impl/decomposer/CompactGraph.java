@@ -0,0 +1,416 @@
+/*
+ * Copyright (c) 2018 Cisco Systems Inc and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.unimgr.mef.nrp.impl.decomposer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import org.opendaylight.unimgr.mef.nrp.common.TopologyProjection;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.OperationalState;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.PortDirection;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.Uuid;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.topology.context.Topology;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Immutable system topology graph stored as compressed sparse row arrays.
+ * Vertices are identified by int indexes. Each node edge point is a vertex and each node
+ * has an additional hub vertex that interconnects its node edge points (as {@link TopologyGraph.Encoding#HUB}).
+ * Outgoing edges of vertex <code>v</code> are <code>targets[offsets[v]] .. targets[offsets[v + 1] - 1]</code>.
+ */
+final class CompactGraph {
+    private static final Logger LOG = LoggerFactory.getLogger(CompactGraph.class);
+
+    private static final byte IN = 1;
+    private static final byte OUT = 2;
+
+    private final int[] offsets;
+    private final int[] targets;
+    private final int[] vertexNode;
+    private final byte[] directions;
+    private final Uuid[] neps;
+    private final Uuid[] sips;
+    private final Uuid[] nodes;
+    private final String[] drivers;
+    private final Map<Uuid, Integer> sipIndex;
+    private final boolean empty;
+    private volatile ReachabilityIndex reachability;
+
+    private CompactGraph(Builder builder) {
+        int vertexCount = builder.vertexNode.size;
+        this.vertexNode = builder.vertexNode.toArray();
+        this.directions = Arrays.copyOf(builder.directions, vertexCount);
+        this.neps = builder.neps.toArray(new Uuid[vertexCount]);
+        this.sips = builder.sips.toArray(new Uuid[vertexCount]);
+        this.nodes = builder.nodes.toArray(new Uuid[builder.nodes.size()]);
+        this.drivers = builder.drivers.toArray(new String[builder.drivers.size()]);
+        this.sipIndex = builder.sipIndex;
+        this.empty = builder.empty;
+
+        //counting sort of edges by source vertex
+        int edgeCount = builder.sources.size;
+        offsets = new int[vertexCount + 1];
+        for (int i = 0; i < edgeCount; ++i) {
+            offsets[builder.sources.data[i] + 1]++;
+        }
+        for (int v = 0; v < vertexCount; ++v) {
+            offsets[v + 1] += offsets[v];
+        }
+        targets = new int[edgeCount];
+        int[] position = Arrays.copyOf(offsets, vertexCount);
+        for (int i = 0; i < edgeCount; ++i) {
+            targets[position[builder.sources.data[i]]++] = builder.destinations.data[i];
+        }
+    }
+
+    /**
+     * Build graph for a topology.
+     * @param topology system topology
+     * @return compact graph
+     */
+    static CompactGraph of(Topology topology) {
+        return of(TopologyProjection.of(topology));
+    }
+
+    /**
+     * Build graph for a topology projection.
+     * @param topology projection of system topology
+     * @return compact graph
+     */
+    static CompactGraph of(TopologyProjection topology) {
+        Builder builder = new Builder();
+        topology.getNodes().forEach(builder::addNode);
+        topology.getLinks().forEach(builder::addLink);
+        return new CompactGraph(builder);
+    }
+
+    /**
+     * Check if there are any nodes in the topology.
+     * @return true if no node is defined
+     */
+    boolean isEmpty() {
+        return empty;
+    }
+
+    /**
+     * Get connected components of the graph. Index is built on first use.
+     * @return reachability index
+     */
+    ReachabilityIndex reachability() {
+        ReachabilityIndex index = reachability;
+        if (index == null) {
+            ReachabilityIndex.UnionFind components = new ReachabilityIndex.UnionFind(vertexNode.length);
+            for (int v = 0; v < vertexNode.length; ++v) {
+                for (int e = offsets[v]; e < offsets[v + 1]; ++e) {
+                    components.union(v, targets[e]);
+                }
+            }
+            Map<Uuid, Integer> sipComponents = new HashMap<>();
+            sipIndex.forEach((sip, v) -> sipComponents.put(sip, components.find(v)));
+            index = new ReachabilityIndex(sipComponents);
+            reachability = index;
+        }
+        return index;
+    }
+
+    int vertexCount() {
+        return vertexNode.length;
+    }
+
+    int edgeCount() {
+        return targets.length;
+    }
+
+    /**
+     * Find vertex of a service interface point.
+     * @param sip service interface point identifier
+     * @return vertex index or -1 if there is no node edge point with the sip mapped
+     */
+    int vertex(Uuid sip) {
+        Integer idx = sip == null ? null : sipIndex.get(sip);
+        return idx == null ? -1 : idx;
+    }
+
+    Uuid nep(int vertex) {
+        return neps[vertex];
+    }
+
+    Uuid sip(int vertex) {
+        return sips[vertex];
+    }
+
+    int node(int vertex) {
+        return vertexNode[vertex];
+    }
+
+    Uuid nodeUuid(int node) {
+        return nodes[node];
+    }
+
+    String activationDriverId(int node) {
+        return drivers[node];
+    }
+
+    boolean isHub(int vertex) {
+        return neps[vertex] == null;
+    }
+
+    boolean isInput(int vertex) {
+        return (directions[vertex] & IN) != 0;
+    }
+
+    boolean isOutput(int vertex) {
+        return (directions[vertex] & OUT) != 0;
+    }
+
+    /**
+     * Create path search over this graph.
+     * A search is not thread safe but can be reused for multiple queries.
+     * @return search
+     */
+    Search search() {
+        return new Search();
+    }
+
+    /**
+     * Breadth-first search for the shortest (in hops) path. Working arrays are allocated once per search object
+     * and visited marks are reset with a generation counter, so queries do not allocate per vertex or edge.
+     */
+    final class Search {
+        private final int[] previous = new int[vertexNode.length];
+        private final int[] visited = new int[vertexNode.length];
+        private final int[] queue = new int[vertexNode.length];
+        private int generation = 0;
+
+        /**
+         * Find the shortest path between two vertices.
+         * @param from source vertex
+         * @param to destination vertex
+         * @return vertices of the path (including source and destination) or empty array if there is no path
+         */
+        int[] path(int from, int to) {
+            if (from == to) {
+                return new int[] {from};
+            }
+            if (++generation == 0) {
+                Arrays.fill(visited, 0);
+                generation = 1;
+            }
+
+            visited[from] = generation;
+            previous[from] = -1;
+            queue[0] = from;
+            int tail = 1;
+            int head = 0;
+
+            while (head < tail) {
+                int current = queue[head++];
+                for (int e = offsets[current]; e < offsets[current + 1]; ++e) {
+                    int target = targets[e];
+                    if (visited[target] == generation) {
+                        continue;
+                    }
+                    visited[target] = generation;
+                    previous[target] = current;
+                    if (target == to) {
+                        return toPath(to);
+                    }
+                    queue[tail++] = target;
+                }
+            }
+            return new int[0];
+        }
+
+        /**
+         * Compute shortest path tree rooted in a vertex. Paths are retrieved with {@link #pathTo(int)}.
+         * @param from root vertex
+         */
+        void tree(int from) {
+            if (++generation == 0) {
+                Arrays.fill(visited, 0);
+                generation = 1;
+            }
+            visited[from] = generation;
+            previous[from] = -1;
+            queue[0] = from;
+            int tail = 1;
+            int head = 0;
+
+            while (head < tail) {
+                int current = queue[head++];
+                for (int e = offsets[current]; e < offsets[current + 1]; ++e) {
+                    int target = targets[e];
+                    if (visited[target] != generation) {
+                        visited[target] = generation;
+                        previous[target] = current;
+                        queue[tail++] = target;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Get path from the root of the last computed tree.
+         * @param to destination vertex
+         * @return vertices of the path (including root and destination) or empty array if there is no path
+         */
+        int[] pathTo(int to) {
+            if (visited[to] != generation) {
+                return new int[0];
+            }
+            return toPath(to);
+        }
+
+        private int[] toPath(int to) {
+            int length = 0;
+            for (int v = to; v != -1; v = previous[v]) {
+                length++;
+            }
+            int[] path = new int[length];
+            for (int v = to; v != -1; v = previous[v]) {
+                path[--length] = v;
+            }
+            return path;
+        }
+    }
+
+    private static final class Builder {
+        private final IntList vertexNode = new IntList();
+        private final IntList sources = new IntList();
+        private final IntList destinations = new IntList();
+        private byte[] directions = new byte[16];
+        private final List<Uuid> neps = new ArrayList<>();
+        private final List<Uuid> sips = new ArrayList<>();
+        private final List<Uuid> nodes = new ArrayList<>();
+        private final List<String> drivers = new ArrayList<>();
+        private final Map<Uuid, Integer> nepIndex = new HashMap<>();
+        private final Map<Uuid, Integer> sipIndex = new HashMap<>();
+        private boolean empty = true;
+
+        void addNode(TopologyProjection.NodeView node) {
+            empty = false;
+            if (node.getActivationDriverId() == null || node.getNeps() == null) {
+                LOG.debug("node {} skipped - no activation driver or NEPs defined", node.getUuid().getValue());
+                return;
+            }
+
+            int nodeIdx = -1;
+            int first = vertexNode.size;
+            for (TopologyProjection.NepView nep : node.getNeps()) {
+                byte dir = toDirection(nep.getLinkPortDirection());
+                if (dir == 0) {
+                    continue;
+                }
+                if (nodeIdx < 0) {
+                    nodeIdx = nodes.size();
+                    nodes.add(node.getUuid());
+                    drivers.add(node.getActivationDriverId());
+                }
+                Uuid sip = null;
+                if (!nep.getSips().isEmpty()) {
+                    if (nep.getSips().size() > 1) {
+                        LOG.warn("NodeEdgePoint {} have multiple ServiceInterfacePoint mapped, selecting first one",
+                                nep.getUuid());
+                    }
+                    sip = nep.getSips().get(0);
+                }
+                int vertex = addVertex(nodeIdx, nep.getUuid(), sip, dir);
+                nepIndex.put(nep.getUuid(), vertex);
+                if (sip != null) {
+                    sipIndex.put(sip, vertex);
+                }
+            }
+
+            if (nodeIdx < 0) {
+                return;
+            }
+            int last = vertexNode.size;
+            int hub = addVertex(nodeIdx, null, null, (byte) (IN | OUT));
+            for (int v = first; v < last; ++v) {
+                if ((directions[v] & IN) != 0) {
+                    addEdge(v, hub);
+                }
+                if ((directions[v] & OUT) != 0) {
+                    addEdge(hub, v);
+                }
+            }
+        }
+
+        void addLink(TopologyProjection.LinkView link) {
+            if (OperationalState.ENABLED != link.getOperationalState() || link.getNeps() == null) {
+                return;
+            }
+            int[] vertices = link.getNeps().stream()
+                    .map(nepIndex::get)
+                    .filter(Objects::nonNull)
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+            for (int o : vertices) {
+                for (int i : vertices) {
+                    if (o != i && (directions[o] & OUT) != 0 && (directions[i] & IN) != 0) {
+                        addEdge(o, i);
+                    }
+                }
+            }
+        }
+
+        private int addVertex(int node, Uuid nep, Uuid sip, byte dir) {
+            int vertex = vertexNode.size;
+            vertexNode.add(node);
+            if (vertex == directions.length) {
+                directions = Arrays.copyOf(directions, vertex * 2);
+            }
+            directions[vertex] = dir;
+            neps.add(nep);
+            sips.add(sip);
+            return vertex;
+        }
+
+        private void addEdge(int from, int to) {
+            sources.add(from);
+            destinations.add(to);
+        }
+
+        private static byte toDirection(PortDirection dir) {
+            if (dir == null) {
+                return 0;
+            }
+            switch (dir) {
+                case BIDIRECTIONAL:
+                    return IN | OUT;
+                case INPUT:
+                    return IN;
+                case OUTPUT:
+                    return OUT;
+                default:
+                    return 0;
+            }
+        }
+    }
+
+    private static final class IntList {
+        private int[] data = new int[16];
+        private int size = 0;
+
+        void add(int value) {
+            if (size == data.length) {
+                data = Arrays.copyOf(data, size * 2);
+            }
+            data[size++] = value;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(data, size);
+        }
+    }
+}
@@ -0,0 +1,277 @@
+/*
+ * Copyright (c) 2018 Cisco Systems Inc and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.unimgr.mef.nrp.impl.decomposer;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import org.jgrapht.DirectedGraph;
+import org.jgrapht.GraphPath;
+import org.jgrapht.alg.interfaces.ShortestPathAlgorithm.SingleSourcePaths;
+import org.jgrapht.alg.shortestpath.DijkstraShortestPath;
+import org.jgrapht.graph.DirectedMaskSubgraph;
+import org.jgrapht.graph.GraphWalk;
+import org.opendaylight.unimgr.mef.nrp.api.Constraints;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.Uuid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Path computation honouring {@link Constraints}.
+ * Edges are weighted with the metric selected in constraints, node edge points of excluded nodes are masked
+ * and include nodes are visited in the requested order by concatenating shortest path segments.
+ * If the best path violates the latency bound the minimal latency path is used instead.
+ * When bandwidth is requested and a {@link CapacityLedger} is available, node edge points and links without
+ * enough residual capacity are masked and the least utilized path is preferred among paths of equal metric.
+ * Router is stateless and can be shared by threads computing paths for different sources.
+ */
+class ConstrainedRouter {
+    private static final Logger LOG = LoggerFactory.getLogger(ConstrainedRouter.class);
+    /**
+     * Weight added to every edge, so that the path with fewer hops wins among paths of equal metric.
+     */
+    private static final double HOP_WEIGHT = 1e-6;
+    private static final Predicate<TopologyEdge> NONE = e -> false;
+
+    private final DirectedGraph<Vertex, TopologyEdge> graph;
+    private final Constraints constraints;
+    private final CapacityLedger ledger;
+    private final DirectedGraph<Vertex, TopologyEdge> view;
+    private final DirectedGraph<Vertex, TopologyEdge> latencyView;
+
+    ConstrainedRouter(DirectedGraph<Vertex, TopologyEdge> graph, Constraints constraints) {
+        this(graph, constraints, null);
+    }
+
+    /**
+     * Create router.
+     * @param graph topology graph
+     * @param constraints routing constraints
+     * @param ledger capacity ledger (might be null if capacity is not accounted)
+     */
+    ConstrainedRouter(DirectedGraph<Vertex, TopologyEdge> graph, Constraints constraints, CapacityLedger ledger) {
+        Objects.requireNonNull(graph);
+        Objects.requireNonNull(constraints);
+        this.graph = graph;
+        this.constraints = constraints;
+        this.ledger = ledger;
+        final Predicate<Vertex> vertexMask = this::masked;
+        final Predicate<TopologyEdge> edgeMask = capacityAware() ? this::saturated : NONE;
+        this.view = new WeightedView(graph, vertexMask, edgeMask, weight(constraints.getMetric()));
+        this.latencyView = constraints.getMetric() == Constraints.Metric.LATENCY ? view
+                : new WeightedView(graph, vertexMask, edgeMask, weight(Constraints.Metric.LATENCY));
+    }
+
+    /**
+     * Get graph with excluded vertices and edges masked.
+     * @return graph view
+     */
+    DirectedGraph<Vertex, TopologyEdge> view() {
+        return view;
+    }
+
+    /**
+     * Compute paths from a source to each of the destinations.
+     * @param source source vertex
+     * @param destinations destination vertices
+     * @return paths in order of destinations, null is used if there is no path satisfying constraints
+     */
+    List<GraphPath<Vertex, TopologyEdge>> paths(Vertex source, Collection<Vertex> destinations) {
+        List<GraphPath<Vertex, TopologyEdge>> result = new ArrayList<>(destinations.size());
+        Search primary = new Search(view);
+        Search fallback = null;
+        for (Vertex destination : destinations) {
+            DecompositionAction.checkInterrupted();
+            GraphPath<Vertex, TopologyEdge> path = null;
+            if (!excluded(source) && !excluded(destination)) {
+                path = primary.route(source, destination);
+                if (path != null && exceedsLatency(path) && latencyView != view) {
+                    if (fallback == null) {
+                        fallback = new Search(latencyView);
+                    }
+                    path = fallback.route(source, destination);
+                }
+                if (path != null && exceedsLatency(path)) {
+                    path = null;
+                }
+            }
+            if (path == null) {
+                LOG.debug("Couldn't find path between {} and {} satisfying {}", source, destination, constraints);
+            }
+            result.add(path);
+        }
+        return result;
+    }
+
+    private boolean excluded(Vertex vertex) {
+        return !view.containsVertex(vertex);
+    }
+
+    private boolean capacityAware() {
+        return ledger != null && constraints.getBandwidth() != null;
+    }
+
+    private boolean masked(Vertex vertex) {
+        if (constraints.getExcludeNodes().contains(vertex.getNodeUuid())) {
+            return true;
+        }
+        return capacityAware() && !vertex.isHub() && ledger.residual(vertex.getUuid()) < constraints.getBandwidth();
+    }
+
+    private boolean saturated(TopologyEdge edge) {
+        return edge.getLinkId() != null && ledger.residual(edge.getLinkId()) < constraints.getBandwidth();
+    }
+
+    /**
+     * Get utilization of resources used by an edge, that is the link and the node edge point it leads to.
+     */
+    private double load(TopologyEdge edge) {
+        double load = ledger.utilization(graph.getEdgeTarget(edge).getUuid());
+        if (edge.getLinkId() != null) {
+            load = Math.max(load, ledger.utilization(edge.getLinkId()));
+        }
+        return load;
+    }
+
+    private boolean exceedsLatency(GraphPath<Vertex, TopologyEdge> path) {
+        if (constraints.getMaxLatency() == null) {
+            return false;
+        }
+        return latency(path) > constraints.getMaxLatency();
+    }
+
+    private double latency(GraphPath<Vertex, TopologyEdge> path) {
+        List<Vertex> vertices = path.getVertexList();
+        double latency = 0;
+        for (int i = 1; i < vertices.size(); ++i) {
+            latency += graph.getEdge(vertices.get(i - 1), vertices.get(i)).getLatency();
+        }
+        return latency;
+    }
+
+    /**
+     * Get edge weight for a metric. Every edge is also weighted with {@link #HOP_WEIGHT},
+     * which is scaled by the load of the edge when capacity is accounted.
+     */
+    private ToDoubleFunction<TopologyEdge> weight(Constraints.Metric metric) {
+        final ToDoubleFunction<TopologyEdge> hop = ledger == null ? e -> HOP_WEIGHT : e -> HOP_WEIGHT * (1 + load(e));
+        switch (metric) {
+            case COST:
+                return e -> e.getCost() + hop.applyAsDouble(e);
+            case LATENCY:
+                return e -> e.getLatency() + hop.applyAsDouble(e);
+            default:
+                return e -> 1 + hop.applyAsDouble(e);
+        }
+    }
+
+    /**
+     * Shortest path search over a view. Shortest path trees are reused for segments starting at the same vertex.
+     */
+    private class Search {
+        private final DirectedGraph<Vertex, TopologyEdge> searched;
+        private final Map<Vertex, SingleSourcePaths<Vertex, TopologyEdge>> trees = new HashMap<>();
+
+        Search(DirectedGraph<Vertex, TopologyEdge> searched) {
+            this.searched = searched;
+        }
+
+        GraphPath<Vertex, TopologyEdge> route(Vertex from, Vertex to) {
+            List<Vertex> vertices = new ArrayList<>();
+            vertices.add(from);
+            double weight = 0;
+            Vertex current = from;
+            for (Uuid node : constraints.getIncludeNodes()) {
+                if (node.equals(current.getNodeUuid())) {
+                    continue;
+                }
+                SingleSourcePaths<Vertex, TopologyEdge> tree = tree(current);
+                Vertex next = entries(node).stream()
+                        .min(Comparator.comparingDouble(tree::getWeight))
+                        .orElse(null);
+                GraphPath<Vertex, TopologyEdge> segment = next == null ? null : tree.getPath(next);
+                if (segment == null) {
+                    return null;
+                }
+                weight += append(vertices, segment);
+                current = next;
+            }
+
+            GraphPath<Vertex, TopologyEdge> segment = tree(current).getPath(to);
+            if (segment == null || vertices.size() == 1) {
+                return segment;
+            }
+            weight += append(vertices, segment);
+
+            Set<Vertex> unique = new HashSet<>(vertices);
+            if (unique.size() != vertices.size()) {
+                LOG.debug("Path between {} and {} through {} has loops", from, to, constraints.getIncludeNodes());
+                return null;
+            }
+            return new GraphWalk<>(searched, vertices, weight);
+        }
+
+        /**
+         * Get vertices through which a node can be traversed.
+         * Hub is used if present, so that a path does not enter and leave the node at the same port.
+         */
+        private List<Vertex> entries(Uuid node) {
+            List<Vertex> inputs = new ArrayList<>();
+            for (Vertex v : searched.vertexSet()) {
+                if (node.equals(v.getNodeUuid())) {
+                    if (v.isHub()) {
+                        return Collections.singletonList(v);
+                    }
+                    if (v.isInput()) {
+                        inputs.add(v);
+                    }
+                }
+            }
+            return inputs;
+        }
+
+        private SingleSourcePaths<Vertex, TopologyEdge> tree(Vertex source) {
+            return trees.computeIfAbsent(source, s -> new DijkstraShortestPath<>(searched).getPaths(s));
+        }
+
+        private double append(List<Vertex> vertices, GraphPath<Vertex, TopologyEdge> segment) {
+            List<Vertex> segmentVertices = segment.getVertexList();
+            vertices.addAll(segmentVertices.subList(1, segmentVertices.size()));
+            return segment.getWeight();
+        }
+    }
+
+    /**
+     * Graph with excluded vertices and edges masked and edges weighted with a metric.
+     */
+    private static final class WeightedView extends DirectedMaskSubgraph<Vertex, TopologyEdge> {
+        private final ToDoubleFunction<TopologyEdge> weight;
+
+        WeightedView(DirectedGraph<Vertex, TopologyEdge> graph, Predicate<Vertex> vertexMask,
+                     Predicate<TopologyEdge> edgeMask, ToDoubleFunction<TopologyEdge> weight) {
+            super(graph, vertexMask, edgeMask);
+            this.weight = weight;
+        }
+
+        @Override
+        public double getEdgeWeight(TopologyEdge edge) {
+            DecompositionAction.checkInterrupted();
+            return weight.applyAsDouble(edge);
+        }
+    }
+}
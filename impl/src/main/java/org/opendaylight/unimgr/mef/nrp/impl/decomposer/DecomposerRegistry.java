@@ -0,0 +1,230 @@
+/*
+ * Copyright (c) 2018 Cisco Systems Inc and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.unimgr.mef.nrp.impl.decomposer;
+
+import com.google.common.base.Throwables;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import org.opendaylight.unimgr.mef.nrp.api.Constraints;
+import org.opendaylight.unimgr.mef.nrp.api.EndPoint;
+import org.opendaylight.unimgr.mef.nrp.api.FailureResult;
+import org.opendaylight.unimgr.mef.nrp.api.RequestDecomposer;
+import org.opendaylight.unimgr.mef.nrp.api.Subrequrest;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.ServiceType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Request decomposer that delegates each request to a decomposition strategy selected for the request.
+ * Unconstrained requests are served by the fast strategy on the caller thread.
+ * Requests that need the weighted or the tree strategy are computed on a pool with a bounded queue
+ * within a time budget. If the budget is exceeded or the queue is full the request is served by the fast
+ * strategy, provided that it has no routing constraints, which the fast strategy cannot enforce.
+ * Otherwise the request fails. Computations that overrun the budget are interrupted and stop
+ * at the next shortest path search, together with the searches they have forked to a pool.
+ */
+public class DecomposerRegistry implements RequestDecomposer {
+    private static final Logger LOG = LoggerFactory.getLogger(DecomposerRegistry.class);
+
+    private final Map<Strategy, RequestDecomposer> decomposers;
+    private final ExecutorService executor;
+    private final long budget;
+    private final AtomicLong fallbacks;
+
+    /**
+     * Decomposition strategy.
+     */
+    public enum Strategy {
+        /**
+         * Minimal hop routing without constraints.
+         */
+        FAST,
+        /**
+         * Routing with constraints and weighted metrics.
+         */
+        WEIGHTED,
+        /**
+         * Steiner tree interconnecting endpoints of a multipoint service.
+         */
+        TREE
+    }
+
+    /**
+     * Create registry with a dedicated pool.
+     * @param fast decomposer used for unconstrained requests and as a fallback
+     * @param budget time budget of a request in milliseconds
+     * @param threads number of concurrent computations of weighted and tree strategies
+     * @param queueCapacity number of computations waiting for a thread
+     */
+    public DecomposerRegistry(RequestDecomposer fast, long budget, int threads, int queueCapacity) {
+        this(fast, budget, new ThreadPoolExecutor(threads, threads,
+                30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity)));
+    }
+
+    public DecomposerRegistry(RequestDecomposer fast, long budget, ExecutorService executor) {
+        Objects.requireNonNull(fast);
+        Objects.requireNonNull(executor);
+        this.decomposers = new ConcurrentHashMap<>();
+        this.executor = executor;
+        this.budget = budget;
+        this.fallbacks = new AtomicLong();
+        decomposers.put(Strategy.FAST, fast);
+    }
+
+    private DecomposerRegistry(DecomposerRegistry registry, Map<Strategy, RequestDecomposer> decomposers) {
+        this.decomposers = decomposers;
+        this.executor = registry.executor;
+        this.budget = registry.budget;
+        this.fallbacks = registry.fallbacks;
+    }
+
+    /**
+     * Register decomposer for a strategy. Previously registered decomposer is replaced.
+     * @param strategy strategy
+     * @param decomposer decomposer implementing the strategy
+     */
+    public void register(Strategy strategy, RequestDecomposer decomposer) {
+        Objects.requireNonNull(strategy);
+        Objects.requireNonNull(decomposer);
+        decomposers.put(strategy, decomposer);
+        LOG.debug("{} decomposition strategy registered: {}", strategy, decomposer);
+    }
+
+    public void setWeighted(RequestDecomposer decomposer) {
+        register(Strategy.WEIGHTED, decomposer);
+    }
+
+    public void setTree(RequestDecomposer decomposer) {
+        register(Strategy.TREE, decomposer);
+    }
+
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Get number of requests served by the fast strategy because another strategy exceeded the time budget.
+     * @return number of fallbacks
+     */
+    public long getFallbackCount() {
+        return fallbacks.get();
+    }
+
+    /**
+     * Select strategy based on the request. If decomposer for a strategy is not registered,
+     * the next simpler strategy is used. Multipoint requests are told by the service type,
+     * or by the number of endpoints if the type is not specified.
+     * @param endpoints endpoints of the request
+     * @param constraints routing constraints or null
+     * @return strategy to be used
+     */
+    Strategy select(List<EndPoint> endpoints, Constraints constraints) {
+        Strategy strategy = classify(endpoints, constraints);
+        if (strategy == Strategy.TREE && !decomposers.containsKey(Strategy.TREE)) {
+            strategy = Strategy.WEIGHTED;
+        }
+        if (strategy == Strategy.WEIGHTED && !decomposers.containsKey(Strategy.WEIGHTED)) {
+            strategy = Strategy.FAST;
+        }
+        return strategy;
+    }
+
+    private static Strategy classify(List<EndPoint> endpoints, Constraints constraints) {
+        if (constraints == null) {
+            return Strategy.FAST;
+        }
+        boolean multipoint = constraints.getServiceType() == null ? endpoints.size() > 2
+                : constraints.getServiceType() != ServiceType.POINTTOPOINTCONNECTIVITY;
+        if (multipoint && constraints.getTreeStrategy() == Constraints.TreeStrategy.STEINER_TREE) {
+            return Strategy.TREE;
+        }
+        return constraints.isUnconstrained() ? Strategy.FAST : Strategy.WEIGHTED;
+    }
+
+    @Override
+    public List<Subrequrest> decompose(List<EndPoint> endpoints, Constraints constraint) throws FailureResult {
+        Strategy strategy = select(endpoints, constraint);
+        RequestDecomposer decomposer = decomposers.get(strategy);
+        if (strategy == Strategy.FAST) {
+            return decomposer.decompose(endpoints, fastConstraints(constraint));
+        }
+
+        Future<List<Subrequrest>> result;
+        try {
+            result = executor.submit(() -> decomposer.decompose(endpoints, constraint));
+        } catch (RejectedExecutionException e) {
+            LOG.warn("{} decomposition rejected", strategy);
+            return fallback(strategy, endpoints, constraint);
+        }
+
+        try {
+            return result.get(budget, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            result.cancel(true);
+            LOG.warn("{} decomposition of {} endpoints exceeded time budget of {} ms",
+                    strategy, endpoints.size(), budget);
+            return fallback(strategy, endpoints, constraint);
+        } catch (ExecutionException e) {
+            Throwables.throwIfInstanceOf(e.getCause(), FailureResult.class);
+            Throwables.throwIfUnchecked(e.getCause());
+            throw new IllegalStateException(e);
+        } catch (InterruptedException e) {
+            result.cancel(true);
+            Thread.currentThread().interrupt();
+            LOG.warn("{} decomposition interrupted", strategy);
+            return fallback(strategy, endpoints, constraint);
+        }
+    }
+
+    /**
+     * Registry of snapshots of all registered decomposers. It shares the pool and the time budget
+     * with this registry and must not be closed.
+     * @return registry bound to the current state of the topology
+     * @throws FailureResult if any of the decomposers cannot take the snapshot
+     */
+    @Override
+    public RequestDecomposer snapshot() throws FailureResult {
+        Map<Strategy, RequestDecomposer> snapshots = new ConcurrentHashMap<>();
+        for (Map.Entry<Strategy, RequestDecomposer> e : decomposers.entrySet()) {
+            snapshots.put(e.getKey(), e.getValue().snapshot());
+        }
+        return new DecomposerRegistry(this, snapshots);
+    }
+
+    private List<Subrequrest> fallback(Strategy strategy, List<EndPoint> endpoints, Constraints constraint)
+            throws FailureResult {
+        if (!constraint.isUnconstrained()) {
+            throw new FailureResult("Decomposition with {0} strategy cannot be completed within {1} ms",
+                    strategy, budget);
+        }
+        fallbacks.incrementAndGet();
+        LOG.info("Falling back to {} decomposition for {} endpoints", Strategy.FAST, endpoints.size());
+        return decomposers.get(Strategy.FAST).decompose(endpoints, null);
+    }
+
+    /**
+     * Tree strategy of an otherwise unconstrained request is not supported by the fast strategy, so it is dropped.
+     * Routing constraints are passed, so that the fast strategy rejects them rather than ignores.
+     */
+    private static Constraints fastConstraints(Constraints constraint) {
+        return constraint == null || constraint.isUnconstrained() ? null : constraint;
+    }
+}
@@ -8,40 +8,37 @@
 
 package org.opendaylight.unimgr.mef.nrp.impl.decomposer;
 
+import com.google.common.base.Throwables;
 import java.util.ArrayList;
-import java.util.Collection;
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
-import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Function;
-import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
-import org.jgrapht.Graph;
+import org.jgrapht.DirectedGraph;
 import org.jgrapht.GraphPath;
+import org.jgrapht.alg.interfaces.ShortestPathAlgorithm.SingleSourcePaths;
 import org.jgrapht.alg.shortestpath.DijkstraShortestPath;
-import org.jgrapht.graph.DefaultDirectedGraph;
-import org.jgrapht.graph.DefaultEdge;
 import org.opendaylight.mdsal.binding.api.DataBroker;
-import org.opendaylight.mdsal.binding.api.ReadWriteTransaction;
+import org.opendaylight.mdsal.binding.api.ReadTransaction;
+import org.opendaylight.unimgr.mef.nrp.api.Constraints;
 import org.opendaylight.unimgr.mef.nrp.api.EndPoint;
 import org.opendaylight.unimgr.mef.nrp.api.FailureResult;
 import org.opendaylight.unimgr.mef.nrp.api.Subrequrest;
 import org.opendaylight.unimgr.mef.nrp.api.TapiConstants;
 import org.opendaylight.unimgr.mef.nrp.common.NrpDao;
 import org.opendaylight.unimgr.mef.nrp.common.TapiUtils;
-import org.opendaylight.yang.gen.v1.urn.odl.unimgr.yang.unimgr.ext.rev170531.NodeAdiAugmentation;
-import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.OperationalState;
 import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.PortDirection;
-import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.ServiceInterfacePointRef;
 import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.Uuid;
 import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.connectivity.service.end.point.ServiceInterfacePoint;
-import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.topology.Node;
 import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.topology.context.Topology;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -53,77 +50,217 @@ import org.slf4j.LoggerFactory;
  */
 class DecompositionAction {
     private static final Logger LOG = LoggerFactory.getLogger(DecompositionAction.class);
+    /**
+     * Minimal number of sources for which shortest path trees are computed in parallel.
+     */
+    static final int PARALLEL_THRESHOLD = 3;
+    /**
+     * Cancellation flag of the decomposition a pool worker computes a shortest path tree for.
+     */
+    private static final ThreadLocal<AtomicBoolean> CANCELLED = new ThreadLocal<>();
+
     private final List<EndPoint> endpoints;
     private final DataBroker broker;
-    private final HashMap<Uuid, Vertex> sipToNep = new HashMap<>();
+    private final TopologyGraph.Snapshot snapshot;
+    private ForkJoinPool pool = ForkJoinPool.commonPool();
+    private Constraints constraints;
 
     DecompositionAction(List<EndPoint> endpoints, DataBroker broker) {
-        Objects.requireNonNull(endpoints);
+        this(endpoints, broker, null);
         Objects.requireNonNull(broker);
+    }
+
+    DecompositionAction(List<EndPoint> endpoints, TopologyGraph.Snapshot snapshot) {
+        this(endpoints, null, snapshot);
+        Objects.requireNonNull(snapshot);
+    }
+
+    private DecompositionAction(List<EndPoint> endpoints, DataBroker broker, TopologyGraph.Snapshot snapshot) {
+        Objects.requireNonNull(endpoints);
         if (endpoints.size() < 2) {
             throw new IllegalArgumentException("there should be at least two endpoints defined");
         }
         this.endpoints = endpoints;
         this.broker = broker;
+        this.snapshot = snapshot;
     }
 
-    Function<ServiceInterfacePoint, Uuid> toUuid = s -> s == null ? null : s.getServiceInterfacePointId();
+    /**
+     * Set pool used to compute shortest path trees for multipoint requests.
+     * @param forkJoinPool fork-join pool
+     * @return this action
+     */
+    DecompositionAction withPool(ForkJoinPool forkJoinPool) {
+        Objects.requireNonNull(forkJoinPool);
+        this.pool = forkJoinPool;
+        return this;
+    }
 
-    List<Subrequrest> decompose() throws FailureResult {
-        Graph<Vertex, DefaultEdge> graph = prepareData();
+    /**
+     * Set routing constraints. Minimal hop routing is used if constraints are not defined.
+     * @param routingConstraints constraints (might be null)
+     * @return this action
+     */
+    DecompositionAction withConstraints(Constraints routingConstraints) {
+        this.constraints = routingConstraints;
+        return this;
+    }
 
+    Function<ServiceInterfacePoint, Uuid> toUuid = s -> s == null ? null : s.getServiceInterfacePointId();
 
+    List<Subrequrest> decompose() throws FailureResult {
+        TopologyGraph.Snapshot topology = prepareData();
+        if (topology.isEmpty()) {
+            throw new FailureResult("There are no nodes in {0} topology", TapiConstants.PRESTO_SYSTEM_TOPO);
+        }
+        final DirectedGraph<Vertex, TopologyEdge> graph = topology.getGraph();
 
         Set<String> missingSips = endpoints.stream()
-                .filter(e -> sipToNep.get(toUuid.apply(e.getEndpoint().getServiceInterfacePoint())) == null)
+                .filter(e -> topology.getVertex(toUuid.apply(e.getEndpoint().getServiceInterfacePoint())) == null)
                 .map(e -> toUuid.apply(e.getEndpoint().getServiceInterfacePoint()).getValue())
                 .collect(Collectors.toSet());
         if (!missingSips.isEmpty()) {
             throw new FailureResult("Some service interface points not found in the system: "
                     + missingSips.stream().collect(Collectors.joining(",", "[", "]")));
         }
+        topology.getReachability().verify(endpoints.stream()
+                .map(e -> toUuid.apply(e.getEndpoint().getServiceInterfacePoint()))
+                .collect(Collectors.toList()));
 
         List<Vertex> vertices = endpoints.stream().map(e -> {
-            Vertex vertex = sipToNep.get(toUuid.apply(e.getEndpoint().getServiceInterfacePoint()));
-            if ((vertex.dir == PortDirection.OUTPUT && e.getEndpoint().getDirection() != PortDirection.OUTPUT)
-                    ||  (vertex.dir == PortDirection.INPUT && e.getEndpoint().getDirection() != PortDirection.INPUT)) {
+            Vertex vertex = topology.getVertex(toUuid.apply(e.getEndpoint().getServiceInterfacePoint()));
+            PortDirection dir = vertex.getDir();
+            if ((dir == PortDirection.OUTPUT && e.getEndpoint().getDirection() != PortDirection.OUTPUT)
+                    ||  (dir == PortDirection.INPUT && e.getEndpoint().getDirection() != PortDirection.INPUT)) {
                 throw new IllegalArgumentException("Port direction for "
                         + e.getEndpoint().getLocalId() + " incompatible with NEP."
-                        + "CEP " + e.getEndpoint().getDirection() + "  NEP " + vertex.dir);
+                        + "CEP " + e.getEndpoint().getDirection() + "  NEP " + dir);
             }
             return new Vertex(vertex, e.getEndpoint().getDirection());
         }).collect(Collectors.toList());
 
         assert vertices.size() > 1;
 
-        Set<GraphPath<Vertex, DefaultEdge>> paths = new HashSet<>();
-
-        Set<Vertex> inV = vertices.stream().filter(isInput).collect(Collectors.toSet());
-        Set<Vertex> outV = vertices.stream().filter(isOutput).collect(Collectors.toSet());
+        if (steinerTree(vertices)) {
+            DirectedGraph<Vertex, TopologyEdge> searched = constraints.isUnconstrained() ? graph
+                    : new ConstrainedRouter(graph, constraints, topology.getCapacityLedger()).view();
+            Set<Vertex> tree = new SteinerTree(searched).span(vertices);
+            if (tree == null) {
+                LOG.info("Tree spanning all endpoints not found");
+                return null;
+            }
+            List<Subrequrest> result = toSublists(tree.stream());
+            return result.isEmpty() ? null : result;
+        }
 
-        //do the verification whether it is possible to connect two nodes.
-        inV.forEach(i ->
-                outV.stream().filter(o -> i != o).forEach(o -> {
-                    GraphPath<Vertex, DefaultEdge> path = DijkstraShortestPath.findPathBetween(graph, i, o);
-                    if (path != null) {
-                        LOG.debug("Couldn't find path between {} and  {}", i, o);
-                    }
-                    paths.add(path);
-                })
-        );
+        Set<Vertex> inV = vertices.stream().filter(Vertex::isInput).collect(Collectors.toSet());
+        Set<Vertex> outV = vertices.stream().filter(Vertex::isOutput).collect(Collectors.toSet());
+
+        //single shortest path tree per source is reused for all destinations
+        Function<Vertex, List<GraphPath<Vertex, TopologyEdge>>> fromSource = i -> {
+            checkInterrupted();
+            SingleSourcePaths<Vertex, TopologyEdge> tree = new DijkstraShortestPath<>(graph).getPaths(i);
+            return outV.stream().filter(o -> i != o).map(o -> {
+                GraphPath<Vertex, TopologyEdge> path = tree.getPath(o);
+                if (path == null) {
+                    LOG.debug("Couldn't find path between {} and  {}", i, o);
+                }
+                return path;
+            }).collect(Collectors.toList());
+        };
+        if (constraints != null && !constraints.isUnconstrained()) {
+            ConstrainedRouter router = new ConstrainedRouter(graph, constraints, topology.getCapacityLedger());
+            fromSource = i -> router.paths(i, outV.stream().filter(o -> i != o).collect(Collectors.toList()));
+        }
+        final Function<Vertex, List<GraphPath<Vertex, TopologyEdge>>> routing = fromSource;
+
+        Set<GraphPath<Vertex, TopologyEdge>> paths = new HashSet<>();
+        if (inV.size() < PARALLEL_THRESHOLD) {
+            inV.forEach(i -> paths.addAll(routing.apply(i)));
+        } else {
+            AtomicBoolean cancelled = new AtomicBoolean();
+            List<ForkJoinTask<List<GraphPath<Vertex, TopologyEdge>>>> trees = inV.stream()
+                    .map(i -> pool.submit(() -> forked(cancelled, () -> routing.apply(i))))
+                    .collect(Collectors.toList());
+            try {
+                for (ForkJoinTask<List<GraphPath<Vertex, TopologyEdge>>> t : trees) {
+                    paths.addAll(t.get());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw (CancellationException) new CancellationException("Decomposition interrupted").initCause(e);
+            } catch (ExecutionException e) {
+                Throwables.throwIfUnchecked(e.getCause());
+                throw new IllegalStateException(e);
+            } finally {
+                //trees still running are of no use once the caller stops waiting
+                cancelled.set(true);
+                trees.forEach(t -> t.cancel(false));
+            }
+        }
 
         if (paths.stream().anyMatch(Objects::isNull)) {
             LOG.info("At least single path between endpoints not found");
             return null;
         }
 
-        List<Subrequrest> result = toSublists(paths);
+        List<Subrequrest> result = toSublists(paths.stream().flatMap(gp -> gp.getVertexList().stream()));
         return result.isEmpty() ? null : result;
     }
 
-    private List<Subrequrest> toSublists(Set<GraphPath<Vertex, DefaultEdge>> paths) {
-        return paths.stream()
-                .flatMap(gp -> gp.getVertexList().stream()).collect(Collectors.groupingBy(Vertex::getNodeUuid))
+    /**
+     * Stop a computation which has been interrupted, e.g. because it exceeded its time budget.
+     * Searches check it between shortest path computations and while relaxing edges.
+     * A search forked to the pool is stopped when the decomposition it works for is cancelled,
+     * as interrupting the caller does not reach the pool workers.
+     * @throws CancellationException if the current thread is interrupted or the decomposition is cancelled
+     */
+    static void checkInterrupted() {
+        AtomicBoolean cancelled = CANCELLED.get();
+        if (Thread.currentThread().isInterrupted() || cancelled != null && cancelled.get()) {
+            throw new CancellationException("Decomposition interrupted");
+        }
+    }
+
+    private static <T> T forked(AtomicBoolean cancelled, Supplier<T> search) {
+        //the task might be run by a thread that waits for it, so the previous flag is restored
+        AtomicBoolean previous = CANCELLED.get();
+        CANCELLED.set(cancelled);
+        try {
+            checkInterrupted();
+            return search.get();
+        } finally {
+            CANCELLED.set(previous);
+        }
+    }
+
+    /**
+     * Check if the Steiner tree strategy applies to the request.
+     * Tree is computed only for multipoint requests with bidirectional endpoints.
+     * The tree minimizes the number of nodes, thus requests with a metric, include nodes or a latency bound
+     * are routed with constrained shortest paths instead.
+     */
+    private boolean steinerTree(List<Vertex> vertices) {
+        if (constraints == null || constraints.getTreeStrategy() != Constraints.TreeStrategy.STEINER_TREE
+                || vertices.size() < 3) {
+            return false;
+        }
+        if (vertices.stream().anyMatch(v -> v.getDir() != PortDirection.BIDIRECTIONAL)) {
+            LOG.debug("Steiner tree requires bidirectional endpoints, shortest paths are used instead");
+            return false;
+        }
+        if (constraints.getMetric() != Constraints.Metric.HOP || !constraints.getIncludeNodes().isEmpty()
+                || constraints.getMaxLatency() != null) {
+            LOG.debug("Steiner tree does not apply to routing constraints, shortest paths are used instead");
+            return false;
+        }
+        return true;
+    }
+
+    private List<Subrequrest> toSublists(Stream<Vertex> pathVertices) {
+        return pathVertices
+                .filter(v -> !v.isHub())
+                .collect(Collectors.groupingBy(Vertex::getNodeUuid))
                 .entrySet().stream()
                 .map(e -> {
                     Set<EndPoint> fromVertexes = e.getValue().stream()
@@ -146,172 +283,15 @@ class DecompositionAction {
         return ep;
     }
 
-    private final Predicate<Vertex> isInput = v -> v.getDir() == PortDirection.BIDIRECTIONAL
-            || v.getDir() == PortDirection.INPUT;
-    private final Predicate<Vertex> isOutput = v -> v.getDir() == PortDirection.BIDIRECTIONAL
-            || v.getDir() == PortDirection.OUTPUT;
-
-    private void interconnectNode(Graph<Vertex, DefaultEdge> graph, List<Vertex> vertices) {
-        vertices.forEach(graph::addVertex);
-        Set<Vertex> inV = vertices.stream().filter(isInput).collect(Collectors.toSet());
-        Set<Vertex> outV = vertices.stream().filter(isOutput).collect(Collectors.toSet());
-        interconnect(graph, inV, outV);
-    }
-
-    private void interconnectLink(Graph<Vertex, DefaultEdge> graph, List<Vertex> vertices) {
-        vertices.forEach(graph::addVertex);
-        Set<Vertex> inV = vertices.stream().filter(isInput).collect(Collectors.toSet());
-        Set<Vertex> outV = vertices.stream().filter(isOutput).collect(Collectors.toSet());
-        interconnect(graph, outV, inV);
-
-
-    }
-
-    private void interconnect(Graph<Vertex, DefaultEdge> graph, Collection<Vertex> from, Collection<Vertex> to) {
-        from.forEach(iV ->
-                to.stream().filter(oV -> iV != oV).forEach(oV -> graph.addEdge(iV,oV)));
-    }
-
-
-    private Graph<Vertex, DefaultEdge> prepareData() throws FailureResult {
-        ReadWriteTransaction tx = broker.newReadWriteTransaction();
-        try {
+    private TopologyGraph.Snapshot prepareData() throws FailureResult {
+        if (snapshot != null) {
+            return snapshot;
+        }
+        try (ReadTransaction tx = broker.newReadOnlyTransaction()) {
             Topology topo = new NrpDao(tx).getTopology(TapiConstants.PRESTO_SYSTEM_TOPO);
-            if (topo.getNode() == null) {
-                throw new FailureResult("There are no nodes in {0} topology", TapiConstants.PRESTO_SYSTEM_TOPO);
-            }
-
-            Graph<Vertex, DefaultEdge> graph = new DefaultDirectedGraph<>(DefaultEdge.class);
-
-            topo.getNode().stream().map(this::nodeToGraph).forEach(vs -> {
-                List<Vertex> vertices = vs.collect(Collectors.toList());
-                vertices.forEach(v -> sipToNep.put(v.getSip(), v));
-                interconnectNode(graph, vertices);
-            });
-
-            if (topo.getLink() != null) {
-                topo.getLink().stream()
-                    .filter(l -> OperationalState.ENABLED == l.getOperationalState())
-                    .forEach(l -> {
-                        //we probably need to take link bidir/unidir into consideration as well
-                        List<Vertex> vertices = l.getNodeEdgePoint().stream()
-                            .map(nep -> graph.vertexSet().stream()
-                                    .filter(v -> v.getUuid().equals(nep.getOwnedNodeEdgePointId())).findFirst())
-                            .filter(Optional::isPresent).map(Optional::get).collect(Collectors.toList());
-                        interconnectLink(graph, vertices);
-                    });
-            }
-
-            return graph;
+            return TopologyGraph.of(topo);
         } catch (InterruptedException | ExecutionException e) {
             throw new FailureResult("Cannot read {0} topology - {1}", TapiConstants.PRESTO_SYSTEM_TOPO, e);
         }
     }
-
-    private Stream<Vertex> nodeToGraph(Node node) {
-        Uuid nodeUuid = node.getUuid();
-        String activationDriverId = node.augmentation(NodeAdiAugmentation.class).getActivationDriverId();
-
-
-        return node.getOwnedNodeEdgePoint().stream()
-            .filter(ep -> ep.getLinkPortDirection() != null
-                    && ep.getLinkPortDirection() != PortDirection.UNIDENTIFIEDORUNKNOWN)
-            .map(nep -> {
-                List<Uuid> sips = Collections.emptyList();
-                if (nep.getMappedServiceInterfacePoint() != null) {
-                    sips = nep.getMappedServiceInterfacePoint().stream()
-                        .map(ServiceInterfacePointRef::getServiceInterfacePointId)
-                        .collect(Collectors.toList());
-                }
-
-                if (sips.isEmpty()) {
-                    return  new Vertex(nodeUuid, nep.getUuid(), null, nep.getLinkPortDirection(),activationDriverId);
-                }
-                if (sips.size() > 1) {
-                    LOG.warn("NodeEdgePoint {} have multiple ServiceInterfacePoint mapped, selecting first one",
-                            nep.getUuid());
-                }
-                return new Vertex(nodeUuid, nep.getUuid(), sips.get(0), nep.getLinkPortDirection(),activationDriverId);
-
-            });
-    }
-
-    static class Vertex implements Comparable<Vertex> {
-
-        private final Uuid nodeUuid;
-        private final Uuid uuid;
-        private final Uuid sip;
-        private final String activationDriverId;
-        private final PortDirection dir;
-
-        Vertex(Vertex px, PortDirection csDir) {
-            this.nodeUuid = px.nodeUuid;
-            this.uuid = px.uuid;
-            this.sip = px.sip;
-            this.dir = csDir;
-            this.activationDriverId = px.activationDriverId;
-        }
-
-        Vertex(Uuid nodeUuid, Uuid uuid, Uuid sip, PortDirection dir, String activationDriverId) {
-            this.sip = sip;
-            this.dir = dir;
-            Objects.requireNonNull(nodeUuid);
-            Objects.requireNonNull(uuid);
-            Objects.requireNonNull(activationDriverId);
-
-            this.nodeUuid = nodeUuid;
-            this.uuid = uuid;
-            this.activationDriverId = activationDriverId;
-        }
-
-        Uuid getNodeUuid() {
-            return nodeUuid;
-        }
-
-        Uuid getUuid() {
-            return uuid;
-        }
-
-        Uuid getSip() {
-            return sip;
-        }
-
-        public String getActivationDriverId() {
-            return activationDriverId;
-        }
-
-        @Override
-        public boolean equals(Object other) {
-            if (this == other) {
-                return true;
-            }
-            if (other == null || getClass() != other.getClass()) {
-                return false;
-            }
-            Vertex vertex = (Vertex) other;
-            return Objects.equals(uuid, vertex.uuid);
-        }
-
-        PortDirection getDir() {
-            return dir;
-        }
-
-        @Override
-        public int hashCode() {
-            return Objects.hash(uuid);
-        }
-
-        @Override
-        public int compareTo(Vertex other) {
-            if (other == null) {
-                return -1;
-            }
-            return uuid.getValue().compareTo(other.uuid.getValue());
-        }
-
-        @Override
-        public String toString() {
-            return "V{" + uuid.getValue() + '}';
-        }
-    }
 }
@@ -0,0 +1,30 @@
+/*
+ * Copyright (c) 2018 Cisco Systems Inc and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.unimgr.mef.nrp.impl.decomposer;
+
+/**
+ * Decomposition cache statistics exposed over JMX.
+ */
+public interface DecompositionCacheMXBean {
+
+    long getHitCount();
+
+    long getMissCount();
+
+    /**
+     * Number of entries evicted because of the cache size limit.
+     * Entries dropped after topology change are not included.
+     * @return eviction count
+     */
+    long getEvictionCount();
+
+    long getSize();
+
+    long getMaximumSize();
+}
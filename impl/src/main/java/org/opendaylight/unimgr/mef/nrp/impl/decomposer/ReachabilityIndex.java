@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2018 Cisco Systems Inc and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.unimgr.mef.nrp.impl.decomposer;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.jgrapht.DirectedGraph;
+import org.opendaylight.unimgr.mef.nrp.api.FailureResult;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.Uuid;
+
+/**
+ * Connected components of the system topology indexed by service interface points.
+ * Direction of edges is ignored, so the index only rejects requests that cannot be served by any path,
+ * whereas endpoints of the same component might still turn out to be unreachable in a directed topology.
+ * Index is immutable and is built once per topology version.
+ */
+public final class ReachabilityIndex {
+    private final Map<Uuid, Integer> components;
+
+    ReachabilityIndex(Map<Uuid, Integer> components) {
+        this.components = Collections.unmodifiableMap(components);
+    }
+
+    /**
+     * Build index for a topology graph.
+     * @param graph topology graph
+     * @param sips mapping of service interface points to vertices
+     * @return index
+     */
+    static ReachabilityIndex of(DirectedGraph<Vertex, TopologyEdge> graph, Map<Uuid, Vertex> sips) {
+        Map<Vertex, Integer> index = new HashMap<>();
+        for (Vertex v : graph.vertexSet()) {
+            index.put(v, index.size());
+        }
+        UnionFind components = new UnionFind(index.size());
+        for (TopologyEdge e : graph.edgeSet()) {
+            components.union(index.get(graph.getEdgeSource(e)), index.get(graph.getEdgeTarget(e)));
+        }
+        Map<Uuid, Integer> result = new HashMap<>();
+        sips.forEach((sip, v) -> {
+            Integer idx = index.get(v);
+            if (idx != null) {
+                result.put(sip, components.find(idx));
+            }
+        });
+        return new ReachabilityIndex(result);
+    }
+
+    /**
+     * Group service interface points by the part of the topology they belong to.
+     * Service interface points that are not in the topology are skipped.
+     * @param sips service interface points
+     * @return groups of service interface points in order of their first occurrence
+     */
+    public List<List<Uuid>> partition(Collection<Uuid> sips) {
+        Map<Integer, List<Uuid>> groups = new LinkedHashMap<>();
+        for (Uuid sip : sips) {
+            Integer component = sip == null ? null : components.get(sip);
+            if (component != null) {
+                groups.computeIfAbsent(component, c -> new ArrayList<>()).add(sip);
+            }
+        }
+        return new ArrayList<>(groups.values());
+    }
+
+    /**
+     * Verify that service interface points can be interconnected.
+     * @param sips service interface points
+     * @throws FailureResult if the service interface points are in disconnected parts of the topology
+     */
+    public void verify(Collection<Uuid> sips) throws FailureResult {
+        List<List<Uuid>> groups = partition(sips);
+        if (groups.size() > 1) {
+            throw new FailureResult("Service interface points are in disconnected parts of the topology: {0}",
+                    groups.stream()
+                            .map(g -> g.stream().map(Uuid::getValue).collect(Collectors.joining(",", "[", "]")))
+                            .collect(Collectors.joining(" ")));
+        }
+    }
+
+    /**
+     * Disjoint set forest with path halving and union by size.
+     */
+    static final class UnionFind {
+        private final int[] parent;
+        private final int[] size;
+
+        UnionFind(int count) {
+            parent = new int[count];
+            size = new int[count];
+            for (int i = 0; i < count; ++i) {
+                parent[i] = i;
+                size[i] = 1;
+            }
+        }
+
+        int find(int element) {
+            int current = element;
+            while (parent[current] != current) {
+                parent[current] = parent[parent[current]];
+                current = parent[current];
+            }
+            return current;
+        }
+
+        void union(int first, int second) {
+            int root = find(first);
+            int other = find(second);
+            if (root == other) {
+                return;
+            }
+            if (size[root] < size[other]) {
+                int tmp = root;
+                root = other;
+                other = tmp;
+            }
+            parent[other] = root;
+            size[root] += size[other];
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2018 Cisco Systems Inc and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.unimgr.mef.nrp.impl.decomposer;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import org.jgrapht.DirectedGraph;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.Uuid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Shortest path heuristic (Takahashi-Matsuyama) for a Steiner tree with minimal number of nodes.
+ * The tree grows from the first terminal by attaching the terminal that is the closest to any node
+ * already in the tree. Distance is the number of nodes a path adds to the tree, as node edge points
+ * of a node that is already part of the tree are interconnected by the node anyway.
+ * The result is at most twice as large as the optimal tree.
+ */
+class SteinerTree {
+    private static final Logger LOG = LoggerFactory.getLogger(SteinerTree.class);
+    /**
+     * Weight added to every edge, so that the path with fewer vertices wins among paths adding the same nodes.
+     */
+    private static final double EDGE_WEIGHT = 1e-6;
+
+    private final DirectedGraph<Vertex, TopologyEdge> graph;
+    private final Map<Uuid, List<Vertex>> nodeVertices = new HashMap<>();
+
+    SteinerTree(DirectedGraph<Vertex, TopologyEdge> graph) {
+        Objects.requireNonNull(graph);
+        this.graph = graph;
+        for (Vertex v : graph.vertexSet()) {
+            nodeVertices.computeIfAbsent(v.getNodeUuid(), k -> new ArrayList<>()).add(v);
+        }
+    }
+
+    /**
+     * Compute tree spanning terminals.
+     * @param terminals vertices to interconnect
+     * @return vertices of the tree or null if any of the terminals cannot be reached
+     */
+    Set<Vertex> span(Collection<Vertex> terminals) {
+        Set<Vertex> tree = new LinkedHashSet<>();
+        Set<Uuid> treeNodes = new HashSet<>();
+        Set<Vertex> remaining = new LinkedHashSet<>(terminals);
+        Vertex first = remaining.iterator().next();
+        remaining.remove(first);
+        tree.add(first);
+        treeNodes.add(first.getNodeUuid());
+
+        while (!remaining.isEmpty()) {
+            List<Vertex> path = closest(treeNodes, remaining);
+            if (path == null) {
+                LOG.debug("Terminals {} cannot be attached to tree spanning {}", remaining, treeNodes);
+                return null;
+            }
+            for (Vertex v : path) {
+                tree.add(v);
+                treeNodes.add(v.getNodeUuid());
+            }
+            remaining.remove(path.get(path.size() - 1));
+        }
+        return tree;
+    }
+
+    /**
+     * Multi-source Dijkstra from all vertices of tree nodes, stopped at the first terminal reached.
+     * @return path from a tree node to the closest terminal or null if no terminal is reachable
+     */
+    private List<Vertex> closest(Set<Uuid> treeNodes, Set<Vertex> terminals) {
+        Map<Vertex, Double> distance = new HashMap<>();
+        Map<Vertex, Vertex> previous = new HashMap<>();
+        PriorityQueue<Entry> queue = new PriorityQueue<>(Comparator.comparingDouble(e -> e.distance));
+        for (Uuid node : treeNodes) {
+            for (Vertex v : nodeVertices.getOrDefault(node, Collections.emptyList())) {
+                distance.put(v, 0.0);
+                queue.add(new Entry(v, 0));
+            }
+        }
+
+        while (!queue.isEmpty()) {
+            DecompositionAction.checkInterrupted();
+            Entry entry = queue.poll();
+            if (entry.distance > distance.get(entry.vertex)) {
+                continue;
+            }
+            if (terminals.contains(entry.vertex)) {
+                List<Vertex> path = new ArrayList<>();
+                for (Vertex v = entry.vertex; v != null; v = previous.get(v)) {
+                    path.add(0, v);
+                }
+                return path;
+            }
+            for (TopologyEdge e : graph.outgoingEdgesOf(entry.vertex)) {
+                Vertex target = graph.getEdgeTarget(e);
+                double weight = (target.getNodeUuid().equals(entry.vertex.getNodeUuid()) ? 0 : 1) + EDGE_WEIGHT;
+                double candidate = entry.distance + weight;
+                Double known = distance.get(target);
+                if (known == null || candidate < known) {
+                    distance.put(target, candidate);
+                    previous.put(target, entry.vertex);
+                    queue.add(new Entry(target, candidate));
+                }
+            }
+        }
+        return null;
+    }
+
+    private static final class Entry {
+        private final Vertex vertex;
+        private final double distance;
+
+        private Entry(Vertex vertex, double distance) {
+            this.vertex = vertex;
+            this.distance = distance;
+        }
+    }
+}
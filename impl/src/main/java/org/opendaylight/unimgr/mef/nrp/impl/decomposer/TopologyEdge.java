@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2018 Cisco Systems Inc and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.unimgr.mef.nrp.impl.decomposer;
+
+import java.util.List;
+import java.util.function.Function;
+import org.jgrapht.graph.DefaultEdge;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.Uuid;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.CostCharacteristic;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.LatencyCharacteristic;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Graph edge with cost and latency of traversing a node or a link.
+ * Edges that represent links keep the link identifier for capacity accounting.
+ * Instances are immutable, so they can be shared between graph snapshots.
+ */
+class TopologyEdge extends DefaultEdge {
+    private static final Logger LOG = LoggerFactory.getLogger(TopologyEdge.class);
+    private static final long serialVersionUID = 1L;
+
+    private final double cost;
+    private final double latency;
+    private final Uuid linkId;
+
+    TopologyEdge() {
+        this(0, 0);
+    }
+
+    TopologyEdge(double cost, double latency) {
+        this(cost, latency, null);
+    }
+
+    private TopologyEdge(double cost, double latency, Uuid linkId) {
+        this.cost = cost;
+        this.latency = latency;
+        this.linkId = linkId;
+    }
+
+    /**
+     * Create edge weighted with characteristics of a node or a link.
+     * Costs are summed up and the highest fixed latency is taken.
+     * @param costs cost characteristics (might be null)
+     * @param latencies latency characteristics (might be null)
+     * @return new edge
+     */
+    static TopologyEdge of(List<? extends CostCharacteristic> costs, List<? extends LatencyCharacteristic> latencies) {
+        return new TopologyEdge(cost(costs), latency(latencies));
+    }
+
+    TopologyEdge copy() {
+        return new TopologyEdge(cost, latency, linkId);
+    }
+
+    TopologyEdge forLink(Uuid link) {
+        return new TopologyEdge(cost, latency, link);
+    }
+
+    double getCost() {
+        return cost;
+    }
+
+    double getLatency() {
+        return latency;
+    }
+
+    /**
+     * Get link represented by the edge.
+     * @return link identifier or null for edges inside a node
+     */
+    Uuid getLinkId() {
+        return linkId;
+    }
+
+    /**
+     * Check if both edges have the same weights.
+     * @param other other edge
+     * @return true if cost and latency are equal
+     */
+    boolean sameWeight(TopologyEdge other) {
+        return other != null && Double.compare(cost, other.cost) == 0 && Double.compare(latency, other.latency) == 0;
+    }
+
+    /**
+     * Check if this edge is worse than the other one with respect to cost and latency.
+     * @param other other edge
+     * @return true if this edge should be replaced by the other one
+     */
+    boolean heavierThan(TopologyEdge other) {
+        int byCost = Double.compare(cost, other.cost);
+        return byCost > 0 || byCost == 0 && Double.compare(latency, other.latency) > 0;
+    }
+
+    private static double cost(List<? extends CostCharacteristic> costs) {
+        return aggregate(costs, CostCharacteristic::getCostValue, false);
+    }
+
+    private static double latency(List<? extends LatencyCharacteristic> latencies) {
+        return aggregate(latencies, LatencyCharacteristic::getFixedLatencyCharacteristic, true);
+    }
+
+    private static <T> double aggregate(List<T> characteristics, Function<T, String> value, boolean max) {
+        if (characteristics == null) {
+            return 0;
+        }
+        double result = 0;
+        for (T characteristic : characteristics) {
+            String val = value.apply(characteristic);
+            if (val == null) {
+                continue;
+            }
+            try {
+                double parsed = Double.parseDouble(val);
+                if (parsed < 0) {
+                    LOG.warn("Negative characteristic {} ignored", val);
+                    continue;
+                }
+                result = max ? Math.max(result, parsed) : result + parsed;
+            } catch (NumberFormatException e) {
+                LOG.warn("Characteristic {} is not a number - ignored", val);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,582 @@
+/*
+ * Copyright (c) 2018 Cisco Systems Inc and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.unimgr.mef.nrp.impl.decomposer;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import org.jgrapht.DirectedGraph;
+import org.jgrapht.Graphs;
+import org.jgrapht.graph.DefaultDirectedGraph;
+import org.jgrapht.graph.UnmodifiableDirectedGraph;
+import org.opendaylight.yang.gen.v1.urn.odl.unimgr.yang.unimgr.ext.rev170531.NodeAdiAugmentation;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.OperationalState;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.PortDirection;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.ServiceInterfacePointRef;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.Uuid;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.topology.Link;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.topology.Node;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.topology.context.Topology;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * In-memory graph of the system topology used for path computation.
+ * The graph is maintained incrementally with node and link deltas
+ * and exposes immutable, versioned {@link Snapshot}s to the decomposer.
+ * Snapshots are published by the writer: taking one is O(1) and lock free, while each change
+ * (or batch of changes) copies the graph once. JGraphT has no persistent graph that would let the
+ * copy share structure with the previous version, so the O(V+E) copy is moved off the request path
+ * to the topology listener instead.
+ * Connectivity inside a node is modeled according to the selected {@link Encoding}.
+ * Edges are weighted with cost and latency characteristics of the traversed nodes and links.
+ */
+public class TopologyGraph {
+    private static final Logger LOG = LoggerFactory.getLogger(TopologyGraph.class);
+
+    private final DirectedGraph<Vertex, TopologyEdge> graph = new DefaultDirectedGraph<>(TopologyEdge.class);
+    private final Map<Uuid, List<Vertex>> nodes = new HashMap<>();
+    private final Map<Uuid, Vertex> neps = new HashMap<>();
+    private final Map<Uuid, Vertex> sips = new HashMap<>();
+    private final Map<Uuid, List<Uuid>> links = new HashMap<>();
+    private final Map<Uuid, Set<Uuid>> nepLinks = new HashMap<>();
+    private final Map<Uuid, Vertex> hubs = new HashMap<>();
+    private final Map<Uuid, TopologyEdge> nodeWeights = new HashMap<>();
+    private final Map<Uuid, TopologyEdge> linkWeights = new HashMap<>();
+    private final Encoding encoding;
+    private CapacityLedger capacityLedger;
+
+    private long version = 0;
+    private int batchDepth = 0;
+    private boolean changed = false;
+    private volatile Snapshot snapshot;
+
+    /**
+     * Intra-node connectivity model.
+     */
+    public enum Encoding {
+        /**
+         * Each input node edge point is connected with each output node edge point of a node.
+         * Number of edges grows as O(ports^2).
+         */
+        FULL_MESH,
+        /**
+         * Node edge points are connected through a virtual hub vertex of a node.
+         * Number of edges grows as O(ports).
+         */
+        HUB
+    }
+
+    public TopologyGraph() {
+        this(Encoding.HUB);
+    }
+
+    public TopologyGraph(Encoding encoding) {
+        Objects.requireNonNull(encoding);
+        this.encoding = encoding;
+        this.snapshot = createSnapshot(true);
+    }
+
+    /**
+     * Build a one-off snapshot of a topology.
+     * @param topology system topology
+     * @return snapshot of the topology graph
+     */
+    static Snapshot of(Topology topology) {
+        return of(topology, Encoding.HUB);
+    }
+
+    static Snapshot of(Topology topology, Encoding encoding) {
+        TopologyGraph topologyGraph = new TopologyGraph(encoding);
+        topologyGraph.reset(topology);
+        return topologyGraph.createSnapshot(false);
+    }
+
+    /**
+     * Set ledger to be kept up to date with capacities of node edge points and links.
+     * @param capacityLedger capacity ledger
+     */
+    public synchronized void setCapacityLedger(CapacityLedger capacityLedger) {
+        this.capacityLedger = capacityLedger;
+        snapshot = createSnapshot(true);
+    }
+
+    public Encoding getEncoding() {
+        return encoding;
+    }
+
+    /**
+     * Get version of the graph. Version is changed when vertices, edges or their weights are modified.
+     * @return graph version
+     */
+    public long getVersion() {
+        return snapshot.getVersion();
+    }
+
+    /**
+     * Apply a batch of changes atomically.
+     * Snapshots taken concurrently see either none or all of the changes and the version is changed at most once.
+     * @param changes changes applied to this graph
+     */
+    public synchronized void update(Consumer<TopologyGraph> changes) {
+        batchDepth++;
+        try {
+            changes.accept(this);
+        } finally {
+            batchDepth--;
+            if (batchDepth == 0 && changed) {
+                changed = false;
+                publish();
+            }
+        }
+    }
+
+    /**
+     * Replace the graph content with a given topology.
+     * @param topology system topology or null if it has been removed
+     */
+    public synchronized void reset(Topology topology) {
+        update(g -> replace(topology));
+    }
+
+    private synchronized void replace(Topology topology) {
+        if (capacityLedger != null) {
+            links.keySet().forEach(capacityLedger::removeLink);
+        }
+        graph.removeAllVertices(new ArrayList<>(graph.vertexSet()));
+        nodes.clear();
+        neps.clear();
+        sips.clear();
+        links.clear();
+        nepLinks.clear();
+        hubs.clear();
+        nodeWeights.clear();
+        linkWeights.clear();
+
+        if (topology != null) {
+            if (topology.getNode() != null) {
+                topology.getNode().forEach(this::putNode);
+            }
+            if (topology.getLink() != null) {
+                topology.getLink().forEach(this::putLink);
+            }
+        }
+        changed();
+    }
+
+    /**
+     * Add or update node together with its node edge points.
+     * Only node edge points that were added or modified are reconnected,
+     * unless cost or latency of the node has changed.
+     * @param node node to add
+     */
+    public synchronized void putNode(Node node) {
+        Objects.requireNonNull(node);
+        TopologyEdge weight = TopologyEdge.of(node.getCostCharacteristic(), node.getLatencyCharacteristic());
+        TopologyEdge previous = nodeWeights.put(node.getUuid(), weight);
+        final boolean reweight = previous != null && !previous.sameWeight(weight);
+        Map<Uuid, Vertex> updated = toVertices(node).stream()
+                .collect(Collectors.toMap(Vertex::getUuid, v -> v, (v1, v2) -> v1, LinkedHashMap::new));
+
+        final boolean created = !nodes.containsKey(node.getUuid());
+        List<Vertex> current = nodes.getOrDefault(node.getUuid(), Collections.emptyList());
+        List<Vertex> retained = new ArrayList<>();
+        for (Vertex v : current) {
+            if (v.sameAs(updated.get(v.getUuid()))) {
+                retained.add(v);
+            } else {
+                removeVertex(v);
+            }
+        }
+
+        Set<Uuid> retainedIds = retained.stream().map(Vertex::getUuid).collect(Collectors.toSet());
+        List<Vertex> added = updated.values().stream()
+                .filter(v -> !retainedIds.contains(v.getUuid()))
+                .collect(Collectors.toList());
+
+        List<Vertex> all = new ArrayList<>(retained);
+        all.addAll(added);
+        nodes.put(node.getUuid(), all);
+        if (capacityLedger != null && node.getOwnedNodeEdgePoint() != null) {
+            final CapacityLedger ledger = capacityLedger;
+            node.getOwnedNodeEdgePoint().forEach(n -> ledger.putCapacity(n.getUuid(), CapacityLedger.capacity(n)));
+        }
+
+        added.forEach(v -> {
+            graph.addVertex(v);
+            neps.put(v.getUuid(), v);
+            if (v.getSip() != null) {
+                sips.put(v.getSip(), v);
+            }
+        });
+
+        interconnect(node.getUuid(), all, added, reweight);
+
+        added.stream()
+                .flatMap(a -> nepLinks.getOrDefault(a.getUuid(), Collections.emptySet()).stream())
+                .distinct()
+                .forEach(this::connectLink);
+
+        //writes of connection end points do not change the graph, so the current snapshot stays valid
+        if (created || reweight || !added.isEmpty() || retained.size() != current.size()) {
+            changed();
+        }
+        LOG.debug("node {} updated in topology graph: {} NEPs added, {} NEPs retained",
+                node.getUuid().getValue(), added.size(), retained.size());
+    }
+
+    /**
+     * Remove node and all its node edge points.
+     * @param nodeId node identifier
+     */
+    public synchronized void removeNode(Uuid nodeId) {
+        nodeWeights.remove(nodeId);
+        List<Vertex> vertices = nodes.remove(nodeId);
+        if (vertices != null) {
+            vertices.forEach(this::removeVertex);
+            Vertex hub = hubs.remove(nodeId);
+            if (hub != null) {
+                graph.removeVertex(hub);
+            }
+            changed();
+        }
+    }
+
+    /**
+     * Add or update link. Links that are not enabled are not present in the graph.
+     * @param link link to add
+     */
+    public synchronized void putLink(Link link) {
+        Objects.requireNonNull(link);
+        boolean modified = removeLinkInternal(link.getUuid());
+
+        if (OperationalState.ENABLED == link.getOperationalState() && link.getNodeEdgePoint() != null) {
+            //we probably need to take link bidir/unidir into consideration as well
+            List<Uuid> nepIds = link.getNodeEdgePoint().stream()
+                    .map(nep -> nep.getOwnedNodeEdgePointId())
+                    .collect(Collectors.toList());
+            links.put(link.getUuid(), nepIds);
+            linkWeights.put(link.getUuid(),
+                    TopologyEdge.of(link.getCostCharacteristic(), link.getLatencyCharacteristic())
+                            .forLink(link.getUuid()));
+            nepIds.forEach(n -> nepLinks.computeIfAbsent(n, k -> new HashSet<>()).add(link.getUuid()));
+            if (capacityLedger != null) {
+                capacityLedger.putLink(link.getUuid(), nepIds, CapacityLedger.capacity(link));
+            }
+            connectLink(link.getUuid());
+            modified = true;
+        }
+        if (modified) {
+            changed();
+        }
+    }
+
+    /**
+     * Remove link.
+     * @param linkId link identifier
+     */
+    public synchronized void removeLink(Uuid linkId) {
+        if (removeLinkInternal(linkId)) {
+            changed();
+        }
+    }
+
+    /**
+     * Get a consistent view on the graph.
+     * The snapshot is shared between callers until the graph changes. It is published by the writer,
+     * so this call neither copies the graph nor waits for a change in progress.
+     * @return current snapshot
+     */
+    public Snapshot snapshot() {
+        return snapshot;
+    }
+
+    private void publish() {
+        version++;
+        snapshot = createSnapshot(true);
+    }
+
+    private Snapshot createSnapshot(boolean copy) {
+        DirectedGraph<Vertex, TopologyEdge> toExpose = graph;
+        if (copy) {
+            toExpose = new DefaultDirectedGraph<>(TopologyEdge.class);
+            Graphs.addGraph(toExpose, graph);
+        }
+        //JGraphT creates edge containers lazily on first access, what is not safe for concurrent readers
+        for (Vertex v : toExpose.vertexSet()) {
+            toExpose.outgoingEdgesOf(v);
+        }
+        return new Snapshot(new UnmodifiableDirectedGraph<>(toExpose), copy ? new HashMap<>(neps) : neps,
+                copy ? new HashMap<>(sips) : sips, version, nodes.isEmpty(), capacityLedger);
+    }
+
+    private void changed() {
+        if (batchDepth > 0) {
+            changed = true;
+        } else {
+            publish();
+        }
+    }
+
+    private void interconnect(Uuid nodeId, List<Vertex> all, List<Vertex> added, boolean reweight) {
+        TopologyEdge weight = nodeWeights.get(nodeId);
+        if (encoding == Encoding.FULL_MESH) {
+            if (reweight) {
+                all.forEach(a -> all.stream().filter(v -> v != a).forEach(v -> graph.removeEdge(a, v)));
+            }
+            (reweight ? all : added).forEach(a -> all.stream().filter(v -> v != a).forEach(v -> {
+                if (a.isInput() && v.isOutput()) {
+                    graph.addEdge(a, v, weight.copy());
+                }
+                if (v.isInput() && a.isOutput()) {
+                    graph.addEdge(v, a, weight.copy());
+                }
+            }));
+            return;
+        }
+
+        List<Vertex> toConnect = added;
+        Vertex hub = hubs.get(nodeId);
+        if (hub != null && (all.isEmpty() || reweight
+                || !hub.getActivationDriverId().equals(all.get(0).getActivationDriverId()))) {
+            graph.removeVertex(hub);
+            hubs.remove(nodeId);
+            hub = null;
+        }
+        if (hub == null) {
+            if (all.isEmpty()) {
+                return;
+            }
+            hub = Vertex.hub(nodeId, all.get(0).getActivationDriverId());
+            graph.addVertex(hub);
+            hubs.put(nodeId, hub);
+            toConnect = all;
+        }
+
+        for (Vertex v : toConnect) {
+            //the node is traversed once, so its weight is assigned to incoming edges only
+            if (v.isInput()) {
+                graph.addEdge(v, hub, weight.copy());
+            }
+            if (v.isOutput()) {
+                graph.addEdge(hub, v, new TopologyEdge());
+            }
+        }
+    }
+
+    private boolean removeLinkInternal(Uuid linkId) {
+        List<Uuid> nepIds = links.remove(linkId);
+        linkWeights.remove(linkId);
+        if (capacityLedger != null) {
+            capacityLedger.removeLink(linkId);
+        }
+        if (nepIds == null) {
+            return false;
+        }
+        nepIds.forEach(n -> {
+            Set<Uuid> ls = nepLinks.get(n);
+            if (ls != null) {
+                ls.remove(linkId);
+                if (ls.isEmpty()) {
+                    nepLinks.remove(n);
+                }
+            }
+        });
+
+        List<Vertex> vertices = present(nepIds);
+        vertices.stream().filter(Vertex::isOutput).forEach(o ->
+                vertices.stream().filter(Vertex::isInput).filter(i -> i != o).forEach(i -> {
+                    graph.removeEdge(o, i);
+                    //a full mesh connects node edge points of a node on its own, a hub does not
+                    if (encoding == Encoding.FULL_MESH && o.getNodeUuid().equals(i.getNodeUuid())
+                            && o.isInput() && i.isOutput()) {
+                        graph.addEdge(o, i, nodeWeights.get(o.getNodeUuid()).copy());
+                    }
+                }));
+
+        //restore edges shared with other links
+        nepIds.stream()
+                .flatMap(n -> nepLinks.getOrDefault(n, Collections.emptySet()).stream())
+                .distinct()
+                .forEach(this::connectLink);
+        return true;
+    }
+
+    private void connectLink(Uuid linkId) {
+        List<Vertex> vertices = present(links.get(linkId));
+        TopologyEdge weight = linkWeights.get(linkId);
+        //parallel links are represented with a single edge of the lightest link
+        vertices.stream().filter(Vertex::isOutput).forEach(o ->
+                vertices.stream().filter(Vertex::isInput).filter(i -> i != o).forEach(i -> {
+                    TopologyEdge existing = graph.getEdge(o, i);
+                    if (existing != null && existing.heavierThan(weight)) {
+                        graph.removeEdge(existing);
+                        existing = null;
+                    }
+                    if (existing == null) {
+                        graph.addEdge(o, i, weight.copy());
+                    }
+                }));
+    }
+
+    private List<Vertex> present(Collection<Uuid> nepIds) {
+        if (nepIds == null) {
+            return Collections.emptyList();
+        }
+        return nepIds.stream().map(neps::get).filter(Objects::nonNull).collect(Collectors.toList());
+    }
+
+    private void removeVertex(Vertex vertex) {
+        graph.removeVertex(vertex);
+        if (capacityLedger != null) {
+            capacityLedger.putCapacity(vertex.getUuid(), null);
+        }
+        neps.remove(vertex.getUuid());
+        if (vertex.getSip() != null && vertex.equals(sips.get(vertex.getSip()))) {
+            sips.remove(vertex.getSip());
+        }
+    }
+
+    private static List<Vertex> toVertices(Node node) {
+        Uuid nodeUuid = node.getUuid();
+        NodeAdiAugmentation aug = node.augmentation(NodeAdiAugmentation.class);
+        if (aug == null || aug.getActivationDriverId() == null || node.getOwnedNodeEdgePoint() == null) {
+            LOG.debug("node {} skipped - no activation driver or NEPs defined", nodeUuid.getValue());
+            return Collections.emptyList();
+        }
+        String activationDriverId = aug.getActivationDriverId();
+
+        return node.getOwnedNodeEdgePoint().stream()
+            .filter(ep -> ep.getLinkPortDirection() != null
+                    && ep.getLinkPortDirection() != PortDirection.UNIDENTIFIEDORUNKNOWN)
+            .map(nep -> {
+                List<Uuid> nepSips = Collections.emptyList();
+                if (nep.getMappedServiceInterfacePoint() != null) {
+                    nepSips = nep.getMappedServiceInterfacePoint().stream()
+                        .map(ServiceInterfacePointRef::getServiceInterfacePointId)
+                        .collect(Collectors.toList());
+                }
+
+                if (nepSips.isEmpty()) {
+                    return new Vertex(nodeUuid, nep.getUuid(), null, nep.getLinkPortDirection(), activationDriverId);
+                }
+                if (nepSips.size() > 1) {
+                    LOG.warn("NodeEdgePoint {} have multiple ServiceInterfacePoint mapped, selecting first one",
+                            nep.getUuid());
+                }
+                return new Vertex(nodeUuid, nep.getUuid(), nepSips.get(0), nep.getLinkPortDirection(),
+                        activationDriverId);
+            }).collect(Collectors.toList());
+    }
+
+    /**
+     * Immutable view on the topology graph. It is safe to be used by multiple threads.
+     * Vertices are indexed by node edge point and service interface point identifiers.
+     */
+    public static final class Snapshot {
+        private final DirectedGraph<Vertex, TopologyEdge> graph;
+        private final Map<Uuid, Vertex> neps;
+        private final Map<Uuid, Vertex> sips;
+        private final long version;
+        private final boolean empty;
+        private final CapacityLedger capacityLedger;
+        private volatile ReachabilityIndex reachability;
+
+        private Snapshot(DirectedGraph<Vertex, TopologyEdge> graph, Map<Uuid, Vertex> neps, Map<Uuid, Vertex> sips,
+                         long version, boolean empty, CapacityLedger capacityLedger) {
+            this.graph = graph;
+            this.neps = Collections.unmodifiableMap(neps);
+            this.sips = Collections.unmodifiableMap(sips);
+            this.version = version;
+            this.empty = empty;
+            this.capacityLedger = capacityLedger;
+        }
+
+        DirectedGraph<Vertex, TopologyEdge> getGraph() {
+            return graph;
+        }
+
+        /**
+         * Find vertex by service interface point.
+         * @param sip service interface point identifier
+         * @return vertex or null if the service interface point is not mapped to any node edge point in the graph
+         */
+        Vertex getVertex(Uuid sip) {
+            return sips.get(sip);
+        }
+
+        /**
+         * Find vertex by node edge point.
+         * @param nep node edge point identifier
+         * @return vertex or null if the node edge point is not in the graph
+         */
+        Vertex getNep(Uuid nep) {
+            return neps.get(nep);
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        /**
+         * Find enabled links between node edge points.
+         * @param nepIds node edge point identifiers
+         * @return identifiers of links with all ends in the given node edge points
+         */
+        public Set<Uuid> getLinks(Collection<Uuid> nepIds) {
+            Set<Uuid> selected = new HashSet<>(nepIds);
+            return selected.stream()
+                    .map(neps::get)
+                    .filter(Objects::nonNull)
+                    .flatMap(v -> graph.outgoingEdgesOf(v).stream())
+                    .filter(e -> e.getLinkId() != null && selected.contains(graph.getEdgeTarget(e).getUuid()))
+                    .map(TopologyEdge::getLinkId)
+                    .collect(Collectors.toSet());
+        }
+
+        /**
+         * Check if there are any nodes in the topology.
+         * @return true if no node is defined
+         */
+        public boolean isEmpty() {
+            return empty;
+        }
+
+        /**
+         * Get connected components of the graph. Index is built on first use.
+         * @return reachability index
+         */
+        public ReachabilityIndex getReachability() {
+            ReachabilityIndex index = reachability;
+            if (index == null) {
+                //concurrent callers might build the index twice, but both results are equal
+                index = ReachabilityIndex.of(graph, sips);
+                reachability = index;
+            }
+            return index;
+        }
+
+        /**
+         * Get ledger of reserved capacity. Unlike the graph it is not versioned.
+         * @return capacity ledger or null if capacity is not tracked
+         */
+        CapacityLedger getCapacityLedger() {
+            return capacityLedger;
+        }
+    }
+}
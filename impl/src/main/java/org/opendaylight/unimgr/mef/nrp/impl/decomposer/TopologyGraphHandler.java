@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2018 Cisco Systems Inc and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.unimgr.mef.nrp.impl.decomposer;
+
+import java.util.Collection;
+import java.util.Objects;
+import javax.annotation.Nonnull;
+import org.opendaylight.mdsal.binding.api.DataBroker;
+import org.opendaylight.mdsal.binding.api.DataObjectModification;
+import org.opendaylight.mdsal.binding.api.DataTreeChangeListener;
+import org.opendaylight.mdsal.binding.api.DataTreeIdentifier;
+import org.opendaylight.mdsal.binding.api.DataTreeModification;
+import org.opendaylight.mdsal.common.api.LogicalDatastoreType;
+import org.opendaylight.unimgr.mef.nrp.api.TapiConstants;
+import org.opendaylight.unimgr.mef.nrp.common.NrpDao;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.topology.Link;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.topology.Node;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.topology.context.Topology;
+import org.opendaylight.yangtools.concepts.ListenerRegistration;
+import org.opendaylight.yangtools.yang.binding.DataObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * TopologyGraphHandler listens to presto system topology and propagates node and link changes
+ * to the {@link TopologyGraph}.
+ */
+public class TopologyGraphHandler implements DataTreeChangeListener<Topology> {
+    private static final Logger LOG = LoggerFactory.getLogger(TopologyGraphHandler.class);
+
+    private final DataBroker dataBroker;
+    private final TopologyGraph graph;
+    private ListenerRegistration<TopologyGraphHandler> registration;
+
+    public TopologyGraphHandler(DataBroker dataBroker, TopologyGraph graph) {
+        Objects.requireNonNull(dataBroker);
+        Objects.requireNonNull(graph);
+        this.dataBroker = dataBroker;
+        this.graph = graph;
+    }
+
+    public void init() {
+        registration = dataBroker.registerDataTreeChangeListener(
+                DataTreeIdentifier.create(LogicalDatastoreType.OPERATIONAL,
+                        NrpDao.topo(TapiConstants.PRESTO_SYSTEM_TOPO)), this);
+
+        LOG.debug("TopologyGraphHandler registered: {}", registration);
+    }
+
+    public void close() {
+        if (registration != null) {
+            registration.close();
+            LOG.debug("TopologyGraphHandler closed");
+        }
+    }
+
+    @Override
+    public void onDataTreeChanged(@Nonnull Collection<DataTreeModification<Topology>> collection) {
+        //decomposers must not see a node without its links, so the notification is applied as a whole
+        graph.update(g -> {
+            for (DataTreeModification<Topology> change : collection) {
+                DataObjectModification<Topology> root = change.getRootNode();
+                switch (root.getModificationType()) {
+                    case WRITE:
+                        g.reset(root.getDataAfter());
+                        break;
+                    case DELETE:
+                        g.reset(null);
+                        break;
+                    case SUBTREE_MODIFIED:
+                        root.getModifiedChildren().forEach(this::apply);
+                        break;
+                    default:
+                        break;
+                }
+            }
+        });
+        LOG.debug("topology graph updated with {} changes", collection.size());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void apply(DataObjectModification<? extends DataObject> modification) {
+        if (Node.class.equals(modification.getDataType())) {
+            DataObjectModification<Node> node = (DataObjectModification<Node>) modification;
+            if (node.getModificationType() == DataObjectModification.ModificationType.DELETE) {
+                graph.removeNode(node.getDataBefore().getUuid());
+            } else {
+                graph.putNode(node.getDataAfter());
+            }
+        } else if (Link.class.equals(modification.getDataType())) {
+            DataObjectModification<Link> link = (DataObjectModification<Link>) modification;
+            if (link.getModificationType() == DataObjectModification.ModificationType.DELETE) {
+                graph.removeLink(link.getDataBefore().getUuid());
+            } else {
+                graph.putLink(link.getDataAfter());
+            }
+        }
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2017 Cisco Systems Inc and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.unimgr.mef.nrp.impl.decomposer;
+
+import java.util.Objects;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.PortDirection;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.Uuid;
+
+/**
+ * Graph vertex representing a single node edge point of the system topology
+ * or a virtual hub of a node.
+ */
+class Vertex implements Comparable<Vertex> {
+
+    private final Uuid nodeUuid;
+    private final Uuid uuid;
+    private final Uuid sip;
+    private final String activationDriverId;
+    private final PortDirection dir;
+    private final boolean hub;
+
+    Vertex(Vertex px, PortDirection csDir) {
+        this.nodeUuid = px.nodeUuid;
+        this.uuid = px.uuid;
+        this.sip = px.sip;
+        this.dir = csDir;
+        this.activationDriverId = px.activationDriverId;
+        this.hub = px.hub;
+    }
+
+    Vertex(Uuid nodeUuid, Uuid uuid, Uuid sip, PortDirection dir, String activationDriverId) {
+        this(nodeUuid, uuid, sip, dir, activationDriverId, false);
+    }
+
+    private Vertex(Uuid nodeUuid, Uuid uuid, Uuid sip, PortDirection dir, String activationDriverId, boolean hub) {
+        this.sip = sip;
+        this.dir = dir;
+        Objects.requireNonNull(nodeUuid);
+        Objects.requireNonNull(uuid);
+        Objects.requireNonNull(activationDriverId);
+
+        this.nodeUuid = nodeUuid;
+        this.uuid = uuid;
+        this.activationDriverId = activationDriverId;
+        this.hub = hub;
+    }
+
+    /**
+     * Create a virtual vertex that interconnects all node edge points of a node.
+     * @param nodeUuid node identifier
+     * @param activationDriverId activation driver of the node
+     * @return hub vertex
+     */
+    static Vertex hub(Uuid nodeUuid, String activationDriverId) {
+        return new Vertex(nodeUuid, new Uuid("hub:" + nodeUuid.getValue()), null,
+                PortDirection.BIDIRECTIONAL, activationDriverId, true);
+    }
+
+    Uuid getNodeUuid() {
+        return nodeUuid;
+    }
+
+    Uuid getUuid() {
+        return uuid;
+    }
+
+    Uuid getSip() {
+        return sip;
+    }
+
+    public String getActivationDriverId() {
+        return activationDriverId;
+    }
+
+    PortDirection getDir() {
+        return dir;
+    }
+
+    boolean isHub() {
+        return hub;
+    }
+
+    boolean isInput() {
+        return dir == PortDirection.BIDIRECTIONAL || dir == PortDirection.INPUT;
+    }
+
+    boolean isOutput() {
+        return dir == PortDirection.BIDIRECTIONAL || dir == PortDirection.OUTPUT;
+    }
+
+    /**
+     * Check if all attributes of the vertex are the same.
+     * Please note that {@link #equals(Object)} takes only the NEP identifier into account.
+     * @param other vertex to compare
+     * @return true if all attributes match
+     */
+    boolean sameAs(Vertex other) {
+        return other != null
+                && Objects.equals(uuid, other.uuid)
+                && Objects.equals(nodeUuid, other.nodeUuid)
+                && Objects.equals(sip, other.sip)
+                && Objects.equals(activationDriverId, other.activationDriverId)
+                && dir == other.dir
+                && hub == other.hub;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (other == null || getClass() != other.getClass()) {
+            return false;
+        }
+        Vertex vertex = (Vertex) other;
+        return Objects.equals(uuid, vertex.uuid);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(uuid);
+    }
+
+    @Override
+    public int compareTo(Vertex other) {
+        if (other == null) {
+            return -1;
+        }
+        return uuid.getValue().compareTo(other.uuid.getValue());
+    }
+
+    @Override
+    public String toString() {
+        return "V{" + uuid.getValue() + '}';
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2018 Cisco Systems Inc and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.unimgr.mef.nrp.impl.ext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import org.opendaylight.mdsal.binding.api.DataBroker;
+import org.opendaylight.mdsal.binding.api.ReadTransaction;
+import org.opendaylight.mdsal.common.api.LogicalDatastoreType;
+import org.opendaylight.unimgr.mef.nrp.common.ConnectivityServiceIndex;
+import org.opendaylight.unimgr.mef.nrp.common.NrpDao;
+import org.opendaylight.yang.gen.v1.urn.odl.unimgr.yang.unimgr.ext.rev170531.ListConnectivityServicesInput;
+import org.opendaylight.yang.gen.v1.urn.odl.unimgr.yang.unimgr.ext.rev170531.ListConnectivityServicesOutput;
+import org.opendaylight.yang.gen.v1.urn.odl.unimgr.yang.unimgr.ext.rev170531.ListConnectivityServicesOutputBuilder;
+import org.opendaylight.yang.gen.v1.urn.odl.unimgr.yang.unimgr.ext.rev170531.list.connectivity.services.output.Service;
+import org.opendaylight.yang.gen.v1.urn.odl.unimgr.yang.unimgr.ext.rev170531.list.connectivity.services.output.ServiceBuilder;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.Context1;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.connectivity.context.ConnectivityService;
+import org.opendaylight.yangtools.yang.common.RpcResult;
+import org.opendaylight.yangtools.yang.common.RpcResultBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Lists a page of connectivity services matching the request filters.
+ * Services are selected in identifier order from {@link ConnectivityServiceIndex} and only the services
+ * of the page are read from the datastore. Continuation token is the identifier of the last listed service.
+ */
+class ListConnectivityServicesAction implements Callable<RpcResult<ListConnectivityServicesOutput>> {
+    private static final Logger LOG = LoggerFactory.getLogger(ListConnectivityServicesAction.class);
+    static final int DEFAULT_PAGE_SIZE = 100;
+
+    private final DataBroker broker;
+    private final ConnectivityServiceIndex index;
+    private final ListConnectivityServicesInput input;
+
+    /**
+     * Create action.
+     * @param broker data broker
+     * @param index index of services or null if it has to be built for the request from the whole context
+     * @param input request
+     */
+    ListConnectivityServicesAction(DataBroker broker, ConnectivityServiceIndex index,
+                                   ListConnectivityServicesInput input) {
+        Objects.requireNonNull(broker);
+        Objects.requireNonNull(input);
+        this.broker = broker;
+        this.index = index;
+        this.input = input;
+    }
+
+    @Override
+    public RpcResult<ListConnectivityServicesOutput> call() throws Exception {
+        int pageSize = input.getPageSize() == null ? DEFAULT_PAGE_SIZE : input.getPageSize().intValue();
+
+        try (ReadTransaction tx = broker.newReadOnlyTransaction()) {
+            ConnectivityServiceIndex services = index == null ? snapshot(tx) : index;
+            //one more entry tells whether there is a next page
+            List<ConnectivityServiceIndex.Entry> matching = services.after(input.getContinuationToken())
+                    .filter(filter(services))
+                    .limit(pageSize + 1L)
+                    .collect(Collectors.toList());
+
+            NrpDao nrpDao = new NrpDao(tx);
+            List<Service> page = new ArrayList<>(Math.min(pageSize, matching.size()));
+            for (ConnectivityServiceIndex.Entry entry : matching.subList(0, Math.min(pageSize, matching.size()))) {
+                ConnectivityService cs = nrpDao.getConnectivityService(entry.getUuid());
+                if (cs == null) {
+                    LOG.debug("Connectivity service {} removed since indexed", entry.getUuid().getValue());
+                    continue;
+                }
+                page.add(new ServiceBuilder(cs).build());
+            }
+
+            ListConnectivityServicesOutputBuilder output = new ListConnectivityServicesOutputBuilder()
+                    .setService(page);
+            if (matching.size() > pageSize) {
+                output.setContinuationToken(matching.get(pageSize - 1).getUuid().getValue());
+            }
+            return RpcResultBuilder.success(output.build()).build();
+        }
+    }
+
+    private Predicate<ConnectivityServiceIndex.Entry> filter(ConnectivityServiceIndex services) {
+        Predicate<ConnectivityServiceIndex.Entry> filter = e -> true;
+        if (input.getServiceType() != null) {
+            filter = filter.and(e -> input.getServiceType() == e.getServiceType());
+        }
+        if (input.getSipId() != null) {
+            filter = filter.and(e -> e.getSips().contains(input.getSipId()));
+        }
+        if (input.getLifecycleState() != null) {
+            filter = filter.and(e -> input.getLifecycleState() == e.getLifecycleState());
+        }
+        if (input.getOperationalState() != null) {
+            filter = filter.and(e -> input.getOperationalState() == e.getOperationalState());
+        }
+        if (input.getNodeId() != null) {
+            filter = filter.and(e -> services.goesThrough(e, input.getNodeId()));
+        }
+        return filter;
+    }
+
+    private static ConnectivityServiceIndex snapshot(ReadTransaction tx) throws Exception {
+        ConnectivityServiceIndex services = new ConnectivityServiceIndex();
+        services.reset(tx.read(LogicalDatastoreType.OPERATIONAL, NrpDao.ctx().augmentation(Context1.class))
+                .get().orElse(null));
+        return services;
+    }
+}
@@ -8,23 +8,23 @@
 
 package org.opendaylight.unimgr.mef.nrp.impl.ext;
 
+import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
-import com.google.common.util.concurrent.ListeningExecutorService;
-import com.google.common.util.concurrent.MoreExecutors;
 import java.text.MessageFormat;
 import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.ThreadPoolExecutor;
-import java.util.concurrent.TimeUnit;
 import org.opendaylight.mdsal.binding.api.DataBroker;
 import org.opendaylight.mdsal.binding.api.ReadWriteTransaction;
 import org.opendaylight.mdsal.common.api.LogicalDatastoreType;
 import org.opendaylight.unimgr.mef.nrp.api.TapiConstants;
+import org.opendaylight.unimgr.mef.nrp.common.ConnectivityServiceIndex;
 import org.opendaylight.unimgr.mef.nrp.common.NrpDao;
+import org.opendaylight.unimgr.mef.nrp.common.RpcExecutor;
+import org.opendaylight.unimgr.mef.nrp.common.SipIndex;
 import org.opendaylight.unimgr.mef.nrp.common.TapiUtils;
+import org.opendaylight.unimgr.mef.nrp.impl.connectivityservice.TapiConnectivityServiceImpl;
 import org.opendaylight.yang.gen.v1.urn.mef.yang.nrp._interface.rev180321.ServiceInterfacePoint1;
 import org.opendaylight.yang.gen.v1.urn.mef.yang.nrp._interface.rev180321.ServiceInterfacePoint1Builder;
 import org.opendaylight.yang.gen.v1.urn.mef.yang.nrp._interface.rev180321.nrp.sip.attrs.NrpCarrierEthEnniNResourceBuilder;
@@ -32,6 +32,10 @@ import org.opendaylight.yang.gen.v1.urn.mef.yang.nrp._interface.rev180321.nrp.si
 import org.opendaylight.yang.gen.v1.urn.mef.yang.nrp._interface.rev180321.nrp.sip.attrs.NrpCarrierEthUniNResourceBuilder;
 import org.opendaylight.yang.gen.v1.urn.odl.unimgr.yang.unimgr.ext.rev170531.AddSipInput;
 import org.opendaylight.yang.gen.v1.urn.odl.unimgr.yang.unimgr.ext.rev170531.AddSipOutput;
+import org.opendaylight.yang.gen.v1.urn.odl.unimgr.yang.unimgr.ext.rev170531.CreateConnectivityServicesInput;
+import org.opendaylight.yang.gen.v1.urn.odl.unimgr.yang.unimgr.ext.rev170531.CreateConnectivityServicesOutput;
+import org.opendaylight.yang.gen.v1.urn.odl.unimgr.yang.unimgr.ext.rev170531.ListConnectivityServicesInput;
+import org.opendaylight.yang.gen.v1.urn.odl.unimgr.yang.unimgr.ext.rev170531.ListConnectivityServicesOutput;
 import org.opendaylight.yang.gen.v1.urn.odl.unimgr.yang.unimgr.ext.rev170531.UnimgrExtService;
 import org.opendaylight.yang.gen.v1.urn.odl.unimgr.yang.unimgr.ext.rev170531.add.sip.input.SipType;
 import org.opendaylight.yang.gen.v1.urn.odl.unimgr.yang.unimgr.ext.rev170531.add.sip.input.sip.type.EnniSpec;
@@ -40,6 +44,7 @@ import org.opendaylight.yang.gen.v1.urn.odl.unimgr.yang.unimgr.ext.rev170531.add
 import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.LayerProtocolName;
 import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.Uuid;
 import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.tapi.context.ServiceInterfacePointBuilder;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.OwnedNodeEdgePointRef;
 import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.node.OwnedNodeEdgePoint;
 import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.node.OwnedNodeEdgePointBuilder;
 import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.node.OwnedNodeEdgePointKey;
@@ -54,19 +59,86 @@ import org.opendaylight.yangtools.yang.common.RpcResultBuilder;
  * Implementation of unimgr specific rpc calls.
  * @author bartosz.michalik@amartus.com
  */
-public class UnimgrExtServiceImpl implements UnimgrExtService {
-
-    private ListeningExecutorService executor = MoreExecutors.listeningDecorator(
-        new ThreadPoolExecutor(1, 4,
-            10, TimeUnit.MINUTES,
-            new LinkedBlockingQueue<>()));
+public class UnimgrExtServiceImpl implements UnimgrExtService, AutoCloseable {
 
     private final DataBroker broker;
+    private RpcExecutor executor = null;
+    private boolean ownExecutor;
+    private SipIndex sipIndex;
+    private ConnectivityServiceIndex serviceIndex;
+    private TapiConnectivityServiceImpl connectivityService;
 
     public UnimgrExtServiceImpl(DataBroker broker) {
         this.broker = broker;
     }
 
+    public void init() {
+        if (executor == null) {
+            executor = new RpcExecutor("unimgr-ext", 2, 64);
+            ownExecutor = true;
+        }
+    }
+
+    @Override
+    public void close() {
+        if (ownExecutor) {
+            executor.close();
+        }
+    }
+
+    /**
+     * Set executor shared by the RPC services. When missing, init falls back to a default sized one.
+     * @param executor executor with admission control, its lifecycle is managed by the caller
+     */
+    public void setExecutor(RpcExecutor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Set index of node edge points by service interface points.
+     * When set, service interface points already mapped to another node edge point are rejected.
+     * @param sipIndex index following system topology
+     */
+    public void setSipIndex(SipIndex sipIndex) {
+        this.sipIndex = sipIndex;
+    }
+
+    /**
+     * Set index of connectivity services used to list services page by page.
+     * With no index each page reads the whole connectivity context.
+     * @param serviceIndex index following connectivity context
+     */
+    public void setServiceIndex(ConnectivityServiceIndex serviceIndex) {
+        this.serviceIndex = serviceIndex;
+    }
+
+    /**
+     * Set connectivity service implementation used to create services in batches.
+     * create-connectivity-services requests fail while it is not set.
+     * @param connectivityService connectivity service
+     */
+    public void setConnectivityService(TapiConnectivityServiceImpl connectivityService) {
+        this.connectivityService = connectivityService;
+    }
+
+    @Override
+    public ListenableFuture<RpcResult<CreateConnectivityServicesOutput>> createConnectivityServices(
+            CreateConnectivityServicesInput input) {
+        if (connectivityService == null) {
+            return Futures.immediateFuture(RpcResultBuilder.<CreateConnectivityServicesOutput>failed()
+                    .withError(RpcError.ErrorType.APPLICATION, "Batch creation of connectivity services not supported")
+                    .build());
+        }
+        return connectivityService.createConnectivityServices(input);
+    }
+
+    @Override
+    public ListenableFuture<RpcResult<ListConnectivityServicesOutput>> listConnectivityServices(
+            ListConnectivityServicesInput input) {
+        return executor.submit("list-connectivity-services",
+                new ListConnectivityServicesAction(broker, serviceIndex, input));
+    }
+
     @Override
     public ListenableFuture<RpcResult<AddSipOutput>> addSip(AddSipInput input) {
         final Uuid nepId = input.getNepId();
@@ -75,7 +147,7 @@ public class UnimgrExtServiceImpl implements UnimgrExtService {
         Objects.requireNonNull(nodeId);
         final SipType sipType = input.getSipType();
 
-        return executor.submit(() -> {
+        return executor.submit("add-sip", () -> {
             ReadWriteTransaction tx = broker.newReadWriteTransaction();
             Optional<OwnedNodeEdgePoint> nep = tx
                     .read(LogicalDatastoreType.OPERATIONAL, NrpDao.topo(TapiConstants.PRESTO_SYSTEM_TOPO)
@@ -87,6 +159,11 @@ public class UnimgrExtServiceImpl implements UnimgrExtService {
             }
 
             Uuid sipId = new Uuid("sip:" + nepId.getValue());
+            OwnedNodeEdgePointRef mapped = sipIndex == null ? null : sipIndex.get(sipId);
+            if (mapped != null && !nepId.equals(mapped.getOwnedNodeEdgePointId())) {
+                return withError("sip {0} already mapped to NEP {1} of node {2}", sipId.getValue(),
+                        mapped.getOwnedNodeEdgePointId().getValue(), mapped.getNodeId().getValue());
+            }
 
             List<MappedServiceInterfacePoint> sips = nep.get().getMappedServiceInterfacePoint();
             if (sips != null && !sips.isEmpty()) {
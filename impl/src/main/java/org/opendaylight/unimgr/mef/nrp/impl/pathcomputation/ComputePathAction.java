@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2018 Cisco Systems Inc and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.unimgr.mef.nrp.impl.pathcomputation;
+
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import org.opendaylight.unimgr.mef.nrp.api.FailureResult;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.Uuid;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.path.computation.rev180307.ComputeP2PPathInput;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.path.computation.rev180307.ComputeP2PPathOutput;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.path.computation.rev180307.ComputeP2PPathOutputBuilder;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.path.computation.rev180307.compute.p._2.p.path.output.ServiceBuilder;
+import org.opendaylight.yangtools.yang.common.RpcError.ErrorType;
+import org.opendaylight.yangtools.yang.common.RpcResult;
+import org.opendaylight.yangtools.yang.common.RpcResultBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Compute point to point path implementation.
+ */
+class ComputePathAction implements Callable<RpcResult<ComputeP2PPathOutput>> {
+    private static final Logger LOG = LoggerFactory.getLogger(ComputePathAction.class);
+
+    private final TapiPathComputationServiceImpl service;
+    private final ComputeP2PPathInput input;
+
+    ComputePathAction(TapiPathComputationServiceImpl service, ComputeP2PPathInput input) {
+        Objects.requireNonNull(service);
+        Objects.requireNonNull(input);
+        this.service = service;
+        this.input = input;
+    }
+
+    @Override
+    public RpcResult<ComputeP2PPathOutput> call() {
+        String stamp = UUID.randomUUID().toString();
+        try {
+            PlannedPath path = new PathPlanner(service)
+                    .plan(new Uuid("pcs:" + stamp), new Uuid("path:" + stamp), input.getSep(),
+                            input.getRoutingConstraint(), input.getObjectiveFunction());
+            ComputeP2PPathOutput output = new ComputeP2PPathOutputBuilder()
+                    .setService(new ServiceBuilder(path.getService()).build())
+                    .build();
+            return RpcResultBuilder.success(output).build();
+        } catch (FailureResult | InterruptedException | ExecutionException e) {
+            LOG.warn("Exception in compute path", e);
+            return RpcResultBuilder
+                    .<ComputeP2PPathOutput>failed()
+                    .withError(ErrorType.APPLICATION, e.getMessage())
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2018 Cisco Systems Inc and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.unimgr.mef.nrp.impl.pathcomputation;
+
+import java.text.MessageFormat;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.Uuid;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.path.computation.rev180307.DeleteP2PPathInput;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.path.computation.rev180307.DeleteP2PPathOutput;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.path.computation.rev180307.DeleteP2PPathOutputBuilder;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.path.computation.rev180307.delete.p._2.p.path.output.ServiceBuilder;
+import org.opendaylight.yangtools.yang.common.RpcError.ErrorType;
+import org.opendaylight.yangtools.yang.common.RpcResult;
+import org.opendaylight.yangtools.yang.common.RpcResultBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Delete point to point path implementation.
+ */
+class DeletePathAction implements Callable<RpcResult<DeleteP2PPathOutput>> {
+    private static final Logger LOG = LoggerFactory.getLogger(DeletePathAction.class);
+
+    private final TapiPathComputationServiceImpl service;
+    private final DeleteP2PPathInput input;
+
+    DeletePathAction(TapiPathComputationServiceImpl service, DeleteP2PPathInput input) {
+        Objects.requireNonNull(service);
+        Objects.requireNonNull(input);
+        this.service = service;
+        this.input = input;
+    }
+
+    @Override
+    public RpcResult<DeleteP2PPathOutput> call() {
+        Uuid pathId = new Uuid(input.getPathIdOrName());
+        try {
+            PlannedPath path = new PathPlanner(service).remove(pathId);
+            if (path == null) {
+                LOG.warn("No path for id {}", input.getPathIdOrName());
+                return RpcResultBuilder
+                        .<DeleteP2PPathOutput>failed()
+                        .withError(ErrorType.APPLICATION,
+                                MessageFormat.format("Path {0} does not exist", input.getPathIdOrName()))
+                        .build();
+            }
+            DeleteP2PPathOutput output = new DeleteP2PPathOutputBuilder()
+                    .setService(new ServiceBuilder(path.getService()).build())
+                    .build();
+            return RpcResultBuilder.success(output).build();
+        } catch (InterruptedException | ExecutionException e) {
+            LOG.warn("Exception in delete path", e);
+            return RpcResultBuilder
+                    .<DeleteP2PPathOutput>failed()
+                    .withError(ErrorType.APPLICATION, e.getMessage())
+                    .build();
+        }
+    }
+}
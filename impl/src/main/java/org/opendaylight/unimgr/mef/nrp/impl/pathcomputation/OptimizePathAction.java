@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2018 Cisco Systems Inc and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.unimgr.mef.nrp.impl.pathcomputation;
+
+import java.text.MessageFormat;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import org.opendaylight.unimgr.mef.nrp.api.FailureResult;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.Uuid;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.path.computation.rev180307.OptimizeP2PPathInput;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.path.computation.rev180307.OptimizeP2PPathOutput;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.path.computation.rev180307.OptimizeP2PPathOutputBuilder;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.path.computation.rev180307.optimize.p._2.p.path.output.ServiceBuilder;
+import org.opendaylight.yangtools.yang.common.RpcError.ErrorType;
+import org.opendaylight.yangtools.yang.common.RpcResult;
+import org.opendaylight.yangtools.yang.common.RpcResultBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Optimize point to point path implementation.
+ * Path is recomputed for the endpoints it was computed for and replaced under the same identifier.
+ */
+class OptimizePathAction implements Callable<RpcResult<OptimizeP2PPathOutput>> {
+    private static final Logger LOG = LoggerFactory.getLogger(OptimizePathAction.class);
+
+    private final TapiPathComputationServiceImpl service;
+    private final OptimizeP2PPathInput input;
+
+    OptimizePathAction(TapiPathComputationServiceImpl service, OptimizeP2PPathInput input) {
+        Objects.requireNonNull(service);
+        Objects.requireNonNull(input);
+        this.service = service;
+        this.input = input;
+    }
+
+    @Override
+    public RpcResult<OptimizeP2PPathOutput> call() {
+        Uuid pathId = new Uuid(input.getPathIdOrName());
+        PlannedPath current = service.getPathStore().get(pathId);
+        if (current == null) {
+            LOG.warn("No path for id {}", input.getPathIdOrName());
+            return RpcResultBuilder
+                    .<OptimizeP2PPathOutput>failed()
+                    .withError(ErrorType.APPLICATION,
+                            MessageFormat.format("Path {0} does not exist", input.getPathIdOrName()))
+                    .build();
+        }
+        try {
+            PlannedPath path = new PathPlanner(service)
+                    .plan(current.getService().getUuid(), pathId, current.getService().getEndPoint(),
+                            input.getRoutingConstraint() == null ? current.getService().getRoutingConstraint()
+                                    : input.getRoutingConstraint(),
+                            input.getObjectiveFunction() == null ? current.getService().getObjectiveFunction()
+                                    : input.getObjectiveFunction());
+            OptimizeP2PPathOutput output = new OptimizeP2PPathOutputBuilder()
+                    .setService(new ServiceBuilder(path.getService()).build())
+                    .build();
+            return RpcResultBuilder.success(output).build();
+        } catch (FailureResult | InterruptedException | ExecutionException e) {
+            LOG.warn("Exception in optimize path", e);
+            return RpcResultBuilder
+                    .<OptimizeP2PPathOutput>failed()
+                    .withError(ErrorType.APPLICATION, e.getMessage())
+                    .build();
+        }
+    }
+}
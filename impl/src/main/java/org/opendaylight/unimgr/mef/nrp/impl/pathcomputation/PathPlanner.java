@@ -0,0 +1,236 @@
+/*
+ * Copyright (c) 2018 Cisco Systems Inc and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.unimgr.mef.nrp.impl.pathcomputation;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.opendaylight.mdsal.binding.api.ReadWriteTransaction;
+import org.opendaylight.mdsal.common.api.LogicalDatastoreType;
+import org.opendaylight.unimgr.mef.nrp.api.Constraints;
+import org.opendaylight.unimgr.mef.nrp.api.DecompositionTemplate;
+import org.opendaylight.unimgr.mef.nrp.api.EndPoint;
+import org.opendaylight.unimgr.mef.nrp.api.FailureResult;
+import org.opendaylight.unimgr.mef.nrp.api.Subrequrest;
+import org.opendaylight.unimgr.mef.nrp.api.TapiConstants;
+import org.opendaylight.unimgr.mef.nrp.common.TapiUtils;
+import org.opendaylight.unimgr.mef.nrp.impl.decomposer.CapacityLedger;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.DirectiveValue;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.PortDirection;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.PortRole;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.Uuid;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.connectivity.service.end.point.ServiceInterfacePoint;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.create.connectivity.service.input.EndPointBuilder;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.path.computation.rev180307.PathObjectiveFunction;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.path.computation.rev180307.PathServiceEndPoint;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.path.computation.rev180307.RoutingConstraint;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.path.computation.rev180307.path.LinkBuilder;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.path.computation.rev180307.path.computation.context.Path;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.path.computation.rev180307.path.computation.context.PathBuilder;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.path.computation.rev180307.path.computation.context.PathCompService;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.path.computation.rev180307.path.computation.context.PathCompServiceBuilder;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.path.computation.rev180307.path.computation.context.PathCompServiceKey;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.path.computation.rev180307.path.computation.context.PathKey;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.path.computation.rev180307.path.computation.service.ObjectiveFunctionBuilder;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.path.computation.rev180307.path.computation.service.RoutingConstraintBuilder;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.OwnedNodeEdgePointRef;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Computes paths with the decomposer and keeps them in both {@link PathStore} and operational data store.
+ */
+class PathPlanner {
+    private static final Logger LOG = LoggerFactory.getLogger(PathPlanner.class);
+
+    private final TapiPathComputationServiceImpl service;
+
+    PathPlanner(TapiPathComputationServiceImpl service) {
+        Objects.requireNonNull(service);
+        this.service = service;
+    }
+
+    /**
+     * Compute path between service endpoints and store it. Previous path with the same identifier is replaced.
+     * @param serviceId path computation service identifier
+     * @param pathId path identifier
+     * @param seps service endpoints
+     * @param routing routing constraint (might be null)
+     * @param objective objective function (might be null)
+     * @return computed path
+     * @throws FailureResult if there is no path between the endpoints or constraints are not supported
+     */
+    PlannedPath plan(Uuid serviceId, Uuid pathId, List<? extends PathServiceEndPoint> seps,
+                     RoutingConstraint routing, PathObjectiveFunction objective)
+            throws FailureResult, InterruptedException, ExecutionException {
+        if (seps == null || seps.size() != 2) {
+            throw new FailureResult("Exactly two service endpoints are required to compute a path");
+        }
+        Constraints constraints = constraints(routing, objective);
+
+        List<org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.path.computation.rev180307
+                .path.computation.service.EndPoint> endPoints = new ArrayList<>(seps.size());
+        for (int i = 0; i < seps.size(); ++i) {
+            PathServiceEndPoint sep = seps.get(i);
+            if (sep.getServiceInterfacePoint() == null) {
+                throw new FailureResult("Service interface point is required for every service endpoint");
+            }
+            String localId = sep.getLocalId() == null ? "sep:" + i : sep.getLocalId();
+            endPoints.add(new org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.path.computation.rev180307
+                    .path.computation.service.EndPointBuilder(sep).setLocalId(localId).build());
+        }
+
+        List<EndPoint> endpoints = endPoints.stream().map(PathPlanner::toEndPoint).collect(Collectors.toList());
+        List<Subrequrest> decomposition = service.getDecomposer().decompose(endpoints, constraints);
+        if (decomposition == null || decomposition.isEmpty()) {
+            throw new FailureResult("No path found between {0}", endpoints.stream()
+                    .map(e -> e.getEndpoint().getServiceInterfacePoint().getServiceInterfacePointId().getValue())
+                    .collect(Collectors.joining(",", "[", "]")));
+        }
+
+        List<DecompositionTemplate> templates = DecompositionTemplate.of(decomposition);
+        PathCompServiceBuilder pathCompService = new PathCompServiceBuilder()
+                .setUuid(serviceId)
+                .setEndPoint(endPoints)
+                .setPath(Collections.singletonList(new org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.path
+                        .computation.rev180307.path.computation.service.PathBuilder().setPathId(pathId).build()));
+        if (routing != null) {
+            pathCompService.setRoutingConstraint(new RoutingConstraintBuilder(routing).build());
+        }
+        if (objective != null) {
+            pathCompService.setObjectiveFunction(new ObjectiveFunctionBuilder(objective).build());
+        }
+        PlannedPath planned = new PlannedPath(pathId, pathCompService.build(), templates);
+
+        Uuid topologyId = new Uuid(TapiConstants.PRESTO_SYSTEM_TOPO);
+        Path path = new PathBuilder()
+                .setUuid(pathId)
+                .setLink(service.getTopologyGraph().snapshot().getLinks(templates.stream()
+                        .flatMap(t -> t.getNeps().stream())
+                        .map(OwnedNodeEdgePointRef::getOwnedNodeEdgePointId)
+                        .collect(Collectors.toList())).stream()
+                        .map(l -> new LinkBuilder().setTopologyId(topologyId).setLinkId(l).build())
+                        .collect(Collectors.toList()))
+                .build();
+
+        commit(pathId, tx -> {
+            tx.put(LogicalDatastoreType.OPERATIONAL, TapiPathComputationServiceImpl.PATH_COMPUTATION_CTX
+                    .child(Path.class, new PathKey(pathId)), path);
+            tx.put(LogicalDatastoreType.OPERATIONAL, TapiPathComputationServiceImpl.PATH_COMPUTATION_CTX
+                    .child(PathCompService.class, new PathCompServiceKey(serviceId)), planned.getService());
+            return planned;
+        });
+
+        service.getPathStore().put(planned);
+        LOG.debug("path {} computed over {} nodes", pathId.getValue(), templates.size());
+        return planned;
+    }
+
+    /**
+     * Remove path.
+     * @param pathId path identifier
+     * @return removed path or null if there is no such path
+     */
+    PlannedPath remove(Uuid pathId) throws InterruptedException, ExecutionException {
+        PlannedPath planned = service.getPathStore().get(pathId);
+        if (planned == null) {
+            return null;
+        }
+        commit(pathId, tx -> {
+            tx.delete(LogicalDatastoreType.OPERATIONAL, TapiPathComputationServiceImpl.PATH_COMPUTATION_CTX
+                    .child(Path.class, new PathKey(pathId)));
+            tx.delete(LogicalDatastoreType.OPERATIONAL, TapiPathComputationServiceImpl.PATH_COMPUTATION_CTX
+                    .child(PathCompService.class, new PathCompServiceKey(planned.getService().getUuid())));
+            return planned;
+        });
+        service.getPathStore().remove(pathId);
+        return planned;
+    }
+
+    private void commit(Uuid pathId, Function<ReadWriteTransaction, PlannedPath> model)
+            throws InterruptedException, ExecutionException {
+        try {
+            service.getCommitRetry().commit(service.getBroker(), model, service.getExecutor().getExecutor()).get();
+        } catch (InterruptedException | ExecutionException e) {
+            LOG.error("Error with committing path {} within {} ms", pathId.getValue(),
+                    service.getCommitRetry().getDeadline());
+            throw e;
+        }
+    }
+
+    /**
+     * Convert constraints of a path computation request.
+     * @param routing routing constraint (might be null)
+     * @param objective objective function (might be null)
+     * @return decomposition constraints
+     * @throws FailureResult if a constraint is not supported
+     */
+    static Constraints constraints(RoutingConstraint routing, PathObjectiveFunction objective)
+            throws FailureResult {
+        Constraints.Builder builder = Constraints.builder();
+        if (routing != null) {
+            if (routing.getServiceLevel() != null || !isEmpty(routing.getPathLayer())
+                    || !isEmpty(routing.getCostCharacteristic())) {
+                throw new FailureResult("Only latency characteristic, requested capacity and topologies "
+                        + "are supported as routing constraints");
+            }
+            Uuid topologyId = new Uuid(TapiConstants.PRESTO_SYSTEM_TOPO);
+            boolean avoided = routing.getAvoidTopology() != null && routing.getAvoidTopology().contains(topologyId);
+            boolean included = isEmpty(routing.getIncludeTopology()) || routing.getIncludeTopology().stream()
+                    .anyMatch(t -> topologyId.equals(t.getTopologyId()));
+            if (avoided || !included) {
+                throw new FailureResult("Paths are computed in {0} topology only", topologyId.getValue());
+            }
+            builder.maxLatency(Constraints.maxLatency(routing.getLatencyCharacteristic()));
+            if (routing.getRequestedCapacity() != null) {
+                Long bps = CapacityLedger.bps(routing.getRequestedCapacity().getTotalSize());
+                if (bps == null) {
+                    throw new FailureResult("Requested capacity has to be defined with a rate unit");
+                }
+                builder.bandwidth(bps);
+            }
+        }
+        if (objective != null) {
+            if (Stream.of(objective.getBandwidthOptimization(), objective.getConcurrentPaths(),
+                    objective.getLinkUtilization(), objective.getResourceSharing())
+                    .anyMatch(d -> d != null && d != DirectiveValue.DONTCARE)) {
+                throw new FailureResult("Only cost optimization is supported as an objective function");
+            }
+            if (objective.getCostOptimization() == DirectiveValue.MINIMIZE) {
+                builder.metric(Constraints.Metric.COST);
+            } else if (objective.getCostOptimization() != null
+                    && objective.getCostOptimization() != DirectiveValue.DONTCARE) {
+                throw new FailureResult("Cost can only be minimized");
+            }
+        }
+        return builder.build();
+    }
+
+    private static boolean isEmpty(Collection<?> values) {
+        return values == null || values.isEmpty();
+    }
+
+    static EndPoint toEndPoint(PathServiceEndPoint sep) {
+        EndPoint ep = new EndPoint(new EndPointBuilder()
+                .setLocalId(sep.getLocalId())
+                .setRole(sep.getRole() == null ? PortRole.SYMMETRIC : sep.getRole())
+                .setDirection(sep.getDirection() == null ? PortDirection.BIDIRECTIONAL : sep.getDirection())
+                .setServiceInterfacePoint(TapiUtils.toSipRef(sep.getServiceInterfacePoint(),
+                        ServiceInterfacePoint.class))
+                .build(), null);
+        ep.setLocalId(sep.getLocalId());
+        return ep;
+    }
+}
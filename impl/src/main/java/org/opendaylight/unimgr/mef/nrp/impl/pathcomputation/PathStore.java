@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2018 Cisco Systems Inc and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.unimgr.mef.nrp.impl.pathcomputation;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import org.opendaylight.mdsal.binding.api.DataBroker;
+import org.opendaylight.mdsal.binding.api.ReadTransaction;
+import org.opendaylight.mdsal.common.api.LogicalDatastoreType;
+import org.opendaylight.unimgr.mef.nrp.api.DecompositionTemplate;
+import org.opendaylight.unimgr.mef.nrp.api.EndPoint;
+import org.opendaylight.unimgr.mef.nrp.api.Subrequrest;
+import org.opendaylight.unimgr.mef.nrp.api.TapiConstants;
+import org.opendaylight.unimgr.mef.nrp.common.NrpDao;
+import org.opendaylight.unimgr.mef.nrp.common.TapiUtils;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.Uuid;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.path.computation.rev180307.Context1;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.path.computation.rev180307.path.computation.context.Path;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.path.computation.rev180307.path.computation.context.PathCompService;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.OwnedNodeEdgePointRef;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.topology.Link;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.topology.LinkKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Store of computed paths.
+ * Paths are kept until deleted with delete-p-2-p-path, so that connectivity services
+ * can reference them and skip decomposition.
+ * Paths missing from memory, e.g. computed before a restart, are resolved against the operational data store:
+ * node edge points of the stored links and of the endpoints are grouped by node.
+ */
+public class PathStore {
+    private static final Logger LOG = LoggerFactory.getLogger(PathStore.class);
+
+    private final Map<Uuid, PlannedPath> paths = new ConcurrentHashMap<>();
+    private final DataBroker broker;
+
+    /**
+     * Create store keeping paths in memory only.
+     */
+    public PathStore() {
+        this(null);
+    }
+
+    /**
+     * Create store resolving paths missing from memory against the data store.
+     * @param broker data broker (might be null)
+     */
+    public PathStore(DataBroker broker) {
+        this.broker = broker;
+    }
+
+    public void put(PlannedPath path) {
+        Objects.requireNonNull(path);
+        paths.put(path.getPathId(), path);
+    }
+
+    public PlannedPath get(Uuid pathId) {
+        if (pathId == null) {
+            return null;
+        }
+        PlannedPath path = paths.get(pathId);
+        if (path != null || broker == null) {
+            return path;
+        }
+        try {
+            path = load(pathId);
+        } catch (InterruptedException | ExecutionException e) {
+            LOG.warn("Cannot read path {}: {}", pathId.getValue(), e.getMessage());
+            return null;
+        }
+        if (path == null) {
+            return null;
+        }
+        PlannedPath previous = paths.putIfAbsent(pathId, path);
+        return previous == null ? path : previous;
+    }
+
+    public PlannedPath remove(Uuid pathId) {
+        return pathId == null ? null : paths.remove(pathId);
+    }
+
+    public int size() {
+        return paths.size();
+    }
+
+    private PlannedPath load(Uuid pathId) throws InterruptedException, ExecutionException {
+        try (ReadTransaction tx = broker.newReadOnlyTransaction()) {
+            Optional<Context1> ctx = tx.read(LogicalDatastoreType.OPERATIONAL,
+                    TapiPathComputationServiceImpl.PATH_COMPUTATION_CTX).get();
+            Optional<Path> path = ctx.map(Context1::getPath).flatMap(ps -> ps.stream()
+                    .filter(p -> pathId.equals(p.getUuid())).findFirst());
+            Optional<PathCompService> service = ctx.map(Context1::getPathCompService).flatMap(ss -> ss.stream()
+                    .filter(s -> s.getPath() != null && s.getPath().stream()
+                            .anyMatch(p -> pathId.equals(p.getPathId())))
+                    .findFirst());
+            if (!path.isPresent() || !service.isPresent() || service.get().getEndPoint() == null) {
+                return null;
+            }
+
+            NrpDao dao = new NrpDao(tx);
+            Map<Uuid, List<EndPoint>> byNode = new LinkedHashMap<>();
+            for (org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.path.computation.rev180307
+                    .path.computation.service.EndPoint sep : service.get().getEndPoint()) {
+                Optional<OwnedNodeEdgePointRef> nep = dao.getNepBySip(sep.getServiceInterfacePoint());
+                if (!nep.isPresent()) {
+                    LOG.info("Endpoint {} of path {} is no longer in the topology", sep.getLocalId(),
+                            pathId.getValue());
+                    return null;
+                }
+                byNode.computeIfAbsent(nep.get().getNodeId(), n -> new ArrayList<>())
+                        .add(PathPlanner.toEndPoint(sep).setNepRef(nep.get()));
+            }
+            if (path.get().getLink() != null) {
+                for (org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.path.computation.rev180307.path.Link pathLink
+                        : path.get().getLink()) {
+                    Optional<Link> link = tx.read(LogicalDatastoreType.OPERATIONAL,
+                            NrpDao.topo(TapiConstants.PRESTO_SYSTEM_TOPO)
+                                    .child(Link.class, new LinkKey(pathLink.getLinkId()))).get();
+                    if (!link.isPresent() || link.get().getNodeEdgePoint() == null) {
+                        LOG.info("Link {} of path {} is no longer in the topology", pathLink.getLinkId().getValue(),
+                                pathId.getValue());
+                        return null;
+                    }
+                    for (OwnedNodeEdgePointRef ref : link.get().getNodeEdgePoint()) {
+                        byNode.computeIfAbsent(ref.getNodeId(), n -> new ArrayList<>()).add(new EndPoint(null, null)
+                                .setNepRef(TapiUtils.toSysNepRef(ref.getNodeId(), ref.getOwnedNodeEdgePointId())));
+                    }
+                }
+            }
+
+            List<Subrequrest> decomposition = new ArrayList<>(byNode.size());
+            for (Map.Entry<Uuid, List<EndPoint>> e : byNode.entrySet()) {
+                decomposition.add(new Subrequrest(e.getKey(), e.getValue(), dao.getActivationDriverId(e.getKey())));
+            }
+            LOG.debug("path {} resolved over {} nodes", pathId.getValue(), decomposition.size());
+            return new PlannedPath(pathId, service.get(), DecompositionTemplate.of(decomposition));
+        }
+    }
+}
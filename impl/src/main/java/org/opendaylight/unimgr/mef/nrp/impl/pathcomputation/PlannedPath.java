@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2018 Cisco Systems Inc and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.unimgr.mef.nrp.impl.pathcomputation;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.opendaylight.unimgr.mef.nrp.api.DecompositionTemplate;
+import org.opendaylight.unimgr.mef.nrp.api.EndPoint;
+import org.opendaylight.unimgr.mef.nrp.api.Subrequrest;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.Uuid;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.path.computation.rev180307.PathServiceEndPoint;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.path.computation.rev180307.path.computation.context.PathCompService;
+
+/**
+ * Path computed by {@link TapiPathComputationServiceImpl} together with its decomposition.
+ */
+public final class PlannedPath {
+    private final Uuid pathId;
+    private final PathCompService service;
+    private final List<DecompositionTemplate> decomposition;
+
+    PlannedPath(Uuid pathId, PathCompService service, List<DecompositionTemplate> decomposition) {
+        Objects.requireNonNull(pathId);
+        Objects.requireNonNull(service);
+        Objects.requireNonNull(decomposition);
+        this.pathId = pathId;
+        this.service = service;
+        this.decomposition = decomposition;
+    }
+
+    public Uuid getPathId() {
+        return pathId;
+    }
+
+    public PathCompService getService() {
+        return service;
+    }
+
+    /**
+     * Check if path is computed for the same service interface points as the request endpoints.
+     * @param endpoints request endpoints
+     * @return true if path connects the endpoints
+     */
+    public boolean connects(List<EndPoint> endpoints) {
+        Set<Uuid> requested = endpoints.stream()
+                .map(e -> e.getEndpoint().getServiceInterfacePoint().getServiceInterfacePointId())
+                .collect(Collectors.toSet());
+        Set<Uuid> planned = service.getEndPoint().stream()
+                .map(PathServiceEndPoint::getServiceInterfacePoint)
+                .collect(Collectors.toSet());
+        return requested.equals(planned);
+    }
+
+    /**
+     * Bind request endpoints to the path decomposition.
+     * @param endpoints request endpoints
+     * @return decomposition of the request
+     */
+    public List<Subrequrest> bind(List<EndPoint> endpoints) {
+        return DecompositionTemplate.bind(decomposition, endpoints);
+    }
+}
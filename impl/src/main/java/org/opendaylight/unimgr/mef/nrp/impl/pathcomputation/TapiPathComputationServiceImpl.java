@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2018 Cisco Systems Inc and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.unimgr.mef.nrp.impl.pathcomputation;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import java.util.Objects;
+import org.opendaylight.mdsal.binding.api.DataBroker;
+import org.opendaylight.unimgr.mef.nrp.api.RequestDecomposer;
+import org.opendaylight.unimgr.mef.nrp.common.CommitRetry;
+import org.opendaylight.unimgr.mef.nrp.common.NrpDao;
+import org.opendaylight.unimgr.mef.nrp.common.RpcExecutor;
+import org.opendaylight.unimgr.mef.nrp.impl.decomposer.TopologyGraph;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.path.computation.rev180307.ComputeP2PPathInput;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.path.computation.rev180307.ComputeP2PPathOutput;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.path.computation.rev180307.Context1;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.path.computation.rev180307.DeleteP2PPathInput;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.path.computation.rev180307.DeleteP2PPathOutput;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.path.computation.rev180307.OptimizeP2PPathInput;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.path.computation.rev180307.OptimizeP2PPathOutput;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.path.computation.rev180307.TapiPathComputationService;
+import org.opendaylight.yangtools.yang.binding.InstanceIdentifier;
+import org.opendaylight.yangtools.yang.common.RpcResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * TapiPathComputation RPC implementation.
+ * Paths are computed with the {@link RequestDecomposer} but nothing is activated on devices
+ * and no connectivity model is created. Computed paths are kept in {@link PathStore}
+ * and can be referenced with include-path constraint of create-connectivity-service.
+ */
+public class TapiPathComputationServiceImpl implements TapiPathComputationService, AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TapiPathComputationServiceImpl.class);
+    static final InstanceIdentifier<Context1> PATH_COMPUTATION_CTX = NrpDao.ctx().augmentation(Context1.class);
+    private RequestDecomposer decomposer;
+    private DataBroker broker;
+    private PathStore pathStore;
+    private TopologyGraph topologyGraph;
+    private CommitRetry commitRetry = CommitRetry.DEFAULT;
+
+    private RpcExecutor executor = null;
+    private boolean ownExecutor;
+
+    public void init() {
+        Objects.requireNonNull(decomposer);
+        Objects.requireNonNull(broker);
+        Objects.requireNonNull(pathStore);
+        Objects.requireNonNull(topologyGraph);
+        if (executor == null) {
+            executor = new RpcExecutor("tapi-path-computation", 4, 128);
+            ownExecutor = true;
+        }
+        LOG.info("TapiPathComputationService initialized");
+    }
+
+    @Override
+    public void close() {
+        if (ownExecutor) {
+            executor.close();
+        }
+    }
+
+    @Override
+    public ListenableFuture<RpcResult<ComputeP2PPathOutput>> computeP2PPath(ComputeP2PPathInput input) {
+        return executor.submit("compute-p2p-path", new ComputePathAction(this, input));
+    }
+
+    @Override
+    public ListenableFuture<RpcResult<OptimizeP2PPathOutput>> optimizeP2PPath(OptimizeP2PPathInput input) {
+        return executor.submit("optimize-p2p-path", new OptimizePathAction(this, input));
+    }
+
+    @Override
+    public ListenableFuture<RpcResult<DeleteP2PPathOutput>> deleteP2PPath(DeleteP2PPathInput input) {
+        return executor.submit("delete-p2p-path", new DeletePathAction(this, input));
+    }
+
+    /**
+     * Set executor of the RPCs. The service owns a default sized executor when this one is not set.
+     * @param executor executor with admission control, its lifecycle is managed by the caller
+     */
+    public void setExecutor(RpcExecutor executor) {
+        this.executor = executor;
+    }
+
+    public void setDecomposer(RequestDecomposer decomposer) {
+        this.decomposer = decomposer;
+    }
+
+    public void setBroker(DataBroker broker) {
+        this.broker = broker;
+    }
+
+    public void setPathStore(PathStore pathStore) {
+        this.pathStore = pathStore;
+    }
+
+    /**
+     * Set system topology graph, used to find links of the computed paths.
+     * @param topologyGraph topology graph
+     */
+    public void setTopologyGraph(TopologyGraph topologyGraph) {
+        this.topologyGraph = topologyGraph;
+    }
+
+    /**
+     * Set retry policy of the path commits. {@link CommitRetry#DEFAULT} is used by default.
+     * @param commitRetry retry policy
+     */
+    public void setCommitRetry(CommitRetry commitRetry) {
+        this.commitRetry = commitRetry;
+    }
+
+    RequestDecomposer getDecomposer() {
+        return decomposer;
+    }
+
+    DataBroker getBroker() {
+        return broker;
+    }
+
+    PathStore getPathStore() {
+        return pathStore;
+    }
+
+    TopologyGraph getTopologyGraph() {
+        return topologyGraph;
+    }
+
+    CommitRetry getCommitRetry() {
+        return commitRetry;
+    }
+
+    RpcExecutor getExecutor() {
+        return executor;
+    }
+}
@@ -8,26 +8,20 @@
 
 package org.opendaylight.unimgr.mef.nrp.impl.topologytervice;
 
+import com.google.common.util.concurrent.FluentFuture;
 import com.google.common.util.concurrent.ListenableFuture;
-import com.google.common.util.concurrent.ListeningExecutorService;
 import com.google.common.util.concurrent.MoreExecutors;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.ThreadPoolExecutor;
-import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import org.opendaylight.mdsal.binding.api.DataBroker;
-import org.opendaylight.mdsal.binding.api.ReadTransaction;
-import org.opendaylight.mdsal.common.api.LogicalDatastoreType;
-import org.opendaylight.unimgr.mef.nrp.common.NrpDao;
+import org.opendaylight.unimgr.mef.nrp.common.AsyncNrpDao;
+import org.opendaylight.unimgr.mef.nrp.common.RpcExecutor;
 import org.opendaylight.yang.gen.v1.urn.odl.unimgr.yang.unimgr.ext.rev170531.NodeAdiAugmentation;
 import org.opendaylight.yang.gen.v1.urn.odl.unimgr.yang.unimgr.ext.rev170531.NodeSvmAugmentation;
-import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.Uuid;
 import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.OwnedNodeEdgePoint1;
-import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.Context1;
 import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.GetLinkDetailsInput;
 import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.GetLinkDetailsOutput;
 import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.GetLinkDetailsOutputBuilder;
@@ -49,10 +43,7 @@ import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.ge
 import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.get.topology.details.output.TopologyBuilder;
 import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.node.OwnedNodeEdgePoint;
 import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.node.OwnedNodeEdgePointBuilder;
-import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.topology.Link;
-import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.topology.LinkKey;
 import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.topology.Node;
-import org.opendaylight.yangtools.yang.binding.KeyedInstanceIdentifier;
 import org.opendaylight.yangtools.yang.common.RpcError;
 import org.opendaylight.yangtools.yang.common.RpcResult;
 import org.opendaylight.yangtools.yang.common.RpcResultBuilder;
@@ -68,43 +59,43 @@ public class TapiTopologyServiceImpl implements TapiTopologyService, AutoCloseab
     private static final Logger LOG = LoggerFactory.getLogger(TapiTopologyServiceImpl.class);
     private DataBroker broker;
 
-    // TODO decide on strategy for executor service
-    private ListeningExecutorService executor = null;
+    private RpcExecutor executor = null;
+    private boolean ownExecutor;
 
     public void init() {
         Objects.requireNonNull(broker);
         if (executor == null) {
-            executor = MoreExecutors.listeningDecorator(
-                    new ThreadPoolExecutor(4, 16,
-                            30, TimeUnit.MINUTES,
-                            new LinkedBlockingQueue<>()));
+            executor = new RpcExecutor("tapi-topology", 4, 256);
+            ownExecutor = true;
         }
         LOG.info("TapiTopologyService initialized");
     }
 
     @Override
     public void close() {
-        if (!executor.isTerminated()) {
-            executor.shutdownNow();
+        if (ownExecutor) {
+            executor.close();
         }
     }
 
     @Override
     public ListenableFuture<RpcResult<GetNodeDetailsOutput>> getNodeDetails(GetNodeDetailsInput input) {
-        return executor.submit(() -> {
-            NrpDao nrpDao = new NrpDao(broker.newReadOnlyTransaction());
+        return executor.submitAsync("get-node-details", () -> readNodeDetails(input));
+    }
+
+    private FluentFuture<RpcResult<GetNodeDetailsOutput>> readNodeDetails(GetNodeDetailsInput input) {
+        AsyncNrpDao nrpDao = new AsyncNrpDao(broker.newReadOnlyTransaction());
 
-            Node node = nrpDao.getNode(input.getTopologyIdOrName(), input.getNodeIdOrName());
-            if (node == null) {
+        return nrpDao.getNode(input.getTopologyIdOrName(), input.getNodeIdOrName()).transform(node -> {
+            if (!node.isPresent()) {
                 return RpcResultBuilder.<GetNodeDetailsOutput>failed().withError(RpcError.ErrorType.APPLICATION,
                         String.format("No node for id: %s in topology %s",
                                 input.getNodeIdOrName(), input.getTopologyIdOrName())).build();
             }
-            node = rewriteNode(node);
             GetNodeDetailsOutput output = new GetNodeDetailsOutputBuilder()
-                    .setNode(new NodeBuilder(node).build()).build();
+                    .setNode(new NodeBuilder(rewriteNode(node.get())).build()).build();
             return RpcResultBuilder.success(output).build();
-        });
+        }, MoreExecutors.directExecutor());
     }
 
     @Override
@@ -115,72 +106,71 @@ public class TapiTopologyServiceImpl implements TapiTopologyService, AutoCloseab
 
     @Override
     public ListenableFuture<RpcResult<GetLinkDetailsOutput>> getLinkDetails(GetLinkDetailsInput input) {
-        return executor.submit(() -> {
-            RpcResult<GetLinkDetailsOutput> out = RpcResultBuilder.<GetLinkDetailsOutput>failed()
-                    .withError(RpcError.ErrorType.APPLICATION, "No link in topology").build();
-            ReadTransaction rtx = broker.newReadOnlyTransaction();
-            KeyedInstanceIdentifier<Link, LinkKey> linkId = NrpDao.topo(input.getTopologyIdOrName())
-                    .child(Link.class, new LinkKey(new Uuid(input.getLinkIdOrName())));
-            Optional<Link> optional = rtx.read(LogicalDatastoreType.OPERATIONAL, linkId).get();
-            if (optional.isPresent()) {
-                out = RpcResultBuilder
-                        .success(new GetLinkDetailsOutputBuilder()
-                                .setLink(new LinkBuilder(optional.get()).build()).build())
-                        .build();
+        return executor.submitAsync("get-link-details", () -> readLinkDetails(input));
+    }
+
+    private FluentFuture<RpcResult<GetLinkDetailsOutput>> readLinkDetails(GetLinkDetailsInput input) {
+        AsyncNrpDao nrpDao = new AsyncNrpDao(broker.newReadOnlyTransaction());
+
+        return nrpDao.getLink(input.getTopologyIdOrName(), input.getLinkIdOrName()).transform(link -> {
+            if (!link.isPresent()) {
+                return RpcResultBuilder.<GetLinkDetailsOutput>failed()
+                        .withError(RpcError.ErrorType.APPLICATION, "No link in topology").build();
             }
-            return out;
-        });
+            return RpcResultBuilder
+                    .success(new GetLinkDetailsOutputBuilder()
+                            .setLink(new LinkBuilder(link.get()).build()).build())
+                    .build();
+        }, MoreExecutors.directExecutor());
     }
 
+    /**
+     * List topologies. Topologies are rewritten on the service executor as it is proportional to the topology size.
+     */
     @Override
     public ListenableFuture<RpcResult<GetTopologyListOutput>> getTopologyList(GetTopologyListInput input) {
-        return executor.submit(this::getTopologies);
+        return executor.transform("get-topology-list",
+            () -> new AsyncNrpDao(broker.newReadOnlyTransaction()).getTopologies(),
+            topologies -> RpcResultBuilder.success(
+                new GetTopologyListOutputBuilder()
+                        .setTopology(topologies.stream().map(t ->
+                                new org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307
+                                        .get.topology.list.output.TopologyBuilder(rewriteTopology(t))
+                                        .build()
+                        ).collect(Collectors.toList()))
+                ).build())
+                .catching(Exception.class, e -> RpcResultBuilder.<GetTopologyListOutput>failed()
+                        .withError(RpcError.ErrorType.APPLICATION, "Cannot read topologies", e).build(),
+                        MoreExecutors.directExecutor());
     }
 
     @Override
     public ListenableFuture<RpcResult<GetTopologyDetailsOutput>> getTopologyDetails(GetTopologyDetailsInput input) {
-        return executor.submit(() -> {
-            NrpDao nrpDao = new NrpDao(broker.newReadOnlyTransaction());
-            Topology topo = nrpDao.getTopology(input.getTopologyIdOrName());
+        final Supplier<FluentFuture<Optional<org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307
+                .topology.context.Topology>>> read =
+                    () -> new AsyncNrpDao(broker.newReadOnlyTransaction()).getTopology(input.getTopologyIdOrName());
 
-            if (topo == null) {
+        return executor.transform("get-topology-details", read, topo -> {
+            if (!topo.isPresent()) {
                 return RpcResultBuilder.<GetTopologyDetailsOutput>failed()
                         .withError(RpcError.ErrorType.APPLICATION,
                                 String.format("No topology for id: %s", input.getTopologyIdOrName())).build();
             }
 
             GetTopologyDetailsOutput result = new GetTopologyDetailsOutputBuilder()
-                    .setTopology(new TopologyBuilder(rewriteTopology(topo)).build())
+                    .setTopology(new TopologyBuilder(rewriteTopology(topo.get())).build())
                     .build();
             return RpcResultBuilder.success(result).build();
         });
     }
 
-    private RpcResult<GetTopologyListOutput> getTopologies() {
-        ReadTransaction rtx = broker.newReadOnlyTransaction();
-        RpcResult<GetTopologyListOutput> out = RpcResultBuilder
-                .success(new GetTopologyListOutputBuilder().build()).build();
-        try {
-            List<? extends Topology> topologies;
-            Optional<Context1> ctx = rtx.read(LogicalDatastoreType.OPERATIONAL, NrpDao.ctx()
-                    .augmentation(Context1.class)).get();
-            if (ctx.isPresent()) {
-                topologies = ctx.get().getTopology();
-
-                out = RpcResultBuilder.success(
-                        new GetTopologyListOutputBuilder()
-                                .setTopology(topologies.stream().map(t ->
-                                        new org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307
-                                                .get.topology.list.output.TopologyBuilder(rewriteTopology(t))
-                                                .build()
-                                ).collect(Collectors.toList()))
-                ).build();
-            }
-        } catch (NullPointerException | InterruptedException | ExecutionException e) {
-            out = RpcResultBuilder.<GetTopologyListOutput>failed()
-                    .withError(RpcError.ErrorType.APPLICATION, "Cannot read topologies", e).build();
-        }
-        return out;
+    /**
+     * Set executor shared by the RPC services, it also rewrites the topologies read.
+     * Without it the service creates and closes an executor of its own.
+     * @param executor executor with admission control, its lifecycle is managed by the caller
+     */
+    public void setExecutor(RpcExecutor executor) {
+        this.executor = executor;
     }
 
     private Node rewriteNode(Node node) {
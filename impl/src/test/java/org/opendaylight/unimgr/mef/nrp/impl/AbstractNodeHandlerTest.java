@@ -18,6 +18,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.concurrent.ExecutionException;
 import java.util.function.BiConsumer;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import org.eclipse.jdt.annotation.NonNull;
@@ -105,7 +106,7 @@ public class AbstractNodeHandlerTest extends AbstractTestWithTopo {
         performNrpDaoAction(update, newNep).get();
 
         //then
-        Node node = getAbstractNode(n -> n.getOwnedNodeEdgePoint().size() == INIT_NEPS_COUNT + 1);
+        Node node = getAbstractNode(withNeps(INIT_NEPS_COUNT + 1));
 
         assertTrue(node.getOwnedNodeEdgePoint().contains(newNep));
     }
@@ -178,7 +179,7 @@ public class AbstractNodeHandlerTest extends AbstractTestWithTopo {
         tx.commit().get();
 
         //then a nep was removed
-        getAbstractNode(n -> n.getOwnedNodeEdgePoint().size() == 1);
+        getAbstractNode(withNeps(1));
     }
 
     @Test
@@ -204,7 +205,7 @@ public class AbstractNodeHandlerTest extends AbstractTestWithTopo {
         performNrpDaoAction(removeNep,nepNameToRemove).get();
 
         //then
-        Node node = getAbstractNode(n -> n.getOwnedNodeEdgePoint().size() == INIT_NEPS_COUNT - 1);
+        Node node = getAbstractNode(withNeps(INIT_NEPS_COUNT - 1));
 
         assertFalse(node.getOwnedNodeEdgePoint().stream()
             .anyMatch(nep -> nep.getUuid().getValue().equals(nepNameToRemove)));
@@ -264,4 +265,9 @@ public class AbstractNodeHandlerTest extends AbstractTestWithTopo {
 
         return getAbstractNode(n -> n.getOwnedNodeEdgePoint() != null);
     }
+
+    private static Predicate<Node> withNeps(int count) {
+        //node is written before its NEPs are updated
+        return n -> n.getOwnedNodeEdgePoint() != null && n.getOwnedNodeEdgePoint().size() == count;
+    }
 }
@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2018 Cisco Systems Inc and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.unimgr.mef.nrp.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+import com.google.common.util.concurrent.FluentFuture;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.MoreExecutors;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Before;
+import org.junit.Test;
+import org.opendaylight.mdsal.binding.api.ReadOperations;
+import org.opendaylight.mdsal.binding.api.ReadWriteTransaction;
+import org.opendaylight.mdsal.common.api.LogicalDatastoreType;
+import org.opendaylight.mdsal.common.api.ReadFailedException;
+import org.opendaylight.unimgr.mef.nrp.api.TapiConstants;
+import org.opendaylight.unimgr.mef.nrp.common.AsyncNrpDao;
+import org.opendaylight.unimgr.mef.nrp.common.NrpDao;
+import org.opendaylight.unimgr.mef.nrp.common.ServiceNameIndex;
+import org.opendaylight.unimgr.mef.nrp.common.TapiUtils;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.OperationalState;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.Uuid;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.global._class.NameBuilder;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.Context1;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.connectivity.context.ConnectivityService;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.connectivity.context.ConnectivityServiceBuilder;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.connectivity.context.ConnectivityServiceKey;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.connectivity.service.EndPointBuilder;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.connectivity.service.end.point.ServiceInterfacePoint;
+
+public class AsyncNrpDaoTest extends AbstractTestWithTopo {
+    private final AtomicInteger scans = new AtomicInteger();
+    private final Executor executor = task -> {
+        scans.incrementAndGet();
+        MoreExecutors.directExecutor().execute(task);
+    };
+    private AsyncNrpDao dao;
+
+    @Before
+    public void setUp() throws Exception {
+        ReadWriteTransaction tx = dataBroker.newReadWriteTransaction();
+        n(tx, "n1", "n1:1", "n1:2");
+        n(tx, "n2", "n2:1", "n2:2");
+        l(tx, "n1", "n1:2", "n2", "n2:2", OperationalState.ENABLED);
+        tx.put(LogicalDatastoreType.OPERATIONAL, NrpDao.ctx().augmentation(Context1.class)
+                .child(ConnectivityService.class, new ConnectivityServiceKey(new Uuid("cs1"))),
+                new ConnectivityServiceBuilder()
+                        .setUuid(new Uuid("cs1"))
+                        .setName(Collections.singletonList(
+                                new NameBuilder().setValueName("name").setValue("svc").build()))
+                        .setEndPoint(Collections.singletonList(new EndPointBuilder()
+                                .setLocalId("ep1")
+                                .setServiceInterfacePoint(TapiUtils.toSipRef(new Uuid("sip:n1:1"),
+                                        ServiceInterfacePoint.class))
+                                .build()))
+                        .build());
+        tx.commit().get();
+        dao = new AsyncNrpDao(dataBroker.newReadOnlyTransaction());
+    }
+
+    @Test
+    public void nodeDetails() throws Exception {
+        assertEquals(new Uuid("n1"), get(dao.getNode(new Uuid("n1"))).get().getUuid());
+        assertEquals(new Uuid("n2"), get(dao.getNode(TapiConstants.PRESTO_SYSTEM_TOPO, "n2")).get().getUuid());
+        assertFalse(get(dao.getNode(new Uuid("other"))).isPresent());
+    }
+
+    @Test
+    public void linkDetails() throws Exception {
+        assertEquals(new Uuid("n1:2-n2:2"),
+                get(dao.getLink(TapiConstants.PRESTO_SYSTEM_TOPO, "n1:2-n2:2")).get().getUuid());
+        assertFalse(get(dao.getLink(TapiConstants.PRESTO_SYSTEM_TOPO, "n1:1-n2:1")).isPresent());
+    }
+
+    @Test
+    public void sipDetails() throws Exception {
+        assertEquals(new Uuid("sip:n1:1"), get(dao.getSip("sip:n1:1")).get().getUuid());
+        assertFalse(get(dao.getSip("sip:other")).isPresent());
+    }
+
+    @Test
+    public void connectivityServiceDetails() throws Exception {
+        ServiceNameIndex names = new ServiceNameIndex();
+        assertEquals(new Uuid("cs1"), get(dao.getConnectivityService("cs1", names, executor)).get().getUuid());
+        assertFalse(get(dao.getConnectivityService("other", names, executor)).isPresent());
+        assertEquals(0, scans.get());
+
+        //name found by a scan on the executor when there is no index
+        assertEquals(new Uuid("cs1"), get(dao.getConnectivityService("svc", null, executor)).get().getUuid());
+        assertFalse(get(dao.getConnectivityService("other", null, executor)).isPresent());
+        assertEquals(2, scans.get());
+
+        names.put(get(dao.getConnectivityService(new Uuid("cs1"))).get());
+        assertEquals(new Uuid("cs1"), get(dao.getConnectivityService("svc", names, executor)).get().getUuid());
+        assertEquals(2, scans.get());
+    }
+
+    @Test
+    public void failedReads() throws Exception {
+        ReadOperations rtx = mock(ReadOperations.class);
+        doReturn(FluentFuture.from(Futures.immediateFailedFuture(new ReadFailedException("datastore down"))))
+                .when(rtx).read(any(), any());
+        AsyncNrpDao failing = new AsyncNrpDao(rtx);
+
+        assertFailed(failing.getNode(new Uuid("n1")));
+        assertFailed(failing.getLink(TapiConstants.PRESTO_SYSTEM_TOPO, "n1:2-n2:2"));
+        assertFailed(failing.getSip("sip:n1:1"));
+        assertFailed(failing.getSips());
+        assertFailed(failing.getConnectivityService("svc", null, executor));
+        assertFailed(failing.getConnectivityService("svc", new ServiceNameIndex(), executor));
+        assertEquals(0, scans.get());
+    }
+
+    private static <T> T get(Future<T> future) throws Exception {
+        return future.get(5, TimeUnit.SECONDS);
+    }
+
+    private static void assertFailed(Future<?> future) throws Exception {
+        try {
+            Optional<?> value = Optional.ofNullable(get(future));
+            fail("read expected to fail, got " + value);
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause().toString(), e.getCause() instanceof ReadFailedException);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2018 Cisco Systems Inc and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.unimgr.mef.nrp.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.common.util.concurrent.FluentFuture;
+import com.google.common.util.concurrent.Futures;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.opendaylight.mdsal.binding.api.DataBroker;
+import org.opendaylight.mdsal.binding.api.ReadWriteTransaction;
+import org.opendaylight.mdsal.common.api.CommitInfo;
+import org.opendaylight.mdsal.common.api.OptimisticLockFailedException;
+import org.opendaylight.mdsal.common.api.TransactionCommitFailedException;
+import org.opendaylight.unimgr.mef.nrp.common.CommitRetry;
+
+public class CommitRetryTest {
+    private final AtomicInteger written = new AtomicInteger();
+    private final AtomicInteger submitted = new AtomicInteger();
+    private final ExecutorService pool = Executors.newSingleThreadExecutor();
+    private final Executor executor = task -> {
+        submitted.incrementAndGet();
+        pool.execute(task);
+    };
+    private DataBroker broker;
+    private ReadWriteTransaction tx;
+
+    @Before
+    public void setUp() {
+        broker = mock(DataBroker.class);
+        tx = mock(ReadWriteTransaction.class);
+        when(broker.newReadWriteTransaction()).thenReturn(tx);
+    }
+
+    @After
+    public void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    public void retriedOnConflict() throws Exception {
+        doReturn(conflict(), conflict(), CommitInfo.emptyFluentFuture()).when(tx).commit();
+
+        assertEquals("model",
+                new CommitRetry(1, 5, 5000).commit(broker, this::write, executor).get(5, TimeUnit.SECONDS));
+        assertEquals(3, written.get());
+        assertEquals(3, submitted.get());
+        verify(broker, times(3)).newReadWriteTransaction();
+    }
+
+    @Test
+    public void timedOutWhenExecutorIsBusy() throws Exception {
+        pool.execute(() -> {
+            try {
+                Thread.sleep(500);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        assertFailed(new CommitRetry(1, 5, 50).commit(broker, this::write, executor), TimeoutException.class);
+        Thread.sleep(600);
+        assertEquals(0, written.get());
+    }
+
+    @Test
+    public void notRetriedOnOtherFailure() throws Exception {
+        doReturn(failure(new TransactionCommitFailedException("invalid data"))).when(tx).commit();
+
+        assertFailed(new CommitRetry(1, 5, 5000).commit(broker, this::write, executor),
+                TransactionCommitFailedException.class);
+        assertEquals(1, written.get());
+    }
+
+    @Test
+    public void givenUpAtDeadline() throws Exception {
+        doReturn(conflict()).when(tx).commit();
+
+        assertFailed(new CommitRetry(20, 20, 100).commit(broker, this::write, executor),
+                OptimisticLockFailedException.class);
+        assertTrue(written.get() > 1);
+        assertTrue(written.get() <= 10);
+    }
+
+    @Test
+    public void failedModelIsNotCommitted() throws Exception {
+        assertFailed(new CommitRetry(1, 5, 5000).commit(broker, t -> {
+            throw new IllegalArgumentException("invalid model");
+        }, executor), IllegalArgumentException.class);
+        verify(tx).cancel();
+        verify(tx, times(0)).commit();
+    }
+
+    private String write(ReadWriteTransaction transaction) {
+        assertEquals(tx, transaction);
+        written.incrementAndGet();
+        return "model";
+    }
+
+    private static FluentFuture<CommitInfo> conflict() {
+        return failure(new OptimisticLockFailedException("concurrent modification"));
+    }
+
+    private static FluentFuture<CommitInfo> failure(Exception error) {
+        return FluentFuture.from(Futures.immediateFailedFuture(error));
+    }
+
+    private static void assertFailed(FluentFuture<?> result, Class<? extends Exception> cause) throws Exception {
+        try {
+            result.get(5, TimeUnit.SECONDS);
+            fail("commit expected to fail");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause().toString(), cause.isInstance(e.getCause()));
+        }
+    }
+}
@@ -7,11 +7,17 @@
  */
 package org.opendaylight.unimgr.mef.nrp.impl;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Optional;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 import org.junit.Assert;
 import org.junit.Test;
 import org.opendaylight.mdsal.binding.api.ReadTransaction;
@@ -20,19 +26,34 @@ import org.opendaylight.mdsal.common.api.LogicalDatastoreType;
 import org.opendaylight.mdsal.common.api.ReadFailedException;
 import org.opendaylight.unimgr.mef.nrp.api.TapiConstants;
 import org.opendaylight.unimgr.mef.nrp.common.NrpDao;
+import org.opendaylight.unimgr.mef.nrp.common.ServiceNameIndex;
+import org.opendaylight.unimgr.mef.nrp.common.SipIndex;
+import org.opendaylight.unimgr.mef.nrp.common.TapiUtils;
 import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.LayerProtocolName;
 import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.LifecycleState;
 import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.PortDirection;
 import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.Uuid;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.global._class.NameBuilder;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.tapi.context.ServiceInterfacePointBuilder;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.Context1;
 import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.OwnedNodeEdgePoint1;
 import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.cep.list.ConnectionEndPoint;
 import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.cep.list.ConnectionEndPointBuilder;
 import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.connection.end.point.ParentNodeEdgePoint;
 import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.connection.end.point.ParentNodeEdgePointBuilder;
 import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.connectivity.context.Connection;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.connectivity.context.ConnectivityService;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.connectivity.context.ConnectivityServiceBuilder;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.connectivity.context.ConnectivityServiceKey;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.connectivity.service.EndPointBuilder;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.connectivity.service.end.point.ServiceInterfacePoint;
 import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.OwnedNodeEdgePointRef;
 import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.link.NodeEdgePointBuilder;
 import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.node.OwnedNodeEdgePoint;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.node.OwnedNodeEdgePointBuilder;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.node.edge.point.MappedServiceInterfacePoint;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.topology.Node;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.topology.NodeBuilder;
 import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.topology.context.Topology;
 
 
@@ -58,6 +79,136 @@ public class NrpDaoIntTest extends AbstractTestWithTopo {
         return parentNep;
     }
 
+    @Test
+    public void testGetConnectivityServiceByName() throws Exception {
+        ConnectivityService cs = new ConnectivityServiceBuilder()
+                .setUuid(new Uuid("cs1"))
+                .setName(Collections.singletonList(new NameBuilder().setValueName("name").setValue("svc").build()))
+                .setEndPoint(Collections.singletonList(new EndPointBuilder()
+                        .setLocalId("ep1")
+                        .setServiceInterfacePoint(TapiUtils.toSipRef(new Uuid("sip:ep1"), ServiceInterfacePoint.class))
+                        .build()))
+                .build();
+        ReadWriteTransaction tx = dataBroker.newReadWriteTransaction();
+        tx.put(LogicalDatastoreType.OPERATIONAL, NrpDao.ctx().augmentation(Context1.class)
+                .child(ConnectivityService.class, new ConnectivityServiceKey(cs.getUuid())), cs);
+        tx.commit().get();
+
+        ServiceNameIndex index = new ServiceNameIndex(dataBroker);
+        index.init();
+        try {
+            for (int i = 0; i < 40 && index.get("svc") == null; ++i) {
+                TimeUnit.MILLISECONDS.sleep(50);
+            }
+            assertEquals(new Uuid("cs1"), index.get("svc"));
+
+            ReadTransaction rtx = dataBroker.newReadOnlyTransaction();
+            assertEquals(cs.getUuid(), new NrpDao(rtx).getConnectivityService("svc").getUuid());
+            assertEquals(cs.getUuid(), new NrpDao(rtx).getConnectivityService("svc", index).getUuid());
+            assertEquals(cs.getUuid(), new NrpDao(rtx).getConnectivityService("cs1", index).getUuid());
+            assertNull(new NrpDao(rtx).getConnectivityService("other", index));
+
+            //stale entry is verified against the datastore
+            index.put(new ConnectivityServiceBuilder().setUuid(new Uuid("cs2")).setName(cs.getName()).build());
+            assertEquals(new Uuid("cs2"), index.get("svc"));
+            assertEquals(cs.getUuid(), new NrpDao(rtx).getConnectivityService("svc", index).getUuid());
+
+            index.remove(new Uuid("cs2"));
+            assertNull(index.get("svc"));
+        } finally {
+            index.close();
+        }
+    }
+
+    @Test
+    public void testGetNepBySip() throws Exception {
+        ReadWriteTransaction tx = dataBroker.newReadWriteTransaction();
+        n(tx, uuid1, uuid1 + ":1", uuid1 + ":2");
+        tx.commit().get();
+        Uuid sip = new Uuid("sip:" + uuid1 + ":2");
+
+        SipIndex index = new SipIndex(dataBroker);
+        index.init();
+        try {
+            for (int i = 0; i < 40 && index.get(sip) == null; ++i) {
+                TimeUnit.MILLISECONDS.sleep(50);
+            }
+            assertEquals(toRef(uuid1, uuid1 + ":2"), index.get(sip));
+
+            ReadTransaction rtx = dataBroker.newReadOnlyTransaction();
+            assertEquals(Optional.of(toRef(uuid1, uuid1 + ":2")), new NrpDao(rtx).getNepBySip(sip));
+            assertEquals(Optional.empty(), new NrpDao(rtx).getNepBySip(new Uuid("sip:other")));
+
+            assertEquals(Optional.of(toRef(uuid1, uuid1 + ":2")),
+                    new NrpDao(dataBroker.newReadWriteTransaction(), index).getNepBySip(sip));
+
+            //stale entry is verified against the datastore
+            index.putNode(new NodeBuilder().setUuid(new Uuid(uuid1))
+                    .setOwnedNodeEdgePoint(Collections.singletonList(new OwnedNodeEdgePointBuilder()
+                            .setUuid(new Uuid(uuid1 + ":1"))
+                            .setMappedServiceInterfacePoint(Collections.singletonList(
+                                    TapiUtils.toSipRef(sip, MappedServiceInterfacePoint.class)))
+                            .build()))
+                    .build());
+            assertEquals(toRef(uuid1, uuid1 + ":1"), index.get(sip));
+            assertEquals(Optional.of(toRef(uuid1, uuid1 + ":2")),
+                    new NrpDao(dataBroker.newReadWriteTransaction(), index).getNepBySip(sip));
+
+            index.removeNode(new Uuid(uuid1));
+            assertNull(index.get(sip));
+        } finally {
+            index.close();
+        }
+    }
+
+    @Test
+    public void testSipIndexSkipsConnectionEndPoints() throws Exception {
+        ReadWriteTransaction tx = dataBroker.newReadWriteTransaction();
+        n(tx, uuid1, uuid1 + ":1", uuid1 + ":2");
+        tx.commit().get();
+        Uuid sip = new Uuid("sip:" + uuid1 + ":2");
+
+        SipIndex index = new SipIndex(dataBroker);
+        index.init();
+        try {
+            for (int i = 0; i < 40 && index.get(sip) == null; ++i) {
+                TimeUnit.MILLISECONDS.sleep(50);
+            }
+            //entry made stale on purpose, so that walking the node edge points again would be noticed
+            index.putNode(new NodeBuilder().setUuid(new Uuid(uuid1))
+                    .setOwnedNodeEdgePoint(Collections.singletonList(new OwnedNodeEdgePointBuilder()
+                            .setUuid(new Uuid(uuid1 + ":1"))
+                            .setMappedServiceInterfacePoint(Collections.singletonList(
+                                    TapiUtils.toSipRef(sip, MappedServiceInterfacePoint.class)))
+                            .build()))
+                    .build());
+
+            tx = dataBroker.newReadWriteTransaction();
+            c(tx, uuid1, uuid1 + ":1", uuid1 + ":2");
+            tx.commit().get();
+            //changes are delivered in order, so the next node is indexed after the connection end points
+            tx = dataBroker.newReadWriteTransaction();
+            n(tx, "uuid2", "uuid2:1");
+            tx.commit().get();
+            Uuid otherSip = new Uuid("sip:uuid2:1");
+            for (int i = 0; i < 40 && index.get(otherSip) == null; ++i) {
+                TimeUnit.MILLISECONDS.sleep(50);
+            }
+            assertEquals(toRef("uuid2", "uuid2:1"), index.get(otherSip));
+            assertEquals(toRef(uuid1, uuid1 + ":1"), index.get(sip));
+
+            tx = dataBroker.newReadWriteTransaction();
+            n(tx, uuid1, uuid1 + ":1", uuid1 + ":2", uuid1 + ":3");
+            tx.commit().get();
+            for (int i = 0; i < 40 && !toRef(uuid1, uuid1 + ":2").equals(index.get(sip)); ++i) {
+                TimeUnit.MILLISECONDS.sleep(50);
+            }
+            assertEquals(toRef(uuid1, uuid1 + ":2"), index.get(sip));
+        } finally {
+            index.close();
+        }
+    }
+
     @Test
     public void testAddCeps()
             throws ReadFailedException, InterruptedException, ExecutionException {
@@ -161,6 +312,82 @@ public class NrpDaoIntTest extends AbstractTestWithTopo {
 
     }
 
+    @Test
+    public void testUpsertNeps() throws Exception {
+        ReadWriteTransaction tx = dataBroker.newReadWriteTransaction();
+        n(tx, uuid1, uuid1 + ":1", uuid1 + ":2");
+        NrpDao nrpDao = new NrpDao(tx);
+        nrpDao.addConnectionEndPoint(toRef(uuid1, uuid1 + ":1"), new ConnectionEndPointBuilder()
+                .setUuid(new Uuid("c001:" + uuid1 + ":1"))
+                .setClientNodeEdgePoint(Collections.emptyList())
+                .setParentNodeEdgePoint(Collections.singletonList(parentNep(uuid1, uuid1 + ":1")))
+                .build());
+        tx.commit().get();
+
+        //when
+        tx = dataBroker.newReadWriteTransaction();
+        nrpDao = new NrpDao(tx);
+        nrpDao.addSips(Arrays.asList(sip(uuid1 + ":3"), sip(uuid1 + ":4")));
+        nrpDao.upsertNeps(uuid1, Arrays.asList(
+                new OwnedNodeEdgePointBuilder().setUuid(new Uuid(uuid1 + ":1"))
+                        .setLinkPortDirection(PortDirection.INPUT).build(),
+                new OwnedNodeEdgePointBuilder().setUuid(new Uuid(uuid1 + ":3")).build()));
+        tx.commit().get();
+
+        //then
+        nrpDao = new NrpDao(dataBroker.newReadOnlyTransaction());
+        assertEquals(3, nrpDao.getNode(new Uuid(uuid1)).getOwnedNodeEdgePoint().size());
+        assertEquals(PortDirection.INPUT, nrpDao.readNep(uuid1, uuid1 + ":1").getLinkPortDirection());
+        assertNotNull(nrpDao.getSip("sip:" + uuid1 + ":3"));
+        assertNotNull(nrpDao.getSip("sip:" + uuid1 + ":4"));
+        assertNotNull(nrpDao.getSip("sip:" + uuid1 + ":1"));
+        //merged NEP keeps its end points
+        checkCeps(uuid1, uuid1 + ":1", 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUpsertNepsWithoutNode() {
+        new NrpDao(dataBroker.newReadWriteTransaction()).upsertNeps(uuid1, Collections.singletonList(
+                new OwnedNodeEdgePointBuilder().setUuid(new Uuid(uuid1 + ":1")).build()));
+    }
+
+    @Test
+    public void testReplaceNodeEdgePoints() throws Exception {
+        ReadWriteTransaction tx = dataBroker.newReadWriteTransaction();
+        final Node node = n(tx, uuid1, uuid1 + ":1", uuid1 + ":2", uuid1 + ":3");
+        new NrpDao(tx).addConnectionEndPoint(toRef(uuid1, uuid1 + ":1"), new ConnectionEndPointBuilder()
+                .setUuid(new Uuid("c001:" + uuid1 + ":1"))
+                .setClientNodeEdgePoint(Collections.emptyList())
+                .setParentNodeEdgePoint(Collections.singletonList(parentNep(uuid1, uuid1 + ":1")))
+                .build());
+        tx.commit().get();
+
+        //when
+        tx = dataBroker.newReadWriteTransaction();
+        new NrpDao(tx).replaceNodeEdgePoints(node.getUuid(), Collections.singletonList(
+                node.getOwnedNodeEdgePoint().get(0)), true);
+        tx.commit().get();
+
+        //then
+        NrpDao nrpDao = new NrpDao(dataBroker.newReadOnlyTransaction());
+        assertEquals(Collections.singletonList(node.getOwnedNodeEdgePoint().get(0).getUuid()),
+                nrpDao.getNode(node.getUuid()).getOwnedNodeEdgePoint().stream()
+                        .map(OwnedNodeEdgePoint::getUuid).collect(Collectors.toList()));
+        assertNotNull(nrpDao.getSip("sip:" + uuid1 + ":1"));
+        assertNull(nrpDao.getSip("sip:" + uuid1 + ":2"));
+        assertNull(nrpDao.getSip("sip:" + uuid1 + ":3"));
+        //kept NEP keeps its end points
+        checkCeps(uuid1, uuid1 + ":1", 1);
+    }
+
+    private static org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.tapi.context
+            .ServiceInterfacePoint sip(String nepId) {
+        return new ServiceInterfacePointBuilder()
+                .setUuid(new Uuid("sip:" + nepId))
+                .setLayerProtocolName(Collections.singletonList(LayerProtocolName.ETH))
+                .build();
+    }
+
     private OwnedNodeEdgePoint1 checkCeps(String nodeid, String nepid, int noCeps)
             throws InterruptedException, ExecutionException {
 
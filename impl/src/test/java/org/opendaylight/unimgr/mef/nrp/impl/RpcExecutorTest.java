@@ -0,0 +1,195 @@
+/*
+ * Copyright (c) 2018 Cisco Systems Inc and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.unimgr.mef.nrp.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.google.common.util.concurrent.FluentFuture;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.After;
+import org.junit.Test;
+import org.opendaylight.unimgr.mef.nrp.common.RpcExecutor;
+import org.opendaylight.yangtools.yang.common.RpcResult;
+import org.opendaylight.yangtools.yang.common.RpcResultBuilder;
+
+public class RpcExecutorTest {
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private RpcExecutor executor;
+
+    @After
+    public void tearDown() {
+        release.countDown();
+        executor.close();
+    }
+
+    @Test
+    public void rejectedWhenQueueFull() throws Exception {
+        executor = new RpcExecutor("test", 1, 1);
+
+        final ListenableFuture<RpcResult<String>> running = executor.submit("a", this::blocking);
+        started.await(5, TimeUnit.SECONDS);
+        final ListenableFuture<RpcResult<String>> queued = executor.submit("a", () -> success("queued"));
+        ListenableFuture<RpcResult<String>> rejected = executor.submit("a", () -> success("rejected"));
+
+        assertTrue(rejected.isDone());
+        assertOverloaded(rejected.get());
+        assertEquals(1, executor.getQueueDepth());
+        assertEquals(1, executor.getRejectedCount());
+
+        release.countDown();
+        assertEquals("blocking", running.get(5, TimeUnit.SECONDS).getResult());
+        assertEquals("queued", queued.get(5, TimeUnit.SECONDS).getResult());
+        assertTrue(executor.getMaxWaitTime() >= executor.getAverageWaitTime());
+    }
+
+    @Test
+    public void limitPerRpc() throws Exception {
+        executor = new RpcExecutor("test", 2, 10);
+        executor.limit("a", 1);
+
+        final ListenableFuture<RpcResult<String>> running = executor.submit("a", this::blocking);
+        started.await(5, TimeUnit.SECONDS);
+
+        assertOverloaded(executor.submit("a", () -> success("a")).get());
+        assertEquals("b", executor.submit("b", () -> success("b")).get(5, TimeUnit.SECONDS).getResult());
+
+        release.countDown();
+        running.get(5, TimeUnit.SECONDS);
+        //permit is returned on completion
+        assertEquals("a", executor.submit("a", () -> success("a")).get(5, TimeUnit.SECONDS).getResult());
+        assertEquals(1, executor.getRejectedCount());
+    }
+
+    @Test
+    public void transformRejectedWhenQueueFull() throws Exception {
+        executor = new RpcExecutor("test", 1, 1);
+        executor.submit("a", this::blocking);
+        started.await(5, TimeUnit.SECONDS);
+        final ListenableFuture<RpcResult<String>> queued = executor.submit("a", () -> success("queued"));
+
+        final AtomicInteger reads = new AtomicInteger();
+        final Supplier<FluentFuture<String>> read = () -> {
+            reads.incrementAndGet();
+            return FluentFuture.from(Futures.immediateFuture("b"));
+        };
+        assertOverloaded(executor.transform("b", read, RpcExecutorTest::success).get(5, TimeUnit.SECONDS));
+        //read is not started for a rejected request
+        assertEquals(0, reads.get());
+
+        release.countDown();
+        queued.get(5, TimeUnit.SECONDS);
+        assertEquals("b", executor.transform("b", read, RpcExecutorTest::success)
+                .get(5, TimeUnit.SECONDS).getResult());
+        assertEquals(1, reads.get());
+        assertEquals(1, executor.getRejectedCount());
+    }
+
+    @Test
+    public void asyncRequestsLimitedPerRpc() throws Exception {
+        executor = new RpcExecutor("test", 2, 10);
+        executor.limit("a", 1);
+        executor.limit("b", 1);
+        executor.limit("c", 1);
+        final SettableFuture<String> read = SettableFuture.create();
+        final SettableFuture<RpcResult<String>> staged = SettableFuture.create();
+
+        final FluentFuture<RpcResult<String>> transformed = executor.transform("a", () -> read,
+            RpcExecutorTest::success);
+        final FluentFuture<RpcResult<String>> async = executor.submitAsync("b", () -> staged);
+        final ListenableFuture<RpcResult<String>> pipeline = executor.submitStaged("c",
+            () -> new CompletableFuture<RpcResult<String>>());
+
+        //permits are held until the results are complete, not only while the tasks run
+        assertOverloaded(executor.transform("a", () -> read, RpcExecutorTest::success).get(5, TimeUnit.SECONDS));
+        assertOverloaded(executor.submitAsync("b", () -> staged).get(5, TimeUnit.SECONDS));
+        assertOverloaded(executor.submitStaged("c", CompletableFuture::new).get(5, TimeUnit.SECONDS));
+        assertOverloaded(executor.submit("a", () -> success("a")).get(5, TimeUnit.SECONDS));
+        assertEquals(4, executor.getRejectedCount());
+
+        read.set("a");
+        staged.set(success("b"));
+        pipeline.cancel(false);
+        assertEquals("a", transformed.get(5, TimeUnit.SECONDS).getResult());
+        assertEquals("b", async.get(5, TimeUnit.SECONDS).getResult());
+        assertEquals("a", executor.submit("a", () -> success("a")).get(5, TimeUnit.SECONDS).getResult());
+        assertEquals("b", executor.submitAsync("b", () -> Futures.immediateFuture(success("b")))
+                .get(5, TimeUnit.SECONDS).getResult());
+        assertEquals("c", executor.submitStaged("c", () -> CompletableFuture.completedFuture(success("c")))
+                .get(5, TimeUnit.SECONDS).getResult());
+        assertEquals(4, executor.getRejectedCount());
+    }
+
+    @Test
+    public void waitRecordedForAllRequests() throws Exception {
+        executor = new RpcExecutor("test", 1, 10);
+        executor.submit("a", this::blocking);
+        started.await(5, TimeUnit.SECONDS);
+
+        final FluentFuture<RpcResult<String>> transformed = executor.transform("b",
+            () -> Futures.immediateFuture("b"), RpcExecutorTest::success);
+        final FluentFuture<RpcResult<String>> async = executor.submitAsync("c",
+            () -> Futures.immediateFuture(success("c")));
+        final ListenableFuture<RpcResult<String>> staged = executor.submitStaged("d",
+            () -> CompletableFuture.completedFuture(success("d")));
+        Thread.sleep(50);
+        release.countDown();
+
+        assertEquals("b", transformed.get(5, TimeUnit.SECONDS).getResult());
+        assertEquals("c", async.get(5, TimeUnit.SECONDS).getResult());
+        assertEquals("d", staged.get(5, TimeUnit.SECONDS).getResult());
+        //the requests waited behind the blocking one
+        assertTrue(executor.getMaxWaitTime() >= 50);
+        assertTrue(executor.getAverageWaitTime() * 4 >= 3 * 50);
+    }
+
+    @Test
+    public void failedAsyncRequest() throws Exception {
+        executor = new RpcExecutor("test", 1, 10);
+        executor.limit("a", 1);
+
+        final FluentFuture<RpcResult<String>> failed = executor.submitAsync("a", () -> {
+            throw new IllegalStateException("failed");
+        });
+        try {
+            failed.get(5, TimeUnit.SECONDS);
+            fail("request expected to fail");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        //permit is returned on failure
+        assertEquals("a", executor.submit("a", () -> success("a")).get(5, TimeUnit.SECONDS).getResult());
+    }
+
+    private RpcResult<String> blocking() throws InterruptedException {
+        started.countDown();
+        release.await(5, TimeUnit.SECONDS);
+        return success("blocking");
+    }
+
+    private static RpcResult<String> success(String value) {
+        return RpcResultBuilder.success(value).build();
+    }
+
+    private static void assertOverloaded(RpcResult<?> result) {
+        assertFalse(result.isSuccessful());
+        assertEquals(RpcExecutor.OVERLOADED, result.getErrors().iterator().next().getTag());
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2018 Cisco Systems Inc and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.unimgr.mef.nrp.impl;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Collection;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.opendaylight.mdsal.binding.api.DataTreeChangeListener;
+import org.opendaylight.mdsal.binding.api.DataTreeIdentifier;
+import org.opendaylight.mdsal.binding.api.DataTreeModification;
+import org.opendaylight.mdsal.binding.api.ReadWriteTransaction;
+import org.opendaylight.mdsal.common.api.LogicalDatastoreType;
+import org.opendaylight.unimgr.mef.nrp.api.TapiConstants;
+import org.opendaylight.unimgr.mef.nrp.common.NrpDao;
+import org.opendaylight.unimgr.mef.nrp.common.TopologyChanges;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.topology.context.Topology;
+import org.opendaylight.yangtools.concepts.ListenerRegistration;
+
+public class TopologyChangesTest extends AbstractTestWithTopo {
+    private final BlockingQueue<Boolean> changes = new LinkedBlockingQueue<>();
+    private ListenerRegistration<?> registration;
+
+    @Before
+    public void setUp() throws Exception {
+        ReadWriteTransaction tx = dataBroker.newReadWriteTransaction();
+        n(tx, "n1", "n1:1", "n1:2");
+        tx.commit().get();
+
+        registration = dataBroker.registerDataTreeChangeListener(
+                DataTreeIdentifier.create(LogicalDatastoreType.OPERATIONAL,
+                        NrpDao.topo(TapiConstants.PRESTO_SYSTEM_TOPO)),
+                (DataTreeChangeListener<Topology>) this::onChanged);
+        //initial content
+        changes.poll(5, TimeUnit.SECONDS);
+    }
+
+    @After
+    public void tearDown() {
+        registration.close();
+    }
+
+    private void onChanged(Collection<DataTreeModification<Topology>> collection) {
+        collection.forEach(c -> changes.add(TopologyChanges.onlyConnectionEndPoints(c.getRootNode())));
+    }
+
+    @Test
+    public void connectionEndPointsRecognized() throws Exception {
+        ReadWriteTransaction tx = dataBroker.newReadWriteTransaction();
+        c(tx, "n1", "n1:1", "n1:2");
+        tx.commit().get();
+        assertEquals(Boolean.TRUE, changes.poll(5, TimeUnit.SECONDS));
+
+        tx = dataBroker.newReadWriteTransaction();
+        n(tx, "n1", "n1:1", "n1:2", "n1:3");
+        tx.commit().get();
+        assertEquals(Boolean.FALSE, changes.poll(5, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2018 Cisco Systems Inc and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.unimgr.mef.nrp.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.Before;
+import org.junit.Test;
+import org.opendaylight.mdsal.binding.api.ReadWriteTransaction;
+import org.opendaylight.unimgr.mef.nrp.api.TapiConstants;
+import org.opendaylight.unimgr.mef.nrp.common.NrpDao;
+import org.opendaylight.unimgr.mef.nrp.common.TopologyProjection;
+import org.opendaylight.unimgr.mef.nrp.common.TopologyProjectionReader;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.OperationalState;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.PortDirection;
+
+/**
+ * Projection read from normalized nodes is the same as the one made of the binding topology.
+ */
+public class TopologyProjectionReaderTest extends AbstractTestWithTopo {
+    private TopologyProjectionReader reader;
+
+    @Before
+    public void setUp() {
+        reader = new TopologyProjectionReader(getDomBroker(), getDataBrokerTestCustomizer().getBindingToNormalized());
+    }
+
+    @Test
+    public void projection() throws Exception {
+        ReadWriteTransaction tx = dataBroker.newReadWriteTransaction();
+        n(tx, true, "n1", "d1", Stream.of(new Pair("n1:1", PortDirection.BIDIRECTIONAL),
+                new Pair("n1:2", PortDirection.INPUT), new Pair("n1:3", PortDirection.OUTPUT)));
+        n(tx, false, "n2", "d2", Stream.of(new Pair("n2:1", PortDirection.BIDIRECTIONAL)));
+        l(tx, "n1", "n1:1", "n2", "n2:1", OperationalState.ENABLED);
+        tx.commit().get();
+
+        TopologyProjection expected = TopologyProjection.of(new NrpDao(dataBroker.newReadOnlyTransaction())
+                .getTopology(TapiConstants.PRESTO_SYSTEM_TOPO));
+        TopologyProjection actual = reader.read(TapiConstants.PRESTO_SYSTEM_TOPO);
+
+        assertEquals(render(expected), render(actual));
+        assertTrue(render(actual).contains("n1:2 INPUT [sip:n1:2]"));
+        assertTrue(render(actual).contains("n1:1-n2:1 ENABLED [n1:1, n2:1]"));
+    }
+
+    @Test
+    public void noTopology() throws Exception {
+        TopologyProjection projection = reader.read("unknown");
+        assertTrue(projection.getNodes().isEmpty());
+        assertTrue(projection.getLinks().isEmpty());
+    }
+
+    @Test
+    public void nodeWithoutDriver() throws Exception {
+        ReadWriteTransaction tx = dataBroker.newReadWriteTransaction();
+        n(tx, false, "n1", null, Stream.of(new Pair("n1:1", PortDirection.BIDIRECTIONAL)));
+        tx.commit().get();
+
+        TopologyProjection.NodeView node = reader.read(TapiConstants.PRESTO_SYSTEM_TOPO).getNodes().stream()
+                .filter(n -> "n1".equals(n.getUuid().getValue())).findFirst().get();
+        assertNull(node.getActivationDriverId());
+    }
+
+    private static List<String> render(TopologyProjection projection) {
+        Function<TopologyProjection.NepView, String> nep = n -> n.getUuid().getValue() + " "
+                + n.getLinkPortDirection() + " " + n.getSips().stream().map(s -> s.getValue())
+                .collect(Collectors.toList());
+        return Stream.concat(
+                projection.getNodes().stream().flatMap(n -> Stream.concat(
+                        Stream.of(n.getUuid().getValue() + " " + n.getActivationDriverId()),
+                        n.getNeps() == null ? Stream.empty() : n.getNeps().stream().map(nep))),
+                projection.getLinks().stream().map(l -> l.getUuid().getValue() + " " + l.getOperationalState() + " "
+                        + l.getNeps().stream().map(u -> u.getValue()).sorted().collect(Collectors.toList())))
+                .sorted()
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,239 @@
+/*
+ * Copyright (c) 2018 Cisco Systems Inc and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.unimgr.mef.nrp.impl.connectivityservice;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.opendaylight.mdsal.binding.api.ReadWriteTransaction;
+import org.opendaylight.mdsal.common.api.LogicalDatastoreType;
+import org.opendaylight.unimgr.mef.nrp.api.ActivationDriver;
+import org.opendaylight.unimgr.mef.nrp.api.ActivationDriverRepoService;
+import org.opendaylight.unimgr.mef.nrp.api.RequestValidator;
+import org.opendaylight.unimgr.mef.nrp.api.TapiConstants;
+import org.opendaylight.unimgr.mef.nrp.common.NrpDao;
+import org.opendaylight.unimgr.mef.nrp.common.TapiUtils;
+import org.opendaylight.unimgr.mef.nrp.impl.AbstractTestWithTopo;
+import org.opendaylight.unimgr.mef.nrp.impl.ConnectivityServiceIdResourcePool;
+import org.opendaylight.unimgr.mef.nrp.impl.decomposer.BasicDecomposer;
+import org.opendaylight.unimgr.utils.ActivationDriverMocks;
+import org.opendaylight.yang.gen.v1.urn.mef.yang.mef.common.types.rev180321.PositiveInteger;
+import org.opendaylight.yang.gen.v1.urn.mef.yang.nrm.connectivity.rev180321.carrier.eth.connectivity.end.point.resource.CeVlanIdListAndUntagBuilder;
+import org.opendaylight.yang.gen.v1.urn.mef.yang.nrm.connectivity.rev180321.vlan.id.list.and.untag.VlanIdBuilder;
+import org.opendaylight.yang.gen.v1.urn.mef.yang.nrp._interface.rev180321.EndPoint2;
+import org.opendaylight.yang.gen.v1.urn.mef.yang.nrp._interface.rev180321.EndPoint2Builder;
+import org.opendaylight.yang.gen.v1.urn.mef.yang.nrp._interface.rev180321.nrp.connectivity.service.end.point.attrs.NrpCarrierEthConnectivityEndPointResourceBuilder;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.PortDirection;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.PortRole;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.Uuid;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.Context1;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.CreateConnectivityServiceInput;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.CreateConnectivityServiceInputBuilder;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.CreateConnectivityServiceOutput;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.ServiceType;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.connectivity.service.end.point.ServiceInterfacePoint;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.create.connectivity.service.input.ConnConstraintBuilder;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.create.connectivity.service.input.EndPoint;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.create.connectivity.service.input.EndPointBuilder;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.topology.Node;
+import org.opendaylight.yangtools.yang.common.RpcResult;
+
+/**
+ * Concurrent creation of connectivity services with devices taking time to configure.
+ * Throughput of the same workload is compared with node locking and without it.
+ */
+public class ConcurrentConnectivityServiceIntTest extends AbstractTestWithTopo {
+    private static final int NODES = 8;
+    private static final long ACTIVATION_MS = 100;
+
+    private final List<AtomicInteger> maxActive = new ArrayList<>();
+    private final ConnectivityServiceIdResourcePool serviceIdPool = new ConnectivityServiceIdResourcePool();
+    private ActivationDriverRepoService driverRepo;
+    private RequestValidator validator;
+    private ServicePipeline pipeline;
+
+    @Before
+    public void setUp() throws Exception {
+        ActivationDriverMocks.Builder drivers = ActivationDriverMocks.builder();
+        ReadWriteTransaction tx = dataBroker.newReadWriteTransaction();
+        List<String> sips = new ArrayList<>();
+        for (int i = 0; i < NODES; ++i) {
+            drivers.add("d" + i, driver());
+            String[] neps = new String[2 * NODES + 6];
+            for (int j = 0; j < neps.length; ++j) {
+                neps[j] = "n" + i + ":" + j;
+            }
+            n(tx, new Uuid("n" + i), "d" + i, neps);
+            sips.addAll(Arrays.asList(neps));
+        }
+        tx.commit().get();
+        waitForAbstractNeps(sips);
+
+        validator = mock(RequestValidator.class);
+        when(validator.checkValid(any(CreateConnectivityServiceInput.class)))
+                .thenReturn(new RequestValidator.ValidationResult());
+        driverRepo = drivers.build();
+        pipeline = new ServicePipeline(2, 2 * NODES, 2, 256);
+    }
+
+    @After
+    public void tearDown() {
+        pipeline.close();
+    }
+
+    @Test
+    public void lockingKeepsThroughputOfDisjointRequests() throws Exception {
+        //warm up, so that neither of the compared runs pays for the first use of the classes
+        createAll(unlocked(), disjoint(2 * NODES + 4));
+        final long lockedTime = createAll(new NodeLocks(256), disjoint(2 * NODES));
+        final long unlockedTime = createAll(unlocked(), disjoint(2 * NODES + 2));
+
+        maxActive.forEach(max -> assertEquals(1, max.get()));
+        assertTrue("with locking requests took " + lockedTime + " ms, without locking " + unlockedTime + " ms",
+                lockedTime < 2 * unlockedTime);
+        assertEquals(3 * NODES, servicesCount());
+    }
+
+    @Test
+    public void lockingSerializesRequestsSharingNode() throws Exception {
+        final long lockedTime = createAll(new NodeLocks(256), shared("n0"));
+        final long unlockedTime = createAll(unlocked(), shared("n1"));
+
+        assertEquals(1, maxActive.get(0).get());
+        assertTrue("without locking requests did not run in parallel", maxActive.get(1).get() > 1);
+        assertTrue("with locking requests took " + lockedTime + " ms", lockedTime >= NODES * ACTIVATION_MS);
+        assertTrue("with locking requests took " + lockedTime + " ms, without locking " + unlockedTime + " ms",
+                unlockedTime * 2 < lockedTime);
+        assertEquals(2 * NODES, servicesCount());
+    }
+
+    private static List<CreateConnectivityServiceInput> shared(String node) {
+        List<CreateConnectivityServiceInput> inputs = new ArrayList<>();
+        for (int i = 0; i < NODES; ++i) {
+            inputs.add(input(node + ":" + 2 * i, node + ":" + (2 * i + 1)));
+        }
+        return inputs;
+    }
+
+    private static List<CreateConnectivityServiceInput> disjoint(int nep) {
+        List<CreateConnectivityServiceInput> inputs = new ArrayList<>();
+        for (int i = 0; i < NODES; ++i) {
+            inputs.add(input("n" + i + ":" + nep, "n" + i + ":" + (nep + 1)));
+        }
+        return inputs;
+    }
+
+    /**
+     * Locks that never make a request wait, each request locks its own stripes.
+     * @return node locks
+     */
+    private static NodeLocks unlocked() {
+        NodeLocks locks = mock(NodeLocks.class);
+        when(locks.acquire(any())).thenAnswer(inv -> new NodeLocks(1).acquire(inv.getArgument(0)));
+        return locks;
+    }
+
+    private long createAll(NodeLocks locks, List<CreateConnectivityServiceInput> inputs) throws Exception {
+        TapiConnectivityServiceImpl connectivityService = new TapiConnectivityServiceImpl();
+        connectivityService.setDriverRepo(driverRepo);
+        connectivityService.setDecomposer(new BasicDecomposer(dataBroker));
+        connectivityService.setValidator(validator);
+        connectivityService.setBroker(dataBroker);
+        connectivityService.setServiceIdPool(serviceIdPool);
+        connectivityService.setPipeline(pipeline);
+        connectivityService.setNodeLocks(locks);
+        connectivityService.init();
+        try {
+            final long start = System.nanoTime();
+            List<ListenableFuture<RpcResult<CreateConnectivityServiceOutput>>> results = inputs.stream()
+                    .map(connectivityService::createConnectivityService)
+                    .collect(Collectors.toList());
+            for (ListenableFuture<RpcResult<CreateConnectivityServiceOutput>> result : results) {
+                RpcResult<CreateConnectivityServiceOutput> res = result.get(30, TimeUnit.SECONDS);
+                assertTrue(res.getErrors().toString(), res.isSuccessful());
+            }
+            return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        } finally {
+            connectivityService.close();
+        }
+    }
+
+    private int servicesCount() throws Exception {
+        Context1 ctx = dataBroker.newReadOnlyTransaction()
+                .read(LogicalDatastoreType.OPERATIONAL, TapiConnectivityServiceImpl.CONNECTIVITY_CTX).get().get();
+        return ctx.getConnectivityService().size();
+    }
+
+    private ActivationDriver driver() throws Exception {
+        final AtomicInteger current = new AtomicInteger();
+        final AtomicInteger max = new AtomicInteger();
+        maxActive.add(max);
+        ActivationDriver driver = mock(ActivationDriver.class);
+        doAnswer(inv -> {
+            max.accumulateAndGet(current.incrementAndGet(), Math::max);
+            Thread.sleep(ACTIVATION_MS);
+            current.decrementAndGet();
+            return null;
+        }).when(driver).activate();
+        return driver;
+    }
+
+    private static CreateConnectivityServiceInput input(String... neps) {
+        EndPoint2 attrs = new EndPoint2Builder().setNrpCarrierEthConnectivityEndPointResource(
+                new NrpCarrierEthConnectivityEndPointResourceBuilder()
+                        .setCeVlanIdListAndUntag(new CeVlanIdListAndUntagBuilder()
+                                .setVlanId(Collections.singletonList(
+                                        new VlanIdBuilder().setVlanId(new PositiveInteger(100L)).build()))
+                                .build())
+                        .build())
+                .build();
+
+        List<EndPoint> eps = Arrays.stream(neps).map(nep -> new EndPointBuilder()
+                .setLocalId("e:" + nep)
+                .setRole(PortRole.SYMMETRIC)
+                .setDirection(PortDirection.BIDIRECTIONAL)
+                .setServiceInterfacePoint(TapiUtils.toSipRef(new Uuid("sip:" + nep), ServiceInterfacePoint.class))
+                .addAugmentation(EndPoint2.class, attrs)
+                .build()).collect(Collectors.toList());
+
+        return new CreateConnectivityServiceInputBuilder()
+                .setEndPoint(eps)
+                .setConnConstraint(new ConnConstraintBuilder()
+                        .setIsExclusive(true)
+                        .setServiceType(ServiceType.POINTTOPOINTCONNECTIVITY).build())
+                .build();
+    }
+
+    private void waitForAbstractNeps(List<String> neps) throws Exception {
+        for (int i = 0; i < 50; ++i) {
+            Node node = new NrpDao(dataBroker.newReadOnlyTransaction())
+                    .getNode(TapiConstants.PRESTO_EXT_TOPO, TapiConstants.PRESTO_ABSTRACT_NODE);
+            if (node != null && node.getOwnedNodeEdgePoint() != null
+                    && node.getOwnedNodeEdgePoint().size() >= neps.size()) {
+                return;
+            }
+            Thread.sleep(100);
+        }
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright (c) 2018 Cisco Systems Inc and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.unimgr.mef.nrp.impl.connectivityservice;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.junit.Before;
+import org.junit.Test;
+import org.opendaylight.mdsal.binding.api.ReadTransaction;
+import org.opendaylight.mdsal.binding.api.ReadWriteTransaction;
+import org.opendaylight.mdsal.common.api.LogicalDatastoreType;
+import org.opendaylight.unimgr.mef.nrp.api.ActivationDriver;
+import org.opendaylight.unimgr.mef.nrp.api.RequestValidator;
+import org.opendaylight.unimgr.mef.nrp.common.ResourceActivatorException;
+import org.opendaylight.unimgr.mef.nrp.common.TapiUtils;
+import org.opendaylight.unimgr.mef.nrp.impl.AbstractTestWithTopo;
+import org.opendaylight.unimgr.mef.nrp.impl.ConnectivityServiceIdResourcePool;
+import org.opendaylight.unimgr.mef.nrp.impl.decomposer.BasicDecomposer;
+import org.opendaylight.unimgr.utils.ActivationDriverMocks;
+import org.opendaylight.yang.gen.v1.urn.odl.unimgr.yang.unimgr.ext.rev170531.CreateConnectivityServicesInputBuilder;
+import org.opendaylight.yang.gen.v1.urn.odl.unimgr.yang.unimgr.ext.rev170531.CreateConnectivityServicesOutput;
+import org.opendaylight.yang.gen.v1.urn.odl.unimgr.yang.unimgr.ext.rev170531.create.connectivity.services.input.Request;
+import org.opendaylight.yang.gen.v1.urn.odl.unimgr.yang.unimgr.ext.rev170531.create.connectivity.services.input.RequestBuilder;
+import org.opendaylight.yang.gen.v1.urn.odl.unimgr.yang.unimgr.ext.rev170531.create.connectivity.services.input.request.ConnConstraintBuilder;
+import org.opendaylight.yang.gen.v1.urn.odl.unimgr.yang.unimgr.ext.rev170531.create.connectivity.services.input.request.EndPointBuilder;
+import org.opendaylight.yang.gen.v1.urn.odl.unimgr.yang.unimgr.ext.rev170531.create.connectivity.services.output.Result;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.PortDirection;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.PortRole;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.Uuid;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.Context1;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.CreateConnectivityServiceInput;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.ServiceType;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.connectivity.service.end.point.ServiceInterfacePoint;
+
+/**
+ * Batch creation of connectivity services.
+ */
+public class CreateConnectivityServicesActionTest extends AbstractTestWithTopo {
+    private ActivationDriver ad1;
+    private ActivationDriver ad2;
+    private TapiConnectivityServiceImpl connectivityService;
+
+    @Before
+    public void setUp() throws Exception {
+        ad1 = mock(ActivationDriver.class);
+        ad2 = mock(ActivationDriver.class);
+
+        RequestValidator validator = mock(RequestValidator.class);
+        when(validator.checkValid(any(CreateConnectivityServiceInput.class)))
+                .thenReturn(new RequestValidator.ValidationResult());
+
+        connectivityService = new TapiConnectivityServiceImpl();
+        connectivityService.setDriverRepo(ActivationDriverMocks.builder()
+                .add("d1", ad1)
+                .add("d2", ad2)
+                .build());
+        connectivityService.setDecomposer(new BasicDecomposer(dataBroker));
+        connectivityService.setValidator(validator);
+        connectivityService.setBroker(dataBroker);
+        connectivityService.setServiceIdPool(new ConnectivityServiceIdResourcePool());
+        connectivityService.init();
+
+        ReadWriteTransaction tx = dataBroker.newReadWriteTransaction();
+        n(tx, new Uuid("n1"), "d1", "n1:1", "n1:2", "n1:3", "n1:4");
+        n(tx, new Uuid("n2"), "d2", "n2:1", "n2:2");
+        tx.commit().get();
+    }
+
+    @Test
+    public void batch() throws Exception {
+        //when
+        Map<String, Result> results = create(
+                request("r1", true, "n1:1", "n1:2"),
+                request("r2", true, "n1:3", "n1:4"),
+                request("r3", true, "n1:1", "n1:3"),
+                request("r4", false, "n2:1", "n2:2"));
+
+        //then
+        assertCreated(results.get("r1"));
+        assertCreated(results.get("r2"));
+        assertCreated(results.get("r4"));
+        assertNull(results.get("r3").getServiceId());
+        assertTrue(results.get("r3").getError().contains("r1"));
+
+        verify(ad1, times(2)).activate();
+        verify(ad1, times(2)).commit();
+        verify(ad2).activate();
+        verify(ad2).commit();
+
+        Context1 ctx = connectivityContext();
+        assertEquals(3, ctx.getConnectivityService().size());
+        //system and global connection per service
+        assertEquals(6, ctx.getConnection().size());
+    }
+
+    @Test
+    public void activationFailureIsolated() throws Exception {
+        //having
+        doThrow(new ResourceActivatorException()).when(ad2).activate();
+
+        //when
+        Map<String, Result> results = create(
+                request("r1", true, "n1:1", "n1:2"),
+                request("r2", true, "n2:1", "n2:2"));
+
+        //then
+        assertCreated(results.get("r1"));
+        assertNotNull(results.get("r2").getError());
+        verify(ad1).commit();
+        verify(ad1, never()).rollback();
+        verify(ad2).rollback();
+        verify(ad2, never()).commit();
+
+        Context1 ctx = connectivityContext();
+        assertEquals(1, ctx.getConnectivityService().size());
+        assertEquals(results.get("r1").getServiceId(), ctx.getConnectivityService().get(0).getUuid());
+    }
+
+    @Test
+    public void undecomposable() throws Exception {
+        //when
+        Map<String, Result> results = create(
+                request("r1", true, "n1:1", "n2:1"),
+                request("r2", true, "n1:3", "n1:4"));
+
+        //then
+        assertNotNull(results.get("r1").getError());
+        assertCreated(results.get("r2"));
+        verify(ad1).activate();
+        verify(ad2, never()).activate();
+    }
+
+    @Test
+    public void emptyBatch() throws Exception {
+        assertFalse(connectivityService.createConnectivityServices(
+                new CreateConnectivityServicesInputBuilder().build()).get().isSuccessful());
+    }
+
+    private void assertCreated(Result result) {
+        assertNull(result.getError(), result.getError());
+        assertTrue(result.getServiceId().getValue().startsWith("cs:"));
+    }
+
+    private Map<String, Result> create(Request... requests) throws Exception {
+        CreateConnectivityServicesOutput output = connectivityService.createConnectivityServices(
+                new CreateConnectivityServicesInputBuilder().setRequest(Arrays.asList(requests)).build())
+                .get().getResult();
+        assertEquals(requests.length, output.getResult().size());
+        return output.getResult().stream().collect(Collectors.toMap(Result::getRequestId, Function.identity()));
+    }
+
+    private Context1 connectivityContext() throws Exception {
+        try (ReadTransaction tx = dataBroker.newReadOnlyTransaction()) {
+            return tx.read(LogicalDatastoreType.OPERATIONAL, TapiConnectivityServiceImpl.CONNECTIVITY_CTX)
+                    .get().get();
+        }
+    }
+
+    private static Request request(String id, boolean exclusive, String... neps) {
+        return new RequestBuilder()
+                .setRequestId(id)
+                .setEndPoint(Arrays.stream(neps).map(nep -> new EndPointBuilder()
+                        .setLocalId("e:" + nep)
+                        .setRole(PortRole.SYMMETRIC)
+                        .setDirection(PortDirection.BIDIRECTIONAL)
+                        .setServiceInterfacePoint(TapiUtils.toSipRef(
+                                new Uuid("sip:" + nep), ServiceInterfacePoint.class))
+                        .build()).collect(Collectors.toList()))
+                .setConnConstraint(new ConnConstraintBuilder()
+                        .setIsExclusive(exclusive)
+                        .setServiceType(ServiceType.POINTTOPOINTCONNECTIVITY)
+                        .build())
+                .build();
+    }
+}
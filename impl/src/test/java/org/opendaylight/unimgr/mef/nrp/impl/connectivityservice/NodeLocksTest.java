@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2018 Cisco Systems Inc and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.unimgr.mef.nrp.impl.connectivityservice;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Test;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.Uuid;
+
+public class NodeLocksTest {
+    private static final Uuid A = new Uuid("a");
+    private static final Uuid B = new Uuid("b");
+    private static final Uuid C = new Uuid("c");
+
+    private final NodeLocks locks = new NodeLocks(1024);
+
+    @Test
+    public void disjointNodesAreNotSerialized() {
+        CompletableFuture<NodeLocks.Lease> first = locks.acquire(Collections.singletonList(A));
+        CompletableFuture<NodeLocks.Lease> second = locks.acquire(Arrays.asList(B, C));
+
+        assertTrue(first.isDone());
+        assertTrue(second.isDone());
+        assertEquals(0, locks.getWaiting());
+    }
+
+    @Test
+    public void sharedNodeWaitsForRelease() throws Exception {
+        NodeLocks.Lease first = locks.acquire(Arrays.asList(A, B)).get();
+        CompletableFuture<NodeLocks.Lease> second = locks.acquire(Arrays.asList(C, B));
+
+        assertFalse(second.isDone());
+        assertEquals(1, locks.getWaiting());
+
+        first.close();
+        assertTrue(second.isDone());
+        second.get().close();
+        assertTrue(locks.acquire(Arrays.asList(A, B, C)).isDone());
+    }
+
+    @Test
+    public void closeIsIdempotent() throws Exception {
+        NodeLocks.Lease first = locks.lock(Collections.singletonList(A));
+        first.close();
+        first.close();
+        NodeLocks.Lease second = locks.lock(Arrays.asList(A, A, null));
+
+        CompletableFuture<NodeLocks.Lease> third = locks.acquire(Collections.singletonList(A));
+        assertFalse(third.isDone());
+        second.close();
+        assertTrue(third.isDone());
+    }
+
+    @Test
+    public void overlappingRequestsDoNotDeadlock() throws Exception {
+        //few stripes to make nodes collide
+        final NodeLocks striped = new NodeLocks(3);
+        final List<Uuid> nodes = new ArrayList<>();
+        for (int i = 0; i < 8; ++i) {
+            nodes.add(new Uuid("n" + i));
+        }
+        final Map<Uuid, AtomicInteger> holders = new ConcurrentHashMap<>();
+        final AtomicReference<Uuid> violated = new AtomicReference<>();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int t = 0; t < 8; ++t) {
+                final Random random = new Random(t);
+                workers.add(executor.submit(() -> {
+                    for (int i = 0; i < 500; ++i) {
+                        List<Uuid> request = new ArrayList<>(nodes);
+                        Collections.shuffle(request, random);
+                        request = request.subList(0, 1 + random.nextInt(4));
+                        try (NodeLocks.Lease lease = striped.lock(request)) {
+                            request.forEach(n -> {
+                                if (holders.computeIfAbsent(n, k -> new AtomicInteger()).incrementAndGet() > 1) {
+                                    violated.set(n);
+                                }
+                            });
+                            request.forEach(n -> holders.get(n).decrementAndGet());
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(null, violated.get());
+        assertEquals(0, striped.getWaiting());
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2018 Cisco Systems Inc and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.unimgr.mef.nrp.impl.connectivityservice;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.util.concurrent.SettableFuture;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.junit.After;
+import org.junit.Test;
+import org.opendaylight.unimgr.mef.nrp.impl.connectivityservice.ServicePipeline.Stage;
+
+public class ServicePipelineTest {
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private ServicePipeline pipeline;
+
+    @After
+    public void tearDown() {
+        release.countDown();
+        pipeline.close();
+    }
+
+    @Test
+    public void slowActivationDoesNotBlockDecomposition() throws Exception {
+        pipeline = new ServicePipeline(1, 1, 1, 10);
+
+        final CompletableFuture<String> activation = pipeline.supply(Stage.ACTIVATION, this::blocking);
+        started.await(5, TimeUnit.SECONDS);
+
+        assertEquals("decomposed", pipeline.supply(Stage.DECOMPOSITION, () -> "decomposed").get(5, TimeUnit.SECONDS));
+        assertFalse(activation.isDone());
+
+        release.countDown();
+        assertEquals("activated", activation.get(5, TimeUnit.SECONDS));
+        assertEquals(Long.valueOf(1), pipeline.getCount().get(Stage.DECOMPOSITION.name()));
+        assertEquals(Long.valueOf(1), pipeline.getCount().get(Stage.ACTIVATION.name()));
+        assertEquals(Long.valueOf(0), pipeline.getCount().get(Stage.COMMIT.name()));
+        assertTrue(pipeline.getMaxLatency().get(Stage.ACTIVATION.name())
+                >= pipeline.getMaxLatency().get(Stage.DECOMPOSITION.name()));
+    }
+
+    @Test
+    public void rejectedWhenQueueFull() throws Exception {
+        pipeline = new ServicePipeline(1, 1, 1, 1);
+
+        pipeline.supply(Stage.ACTIVATION, this::blocking);
+        started.await(5, TimeUnit.SECONDS);
+        pipeline.supply(Stage.ACTIVATION, () -> "queued");
+
+        CompletableFuture<String> rejected = pipeline.supply(Stage.ACTIVATION, () -> "rejected");
+        assertTrue(rejected.isCompletedExceptionally());
+        try {
+            rejected.get();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof RejectedExecutionException);
+        }
+    }
+
+    @Test
+    public void stageLastsUntilCompletion() throws Exception {
+        pipeline = new ServicePipeline(1, 1, 1, 1);
+        SettableFuture<String> commit = SettableFuture.create();
+
+        CompletableFuture<String> stage = pipeline.compose(Stage.COMMIT, () -> pipeline.toStage(commit));
+        assertFalse(waitFor(stage));
+        assertEquals(Long.valueOf(0), pipeline.getCount().get(Stage.COMMIT.name()));
+
+        commit.set("committed");
+        assertEquals("committed", stage.get(5, TimeUnit.SECONDS));
+        assertEquals(Long.valueOf(1), pipeline.getCount().get(Stage.COMMIT.name()));
+    }
+
+    private String blocking() throws InterruptedException {
+        started.countDown();
+        release.await(5, TimeUnit.SECONDS);
+        return "activated";
+    }
+
+    private static boolean waitFor(CompletableFuture<?> future) throws Exception {
+        try {
+            future.get(100, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (TimeoutException e) {
+            return false;
+        }
+    }
+}
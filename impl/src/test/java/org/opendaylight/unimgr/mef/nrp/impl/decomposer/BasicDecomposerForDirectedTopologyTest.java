@@ -23,6 +23,7 @@ import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.opendaylight.mdsal.binding.api.ReadWriteTransaction;
 import org.opendaylight.unimgr.mef.nrp.api.FailureResult;
+import org.opendaylight.unimgr.mef.nrp.api.RequestDecomposer;
 import org.opendaylight.unimgr.mef.nrp.api.Subrequrest;
 import org.opendaylight.unimgr.mef.nrp.impl.AbstractTestWithTopo;
 import org.opendaylight.unimgr.mef.nrp.impl.NrpInitializer;
@@ -34,16 +35,20 @@ import org.opendaylight.yangtools.yang.common.OperationFailedException;
 
 public class BasicDecomposerForDirectedTopologyTest extends AbstractTestWithTopo {
 
-    private BasicDecomposer decomposer;
+    protected RequestDecomposer decomposer;
 
     @Before
     public void setUp() throws Exception {
         dataBroker = getDataBroker();
         new NrpInitializer(dataBroker).init();
-        decomposer = new BasicDecomposer(dataBroker);
+        decomposer = createDecomposer();
 
     }
 
+    protected RequestDecomposer createDecomposer() {
+        return new BasicDecomposer(dataBroker);
+    }
+
     @Rule
     public ExpectedException expected = ExpectedException.none();
 
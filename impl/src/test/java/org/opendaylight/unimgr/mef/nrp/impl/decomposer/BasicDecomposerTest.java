@@ -22,6 +22,7 @@ import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.opendaylight.mdsal.binding.api.ReadWriteTransaction;
 import org.opendaylight.unimgr.mef.nrp.api.FailureResult;
+import org.opendaylight.unimgr.mef.nrp.api.RequestDecomposer;
 import org.opendaylight.unimgr.mef.nrp.api.Subrequrest;
 import org.opendaylight.unimgr.mef.nrp.impl.AbstractTestWithTopo;
 import org.opendaylight.unimgr.mef.nrp.impl.NrpInitializer;
@@ -31,16 +32,20 @@ import org.opendaylight.yangtools.yang.common.OperationFailedException;
 
 
 public class BasicDecomposerTest extends AbstractTestWithTopo {
-    private BasicDecomposer decomposer;
+    protected RequestDecomposer decomposer;
 
     @Before
     public void setUp() throws Exception {
         dataBroker = getDataBroker();
         new NrpInitializer(dataBroker).init();
-        decomposer = new BasicDecomposer(dataBroker);
+        decomposer = createDecomposer();
 
     }
 
+    protected RequestDecomposer createDecomposer() {
+        return new BasicDecomposer(dataBroker);
+    }
+
     @Rule
     public ExpectedException expected = ExpectedException.none();
 
@@ -100,9 +105,10 @@ public class BasicDecomposerTest extends AbstractTestWithTopo {
         n(tx, "n1", "n1:1", "n1:2", "n1:3");
         n(tx, "n2", "n2:1", "n2:2", "n2:3");
         tx.commit().get();
+        expected.expect(FailureResult.class);
+        expected.expectMessage("Service interface points are in disconnected parts of the topology");
         //when
-        List<Subrequrest> decomposed = decomposer.decompose(Arrays.asList(ep("n1:1"), ep("n2:2")), null);
-        assertNull(decomposed);
+        decomposer.decompose(Arrays.asList(ep("n1:1"), ep("n2:2")), null);
     }
 
     @Test
@@ -169,8 +175,9 @@ public class BasicDecomposerTest extends AbstractTestWithTopo {
         l(tx, "n1", "n1:1", "n2", "n2:1", OperationalState.DISABLED);
         l(tx, "n2", "n2:3", "n3", "n3:3", OperationalState.ENABLED);
         tx.commit().get();
+        expected.expect(FailureResult.class);
+        expected.expectMessage("[sip:n1:2] [sip:n3:2]");
         //when
-        List<Subrequrest> decomposed = decomposer.decompose(Arrays.asList(ep("n1:2"), ep("n3:2")), null);
-        assertNull(decomposed);
+        decomposer.decompose(Arrays.asList(ep("n1:2"), ep("n3:2")), null);
     }
 }
@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2018 Cisco Systems Inc and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.unimgr.mef.nrp.impl.decomposer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Before;
+import org.junit.Test;
+import org.opendaylight.mdsal.binding.api.ReadWriteTransaction;
+import org.opendaylight.unimgr.mef.nrp.api.EndPoint;
+import org.opendaylight.unimgr.mef.nrp.api.FailureResult;
+import org.opendaylight.unimgr.mef.nrp.api.RequestDecomposer;
+import org.opendaylight.unimgr.mef.nrp.api.Subrequrest;
+import org.opendaylight.unimgr.mef.nrp.impl.AbstractTestWithTopo;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.OperationalState;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.PortDirection;
+
+public class CachingDecomposerTest extends AbstractTestWithTopo {
+    private final AtomicLong version = new AtomicLong();
+    private final AtomicInteger calls = new AtomicInteger();
+    private RequestDecomposer delegate;
+
+    @Before
+    public void setUp() throws Exception {
+        ReadWriteTransaction tx = dataBroker.newReadWriteTransaction();
+        n(tx, "n1", "n1:1", "n1:2", "n1:3");
+        n(tx, "n2", "n2:1", "n2:2", "n2:3");
+        n(tx, "n3", "n3:1", "n3:2", "n3:3");
+        l(tx, "n1", "n1:1", "n2", "n2:1", OperationalState.ENABLED);
+        tx.commit().get();
+
+        BasicDecomposer basic = new BasicDecomposer(dataBroker);
+        delegate = (endpoints, constraints) -> {
+            calls.incrementAndGet();
+            return basic.decompose(endpoints, constraints);
+        };
+    }
+
+    @Test
+    public void cachedResultBoundToRequest() throws Exception {
+        CachingDecomposer decomposer = new CachingDecomposer(delegate, version::get, 10);
+
+        decomposer.decompose(Arrays.asList(ep("n1:2"), ep("n2:2")), null);
+        List<EndPoint> request = Arrays.asList(ep("n2:2"), ep("n1:2"));
+        List<Subrequrest> decomposed = decomposer.decompose(request, null);
+
+        assertEquals(1, calls.get());
+        assertEquals(2, decomposed.size());
+        //request endpoints are used in the result
+        assertEquals(2, decomposed.stream().flatMap(s -> s.getEndpoints().stream())
+                .filter(e -> request.stream().anyMatch(r -> r == e)).count());
+        assertEquals(2, request.stream().filter(e -> e.getNepRef() != null).count());
+        assertEquals(1, decomposer.getHitCount());
+        assertEquals(1, decomposer.getMissCount());
+    }
+
+    @Test
+    public void directionsArePartOfKey() throws Exception {
+        CachingDecomposer decomposer = new CachingDecomposer(delegate, version::get, 10);
+
+        decomposer.decompose(Arrays.asList(ep("n1:2"), ep("n2:2")), null);
+        decomposer.decompose(Arrays.asList(ep("n1:2", PortDirection.INPUT), ep("n2:2", PortDirection.OUTPUT)), null);
+
+        assertEquals(2, calls.get());
+        assertEquals(2, decomposer.getSize());
+    }
+
+    @Test
+    public void missingPathCached() throws Exception {
+        CachingDecomposer decomposer = new CachingDecomposer((endpoints, constraints) -> {
+            calls.incrementAndGet();
+            return null;
+        }, version::get, 10);
+
+        assertNull(decomposer.decompose(Arrays.asList(ep("n1:2"), ep("n3:2")), null));
+        assertNull(decomposer.decompose(Arrays.asList(ep("n1:2"), ep("n3:2")), null));
+
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    public void topologyChangeInvalidates() throws Exception {
+        CachingDecomposer decomposer = new CachingDecomposer(delegate, version::get, 10);
+        try {
+            decomposer.decompose(Arrays.asList(ep("n1:2"), ep("n3:2")), null);
+            fail("disconnected endpoints decomposed");
+        } catch (FailureResult e) {
+            //failures are not cached
+        }
+
+        ReadWriteTransaction tx = dataBroker.newReadWriteTransaction();
+        l(tx, "n2", "n2:3", "n3", "n3:3", OperationalState.ENABLED);
+        tx.commit().get();
+        version.incrementAndGet();
+
+        assertEquals(3, decomposer.decompose(Arrays.asList(ep("n1:2"), ep("n3:2")), null).size());
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void sizeBounded() throws Exception {
+        CachingDecomposer decomposer = new CachingDecomposer(delegate, version::get, 1);
+
+        decomposer.decompose(Arrays.asList(ep("n1:2"), ep("n2:2")), null);
+        decomposer.decompose(Arrays.asList(ep("n1:3"), ep("n2:2")), null);
+        decomposer.decompose(Arrays.asList(ep("n1:2"), ep("n2:2")), null);
+
+        assertEquals(3, calls.get());
+        assertEquals(1, decomposer.getSize());
+        assertEquals(2, decomposer.getEvictionCount());
+    }
+}
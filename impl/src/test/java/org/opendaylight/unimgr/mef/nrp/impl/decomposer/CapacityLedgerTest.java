@@ -0,0 +1,200 @@
+/*
+ * Copyright (c) 2018 Cisco Systems Inc and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.unimgr.mef.nrp.impl.decomposer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.Before;
+import org.junit.Test;
+import org.opendaylight.mdsal.binding.api.ReadWriteTransaction;
+import org.opendaylight.mdsal.common.api.LogicalDatastoreType;
+import org.opendaylight.unimgr.mef.nrp.api.EndPoint;
+import org.opendaylight.unimgr.mef.nrp.api.FailureResult;
+import org.opendaylight.unimgr.mef.nrp.common.NrpDao;
+import org.opendaylight.unimgr.mef.nrp.impl.AbstractTestWithTopo;
+import org.opendaylight.yang.gen.v1.urn.mef.yang.mef.common.types.rev180321.NaturalNumber;
+import org.opendaylight.yang.gen.v1.urn.mef.yang.nrm.connectivity.rev180321.carrier.eth.connectivity.end.point.resource.EgressBwpFlowBuilder;
+import org.opendaylight.yang.gen.v1.urn.mef.yang.nrm.connectivity.rev180321.carrier.eth.connectivity.end.point.resource.IngressBwpFlowBuilder;
+import org.opendaylight.yang.gen.v1.urn.mef.yang.nrp._interface.rev180321.EndPoint1;
+import org.opendaylight.yang.gen.v1.urn.mef.yang.nrp._interface.rev180321.EndPoint1Builder;
+import org.opendaylight.yang.gen.v1.urn.mef.yang.nrp._interface.rev180321.EndPoint2Builder;
+import org.opendaylight.yang.gen.v1.urn.mef.yang.nrp._interface.rev180321.nrp.connectivity.service.end.point.attrs.NrpCarrierEthConnectivityEndPointResourceBuilder;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.CapacityUnit;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.Uuid;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.capacity.TotalSizeBuilder;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.capacity.pac.TotalPotentialCapacityBuilder;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.Context1;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.connectivity.context.ConnectivityService;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.connectivity.context.ConnectivityServiceBuilder;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.connectivity.service.EndPointBuilder;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.topology.LinkBuilder;
+import org.opendaylight.yangtools.yang.common.Uint64;
+
+/**
+ * Reservations of bandwidth on node edge points and links between them.
+ */
+public class CapacityLedgerTest extends AbstractTestWithTopo {
+    private static final Uuid NEP_A = new Uuid("a:1");
+    private static final Uuid NEP_B = new Uuid("b:1");
+    private static final Uuid LINK = new Uuid("a:1-b:1");
+
+    private CapacityLedger ledger;
+
+    @Before
+    public void setUp() {
+        ledger = new CapacityLedger();
+        ledger.putCapacity(NEP_A, 100L);
+        ledger.putCapacity(NEP_B, 200L);
+        ledger.putLink(LINK, Arrays.asList(NEP_A, NEP_B), 50L);
+    }
+
+    @Test
+    public void reserveAndRelease() throws FailureResult {
+        ledger.reserve("cs:1", Arrays.asList(NEP_A, NEP_B), 40L);
+        assertEquals(60L, ledger.residual(NEP_A));
+        assertEquals(160L, ledger.residual(NEP_B));
+        assertEquals(10L, ledger.residual(LINK));
+        assertEquals(0.8, ledger.utilization(LINK), 1e-9);
+
+        ledger.reserve("cs:2", Collections.singletonList(NEP_A), 20L);
+        assertEquals(40L, ledger.residual(NEP_A));
+        assertEquals(10L, ledger.residual(LINK));
+
+        assertTrue(ledger.release("cs:1"));
+        assertFalse(ledger.release("cs:1"));
+        assertEquals(80L, ledger.residual(NEP_A));
+        assertEquals(200L, ledger.residual(NEP_B));
+        assertEquals(50L, ledger.residual(LINK));
+    }
+
+    @Test
+    public void replaceReservation() throws FailureResult {
+        ledger.reserve("cs:1", Arrays.asList(NEP_A, NEP_B), 40L);
+        ledger.reserve("cs:1", Collections.singletonList(NEP_B), 10L);
+        assertEquals(100L, ledger.residual(NEP_A));
+        assertEquals(190L, ledger.residual(NEP_B));
+        assertEquals(50L, ledger.residual(LINK));
+    }
+
+    @Test
+    public void unlimitedResources() throws FailureResult {
+        Uuid other = new Uuid("c:1");
+        ledger.reserve("cs:1", Collections.singletonList(other), 40L);
+        assertEquals(Long.MAX_VALUE, ledger.residual(other));
+        assertEquals(0, ledger.utilization(other), 0);
+
+        ledger.removeLink(LINK);
+        assertEquals(Long.MAX_VALUE, ledger.residual(LINK));
+    }
+
+    @Test
+    public void oversubscriptionRejected() throws FailureResult {
+        ledger.reserve("cs:1", Arrays.asList(NEP_A, NEP_B), 40L);
+        try {
+            ledger.reserve("cs:2", Arrays.asList(NEP_A, NEP_B), 20L);
+            fail("link oversubscribed");
+        } catch (FailureResult e) {
+            assertEquals("Not enough capacity for 20 bps on [a:1-b:1]", e.getMessage());
+        }
+        assertEquals(10L, ledger.residual(LINK));
+
+        //previous reservation is kept
+        try {
+            ledger.reserve("cs:1", Arrays.asList(NEP_A, NEP_B), 60L);
+            fail("link oversubscribed");
+        } catch (FailureResult e) {
+            assertEquals(60L, ledger.residual(NEP_A));
+        }
+        assertTrue(ledger.release("cs:1"));
+        assertEquals(50L, ledger.residual(LINK));
+    }
+
+    @Test
+    public void linkRegisteredAfterReservation() throws FailureResult {
+        ledger.removeLink(LINK);
+        ledger.reserve("cs:1", Arrays.asList(NEP_A, NEP_B), 40L);
+        ledger.putLink(LINK, Arrays.asList(NEP_A, NEP_B), 50L);
+        assertEquals(10L, ledger.residual(LINK));
+
+        ledger.release("cs:1");
+        assertEquals(50L, ledger.residual(LINK));
+    }
+
+    @Test
+    public void seededWithExistingServices() throws Exception {
+        ReadWriteTransaction tx = dataBroker.newReadWriteTransaction();
+        n(tx, "a", "a:1");
+        n(tx, "b", "b:1");
+        c(tx, "a", Collections.emptyList(), "a:1");
+        c(tx, "b", Collections.emptyList(), "b:1");
+        c(tx, "cs", Arrays.asList(new Uuid("c:a"), new Uuid("c:b")));
+        ConnectivityService cs = new ConnectivityServiceBuilder()
+                .setUuid(new Uuid("cs:1"))
+                .setConnection(Collections.singletonList(new Uuid("c:cs")))
+                .setEndPoint(Collections.singletonList(new EndPointBuilder()
+                        .setLocalId("a")
+                        .addAugmentation(EndPoint1.class, new EndPoint1Builder()
+                                .setNrpCarrierEthConnectivityEndPointResource(
+                                        new NrpCarrierEthConnectivityEndPointResourceBuilder()
+                                                .setIngressBwpFlow(new IngressBwpFlowBuilder()
+                                                        .setCir(new NaturalNumber(40L)).build())
+                                                .build())
+                                .build())
+                        .build()))
+                .build();
+        tx.put(LogicalDatastoreType.OPERATIONAL, NrpDao.ctx().augmentation(Context1.class)
+                .child(ConnectivityService.class, cs.key()), cs);
+        tx.commit().get();
+
+        CapacityLedger seeded = new CapacityLedger(dataBroker);
+        seeded.putCapacity(NEP_A, 100L);
+        seeded.init();
+        seeded.putLink(LINK, Arrays.asList(NEP_A, NEP_B), 50L);
+
+        assertEquals(60L, seeded.residual(NEP_A));
+        assertEquals(10L, seeded.residual(LINK));
+        assertTrue(seeded.release("cs:1"));
+    }
+
+    @Test
+    public void capacityUnits() {
+        assertEquals(Long.valueOf(10_000_000_000L), CapacityLedger.capacity(new LinkBuilder()
+                .setTotalPotentialCapacity(capacity(10, CapacityUnit.GBPS)).build()));
+        assertEquals(Long.valueOf(5_000L), CapacityLedger.capacity(new LinkBuilder()
+                .setTotalPotentialCapacity(capacity(5, CapacityUnit.KBPS)).build()));
+        assertNull(CapacityLedger.capacity(new LinkBuilder()
+                .setTotalPotentialCapacity(capacity(5, CapacityUnit.GB)).build()));
+        assertNull(CapacityLedger.capacity(new LinkBuilder().build()));
+    }
+
+    @Test
+    public void demand() {
+        EndPoint withProfile = new EndPoint(ep("a:1").getEndpoint(), new EndPoint2Builder()
+                .setNrpCarrierEthConnectivityEndPointResource(new NrpCarrierEthConnectivityEndPointResourceBuilder()
+                        .setIngressBwpFlow(new IngressBwpFlowBuilder().setCir(new NaturalNumber(30L)).build())
+                        .setEgressBwpFlow(new EgressBwpFlowBuilder().setCir(new NaturalNumber(70L)).build())
+                        .build())
+                .build());
+        assertEquals(70L, CapacityLedger.demand(Arrays.asList(ep("b:1"), withProfile)));
+        assertEquals(0L, CapacityLedger.demand(Arrays.asList(ep("a:1"), ep("b:1"))));
+    }
+
+    private static org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.capacity.pac
+            .TotalPotentialCapacity capacity(long value, CapacityUnit unit) {
+        return new TotalPotentialCapacityBuilder()
+                .setTotalSize(new TotalSizeBuilder().setValue(Uint64.valueOf(value)).setUnit(unit).build())
+                .build();
+    }
+}
@@ -0,0 +1,22 @@
+/*
+ * Copyright (c) 2018 Cisco Systems Inc and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.unimgr.mef.nrp.impl.decomposer;
+
+import org.opendaylight.unimgr.mef.nrp.api.RequestDecomposer;
+
+/**
+ * Runs {@link BasicDecomposerMultipointTest} scenarios against {@link CompactDecomposer}.
+ */
+public class CompactDecomposerMultipointTest extends BasicDecomposerMultipointTest {
+
+    @Override
+    protected RequestDecomposer createDecomposer() {
+        return new CompactDecomposer(dataBroker);
+    }
+}
@@ -0,0 +1,27 @@
+/*
+ * Copyright (c) 2018 Cisco Systems Inc and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.unimgr.mef.nrp.impl.decomposer;
+
+import org.opendaylight.unimgr.mef.nrp.api.RequestDecomposer;
+import org.opendaylight.unimgr.mef.nrp.common.TopologyProjectionReader;
+
+/**
+ * Runs {@link BasicDecomposerForDirectedTopologyTest} scenarios against {@link CompactDecomposer}
+ * building its graph from the normalized nodes with {@link TopologyProjectionReader}.
+ */
+public class CompactDecomposerOnProjectionTest extends BasicDecomposerForDirectedTopologyTest {
+
+    @Override
+    protected RequestDecomposer createDecomposer() {
+        CompactDecomposer compactDecomposer = new CompactDecomposer(dataBroker);
+        compactDecomposer.setTopologyReader(new TopologyProjectionReader(getDomBroker(),
+                getDataBrokerTestCustomizer().getBindingToNormalized()));
+        return compactDecomposer;
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2018 Cisco Systems Inc and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.unimgr.mef.nrp.impl.decomposer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Test;
+import org.opendaylight.mdsal.binding.api.ReadTransaction;
+import org.opendaylight.mdsal.binding.api.ReadWriteTransaction;
+import org.opendaylight.unimgr.mef.nrp.api.FailureResult;
+import org.opendaylight.unimgr.mef.nrp.api.RequestDecomposer;
+import org.opendaylight.unimgr.mef.nrp.api.Subrequrest;
+import org.opendaylight.unimgr.mef.nrp.api.TapiConstants;
+import org.opendaylight.unimgr.mef.nrp.common.NrpDao;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.OperationalState;
+
+/**
+ * Runs {@link BasicDecomposerTest} scenarios against {@link CompactDecomposer}.
+ */
+public class CompactDecomposerTest extends BasicDecomposerTest {
+    private CompactDecomposer compactDecomposer;
+
+    @Override
+    protected RequestDecomposer createDecomposer() {
+        compactDecomposer = new CompactDecomposer(dataBroker);
+        return compactDecomposer;
+    }
+
+    @After
+    public void tearDown() {
+        compactDecomposer.close();
+    }
+
+    @Test
+    public void graphRebuiltOnTopologyChange() throws Exception {
+        compactDecomposer.init();
+        //having
+        ReadWriteTransaction tx = dataBroker.newReadWriteTransaction();
+        n(tx, "n1", "n1:1", "n1:2", "n1:3");
+        n(tx, "n2", "n2:1", "n2:2", "n2:3");
+        tx.commit().get();
+
+        assertNull(awaitDecomposition(null));
+
+        //when
+        tx = dataBroker.newReadWriteTransaction();
+        l(tx, "n1", "n1:1", "n2", "n2:1", OperationalState.ENABLED);
+        tx.commit().get();
+
+        //then
+        List<Subrequrest> decomposed = awaitDecomposition(2);
+        assertNotNull(decomposed);
+        assertEquals(2, decomposed.size());
+    }
+
+    @Test
+    public void graphFollowsTopologyGraphVersion() throws Exception {
+        TopologyGraph topologyGraph = new TopologyGraph();
+        compactDecomposer.setTopologyGraph(topologyGraph);
+        compactDecomposer.init();
+        //having
+        ReadWriteTransaction tx = dataBroker.newReadWriteTransaction();
+        n(tx, "n1", "n1:1", "n1:2", "n1:3");
+        n(tx, "n2", "n2:1", "n2:2", "n2:3");
+        tx.commit().get();
+        assertNull(awaitDecomposition(null));
+
+        //when
+        tx = dataBroker.newReadWriteTransaction();
+        l(tx, "n1", "n1:1", "n2", "n2:1", OperationalState.ENABLED);
+        tx.commit().get();
+
+        //then graph is reused until the version changes
+        assertNull(awaitDecomposition(null));
+        try (ReadTransaction rtx = dataBroker.newReadOnlyTransaction()) {
+            topologyGraph.reset(new NrpDao(rtx).getTopology(TapiConstants.PRESTO_SYSTEM_TOPO));
+        }
+        assertEquals(2, awaitDecomposition(2).size());
+    }
+
+    @Test
+    public void compactGraphSize() {
+        CompactGraph graph = CompactGraph.of(TopologyGenerator.chain(3, 50));
+        assertEquals(153, graph.vertexCount());
+        assertEquals(3 * 2 * 50 + 4, graph.edgeCount());
+    }
+
+    private List<Subrequrest> awaitDecomposition(Integer expectedSize) throws Exception {
+        List<Subrequrest> result = null;
+        for (int i = 0; i < 40; ++i) {
+            try {
+                result = decomposer.decompose(Arrays.asList(ep("n1:2"), ep("n2:2")), null);
+            } catch (FailureResult e) {
+                //endpoints not connected yet
+                result = null;
+            }
+            if (expectedSize == null ? result == null : result != null && result.size() == expectedSize) {
+                return result;
+            }
+            TimeUnit.MILLISECONDS.sleep(50);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright (c) 2018 Cisco Systems Inc and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.unimgr.mef.nrp.impl.decomposer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.junit.Before;
+import org.junit.Test;
+import org.opendaylight.unimgr.mef.nrp.api.Constraints;
+import org.opendaylight.unimgr.mef.nrp.api.FailureResult;
+import org.opendaylight.unimgr.mef.nrp.api.Subrequrest;
+import org.opendaylight.unimgr.mef.nrp.impl.AbstractTestWithTopo;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.CapacityUnit;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.Uuid;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.capacity.TotalSizeBuilder;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.capacity.pac.TotalPotentialCapacityBuilder;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.RouteObjectiveFunction;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.connectivity.constraint.LatencyCharacteristicBuilder;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.create.connectivity.service.input.ConnConstraintBuilder;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.create.connectivity.service.input.TopoConstraintBuilder;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.topology.constraint.ExcludeNodeBuilder;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.topology.LinkBuilder;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.topology.Node;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.topology.NodeBuilder;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.transfer.cost.pac.CostCharacteristicBuilder;
+import org.opendaylight.yangtools.yang.common.Uint64;
+
+/**
+ * Routing over a diamond topology. Node n0 is connected with n3 through either n1 or n2.
+ * Transit through n1 is expensive but fast, transit through n2 is cheap but slow.
+ */
+public class ConstrainedRouterTest extends AbstractTestWithTopo {
+
+    private TopologyGraph graph;
+    private CapacityLedger ledger;
+
+    @Before
+    public void setUp() {
+        ledger = new CapacityLedger();
+        graph = new TopologyGraph();
+        graph.setCapacityLedger(ledger);
+        graph.putNode(TopologyGenerator.node("n0", 3));
+        graph.putNode(weighted("n1", 10, 1));
+        graph.putNode(weighted("n2", 1, 5));
+        graph.putNode(TopologyGenerator.node("n3", 3));
+        graph.putLink(TopologyGenerator.link("n0", "n0:0", "n1", "n1:0"));
+        graph.putLink(TopologyGenerator.link("n1", "n1:1", "n3", "n3:0"));
+        graph.putLink(TopologyGenerator.link("n0", "n0:1", "n2", "n2:0"));
+        graph.putLink(TopologyGenerator.link("n2", "n2:1", "n3", "n3:1"));
+    }
+
+    @Test
+    public void minimalCost() throws FailureResult {
+        assertEquals(nodes("n0", "n2", "n3"), route(Constraints.builder().metric(Constraints.Metric.COST).build()));
+    }
+
+    @Test
+    public void minimalLatency() throws FailureResult {
+        assertEquals(nodes("n0", "n1", "n3"),
+                route(Constraints.builder().metric(Constraints.Metric.LATENCY).build()));
+    }
+
+    @Test
+    public void excludeNode() throws FailureResult {
+        assertEquals(nodes("n0", "n1", "n3"), route(Constraints.builder()
+                .metric(Constraints.Metric.COST).excludeNode(new Uuid("n2")).build()));
+        assertNull(route(Constraints.builder()
+                .excludeNodes(Arrays.asList(new Uuid("n1"), new Uuid("n2"))).build()));
+        assertNull(route(Constraints.builder().excludeNode(new Uuid("n0")).build()));
+    }
+
+    @Test
+    public void includeNode() throws FailureResult {
+        assertEquals(nodes("n0", "n1", "n3"), route(Constraints.builder()
+                .metric(Constraints.Metric.COST).includeNode(new Uuid("n1")).build()));
+        assertEquals(nodes("n0", "n2", "n3"), route(Constraints.builder().includeNode(new Uuid("n2")).build()));
+        //visiting both transit nodes requires going through n0 or n3 twice
+        assertNull(route(Constraints.builder().includeNode(new Uuid("n1")).includeNode(new Uuid("n2")).build()));
+    }
+
+    @Test
+    public void latencyBound() throws FailureResult {
+        //the cheapest path is too slow, so the fastest one is selected
+        assertEquals(nodes("n0", "n1", "n3"), route(Constraints.builder()
+                .metric(Constraints.Metric.COST).maxLatency(3.0).build()));
+        assertEquals(nodes("n0", "n2", "n3"), route(Constraints.builder()
+                .metric(Constraints.Metric.COST).maxLatency(5.0).build()));
+        assertNull(route(Constraints.builder().maxLatency(0.5).build()));
+    }
+
+    @Test
+    public void followNodeWeightUpdates() throws FailureResult {
+        Constraints cost = Constraints.builder().metric(Constraints.Metric.COST).build();
+        assertEquals(nodes("n0", "n2", "n3"), route(cost));
+
+        graph.putNode(weighted("n2", 100, 5));
+        assertEquals(nodes("n0", "n1", "n3"), route(cost));
+    }
+
+    @Test
+    public void fromTapiConstraints() throws FailureResult {
+        Constraints constraints = Constraints.of(
+                new TopoConstraintBuilder()
+                        .setExcludeNode(Collections.singletonList(new ExcludeNodeBuilder()
+                                .setTopologyId(new Uuid("topo")).setNodeId(new Uuid("n1")).build()))
+                        .build(),
+                new ConnConstraintBuilder()
+                        .setRouteObjectiveFunction(RouteObjectiveFunction.MINWORKROUTELATENCY)
+                        .setLatencyCharacteristic(Collections.singletonList(new LatencyCharacteristicBuilder()
+                                .setTrafficPropertyName("default").setFixedLatencyCharacteristic("7").build()))
+                        .build());
+
+        assertEquals(Constraints.Metric.LATENCY, constraints.getMetric());
+        assertEquals(Double.valueOf(7), constraints.getMaxLatency());
+        assertEquals(nodes("n0", "n2", "n3"), route(constraints));
+        assertEquals(new Constraints(), Constraints.of(null, null));
+    }
+
+    @Test
+    public void skipSaturatedResources() throws FailureResult {
+        Constraints bandwidth = Constraints.builder().metric(Constraints.Metric.COST).bandwidth(100L).build();
+        ledger.putCapacity(new Uuid("n2:0"), 150L);
+        assertEquals(nodes("n0", "n2", "n3"), route(bandwidth));
+
+        ledger.reserve("cs:1", Collections.singletonList(new Uuid("n2:0")), 100L);
+        assertEquals(nodes("n0", "n1", "n3"), route(bandwidth));
+
+        ledger.putCapacity(new Uuid("n1:1"), 50L);
+        assertNull(route(bandwidth));
+
+        ledger.release("cs:1");
+        assertEquals(nodes("n0", "n2", "n3"), route(bandwidth));
+    }
+
+    @Test
+    public void skipSaturatedLink() throws FailureResult {
+        graph.putLink(new LinkBuilder(TopologyGenerator.link("n0", "n0:1", "n2", "n2:0"))
+                .setTotalPotentialCapacity(new TotalPotentialCapacityBuilder()
+                        .setTotalSize(new TotalSizeBuilder()
+                                .setValue(Uint64.valueOf(1)).setUnit(CapacityUnit.MBPS).build())
+                        .build())
+                .build());
+        Constraints.Builder cost = Constraints.builder().metric(Constraints.Metric.COST);
+
+        assertEquals(nodes("n0", "n2", "n3"), route(cost.bandwidth(1_000_000L).build()));
+        assertEquals(nodes("n0", "n1", "n3"), route(cost.bandwidth(1_000_001L).build()));
+    }
+
+    @Test
+    public void balanceLoad() throws FailureResult {
+        Constraints bandwidth = Constraints.builder().bandwidth(10L).build();
+        Arrays.asList("n1:0", "n1:1", "n2:0", "n2:1").forEach(n -> ledger.putCapacity(new Uuid(n), 100L));
+
+        ledger.reserve("cs:1", Arrays.asList(new Uuid("n1:0"), new Uuid("n1:1")), 30L);
+        assertEquals(nodes("n0", "n2", "n3"), route(bandwidth));
+
+        ledger.reserve("cs:2", Arrays.asList(new Uuid("n2:0"), new Uuid("n2:1")), 50L);
+        assertEquals(nodes("n0", "n1", "n3"), route(bandwidth));
+    }
+
+    private Set<String> route(Constraints constraints) throws FailureResult {
+        List<Subrequrest> decomposed = new DecompositionAction(Arrays.asList(ep("n0:2"), ep("n3:2")),
+                graph.snapshot()).withConstraints(constraints).decompose();
+        if (decomposed == null) {
+            return null;
+        }
+        return decomposed.stream().map(s -> s.getNodeUuid().getValue()).collect(Collectors.toSet());
+    }
+
+    private static Set<String> nodes(String... nodes) {
+        return new HashSet<>(Arrays.asList(nodes));
+    }
+
+    private static Node weighted(String nodeId, int cost, int latency) {
+        return new NodeBuilder(TopologyGenerator.node(nodeId, 3))
+                .setCostCharacteristic(Collections.singletonList(new CostCharacteristicBuilder()
+                        .setCostName("default").setCostValue(Integer.toString(cost)).build()))
+                .setLatencyCharacteristic(Collections.singletonList(
+                        new org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307
+                                .transfer.timing.pac.LatencyCharacteristicBuilder()
+                                .setTrafficPropertyName("default")
+                                .setFixedLatencyCharacteristic(Integer.toString(latency)).build()))
+                .build();
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright (c) 2018 Cisco Systems Inc and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.unimgr.mef.nrp.impl.decomposer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.opendaylight.unimgr.mef.nrp.api.Constraints;
+import org.opendaylight.unimgr.mef.nrp.api.EndPoint;
+import org.opendaylight.unimgr.mef.nrp.api.FailureResult;
+import org.opendaylight.unimgr.mef.nrp.api.RequestDecomposer;
+import org.opendaylight.unimgr.mef.nrp.api.Subrequrest;
+import org.opendaylight.unimgr.mef.nrp.impl.AbstractTestWithTopo;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.Uuid;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.ServiceType;
+
+/**
+ * Strategy selection and time budget enforcement with stub decomposers.
+ */
+public class DecomposerRegistryTest extends AbstractTestWithTopo {
+    private static final Constraints STEINER = Constraints.builder()
+            .treeStrategy(Constraints.TreeStrategy.STEINER_TREE).build();
+    private static final Constraints EXCLUDE = Constraints.builder().excludeNode(new Uuid("n1")).build();
+
+    private final List<Subrequrest> fastResult = new ArrayList<>();
+    private final List<Subrequrest> slowResult = new ArrayList<>();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private DecomposerRegistry registry;
+
+    @Before
+    public void setUp() {
+        registry = new DecomposerRegistry((endpoints, constraints) -> {
+            assertNull(constraints);
+            return fastResult;
+        }, 100, Executors.newSingleThreadExecutor());
+    }
+
+    @After
+    public void tearDown() {
+        release.countDown();
+        registry.close();
+    }
+
+    @Test
+    public void selectByRequest() {
+        registry.setWeighted((endpoints, constraints) -> slowResult);
+        List<EndPoint> pointToPoint = Arrays.asList(ep("n1:1"), ep("n2:1"));
+        List<EndPoint> multipoint = Arrays.asList(ep("n1:1"), ep("n2:1"), ep("n3:1"));
+
+        assertEquals(DecomposerRegistry.Strategy.FAST, registry.select(multipoint, null));
+        assertEquals(DecomposerRegistry.Strategy.FAST, registry.select(multipoint, new Constraints()));
+        assertEquals(DecomposerRegistry.Strategy.FAST, registry.select(pointToPoint, STEINER));
+        assertEquals(DecomposerRegistry.Strategy.WEIGHTED, registry.select(pointToPoint, EXCLUDE));
+        //tree strategy not registered
+        assertEquals(DecomposerRegistry.Strategy.WEIGHTED, registry.select(multipoint, STEINER));
+
+        registry.setTree((endpoints, constraints) -> slowResult);
+        assertEquals(DecomposerRegistry.Strategy.TREE, registry.select(multipoint, STEINER));
+    }
+
+    @Test
+    public void selectByServiceType() {
+        registry.setWeighted((endpoints, constraints) -> slowResult);
+        registry.setTree((endpoints, constraints) -> slowResult);
+        Constraints.Builder steiner = Constraints.builder().treeStrategy(Constraints.TreeStrategy.STEINER_TREE);
+
+        assertEquals(DecomposerRegistry.Strategy.TREE, registry.select(Arrays.asList(ep("n1:1"), ep("n2:1")),
+                steiner.serviceType(ServiceType.MULTIPOINTCONNECTIVITY).build()));
+        assertEquals(DecomposerRegistry.Strategy.FAST, registry.select(
+                Arrays.asList(ep("n1:1"), ep("n2:1"), ep("n3:1")),
+                steiner.serviceType(ServiceType.POINTTOPOINTCONNECTIVITY).build()));
+    }
+
+    @Test
+    public void fastStrategyOnCallerThread() throws FailureResult {
+        registry.setWeighted((endpoints, constraints) -> slowResult);
+        assertSame(fastResult, registry.decompose(Arrays.asList(ep("n1:1"), ep("n2:1")), STEINER));
+        assertSame(slowResult, registry.decompose(Arrays.asList(ep("n1:1"), ep("n2:1")), EXCLUDE));
+    }
+
+    @Test
+    public void fallbackOnDeadline() throws FailureResult {
+        registry.setTree(blocking());
+        List<EndPoint> multipoint = Arrays.asList(ep("n1:1"), ep("n2:1"), ep("n3:1"));
+
+        assertSame(fastResult, registry.decompose(multipoint, STEINER));
+        assertEquals(1, registry.getFallbackCount());
+    }
+
+    @Test
+    public void constrainedRequestFailsOnDeadline() {
+        registry.setWeighted(blocking());
+        try {
+            registry.decompose(Arrays.asList(ep("n1:1"), ep("n2:1")), EXCLUDE);
+            fail("request served without enforcing constraints");
+        } catch (FailureResult e) {
+            assertEquals("Decomposition with WEIGHTED strategy cannot be completed within 100 ms", e.getMessage());
+        }
+        assertEquals(0, registry.getFallbackCount());
+    }
+
+    @Test
+    public void overrunComputationInterrupted() throws Exception {
+        final CountDownLatch stopped = new CountDownLatch(1);
+        registry.setWeighted((endpoints, constraints) -> {
+            try {
+                while (true) {
+                    DecompositionAction.checkInterrupted();
+                }
+            } catch (CancellationException e) {
+                stopped.countDown();
+                throw e;
+            }
+        });
+        try {
+            registry.decompose(Arrays.asList(ep("n1:1"), ep("n2:1")), EXCLUDE);
+            fail("request served without enforcing constraints");
+        } catch (FailureResult e) {
+            assertTrue(stopped.await(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void overrunDecompositionStops() throws Exception {
+        //having pool busy, so the trees of the decomposition are not computed within the budget
+        CountDownLatch busy = new CountDownLatch(1);
+        ForkJoinPool pool = new ForkJoinPool(1);
+        pool.submit(() -> {
+            busy.await();
+            return null;
+        });
+        TopologyGraph.Snapshot snapshot = TopologyGraph.of(TopologyGenerator.chain(5, 8));
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        registry = new DecomposerRegistry((endpoints, constraints) -> fastResult, 100, executor);
+        registry.setWeighted((endpoints, constraints) -> new DecompositionAction(endpoints, snapshot)
+                .withPool(pool).withConstraints(constraints).decompose());
+        try {
+            registry.decompose(Arrays.asList(ep("n0:2"), ep("n1:4"), ep("n2:5"), ep("n4:2")),
+                    Constraints.builder().excludeNode(new Uuid("m0")).build());
+            fail("request served without enforcing constraints");
+        } catch (FailureResult e) {
+            //then the thread of the registry is released while the pool is still busy
+            executor.submit(() -> { }).get(5, TimeUnit.SECONDS);
+        } finally {
+            busy.countDown();
+            registry.close();
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void failurePropagated() {
+        registry.setWeighted((endpoints, constraints) -> {
+            throw new FailureResult("no path");
+        });
+        try {
+            registry.decompose(Arrays.asList(ep("n1:1"), ep("n2:1")), EXCLUDE);
+            fail("failure swallowed");
+        } catch (FailureResult e) {
+            assertEquals("no path", e.getMessage());
+        }
+    }
+
+    private RequestDecomposer blocking() {
+        return (endpoints, constraints) -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return slowResult;
+        };
+    }
+}
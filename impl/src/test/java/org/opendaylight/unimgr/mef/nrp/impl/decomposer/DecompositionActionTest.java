@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2018 Cisco Systems Inc and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.unimgr.mef.nrp.impl.decomposer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.opendaylight.unimgr.mef.nrp.api.EndPoint;
+import org.opendaylight.unimgr.mef.nrp.api.FailureResult;
+import org.opendaylight.unimgr.mef.nrp.api.Subrequrest;
+import org.opendaylight.unimgr.mef.nrp.impl.AbstractTestWithTopo;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.Uuid;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.topology.context.Topology;
+
+public class DecompositionActionTest extends AbstractTestWithTopo {
+    private ForkJoinPool pool;
+
+    @Before
+    public void setUp() {
+        pool = new ForkJoinPool(4);
+    }
+
+    @After
+    public void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    public void multipointTreesInParallel() throws Exception {
+        //having n0 - n1 - n2 - n3 - n4 chain
+        TopologyGraph.Snapshot snapshot = TopologyGraph.of(TopologyGenerator.chain(5, 8));
+        List<EndPoint> endpoints = Arrays.asList(
+                ep("n0:2"), ep("n0:3"), ep("n1:4"), ep("n2:5"), ep("n3:6"), ep("n4:2"), ep("n4:7"));
+
+        //when
+        List<Subrequrest> decomposed = new DecompositionAction(endpoints, snapshot).withPool(pool).decompose();
+
+        //then
+        assertNotNull(decomposed);
+        Map<Uuid, Set<String>> expected = new HashMap<>();
+        expected.put(new Uuid("n0"), neps("n0:2", "n0:3", "n0:0"));
+        expected.put(new Uuid("n1"), neps("n1:4", "n1:1", "n1:0"));
+        expected.put(new Uuid("n2"), neps("n2:5", "n2:1", "n2:0"));
+        expected.put(new Uuid("n3"), neps("n3:6", "n3:1", "n3:0"));
+        expected.put(new Uuid("n4"), neps("n4:2", "n4:7", "n4:1"));
+        assertEquals(expected, decomposed.stream().collect(Collectors.toMap(Subrequrest::getNodeUuid,
+            s -> s.getEndpoints().stream()
+                    .map(e -> e.getNepRef().getOwnedNodeEdgePointId().getValue())
+                    .collect(Collectors.toSet()))));
+    }
+
+    @Test
+    public void multipointNoPathInParallel() throws Exception {
+        //having two disconnected chains
+        Topology topology = TopologyGenerator.chain(2, 4);
+        TopologyGraph graph = new TopologyGraph();
+        graph.reset(topology);
+        graph.putNode(TopologyGenerator.node("m0", 4));
+
+        try {
+            //when
+            new DecompositionAction(Arrays.asList(ep("n0:2"), ep("n0:3"), ep("n1:2"), ep("m0:2")), graph.snapshot())
+                    .withPool(pool).decompose();
+            fail("disconnected endpoints decomposed");
+        } catch (FailureResult e) {
+            //then
+            assertEquals("Service interface points are in disconnected parts of the topology: "
+                    + "[sip:n0:2,sip:n0:3,sip:n1:2] [sip:m0:2]", e.getMessage());
+        }
+    }
+
+    @Test
+    public void interruptedCallerCancelsTrees() throws Exception {
+        //having pool busy, so the trees are not computed
+        CountDownLatch release = new CountDownLatch(1);
+        ForkJoinPool busy = new ForkJoinPool(1);
+        busy.submit(() -> {
+            release.await();
+            return null;
+        });
+        TopologyGraph.Snapshot snapshot = TopologyGraph.of(TopologyGenerator.chain(5, 8));
+        List<EndPoint> endpoints = Arrays.asList(ep("n0:2"), ep("n1:4"), ep("n2:5"), ep("n4:2"));
+        ExecutorService caller = Executors.newSingleThreadExecutor();
+        try {
+            Future<List<Subrequrest>> decomposed = caller.submit(
+                () -> new DecompositionAction(endpoints, snapshot).withPool(busy).decompose());
+            TimeUnit.MILLISECONDS.sleep(100);
+
+            //when
+            decomposed.cancel(true);
+
+            //then caller stops waiting for the trees
+            caller.submit(() -> { }).get(5, TimeUnit.SECONDS);
+            release.countDown();
+            assertTrue(busy.awaitQuiescence(5, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+            caller.shutdownNow();
+            busy.shutdownNow();
+        }
+    }
+
+    private static Set<String> neps(String... ids) {
+        return new HashSet<>(Arrays.asList(ids));
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2018 Cisco Systems Inc and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.unimgr.mef.nrp.impl.decomposer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.junit.Before;
+import org.junit.Test;
+import org.opendaylight.unimgr.mef.nrp.api.Constraints;
+import org.opendaylight.unimgr.mef.nrp.api.EndPoint;
+import org.opendaylight.unimgr.mef.nrp.api.FailureResult;
+import org.opendaylight.unimgr.mef.nrp.api.Subrequrest;
+import org.opendaylight.unimgr.mef.nrp.impl.AbstractTestWithTopo;
+import org.opendaylight.yang.gen.v1.urn.odl.unimgr.yang.unimgr.ext.rev170531.MultipointStrategyAugmentation;
+import org.opendaylight.yang.gen.v1.urn.odl.unimgr.yang.unimgr.ext.rev170531.MultipointStrategyAugmentation.MultipointStrategy;
+import org.opendaylight.yang.gen.v1.urn.odl.unimgr.yang.unimgr.ext.rev170531.MultipointStrategyAugmentationBuilder;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.Uuid;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.create.connectivity.service.input.ConnConstraintBuilder;
+
+/**
+ * Multipoint decomposition over a triangle of terminal nodes t0, t1, t2,
+ * where each pair of terminals is connected through a dedicated transit node.
+ */
+public class SteinerTreeTest extends AbstractTestWithTopo {
+    private static final Constraints STEINER = Constraints.builder()
+            .treeStrategy(Constraints.TreeStrategy.STEINER_TREE).build();
+
+    private TopologyGraph graph;
+
+    @Before
+    public void setUp() {
+        graph = new TopologyGraph();
+        Arrays.asList("t0", "t1", "t2").forEach(n -> graph.putNode(TopologyGenerator.node(n, 3)));
+        Arrays.asList("a", "b", "c").forEach(n -> graph.putNode(TopologyGenerator.node(n, 2)));
+        //t0 - a - t1
+        graph.putLink(TopologyGenerator.link("t0", "t0:0", "a", "a:0"));
+        graph.putLink(TopologyGenerator.link("a", "a:1", "t1", "t1:0"));
+        //t1 - b - t2
+        graph.putLink(TopologyGenerator.link("t1", "t1:1", "b", "b:0"));
+        graph.putLink(TopologyGenerator.link("b", "b:1", "t2", "t2:0"));
+        //t2 - c - t0
+        graph.putLink(TopologyGenerator.link("t2", "t2:1", "c", "c:0"));
+        graph.putLink(TopologyGenerator.link("c", "c:1", "t0", "t0:1"));
+    }
+
+    @Test
+    public void fewerNodesThanShortestPaths() throws FailureResult {
+        assertEquals(6, route(null).size());
+
+        Set<String> tree = route(STEINER);
+        assertEquals(5, tree.size());
+        assertTrue(tree.containsAll(nodes("t0", "t1", "t2")));
+    }
+
+    @Test
+    public void terminalNepsIncluded() throws FailureResult {
+        List<Subrequrest> decomposed = decompose(STEINER);
+        Set<String> neps = decomposed.stream()
+                .flatMap(s -> s.getEndpoints().stream())
+                .map(e -> e.getNepRef().getOwnedNodeEdgePointId().getValue())
+                .collect(Collectors.toSet());
+        assertTrue(neps.containsAll(nodes("t0:2", "t1:2", "t2:2")));
+        //each transit node is entered and left through its two ports
+        decomposed.stream().filter(s -> s.getNodeUuid().getValue().length() == 1)
+                .forEach(s -> assertEquals(2, s.getEndpoints().size()));
+    }
+
+    @Test
+    public void excludedNodeAvoided() throws FailureResult {
+        Set<String> tree = route(Constraints.builder()
+                .treeStrategy(Constraints.TreeStrategy.STEINER_TREE).excludeNode(new Uuid("a")).build());
+        assertEquals(nodes("t0", "t1", "t2", "b", "c"), tree);
+
+        assertNull(decompose(Constraints.builder().treeStrategy(Constraints.TreeStrategy.STEINER_TREE)
+                .excludeNodes(Arrays.asList(new Uuid("a"), new Uuid("c"))).build()));
+    }
+
+    @Test
+    public void routingConstraintsRoutedWithShortestPaths() throws FailureResult {
+        assertRoutedWithShortestPaths(Constraints.builder().includeNode(new Uuid("b")));
+        assertRoutedWithShortestPaths(Constraints.builder().metric(Constraints.Metric.COST));
+        assertRoutedWithShortestPaths(Constraints.builder().maxLatency(100.0));
+    }
+
+    @Test
+    public void pointToPointUnchanged() throws FailureResult {
+        List<EndPoint> endpoints = Arrays.asList(ep("t0:2"), ep("t1:2"));
+        assertEquals(names(new DecompositionAction(endpoints, graph.snapshot()).decompose()),
+                names(new DecompositionAction(endpoints, graph.snapshot()).withConstraints(STEINER).decompose()));
+    }
+
+    @Test
+    public void fromTapiConstraints() {
+        Constraints constraints = Constraints.of(null, new ConnConstraintBuilder()
+                .addAugmentation(MultipointStrategyAugmentation.class, new MultipointStrategyAugmentationBuilder()
+                        .setMultipointStrategy(MultipointStrategy.SteinerTree).build())
+                .build());
+
+        assertEquals(STEINER, constraints);
+        assertEquals(Constraints.TreeStrategy.SHORTEST_PATHS,
+                Constraints.of(null, new ConnConstraintBuilder().build()).getTreeStrategy());
+    }
+
+    private void assertRoutedWithShortestPaths(Constraints.Builder constraints) throws FailureResult {
+        Set<String> shortestPaths = route(constraints.build());
+        assertEquals(shortestPaths, route(constraints.treeStrategy(Constraints.TreeStrategy.STEINER_TREE).build()));
+    }
+
+    private List<Subrequrest> decompose(Constraints constraints) throws FailureResult {
+        return new DecompositionAction(Arrays.asList(ep("t0:2"), ep("t1:2"), ep("t2:2")), graph.snapshot())
+                .withConstraints(constraints).decompose();
+    }
+
+    private Set<String> route(Constraints constraints) throws FailureResult {
+        return names(decompose(constraints));
+    }
+
+    private static Set<String> names(List<Subrequrest> decomposed) {
+        if (decomposed == null) {
+            return null;
+        }
+        return decomposed.stream().map(s -> s.getNodeUuid().getValue()).collect(Collectors.toSet());
+    }
+
+    private static Set<String> nodes(String... nodes) {
+        return new HashSet<>(Arrays.asList(nodes));
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2018 Cisco Systems Inc and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.unimgr.mef.nrp.impl.decomposer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.opendaylight.unimgr.mef.nrp.api.TapiConstants;
+import org.opendaylight.unimgr.mef.nrp.common.TapiUtils;
+import org.opendaylight.yang.gen.v1.urn.odl.unimgr.yang.unimgr.ext.rev170531.NodeAdiAugmentation;
+import org.opendaylight.yang.gen.v1.urn.odl.unimgr.yang.unimgr.ext.rev170531.NodeAdiAugmentationBuilder;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.ForwardingDirection;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.LayerProtocolName;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.OperationalState;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.PortDirection;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.Uuid;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.link.NodeEdgePoint;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.link.NodeEdgePointBuilder;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.node.OwnedNodeEdgePoint;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.node.OwnedNodeEdgePointBuilder;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.node.edge.point.MappedServiceInterfacePoint;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.topology.Link;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.topology.LinkBuilder;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.topology.Node;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.topology.NodeBuilder;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.topology.context.Topology;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.topology.context.TopologyBuilder;
+
+/**
+ * Generates in-memory system topologies for graph tests and benchmarks.
+ * Nodes are named <code>n{i}</code> and their node edge points <code>n{i}:{j}</code>.
+ * Each node edge point has a service interface point <code>sip:n{i}:{j}</code> mapped.
+ */
+final class TopologyGenerator {
+
+    private TopologyGenerator() {
+    }
+
+    /**
+     * Create a chain of nodes. Node <code>n{i}</code> is connected to <code>n{i+1}</code>
+     * with a link between <code>n{i}:0</code> and <code>n{i+1}:1</code>.
+     * @param nodes number of nodes
+     * @param ports number of bidirectional node edge points per node
+     * @return system topology
+     */
+    static Topology chain(int nodes, int ports) {
+        List<Node> nodeList = IntStream.range(0, nodes)
+                .mapToObj(i -> node("n" + i, ports))
+                .collect(Collectors.toList());
+
+        List<Link> links = new ArrayList<>();
+        for (int i = 0; i < nodes - 1; ++i) {
+            links.add(link("n" + i, "n" + i + ":0", "n" + (i + 1), "n" + (i + 1) + ":1"));
+        }
+
+        return new TopologyBuilder()
+                .setUuid(new Uuid(TapiConstants.PRESTO_SYSTEM_TOPO))
+                .setNode(nodeList)
+                .setLink(links)
+                .build();
+    }
+
+    static Node node(String nodeId, int ports) {
+        List<OwnedNodeEdgePoint> neps = IntStream.range(0, ports)
+                .mapToObj(j -> new OwnedNodeEdgePointBuilder()
+                        .setUuid(new Uuid(nodeId + ":" + j))
+                        .setLinkPortDirection(PortDirection.BIDIRECTIONAL)
+                        .setLayerProtocolName(LayerProtocolName.ETH)
+                        .setMappedServiceInterfacePoint(Collections.singletonList(
+                                TapiUtils.toSipRef(new Uuid("sip:" + nodeId + ":" + j),
+                                        MappedServiceInterfacePoint.class)))
+                        .build())
+                .collect(Collectors.toList());
+
+        return new NodeBuilder()
+                .setUuid(new Uuid(nodeId))
+                .setOwnedNodeEdgePoint(neps)
+                .addAugmentation(NodeAdiAugmentation.class, new NodeAdiAugmentationBuilder()
+                        .setActivationDriverId(nodeId).build())
+                .build();
+    }
+
+    static Link link(String nodeA, String nepA, String nodeB, String nepB) {
+        NodeEdgePointBuilder builder = new NodeEdgePointBuilder()
+                .setTopologyId(new Uuid(TapiConstants.PRESTO_SYSTEM_TOPO));
+        List<NodeEdgePoint> neps = Arrays.asList(
+                builder.setNodeId(new Uuid(nodeA)).setOwnedNodeEdgePointId(new Uuid(nepA)).build(),
+                builder.setNodeId(new Uuid(nodeB)).setOwnedNodeEdgePointId(new Uuid(nepB)).build());
+
+        return new LinkBuilder()
+                .setUuid(new Uuid(nepA + "-" + nepB))
+                .setDirection(ForwardingDirection.BIDIRECTIONAL)
+                .setOperationalState(OperationalState.ENABLED)
+                .setNodeEdgePoint(neps)
+                .build();
+    }
+}
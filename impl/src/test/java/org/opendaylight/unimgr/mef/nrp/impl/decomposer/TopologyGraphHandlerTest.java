@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2018 Cisco Systems Inc and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.unimgr.mef.nrp.impl.decomposer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.opendaylight.mdsal.binding.api.ReadWriteTransaction;
+import org.opendaylight.mdsal.common.api.LogicalDatastoreType;
+import org.opendaylight.unimgr.mef.nrp.api.FailureResult;
+import org.opendaylight.unimgr.mef.nrp.api.Subrequrest;
+import org.opendaylight.unimgr.mef.nrp.api.TapiConstants;
+import org.opendaylight.unimgr.mef.nrp.common.NrpDao;
+import org.opendaylight.unimgr.mef.nrp.impl.AbstractTestWithTopo;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.OperationalState;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.Uuid;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.topology.Link;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.topology.LinkKey;
+
+public class TopologyGraphHandlerTest extends AbstractTestWithTopo {
+    private TopologyGraph graph;
+    private TopologyGraphHandler handler;
+    private BasicDecomposer decomposer;
+
+    @Before
+    public void setUp() {
+        graph = new TopologyGraph();
+        handler = new TopologyGraphHandler(dataBroker, graph);
+        handler.init();
+        decomposer = new BasicDecomposer(dataBroker, graph);
+    }
+
+    @After
+    public void tearDown() {
+        handler.close();
+    }
+
+    @Test
+    public void snapshotSharedUntilChange() throws Exception {
+        ReadWriteTransaction tx = dataBroker.newReadWriteTransaction();
+        n(tx, "n1", "n1:1", "n1:2", "n1:3");
+        tx.commit().get();
+
+        TopologyGraph.Snapshot snapshot = awaitGraph(s -> s.getVertex(new Uuid("sip:n1:1")) != null);
+        assertSame(snapshot, graph.snapshot());
+
+        tx = dataBroker.newReadWriteTransaction();
+        n(tx, "n2", "n2:1", "n2:2");
+        tx.commit().get();
+
+        TopologyGraph.Snapshot updated = awaitGraph(s -> s.getVertex(new Uuid("sip:n2:1")) != null);
+        assertTrue(updated.getVersion() > snapshot.getVersion());
+        assertEquals(4, snapshot.getGraph().vertexSet().size());
+        assertEquals(7, updated.getGraph().vertexSet().size());
+    }
+
+    @Test
+    public void linkChangesPropagated() throws Exception {
+        //having
+        ReadWriteTransaction tx = dataBroker.newReadWriteTransaction();
+        n(tx, "n1", "n1:1", "n1:2", "n1:3");
+        n(tx, "n2", "n2:1", "n2:2", "n2:3");
+        n(tx, "n3", "n3:1", "n3:2", "n3:3");
+        tx.commit().get();
+        tx = dataBroker.newReadWriteTransaction();
+        l(tx, "n1", "n1:1", "n2", "n2:1", OperationalState.ENABLED);
+        l(tx, "n2", "n2:3", "n3", "n3:3", OperationalState.ENABLED);
+        tx.commit().get();
+
+        awaitGraph(s -> s.getGraph().containsEdge(vertex(s, "n2:3"), vertex(s, "n3:3")));
+
+        //when
+        List<Subrequrest> decomposed = decomposer.decompose(Arrays.asList(ep("n1:2"), ep("n3:2")), null);
+        assertNotNull(decomposed);
+        assertEquals(3, decomposed.size());
+
+        //when
+        tx = dataBroker.newReadWriteTransaction();
+        l(tx, "n1", "n1:1", "n2", "n2:1", OperationalState.DISABLED);
+        tx.commit().get();
+
+        awaitGraph(s -> !s.getGraph().containsEdge(vertex(s, "n1:1"), vertex(s, "n2:1")));
+
+        //then
+        try {
+            decomposer.decompose(Arrays.asList(ep("n1:2"), ep("n3:2")), null);
+            fail("disconnected endpoints decomposed");
+        } catch (FailureResult e) {
+            assertEquals("Service interface points are in disconnected parts of the topology: "
+                    + "[sip:n1:2] [sip:n3:2]", e.getMessage());
+        }
+        assertNotNull(decomposer.decompose(Arrays.asList(ep("n2:2"), ep("n3:2")), null));
+    }
+
+    @Test
+    public void nodeRemovalPropagated() throws Exception {
+        //having
+        ReadWriteTransaction tx = dataBroker.newReadWriteTransaction();
+        n(tx, "n1", "n1:1", "n1:2", "n1:3");
+        n(tx, "n2", "n2:1", "n2:2", "n2:3");
+        l(tx, "n1", "n1:1", "n2", "n2:1", OperationalState.ENABLED);
+        tx.commit().get();
+
+        awaitGraph(s -> s.getGraph().vertexSet().size() == 8);
+
+        //when
+        tx = dataBroker.newReadWriteTransaction();
+        new NrpDao(tx).removeNode("n2", false);
+        tx.delete(LogicalDatastoreType.OPERATIONAL, NrpDao.topo(TapiConstants.PRESTO_SYSTEM_TOPO)
+                .child(Link.class, new LinkKey(new Uuid("n1:1-n2:1"))));
+        tx.commit().get();
+
+        //then
+        TopologyGraph.Snapshot snapshot = awaitGraph(s -> s.getGraph().vertexSet().size() == 4);
+        assertNull(snapshot.getVertex(new Uuid("sip:n2:2")));
+        assertEquals(6, snapshot.getGraph().edgeSet().size());
+    }
+
+    @Test
+    public void linkBeforeNodePropagated() throws Exception {
+        //having link to not yet existing node
+        ReadWriteTransaction tx = dataBroker.newReadWriteTransaction();
+        n(tx, "n1", "n1:1", "n1:2");
+        l(tx, "n1", "n1:1", "n2", "n2:1", OperationalState.ENABLED);
+        tx.commit().get();
+
+        awaitGraph(s -> s.getVertex(new Uuid("sip:n1:2")) != null);
+
+        //when
+        tx = dataBroker.newReadWriteTransaction();
+        n(tx, "n2", "n2:1", "n2:2");
+        tx.commit().get();
+
+        //then
+        awaitGraph(s -> s.getVertex(new Uuid("sip:n2:2")) != null
+                && s.getGraph().containsEdge(vertex(s, "n1:1"), vertex(s, "n2:1"))
+                && s.getGraph().containsEdge(vertex(s, "n2:1"), vertex(s, "n1:1")));
+    }
+
+    private static Vertex vertex(TopologyGraph.Snapshot snapshot, String nepId) {
+        return snapshot.getGraph().vertexSet().stream()
+                .filter(v -> v.getUuid().getValue().equals(nepId))
+                .findFirst().orElse(null);
+    }
+
+    private TopologyGraph.Snapshot awaitGraph(Predicate<TopologyGraph.Snapshot> condition)
+            throws InterruptedException {
+        for (int i = 0; i < 40; ++i) {
+            TopologyGraph.Snapshot snapshot = graph.snapshot();
+            if (condition.test(snapshot)) {
+                return snapshot;
+            }
+            TimeUnit.MILLISECONDS.sleep(50);
+        }
+        throw new IllegalStateException("Topology graph not updated");
+    }
+}
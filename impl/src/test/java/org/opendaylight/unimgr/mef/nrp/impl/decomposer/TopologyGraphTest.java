@@ -0,0 +1,235 @@
+/*
+ * Copyright (c) 2018 Cisco Systems Inc and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.unimgr.mef.nrp.impl.decomposer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import org.junit.Test;
+import org.opendaylight.unimgr.mef.nrp.api.EndPoint;
+import org.opendaylight.unimgr.mef.nrp.api.FailureResult;
+import org.opendaylight.unimgr.mef.nrp.api.Subrequrest;
+import org.opendaylight.unimgr.mef.nrp.impl.AbstractTestWithTopo;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.Uuid;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.topology.Node;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.topology.context.Topology;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.topology.rev180307.topology.context.TopologyBuilder;
+
+public class TopologyGraphTest extends AbstractTestWithTopo {
+
+    @Test
+    public void hubEncodingEdgeCount() {
+        Topology topology = TopologyGenerator.chain(3, 50);
+
+        TopologyGraph.Snapshot mesh = TopologyGraph.of(topology, TopologyGraph.Encoding.FULL_MESH);
+        TopologyGraph.Snapshot hub = TopologyGraph.of(topology, TopologyGraph.Encoding.HUB);
+
+        //each link is represented by two directed edges
+        assertEquals(3 * 50 * 49 + 4, mesh.getGraph().edgeSet().size());
+        assertEquals(3 * 2 * 50 + 4, hub.getGraph().edgeSet().size());
+        assertEquals(150, mesh.getGraph().vertexSet().size());
+        assertEquals(153, hub.getGraph().vertexSet().size());
+    }
+
+    @Test
+    public void sameDecompositionForBothEncodings() throws FailureResult {
+        Topology topology = TopologyGenerator.chain(4, 6);
+        TopologyGraph.Snapshot mesh = TopologyGraph.of(topology, TopologyGraph.Encoding.FULL_MESH);
+        TopologyGraph.Snapshot hub = TopologyGraph.of(topology, TopologyGraph.Encoding.HUB);
+
+        List<Supplier<List<EndPoint>>> requests = Arrays.asList(
+            () -> Arrays.asList(ep("n0:2"), ep("n0:3")),
+            () -> Arrays.asList(ep("n0:2"), ep("n3:4")),
+            () -> Arrays.asList(ep("n1:2"), ep("n2:5")),
+            () -> Arrays.asList(ep("n0:2"), ep("n2:3"), ep("n3:5")));
+
+        for (Supplier<List<EndPoint>> request : requests) {
+            Map<Uuid, Set<String>> expected = normalize(new DecompositionAction(request.get(), mesh).decompose());
+            Map<Uuid, Set<String>> actual = normalize(new DecompositionAction(request.get(), hub).decompose());
+            assertFalse(actual.isEmpty());
+            assertEquals(expected, actual);
+        }
+    }
+
+    @Test
+    public void hubFollowsNodeUpdates() {
+        TopologyGraph graph = new TopologyGraph();
+        graph.putNode(TopologyGenerator.node("n0", 3));
+        assertEquals(6, graph.snapshot().getGraph().edgeSet().size());
+
+        graph.putNode(TopologyGenerator.node("n0", 5));
+        assertEquals(10, graph.snapshot().getGraph().edgeSet().size());
+        assertEquals(6, graph.snapshot().getGraph().vertexSet().size());
+
+        graph.putNode(TopologyGenerator.node("n0", 0));
+        assertEquals(0, graph.snapshot().getGraph().vertexSet().size());
+
+        graph.putNode(TopologyGenerator.node("n1", 2));
+        graph.removeNode(new Uuid("n1"));
+        assertEquals(0, graph.snapshot().getGraph().vertexSet().size());
+    }
+
+    @Test
+    public void versionKeptWhenGraphNotChanged() {
+        TopologyGraph graph = new TopologyGraph();
+        graph.putNode(TopologyGenerator.node("n0", 3));
+        graph.putLink(TopologyGenerator.link("n0", "n0:0", "n1", "n1:0"));
+        TopologyGraph.Snapshot snapshot = graph.snapshot();
+
+        //e.g. connection end point added to a node edge point
+        graph.putNode(TopologyGenerator.node("n0", 3));
+        assertSame(snapshot, graph.snapshot());
+
+        graph.putNode(TopologyGenerator.node("n0", 2));
+        assertNotSame(snapshot, graph.snapshot());
+    }
+
+    @Test
+    public void batchAppliedAtomically() throws Exception {
+        TopologyGraph graph = new TopologyGraph();
+        final long version = graph.getVersion();
+        ExecutorService reader = Executors.newSingleThreadExecutor();
+        try {
+            List<TopologyGraph.Snapshot> taken = new ArrayList<>();
+            graph.update(g -> {
+                g.putNode(TopologyGenerator.node("n0", 2));
+                //the reader is not blocked by the batch in progress
+                taken.add(readConcurrently(reader, graph));
+                g.putNode(TopologyGenerator.node("n1", 2));
+                g.putLink(TopologyGenerator.link("n0", "n0:0", "n1", "n1:0"));
+            });
+
+            //a snapshot taken in the middle of the batch sees none of its changes
+            assertEquals(version, taken.get(0).getVersion());
+            assertNull(taken.get(0).getNep(new Uuid("n0:0")));
+
+            TopologyGraph.Snapshot snapshot = graph.snapshot();
+            assertEquals(version + 1, graph.getVersion());
+            assertEquals(version + 1, snapshot.getVersion());
+            assertNotNull(snapshot.getGraph().getEdge(snapshot.getNep(new Uuid("n0:0")),
+                    snapshot.getNep(new Uuid("n1:0"))));
+        } finally {
+            reader.shutdownNow();
+        }
+
+        //nothing changed
+        graph.update(g -> g.putNode(TopologyGenerator.node("n0", 2)));
+        assertEquals(version + 1, graph.getVersion());
+    }
+
+    @Test
+    public void intraNodeLinkRemoved() {
+        for (TopologyGraph.Encoding encoding : TopologyGraph.Encoding.values()) {
+            TopologyGraph graph = new TopologyGraph(encoding);
+            graph.putNode(TopologyGenerator.node("n0", 3));
+            TopologyGraph.Snapshot before = graph.snapshot();
+            Vertex first = before.getNep(new Uuid("n0:0"));
+            Vertex second = before.getNep(new Uuid("n0:1"));
+
+            graph.putLink(TopologyGenerator.link("n0", "n0:0", "n0", "n0:1"));
+            assertNotNull(graph.snapshot().getGraph().getEdge(first, second));
+
+            graph.removeLink(new Uuid("n0:0-n0:1"));
+            TopologyGraph.Snapshot after = graph.snapshot();
+            assertEquals(encoding.name(), before.getGraph().edgeSet().size(), after.getGraph().edgeSet().size());
+            //only a full mesh keeps a direct edge between node edge points of the node
+            assertEquals(encoding.name(), encoding == TopologyGraph.Encoding.FULL_MESH,
+                    after.getGraph().containsEdge(first, second));
+            assertEquals(encoding.name(), encoding == TopologyGraph.Encoding.FULL_MESH,
+                    after.getGraph().containsEdge(second, first));
+        }
+    }
+
+    @Test
+    public void indexesFollowNodeUpdates() {
+        TopologyGraph graph = new TopologyGraph();
+        graph.putLink(TopologyGenerator.link("n0", "n0:0", "n1", "n1:0"));
+        graph.putNode(TopologyGenerator.node("n0", 2));
+        graph.putNode(TopologyGenerator.node("n1", 2));
+
+        TopologyGraph.Snapshot snapshot = graph.snapshot();
+        Vertex nep = snapshot.getNep(new Uuid("n0:0"));
+        assertNotNull(nep);
+        assertEquals(nep, snapshot.getVertex(new Uuid("sip:n0:0")));
+        assertNotNull(snapshot.getGraph().getEdge(nep, snapshot.getNep(new Uuid("n1:0"))));
+
+        graph.putNode(TopologyGenerator.node("n0", 1));
+        snapshot = graph.snapshot();
+        assertNull(snapshot.getNep(new Uuid("n0:1")));
+        assertNull(snapshot.getVertex(new Uuid("sip:n0:1")));
+        assertNotNull(snapshot.getNep(new Uuid("n0:0")));
+
+        graph.removeNode(new Uuid("n0"));
+        assertNull(graph.snapshot().getNep(new Uuid("n0:0")));
+        assertNull(graph.snapshot().getVertex(new Uuid("sip:n0:0")));
+    }
+
+    @Test
+    public void reachabilityFollowsLinks() throws FailureResult {
+        //having n0 - n1 chain and disconnected m0
+        Topology chain = TopologyGenerator.chain(2, 4);
+        List<Node> nodes = new ArrayList<>(chain.getNode());
+        nodes.add(TopologyGenerator.node("m0", 4));
+        Topology topology = new TopologyBuilder(chain).setNode(nodes).build();
+        TopologyGraph graph = new TopologyGraph();
+        graph.reset(topology);
+        List<Uuid> sips = Arrays.asList(new Uuid("sip:n0:2"), new Uuid("sip:m0:2"), new Uuid("sip:n1:3"));
+
+        ReachabilityIndex index = graph.snapshot().getReachability();
+        assertEquals(Arrays.asList(Arrays.asList(new Uuid("sip:n0:2"), new Uuid("sip:n1:3")),
+                Collections.singletonList(new Uuid("sip:m0:2"))), index.partition(sips));
+        assertEquals(index.partition(sips), CompactGraph.of(topology).reachability().partition(sips));
+        try {
+            index.verify(sips);
+            fail("disconnected service interface points accepted");
+        } catch (FailureResult e) {
+            assertEquals("Service interface points are in disconnected parts of the topology: "
+                    + "[sip:n0:2,sip:n1:3] [sip:m0:2]", e.getMessage());
+        }
+        //unknown service interface points are reported by the decomposer
+        index.verify(Arrays.asList(new Uuid("sip:n0:2"), new Uuid("sip:x0:2")));
+
+        graph.putLink(TopologyGenerator.link("n1", "n1:1", "m0", "m0:0"));
+        graph.snapshot().getReachability().verify(sips);
+    }
+
+    private static TopologyGraph.Snapshot readConcurrently(ExecutorService reader, TopologyGraph graph) {
+        try {
+            return reader.submit(graph::snapshot).get(5, TimeUnit.SECONDS);
+        } catch (InterruptedException | ExecutionException | TimeoutException e) {
+            throw new AssertionError("snapshot not taken", e);
+        }
+    }
+
+    private static Map<Uuid, Set<String>> normalize(List<Subrequrest> subrequests) {
+        assertNotNull(subrequests);
+        return subrequests.stream().collect(Collectors.toMap(Subrequrest::getNodeUuid,
+            s -> s.getEndpoints().stream()
+                    .map(e -> s.getActivationDriverId() + "/" + e.getNepRef().getOwnedNodeEdgePointId().getValue())
+                    .collect(Collectors.toSet())));
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2018 Cisco Systems Inc and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.unimgr.mef.nrp.impl.ext;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.opendaylight.mdsal.binding.api.ReadWriteTransaction;
+import org.opendaylight.mdsal.common.api.LogicalDatastoreType;
+import org.opendaylight.unimgr.mef.nrp.common.ConnectivityServiceIndex;
+import org.opendaylight.unimgr.mef.nrp.common.NrpDao;
+import org.opendaylight.unimgr.mef.nrp.common.TapiUtils;
+import org.opendaylight.unimgr.mef.nrp.impl.AbstractTestWithTopo;
+import org.opendaylight.yang.gen.v1.urn.odl.unimgr.yang.unimgr.ext.rev170531.ListConnectivityServicesInput;
+import org.opendaylight.yang.gen.v1.urn.odl.unimgr.yang.unimgr.ext.rev170531.ListConnectivityServicesInputBuilder;
+import org.opendaylight.yang.gen.v1.urn.odl.unimgr.yang.unimgr.ext.rev170531.ListConnectivityServicesOutput;
+import org.opendaylight.yang.gen.v1.urn.odl.unimgr.yang.unimgr.ext.rev170531.list.connectivity.services.output.Service;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.Uuid;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.Context1;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.ServiceType;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.connectivity.context.ConnectivityService;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.connectivity.context.ConnectivityServiceBuilder;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.connectivity.context.ConnectivityServiceKey;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.connectivity.service.EndPoint;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.connectivity.service.EndPointBuilder;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.connectivity.service.end.point.ServiceInterfacePoint;
+import org.opendaylight.yangtools.yang.common.Uint16;
+
+/**
+ * Paging and filtering of connectivity services with and without the index.
+ */
+public class ListConnectivityServicesActionTest extends AbstractTestWithTopo {
+    private ConnectivityServiceIndex index;
+
+    @Before
+    public void setUp() throws Exception {
+        ReadWriteTransaction tx = dataBroker.newReadWriteTransaction();
+        n(tx, "n1", "n1:1", "n1:2");
+        n(tx, "n2", "n2:1", "n2:2");
+        c(tx, "n1", "n1:1", "n1:2");
+        c(tx, "n2", Collections.singletonList(new Uuid("c:n1")), "n2:1", "n2:2");
+        for (int i = 1; i <= 5; ++i) {
+            cs(tx, "cs" + i, ServiceType.POINTTOPOINTCONNECTIVITY, Collections.emptyList(), "n1:1", "x:" + i);
+        }
+        cs(tx, "cs6", ServiceType.MULTIPOINTCONNECTIVITY, Collections.singletonList(new Uuid("c:n2")),
+                "n2:1", "n2:2", "x:6");
+        tx.commit().get();
+
+        index = new ConnectivityServiceIndex(dataBroker);
+        index.init();
+        for (int i = 0; i < 40 && index.after(null).count() < 6; ++i) {
+            TimeUnit.MILLISECONDS.sleep(50);
+        }
+    }
+
+    @After
+    public void tearDown() {
+        index.close();
+    }
+
+    @Test
+    public void pages() throws Exception {
+        List<String> listed = new ArrayList<>();
+        String token = null;
+        int pages = 0;
+        do {
+            ListConnectivityServicesOutput page = list(index, new ListConnectivityServicesInputBuilder()
+                    .setPageSize(Uint16.valueOf(4))
+                    .setContinuationToken(token));
+            listed.addAll(ids(page));
+            token = page.getContinuationToken();
+            ++pages;
+        } while (token != null);
+
+        assertEquals(2, pages);
+        assertEquals(Arrays.asList("cs1", "cs2", "cs3", "cs4", "cs5", "cs6"), listed);
+    }
+
+    @Test
+    public void lastPageFull() throws Exception {
+        ListConnectivityServicesOutput page = list(index, new ListConnectivityServicesInputBuilder()
+                .setPageSize(Uint16.valueOf(3))
+                .setContinuationToken("cs3"));
+        assertEquals(Arrays.asList("cs4", "cs5", "cs6"), ids(page));
+        assertNull(page.getContinuationToken());
+    }
+
+    @Test
+    public void filters() throws Exception {
+        assertEquals(Arrays.asList("cs1", "cs2", "cs3", "cs4", "cs5"), ids(list(index,
+                new ListConnectivityServicesInputBuilder().setSipId(new Uuid("sip:n1:1")))));
+        assertEquals(Collections.singletonList("cs6"), ids(list(index,
+                new ListConnectivityServicesInputBuilder().setServiceType(ServiceType.MULTIPOINTCONNECTIVITY))));
+        //through a lower connection on the route
+        assertEquals(Collections.singletonList("cs6"), ids(list(index,
+                new ListConnectivityServicesInputBuilder().setNodeId(new Uuid("n1")))));
+        assertEquals(Collections.emptyList(), ids(list(index,
+                new ListConnectivityServicesInputBuilder().setSipId(new Uuid("sip:n1:1"))
+                        .setServiceType(ServiceType.MULTIPOINTCONNECTIVITY))));
+    }
+
+    @Test
+    public void withoutIndex() throws Exception {
+        ListConnectivityServicesOutput page = list(null,
+                new ListConnectivityServicesInputBuilder().setPageSize(Uint16.valueOf(2)).setNodeId(new Uuid("n2")));
+        assertEquals(Collections.singletonList("cs6"), ids(page));
+        assertNull(page.getContinuationToken());
+    }
+
+    private ListConnectivityServicesOutput list(ConnectivityServiceIndex services,
+                                                ListConnectivityServicesInputBuilder input) throws Exception {
+        ListConnectivityServicesInput request = input.build();
+        return new ListConnectivityServicesAction(dataBroker, services, request).call().getResult();
+    }
+
+    private static List<String> ids(ListConnectivityServicesOutput output) {
+        return output.getService() == null ? Collections.emptyList()
+                : output.getService().stream().map(Service::getUuid).map(Uuid::getValue).collect(Collectors.toList());
+    }
+
+    private void cs(ReadWriteTransaction tx, String id, ServiceType type, List<Uuid> connections, String... neps) {
+        List<EndPoint> eps = Arrays.stream(neps).map(nep -> new EndPointBuilder()
+                .setLocalId("e:" + nep)
+                .setServiceInterfacePoint(TapiUtils.toSipRef(new Uuid("sip:" + nep), ServiceInterfacePoint.class))
+                .build()).collect(Collectors.toList());
+        ConnectivityService cs = new ConnectivityServiceBuilder()
+                .setUuid(new Uuid(id))
+                .setServiceType(type)
+                .setConnection(connections)
+                .setEndPoint(eps)
+                .build();
+        tx.put(LogicalDatastoreType.OPERATIONAL, NrpDao.ctx().augmentation(Context1.class)
+                .child(ConnectivityService.class, new ConnectivityServiceKey(cs.getUuid())), cs);
+    }
+}
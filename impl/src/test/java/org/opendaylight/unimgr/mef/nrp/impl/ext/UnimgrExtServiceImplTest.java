@@ -41,7 +41,7 @@ public class UnimgrExtServiceImplTest extends AbstractTestWithTopo {
     @Before
     public void setUp() {
         extService = new UnimgrExtServiceImpl(dataBroker);
-
+        extService.init();
     }
 
     @Test
@@ -0,0 +1,356 @@
+/*
+ * Copyright (c) 2018 Cisco Systems Inc and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.unimgr.mef.nrp.impl.pathcomputation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.opendaylight.mdsal.binding.api.ReadTransaction;
+import org.opendaylight.mdsal.binding.api.ReadWriteTransaction;
+import org.opendaylight.mdsal.common.api.LogicalDatastoreType;
+import org.opendaylight.unimgr.mef.nrp.api.ActivationDriver;
+import org.opendaylight.unimgr.mef.nrp.api.Constraints;
+import org.opendaylight.unimgr.mef.nrp.api.RequestDecomposer;
+import org.opendaylight.unimgr.mef.nrp.api.RequestValidator;
+import org.opendaylight.unimgr.mef.nrp.api.Subrequrest;
+import org.opendaylight.unimgr.mef.nrp.api.TapiConstants;
+import org.opendaylight.unimgr.mef.nrp.common.NrpDao;
+import org.opendaylight.unimgr.mef.nrp.common.TapiUtils;
+import org.opendaylight.unimgr.mef.nrp.impl.AbstractTestWithTopo;
+import org.opendaylight.unimgr.mef.nrp.impl.ConnectivityServiceIdResourcePool;
+import org.opendaylight.unimgr.mef.nrp.impl.connectivityservice.TapiConnectivityServiceImpl;
+import org.opendaylight.unimgr.mef.nrp.impl.decomposer.BasicDecomposer;
+import org.opendaylight.unimgr.mef.nrp.impl.decomposer.TopologyGraph;
+import org.opendaylight.unimgr.utils.ActivationDriverMocks;
+import org.opendaylight.yang.gen.v1.urn.mef.yang.nrp._interface.rev180321.EndPoint2;
+import org.opendaylight.yang.gen.v1.urn.mef.yang.nrp._interface.rev180321.EndPoint2Builder;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.CapacityUnit;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.DirectiveValue;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.OperationalState;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.PortDirection;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.PortRole;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.Uuid;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.common.rev180307.capacity.TotalSizeBuilder;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.CreateConnectivityServiceInput;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.CreateConnectivityServiceInputBuilder;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.CreateConnectivityServiceOutput;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.ServiceType;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.connectivity.service.end.point.ServiceInterfacePoint;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.create.connectivity.service.input.ConnConstraintBuilder;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.create.connectivity.service.input.EndPoint;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.create.connectivity.service.input.EndPointBuilder;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.create.connectivity.service.input.TopoConstraintBuilder;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.connectivity.rev180307.topology.constraint.IncludePathBuilder;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.path.computation.rev180307.ComputeP2PPathInput;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.path.computation.rev180307.ComputeP2PPathInputBuilder;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.path.computation.rev180307.ComputeP2PPathOutput;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.path.computation.rev180307.DeleteP2PPathInputBuilder;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.path.computation.rev180307.DeleteP2PPathOutput;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.path.computation.rev180307.OptimizeP2PPathInputBuilder;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.path.computation.rev180307.OptimizeP2PPathOutput;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.path.computation.rev180307.compute.p._2.p.path.input.ObjectiveFunctionBuilder;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.path.computation.rev180307.compute.p._2.p.path.input.RoutingConstraintBuilder;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.path.computation.rev180307.compute.p._2.p.path.input.Sep;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.path.computation.rev180307.compute.p._2.p.path.input.SepBuilder;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.path.computation.rev180307.path.computation.context.Path;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.path.computation.rev180307.path.computation.context.PathKey;
+import org.opendaylight.yang.gen.v1.urn.onf.otcc.yang.tapi.path.computation.rev180307.routing.constraint.RequestedCapacityBuilder;
+import org.opendaylight.yangtools.yang.common.RpcResult;
+import org.opendaylight.yangtools.yang.common.Uint64;
+
+public class TapiPathComputationServiceImplTest extends AbstractTestWithTopo {
+
+    private TapiPathComputationServiceImpl pathComputationService;
+    private RequestDecomposer decomposer;
+    private PathStore pathStore;
+
+    @Before
+    public void setUp() throws Exception {
+        ReadWriteTransaction tx = dataBroker.newReadWriteTransaction();
+        n(tx, "n1", "n1:1", "n1:2", "n1:3");
+        n(tx, "n2", "n2:1", "n2:2", "n2:3");
+        n(tx, "n3", "n3:1", "n3:2", "n3:3");
+        tx.commit().get();
+        tx = dataBroker.newReadWriteTransaction();
+        l(tx, "n1", "n1:1", "n2", "n2:1", OperationalState.ENABLED);
+        l(tx, "n2", "n2:3", "n3", "n3:3", OperationalState.ENABLED);
+        tx.commit().get();
+
+        decomposer = spy(new BasicDecomposer(dataBroker));
+        pathStore = new PathStore();
+        pathComputationService = new TapiPathComputationServiceImpl();
+        pathComputationService.setDecomposer(decomposer);
+        pathComputationService.setBroker(dataBroker);
+        pathComputationService.setPathStore(pathStore);
+        TopologyGraph graph = new TopologyGraph();
+        graph.reset(new NrpDao(dataBroker.newReadOnlyTransaction()).getTopology(TapiConstants.PRESTO_SYSTEM_TOPO));
+        pathComputationService.setTopologyGraph(graph);
+        pathComputationService.init();
+    }
+
+    @After
+    public void tearDown() {
+        pathComputationService.close();
+    }
+
+    @Test
+    public void computePath() throws Exception {
+        //when
+        RpcResult<ComputeP2PPathOutput> result = pathComputationService
+                .computeP2PPath(input("n1:2", "n3:2")).get();
+
+        //then
+        assertTrue(result.isSuccessful());
+        Uuid pathId = result.getResult().getService().getPath().get(0).getPathId();
+        assertEquals(2, result.getResult().getService().getEndPoint().size());
+        assertNotNull(pathStore.get(pathId));
+
+        Path path = readPath(pathId);
+        assertNotNull(path);
+        Set<String> links = path.getLink().stream().map(l -> l.getLinkId().getValue()).collect(Collectors.toSet());
+        assertEquals(new HashSet<>(Arrays.asList("n1:1-n2:1", "n2:3-n3:3")), links);
+    }
+
+    @Test
+    public void computeWithoutPath() throws Exception {
+        //having
+        ReadWriteTransaction tx = dataBroker.newReadWriteTransaction();
+        l(tx, "n1", "n1:1", "n2", "n2:1", OperationalState.DISABLED);
+        tx.commit().get();
+
+        //when
+        RpcResult<ComputeP2PPathOutput> result = pathComputationService
+                .computeP2PPath(input("n1:2", "n3:2")).get();
+
+        //then
+        assertFalse(result.isSuccessful());
+        assertEquals(0, pathStore.size());
+    }
+
+    @Test
+    public void computeWithConstraints() throws Exception {
+        //when
+        RpcResult<ComputeP2PPathOutput> result = pathComputationService.computeP2PPath(
+                new ComputeP2PPathInputBuilder(input("n1:2", "n3:2"))
+                        .setRoutingConstraint(new RoutingConstraintBuilder()
+                                .setRequestedCapacity(new RequestedCapacityBuilder()
+                                        .setTotalSize(new TotalSizeBuilder()
+                                                .setValue(Uint64.valueOf(10))
+                                                .setUnit(CapacityUnit.MBPS)
+                                                .build())
+                                        .build())
+                                .build())
+                        .setObjectiveFunction(new ObjectiveFunctionBuilder()
+                                .setCostOptimization(DirectiveValue.MINIMIZE)
+                                .build())
+                        .build()).get();
+
+        //then
+        assertTrue(result.isSuccessful());
+        assertNotNull(result.getResult().getService().getRoutingConstraint());
+        verify(decomposer).decompose(any(), argThat(c -> c.getBandwidth() == 10_000_000L
+                && c.getMetric() == Constraints.Metric.COST));
+    }
+
+    @Test
+    public void unsupportedConstraintRejected() throws Exception {
+        //when
+        RpcResult<ComputeP2PPathOutput> result = pathComputationService.computeP2PPath(
+                new ComputeP2PPathInputBuilder(input("n1:2", "n3:2"))
+                        .setRoutingConstraint(new RoutingConstraintBuilder().setServiceLevel("gold").build())
+                        .build()).get();
+
+        //then
+        assertFalse(result.isSuccessful());
+        verifyZeroInteractions(decomposer);
+        assertEquals(0, pathStore.size());
+    }
+
+    @Test
+    public void pathResolvedFromDataStore() throws Exception {
+        //having
+        Uuid pathId = pathComputationService.computeP2PPath(input("n1:2", "n3:2")).get()
+                .getResult().getService().getPath().get(0).getPathId();
+
+        //when
+        PlannedPath resolved = new PathStore(dataBroker).get(pathId);
+
+        //then
+        assertNotNull(resolved);
+        List<org.opendaylight.unimgr.mef.nrp.api.EndPoint> endpoints = resolved.getService().getEndPoint().stream()
+                .map(PathPlanner::toEndPoint).collect(Collectors.toList());
+        assertTrue(resolved.connects(endpoints));
+        assertEquals(neps(pathStore.get(pathId).bind(endpoints)), neps(resolved.bind(endpoints)));
+        assertNull(new PathStore(dataBroker).get(new Uuid("unknown")));
+    }
+
+    @Test
+    public void optimizePath() throws Exception {
+        //having
+        Uuid pathId = pathComputationService.computeP2PPath(input("n1:2", "n2:2")).get()
+                .getResult().getService().getPath().get(0).getPathId();
+
+        //when
+        RpcResult<OptimizeP2PPathOutput> result = pathComputationService.optimizeP2PPath(
+                new OptimizeP2PPathInputBuilder().setPathIdOrName(pathId.getValue()).build()).get();
+        RpcResult<OptimizeP2PPathOutput> unknown = pathComputationService.optimizeP2PPath(
+                new OptimizeP2PPathInputBuilder().setPathIdOrName("unknown").build()).get();
+
+        //then
+        assertFalse(unknown.isSuccessful());
+        assertTrue(result.isSuccessful());
+        assertEquals(pathId, result.getResult().getService().getPath().get(0).getPathId());
+        assertEquals(1, pathStore.size());
+    }
+
+    @Test
+    public void deletePath() throws Exception {
+        //having
+        Uuid pathId = pathComputationService.computeP2PPath(input("n1:2", "n2:2")).get()
+                .getResult().getService().getPath().get(0).getPathId();
+
+        //when
+        RpcResult<DeleteP2PPathOutput> result = pathComputationService.deleteP2PPath(
+                new DeleteP2PPathInputBuilder().setPathIdOrName(pathId.getValue()).build()).get();
+        RpcResult<DeleteP2PPathOutput> again = pathComputationService.deleteP2PPath(
+                new DeleteP2PPathInputBuilder().setPathIdOrName(pathId.getValue()).build()).get();
+
+        //then
+        assertTrue(result.isSuccessful());
+        assertFalse(again.isSuccessful());
+        assertNull(pathStore.get(pathId));
+        assertNull(readPath(pathId));
+    }
+
+    @Test
+    public void createWithPrecomputedPath() throws Exception {
+        //having
+        Uuid pathId = pathComputationService.computeP2PPath(input("n1:2", "n3:2")).get()
+                .getResult().getService().getPath().get(0).getPathId();
+
+        ActivationDriver driver = mock(ActivationDriver.class);
+        TapiConnectivityServiceImpl connectivityService = connectivityService(driver);
+
+        //when
+        final RpcResult<CreateConnectivityServiceOutput> result = connectivityService
+                .createConnectivityService(createInput(pathId, "n1:2", "n3:2")).get();
+        RpcResult<CreateConnectivityServiceOutput> otherEndpoints = connectivityService
+                .createConnectivityService(createInput(pathId, "n1:2", "n2:2")).get();
+        RpcResult<CreateConnectivityServiceOutput> unknown = connectivityService
+                .createConnectivityService(createInput(new Uuid("unknown"), "n1:2", "n3:2")).get();
+        connectivityService.close();
+
+        //then
+        assertFalse(unknown.isSuccessful());
+        assertFalse(otherEndpoints.isSuccessful());
+        assertTrue(result.isSuccessful());
+        verify(driver, times(3)).activate();
+        verify(decomposer, times(1)).decompose(any(), any());
+    }
+
+    @Test
+    public void createWithoutPathStore() throws Exception {
+        //having
+        ActivationDriver driver = mock(ActivationDriver.class);
+        TapiConnectivityServiceImpl connectivityService = connectivityService(driver);
+        connectivityService.setPathStore(null);
+
+        //when
+        RpcResult<CreateConnectivityServiceOutput> result = connectivityService
+                .createConnectivityService(createInput(new Uuid("path:1"), "n1:2", "n3:2")).get();
+        connectivityService.close();
+
+        //then
+        assertFalse(result.isSuccessful());
+        verifyZeroInteractions(driver);
+    }
+
+    private TapiConnectivityServiceImpl connectivityService(ActivationDriver driver) {
+        RequestValidator validator = mock(RequestValidator.class);
+        when(validator.checkValid(any(CreateConnectivityServiceInput.class)))
+                .thenReturn(new RequestValidator.ValidationResult());
+
+        TapiConnectivityServiceImpl connectivityService = new TapiConnectivityServiceImpl();
+        connectivityService.setDriverRepo(ActivationDriverMocks.builder()
+                .add("n1", driver)
+                .add("n2", driver)
+                .add("n3", driver)
+                .build());
+        connectivityService.setDecomposer(decomposer);
+        connectivityService.setValidator(validator);
+        connectivityService.setBroker(dataBroker);
+        connectivityService.setServiceIdPool(new ConnectivityServiceIdResourcePool());
+        connectivityService.setPathStore(pathStore);
+        connectivityService.init();
+        return connectivityService;
+    }
+
+    private static Map<Uuid, Set<Uuid>> neps(List<Subrequrest> decomposition) {
+        return decomposition.stream().collect(Collectors.toMap(Subrequrest::getNodeUuid, s -> s.getEndpoints().stream()
+                .map(e -> e.getNepRef().getOwnedNodeEdgePointId()).collect(Collectors.toSet())));
+    }
+
+    private Path readPath(Uuid pathId) throws Exception {
+        ReadTransaction tx = dataBroker.newReadOnlyTransaction();
+        Optional<Path> path = tx.read(LogicalDatastoreType.OPERATIONAL, TapiPathComputationServiceImpl
+                .PATH_COMPUTATION_CTX.child(Path.class, new PathKey(pathId))).get();
+        return path.orElse(null);
+    }
+
+    private static ComputeP2PPathInput input(String... neps) {
+        List<Sep> seps = Arrays.stream(neps).map(nep -> new SepBuilder()
+                .setLocalId("sep:" + nep)
+                .setDirection(PortDirection.BIDIRECTIONAL)
+                .setServiceInterfacePoint(new Uuid("sip:" + nep))
+                .build()).collect(Collectors.toList());
+        return new ComputeP2PPathInputBuilder().setSep(seps).build();
+    }
+
+    private static CreateConnectivityServiceInput createInput(Uuid pathId, String... neps) {
+        List<EndPoint> eps = Arrays.stream(neps).map(nep -> new EndPointBuilder()
+                .setLocalId("e:" + nep)
+                .setRole(PortRole.SYMMETRIC)
+                .setDirection(PortDirection.BIDIRECTIONAL)
+                .setServiceInterfacePoint(TapiUtils.toSipRef(new Uuid("sip:" + nep), ServiceInterfacePoint.class))
+                .addAugmentation(EndPoint2.class, new EndPoint2Builder().build())
+                .build()).collect(Collectors.toList());
+
+        return new CreateConnectivityServiceInputBuilder()
+                .setEndPoint(eps)
+                .setConnConstraint(new ConnConstraintBuilder()
+                        .setIsExclusive(true)
+                        .setServiceType(ServiceType.POINTTOPOINTCONNECTIVITY).build())
+                .setTopoConstraint(new TopoConstraintBuilder()
+                        .setIncludePath(Collections.singletonList(new IncludePathBuilder().setPathId(pathId).build()))
+                        .build())
+                .build();
+    }
+}